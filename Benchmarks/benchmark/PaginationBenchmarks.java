@@ -0,0 +1,72 @@
+package benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import benchmark.SyntheticArabic.Size;
+import dal.PageStream;
+import dal.PaginationDAO;
+import dal.Paginator;
+
+/**
+ * JMH benchmarks of pagination, up to huge (10 MB) inputs, which the other
+ * text-processing benchmarks would take too long to set up for. paginate
+ * pages text held in memory; streamPages decodes the UTF-8 bytes of the
+ * text through a PageStream and reads its pages in chunks, as a file
+ * import does. Run through TextProcessingBenchmarks, which picks up these
+ * benchmarks too.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginationBenchmarks {
+	// Pages read from a stream at a time, as an import stores them
+	private static final int CHUNK_PAGES = 500;
+
+	@Param({ "SMALL", "MEDIUM", "LARGE", "HUGE" })
+	public Size size;
+
+	private String text;
+	private byte[] bytes;
+
+	@Setup
+	public void setUp() {
+		text = SyntheticArabic.text(size);
+		bytes = text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public Object paginate() {
+		return PaginationDAO.paginate(text);
+	}
+
+	@Benchmark
+	public int streamPages() throws IOException {
+		int pages = 0;
+		try (PageStream stream = new PageStream(Channels.newChannel(new ByteArrayInputStream(bytes)),
+				Paginator.fromConfig())) {
+			while (stream.hasMorePages()) {
+				pages += stream.nextPages(CHUNK_PAGES).size();
+			}
+		}
+		return pages;
+	}
+}
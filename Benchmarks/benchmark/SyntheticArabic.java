@@ -0,0 +1,70 @@
+package benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic Arabic text for benchmarks. Words are drawn from a fixed
+ * vocabulary with a skewed distribution, some carry harakat, and
+ * punctuation and line breaks are mixed in, so the text exercises the
+ * same paths as real documents. The same size and seed always give the
+ * same text.
+ */
+public final class SyntheticArabic {
+	public enum Size {
+		SMALL(1024), MEDIUM(64 * 1024), LARGE(1024 * 1024), HUGE(10 * 1024 * 1024);
+
+		private final int chars;
+
+		Size(int chars) {
+			this.chars = chars;
+		}
+
+		public int getChars() {
+			return chars;
+		}
+	}
+
+	private static final String[] WORDS = { "كتب", "الولد", "الدرس", "في", "المدرسة", "قرأ", "الكتاب", "جميل", "ذهب",
+			"إلى", "السوق", "مع", "أبيه", "العلم", "نور", "والجهل", "ظلام", "من", "على", "هذا", "كان", "قال", "الناس",
+			"اللغة", "العربية", "تاريخ", "المدينة", "الطالب", "المعلم", "السماء", "الأرض", "الماء", "الشمس", "القمر",
+			"يكتبون", "مكتبة", "كاتب", "مكتوب", "استخراج", "الجذور" };
+	private static final String[] VOWELLED = { "كَتَبَ", "ٱلْكِتَابُ", "عِلْمٌ", "مَدْرَسَةٌ", "إِنَّا", "أَعْطَيْنَاكَ",
+			"ٱلْكَوْثَرَ" };
+	private static final String[] PUNCTUATION = { "،", ".", "؟", "!", "؛" };
+
+	public static final long DEFAULT_SEED = 42;
+
+	private SyntheticArabic() {
+	}
+
+	public static String text(Size size) {
+		return text(size.getChars(), DEFAULT_SEED);
+	}
+
+	public static String text(int chars, long seed) {
+		Random random = new Random(seed);
+		StringBuilder text = new StringBuilder(chars + 32);
+		int wordsInLine = 0;
+		while (text.length() < chars) {
+			double pick = random.nextDouble();
+			if (pick < 0.1) {
+				text.append(VOWELLED[random.nextInt(VOWELLED.length)]);
+			} else {
+				// Squaring skews the choice towards the first words, like natural text
+				double skew = random.nextDouble();
+				text.append(WORDS[(int) (skew * skew * WORDS.length)]);
+			}
+			if (random.nextInt(12) == 0) {
+				text.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+			}
+			if (++wordsInLine == 15) {
+				text.append('\n');
+				wordsInLine = 0;
+			} else {
+				text.append(' ');
+			}
+		}
+		text.setLength(chars);
+		return text.toString();
+	}
+}
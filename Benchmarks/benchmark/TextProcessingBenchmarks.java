@@ -0,0 +1,339 @@
+package benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import benchmark.SyntheticArabic.Size;
+import bll.SearchWord;
+import dal.ArabicNormalizer;
+import dal.ArabicTokenizer;
+import dal.DocumentTermCounter;
+import dal.HashCalculator;
+import dal.PKLCalculator;
+import dal.PMICalculator;
+import dal.Paginator;
+import dal.PreProcessText;
+import dal.TFIDFCalculator;
+import dal.Transliteration;
+import dto.Documents;
+import dto.Pages;
+
+/**
+ * JMH benchmarks of the text-processing hot paths at small (1 KB), medium
+ * (64 KB) and large (1 MB) synthetic Arabic inputs, run together with
+ * PaginationBenchmarks, which also pages huge (10 MB) ones. Every benchmark and
+ * size runs in a JVM of its own, so the profile one benchmark leaves in
+ * the JIT cannot slow down the next, and the GC profiler reports the
+ * allocation per operation. Compile src and Benchmarks with the JMH jars
+ * of resource on the classpath, which runs the JMH annotation processor,
+ * and run from the project directory, so pagination reads
+ * config.properties:
+ *
+ * <pre>
+ * java benchmark.TextProcessingBenchmarks [-wi 3] [-i 5] [-t 1000] [-fk 1] [-f regex] [-s small,medium,large,huge]
+ *                                         [-o results.csv] [-b baseline.csv] [-r 10]
+ * </pre>
+ *
+ * -wi and -i are the warmup and measurement iterations, -t the length of
+ * one iteration in milliseconds and -fk the JVMs forked per benchmark. -f
+ * keeps the benchmarks whose method name matches and -s the sizes given;
+ * without -s each benchmark runs at the sizes of its @Param.
+ * -o writes the results as CSV; -b compares them with an earlier CSV and
+ * exits with status 1 if any benchmark lost more than -r percent of its
+ * throughput. The class can also be run with org.openjdk.jmh.Main and the
+ * usual JMH options.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextProcessingBenchmarks {
+	private static final String CSV_HEADER = "benchmark,size,opsPerSecond,error,nanosPerOp,bytesPerOp,allocationMbPerSecond";
+	private static final String KEYWORD = "مستودع";
+	private static final Set<Character> HARAKAT = new HashSet<>(Arrays.asList('َ', 'ً', 'ُ', 'ٌ', 'ِ', 'ٍ', 'ْ', 'ّ'));
+
+	@Param({ "SMALL", "MEDIUM", "LARGE" })
+	public Size size;
+
+	private String text;
+	private Map<String, Integer> termCounts;
+	private int totalWords;
+	private Map<String, Integer> documentFrequencies;
+	private List<Documents> documents;
+	private ArabicNormalizer normalizer;
+	private ArabicTokenizer tokenizer;
+	private StringBuilder romanText;
+	private Transliteration transliteration;
+
+	/**
+	 * Builds the inputs for the size, outside the measured code.
+	 */
+	@Setup
+	public void setUp() {
+		text = SyntheticArabic.text(size);
+
+		DocumentTermCounter counter = new DocumentTermCounter();
+		counter.accept(text);
+		termCounts = counter.getTermCounts();
+		totalWords = counter.getWordCount();
+		documentFrequencies = new HashMap<>();
+		for (String term : termCounts.keySet()) {
+			documentFrequencies.put(term, 1 + Math.floorMod(term.hashCode(), 100));
+		}
+
+		documents = searchCorpus(text);
+		normalizer = new ArabicNormalizer(ArabicNormalizer.Profile.ARABIC, true);
+		tokenizer = new ArabicTokenizer();
+		romanText = new StringBuilder();
+		transliteration = new Transliteration(romanText);
+	}
+
+	@Benchmark
+	public Object preprocessText() {
+		return PreProcessText.preprocessText(text);
+	}
+
+	@Benchmark
+	public Object regexPreprocessBaseline() {
+		return regexPreprocess(text);
+	}
+
+	@Benchmark
+	public Object normalize() {
+		return normalizer.normalize(text);
+	}
+
+	@Benchmark
+	public Object tokenize() {
+		return tokenizer.tokenize(text);
+	}
+
+	@Benchmark
+	public Object calculateHash() throws Exception {
+		return HashCalculator.calculateHash(text);
+	}
+
+	@Benchmark
+	public Object transliterate() {
+		return Transliteration.transliterate(text);
+	}
+
+	@Benchmark
+	public Object transliterateAppend() throws IOException {
+		romanText.setLength(0);
+		transliteration.reset();
+		return transliteration.append(text);
+	}
+
+	@Benchmark
+	public Object calculateDocumentTfIdf() {
+		return new TFIDFCalculator().calculateDocumentTfIdf(termCounts, totalWords, 1000, documentFrequencies);
+	}
+
+	@Benchmark
+	public Object calculatePMIForAllBigrams() {
+		return new PMICalculator(text).calculatePMIForAllBigrams();
+	}
+
+	@Benchmark
+	public Object calculateStrongestBigrams() {
+		return new PMICalculator(text).calculateStrongestBigrams(2, 100);
+	}
+
+	@Benchmark
+	public Object calculatePKLForAllWords() {
+		return new PKLCalculator(text).calculatePKLForAllWords();
+	}
+
+	@Benchmark
+	public double pklForEachContext() {
+		double[] total = new double[1];
+		new PKLCalculator(text).forEachContext((left, word, right, count, pkl) -> total[0] += count * pkl);
+		return total[0];
+	}
+
+	@Benchmark
+	public Object searchKeyword() {
+		return SearchWord.searchKeyword(KEYWORD, documents);
+	}
+
+	/**
+	 * PreProcessText as it was before the table-driven normalizer: a boxed
+	 * set lookup per character, a regex compiled per call and lowercasing.
+	 * Kept to compare the two.
+	 */
+	private static String regexPreprocess(String text) {
+		StringBuilder result = new StringBuilder();
+		for (char ch : text.toCharArray()) {
+			if (!HARAKAT.contains(ch)) {
+				result.append(ch);
+			}
+		}
+		return result.toString().replaceAll("[^\\p{IsArabic}\\s]", "").toLowerCase();
+	}
+
+	/**
+	 * The text split into ten documents of 100-character pages, with the
+	 * keyword only on the last page of the last one, so a search reads
+	 * every page.
+	 */
+	private static List<Documents> searchCorpus(String text) {
+		List<Documents> documents = new ArrayList<>();
+		int length = text.length() / 10;
+		for (int d = 0; d < 10; d++) {
+			String content = text.substring(d * length, (d + 1) * length);
+			if (d == 9) {
+				content += " " + KEYWORD;
+			}
+			List<Pages> pages = new Paginator(Paginator.Unit.CHARACTERS, Paginator.DEFAULT_SIZE).paginate(content);
+			documents.add(new Documents(d + 1, "document" + (d + 1) + ".txt", "", "", "", pages));
+		}
+		return documents;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			options.put(args[i], args[i + 1]);
+		}
+		long iterationMillis = Long.parseLong(options.getOrDefault("-t", "1000"));
+		ChainedOptionsBuilder builder = new OptionsBuilder();
+		if (options.containsKey("-s")) {
+			List<String> sizes = new ArrayList<>();
+			for (String size : options.get("-s").split(",")) {
+				sizes.add(Size.valueOf(size.trim().toUpperCase(Locale.ROOT)).name());
+			}
+			builder.param("size", sizes.toArray(new String[0]));
+		}
+		Pattern filter = Pattern.compile(options.getOrDefault("-f", ".*"));
+		boolean included = false;
+		for (Class<?> benchmarks : Arrays.asList(TextProcessingBenchmarks.class, PaginationBenchmarks.class)) {
+			for (Method method : benchmarks.getMethods()) {
+				if (method.isAnnotationPresent(Benchmark.class) && filter.matcher(method.getName()).find()) {
+					builder.include(Pattern.quote(benchmarks.getName() + "." + method.getName()) + "$");
+					included = true;
+				}
+			}
+		}
+		if (!included) {
+			// JMH would run every benchmark it knows of
+			throw new IllegalArgumentException("No benchmark matches " + filter);
+		}
+		builder.warmupIterations(Integer.parseInt(options.getOrDefault("-wi", "3")))
+				.measurementIterations(Integer.parseInt(options.getOrDefault("-i", "5")))
+				.warmupTime(TimeValue.milliseconds(iterationMillis))
+				.measurementTime(TimeValue.milliseconds(iterationMillis))
+				.forks(Integer.parseInt(options.getOrDefault("-fk", "1")))
+				.addProfiler(GCProfiler.class);
+
+		List<String> lines = new ArrayList<>();
+		lines.add(CSV_HEADER);
+		lines.addAll(toCsv(new Runner(builder.build()).run()));
+
+		if (options.containsKey("-o")) {
+			Files.write(Paths.get(options.get("-o")), lines, StandardCharsets.UTF_8);
+		}
+		if (options.containsKey("-b")) {
+			double threshold = Double.parseDouble(options.getOrDefault("-r", "10"));
+			if (!compare(lines, Paths.get(options.get("-b")), threshold)) {
+				System.exit(1);
+			}
+		}
+	}
+
+	/**
+	 * One CSV line per benchmark and size, with the allocation reported by
+	 * the GC profiler, or -1 where it reported none.
+	 */
+	private static List<String> toCsv(Collection<RunResult> results) {
+		List<String> lines = new ArrayList<>();
+		for (RunResult result : results) {
+			String benchmark = result.getParams().getBenchmark();
+			Result<?> primary = result.getPrimaryResult();
+			double opsPerSecond = primary.getScore();
+			lines.add(String.format(Locale.ROOT, "%s,%s,%.3f,%.3f,%.1f,%.1f,%.1f",
+					benchmark.substring(benchmark.lastIndexOf('.') + 1),
+					result.getParams().getParam("size").toLowerCase(Locale.ROOT), opsPerSecond,
+					primary.getScoreError(), 1e9 / opsPerSecond, secondary(result, "gc.alloc.rate.norm"),
+					secondary(result, "gc.alloc.rate")));
+		}
+		return lines;
+	}
+
+	private static double secondary(RunResult result, String label) {
+		Result<?> secondary = result.getSecondaryResults().get(label);
+		return secondary == null ? -1 : secondary.getScore();
+	}
+
+	/**
+	 * Prints the change in throughput against a baseline CSV and returns
+	 * false if any benchmark slowed down by more than the threshold.
+	 */
+	private static boolean compare(List<String> results, Path baseline, double thresholdPercent) throws IOException {
+		Map<String, Double> baselineOps = readOps(Files.readAllLines(baseline, StandardCharsets.UTF_8));
+		boolean passed = true;
+		System.out.println();
+		for (Map.Entry<String, Double> result : readOps(results).entrySet()) {
+			Double before = baselineOps.get(result.getKey());
+			if (before == null || before == 0) {
+				continue;
+			}
+			double change = (result.getValue() - before) / before * 100;
+			boolean regressed = change < -thresholdPercent;
+			passed &= !regressed;
+			String[] key = result.getKey().split(",");
+			System.out.println(String.format(Locale.ROOT, "%-40s %-7s %+8.1f%%%s", key[0], key[1], change,
+					regressed ? "  REGRESSION" : ""));
+		}
+		return passed;
+	}
+
+	// Throughput by "benchmark,size"
+	private static Map<String, Double> readOps(List<String> lines) {
+		Map<String, Double> ops = new LinkedHashMap<>();
+		for (String line : lines) {
+			String[] fields = line.split(",");
+			if (!line.equals(CSV_HEADER) && fields.length >= 3) {
+				ops.put(fields[0] + "," + fields[1], Double.parseDouble(fields[2]));
+			}
+		}
+		return ops;
+	}
+}
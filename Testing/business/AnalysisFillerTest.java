@@ -0,0 +1,243 @@
+package business;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import bll.AnalysisFiller;
+
+/**
+ * JUnit 5 tests for AnalysisFiller (Business Layer).
+ * Jobs are counted down in memory instead of being claimed and computed in
+ * the database, so the order of work, the resting and the resuming of
+ * abandoned jobs can be checked.
+ */
+public class AnalysisFillerTest {
+
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+    private final Set<String> workerThreads = ConcurrentHashMap.newKeySet();
+    private int pendingJobs;
+    private int abandonedJobs;
+    private long batchMillis;
+    private AnalysisFiller filler;
+
+    private class MemoryJobStore implements AnalysisFiller.JobStore {
+        private final boolean succeed;
+
+        MemoryJobStore(boolean succeed) {
+            this.succeed = succeed;
+        }
+
+        @Override
+        public int analyzePage(int pageId) {
+            calls.add("page " + pageId);
+            return succeed ? 3 : -1;
+        }
+
+        @Override
+        public int analyzeBatch(int maxJobs) {
+            if (!succeed) {
+                calls.add("batch failed");
+                return -1;
+            }
+            int jobs;
+            synchronized (AnalysisFillerTest.this) {
+                jobs = Math.min(maxJobs, pendingJobs);
+                pendingJobs -= jobs;
+            }
+            if (jobs > 0) {
+                workerThreads.add(Thread.currentThread().getName());
+            }
+            sleep(batchMillis);
+            calls.add("batch " + jobs);
+            return jobs;
+        }
+
+        @Override
+        public int resume(int leaseSeconds) {
+            calls.add("resume " + leaseSeconds);
+            synchronized (AnalysisFillerTest.this) {
+                int resumed = abandonedJobs;
+                pendingJobs += resumed;
+                abandonedJobs = 0;
+                return resumed;
+            }
+        }
+
+        @Override
+        public Map<String, Integer> countJobs() {
+            synchronized (AnalysisFillerTest.this) {
+                Map<String, Integer> counts = new TreeMap<>();
+                if (pendingJobs > 0) {
+                    counts.put("pending", pendingJobs);
+                }
+                if (abandonedJobs > 0) {
+                    counts.put("running", abandonedJobs);
+                }
+                return counts;
+            }
+        }
+    }
+
+    private AnalysisFiller newFiller(int workers, boolean background, boolean succeed) {
+        filler = new AnalysisFiller(new MemoryJobStore(succeed), workers, 10, 50, 600, background);
+        return filler;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "Timed out");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (filler != null) {
+            filler.close();
+        }
+    }
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Pending jobs should be claimed in batches until none are left")
+    public void testBatches() throws InterruptedException {
+        pendingJobs = 25;
+        newFiller(1, true, true);
+        waitFor(() -> filler.getJobsDone() == 25);
+        waitFor(() -> calls.contains("batch 0"));
+        assertEquals("resume 600", calls.get(0));
+        assertEquals("batch 10", calls.get(1));
+        assertEquals("batch 5", calls.get(3));
+    }
+
+    @Test
+    @DisplayName("Positive: Jobs left running by an earlier run should be resumed on start once their lease is over")
+    public void testResumeOnStart() throws InterruptedException {
+        abandonedJobs = 7;
+        newFiller(1, true, true);
+        waitFor(() -> filler.getJobsDone() == 7);
+        assertEquals("resume 600", calls.get(0),
+                "Abandoned jobs should be resumed before any are claimed, but only past the lease");
+        assertEquals("batch 7", calls.get(1));
+    }
+
+    @Test
+    @DisplayName("Positive: Jobs claimed longer than the lease should be resumed once none are pending")
+    public void testResumeAfterLease() throws InterruptedException {
+        newFiller(1, true, true);
+        waitFor(() -> calls.contains("resume 600"));
+        synchronized (this) {
+            abandonedJobs = 4;
+        }
+        waitFor(() -> filler.getJobsDone() == 4);
+    }
+
+    @Test
+    @DisplayName("Positive: Workers of the pool should drain the queue together")
+    public void testWorkerPool() throws InterruptedException {
+        pendingJobs = 300;
+        batchMillis = 5;
+        newFiller(3, true, true);
+        assertEquals(3, filler.getWorkerCount());
+        waitFor(() -> filler.getJobsDone() == 300);
+        assertTrue(workerThreads.size() > 1, "More than one worker should have claimed jobs");
+        assertEquals(Collections.emptyMap(), filler.getQueueDepth());
+    }
+
+    @Test
+    @DisplayName("Positive: Queue depth and the rate of jobs done should be reported")
+    public void testQueueDepthAndRate() throws InterruptedException {
+        newFiller(1, false, true);
+        synchronized (this) {
+            pendingJobs = 12;
+            abandonedJobs = 2;
+        }
+        Map<String, Integer> depth = filler.getQueueDepth();
+        assertEquals(Integer.valueOf(12), depth.get("pending"));
+        assertEquals(Integer.valueOf(2), depth.get("running"));
+
+        filler.request(5);
+        waitFor(() -> filler.getJobsDone() == 3);
+        // The rate leaves out the second still under way
+        waitFor(() -> filler.getJobsPerSecond() > 0);
+        assertEquals(3.0 / 60, filler.getJobsPerSecond(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Positive: A requested page should be analyzed while the workers rest")
+    public void testRequestedPage() throws InterruptedException {
+        newFiller(2, true, true);
+        waitFor(() -> calls.contains("batch 0"));
+        filler.request(42);
+        waitFor(() -> filler.getPagesRequested() == 1);
+        assertTrue(calls.contains("page 42"));
+    }
+
+    @Test
+    @DisplayName("Positive: Without background filling only requested pages should be analyzed")
+    public void testRequestsOnly() throws InterruptedException {
+        pendingJobs = 5;
+        abandonedJobs = 1;
+        newFiller(2, false, true);
+        filler.request(7);
+        filler.request(7);
+        filler.request(8);
+        waitFor(() -> filler.getPagesRequested() == 2);
+        Thread.sleep(100);
+        assertEquals(2, calls.size(), "A page asked for twice should be analyzed once, and no batch run");
+        assertEquals(6, filler.getJobsDone());
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: Failures should be counted and the workers should keep running")
+    public void testFailures() throws InterruptedException {
+        newFiller(1, true, false);
+        waitFor(() -> filler.getFailureCount() >= 1);
+        filler.request(1);
+        waitFor(() -> calls.contains("page 1"));
+        assertEquals(0, filler.getPagesRequested());
+        assertEquals(0, filler.getJobsDone());
+    }
+
+    @Test
+    @DisplayName("Negative: A closed filler should ignore requests")
+    public void testClosed() throws InterruptedException {
+        newFiller(1, false, true);
+        filler.close();
+        filler.request(3);
+        Thread.sleep(50);
+        assertTrue(calls.isEmpty());
+        assertEquals(0, filler.getRequestedCount());
+    }
+
+    @Test
+    @DisplayName("Negative: A worker count of 0 should give one worker per core")
+    public void testDefaultWorkers() {
+        newFiller(0, false, true);
+        assertEquals(Runtime.getRuntime().availableProcessors(), filler.getWorkerCount());
+    }
+}
@@ -0,0 +1,167 @@
+package business;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import bll.AutoSaveService;
+
+/**
+ * JUnit 5 tests for AutoSaveService (Business Layer).
+ * Pages are written to a recording writer instead of the database so the
+ * hash gating, coalescing and flushing can be checked directly.
+ */
+public class AutoSaveServiceTest {
+
+    private final List<String> writes = new CopyOnWriteArrayList<>();
+    private AutoSaveService service;
+
+    private AutoSaveService newService(long quietMillis, boolean succeed) {
+        service = new AutoSaveService((fileId, fileName, pageNumber, content) -> {
+            writes.add(fileId + ":" + pageNumber + ":" + content);
+            return succeed;
+        }, quietMillis, 1000, 4);
+        return service;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Rapid edits of a page should be written once with the latest content")
+    public void testEditsAreCoalesced() {
+        newService(60000, true);
+        assertTrue(service.submit(1, "a.txt", 1, "النص"));
+        assertTrue(service.submit(1, "a.txt", 1, "النص الجديد"));
+        assertTrue(service.submit(1, "a.txt", 1, "النص الأحدث"));
+        assertEquals(1, service.getPendingCount(), "One write should be pending for the page");
+        assertEquals(2, service.getCoalescedCount());
+
+        assertTrue(service.flush());
+        assertEquals(1, writes.size(), "The edits should share one write");
+        assertEquals("1:1:النص الأحدث", writes.get(0));
+        assertEquals(0, service.getPendingCount());
+        assertTrue(service.getLastFlushMillis() >= 0, "The write latency should be reported");
+    }
+
+    @Test
+    @DisplayName("Positive: A page loaded and submitted unchanged should not be written")
+    public void testUnchangedPageIsSkipped() {
+        newService(0, true);
+        service.markSaved(1, 2, "نص الصفحة");
+        assertFalse(service.submit(1, "a.txt", 2, "نص الصفحة"));
+        assertTrue(service.flush());
+        assertTrue(writes.isEmpty(), "Nothing changed, so nothing should be written");
+        assertEquals(1, service.getUnchangedCount());
+    }
+
+    @Test
+    @DisplayName("Positive: Saved content should not be written again")
+    public void testSavedContentIsNotRewritten() {
+        newService(60000, true);
+        service.submit(1, "a.txt", 1, "نص");
+        service.flush();
+        assertFalse(service.submit(1, "a.txt", 1, "نص"));
+        service.flush();
+        assertEquals(1, writes.size());
+        assertEquals(1, service.getSaveCount());
+    }
+
+    @Test
+    @DisplayName("Positive: Pending pages should be written in the background after the quiet period")
+    public void testBackgroundWrite() throws InterruptedException {
+        newService(10, true);
+        service.submit(3, "b.txt", 1, "نص");
+        service.submit(3, "b.txt", 2, "آخر");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writes.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, writes.size(), "Both pages should be written without a flush");
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Positive: Queued content should be readable until it is written")
+    public void testPendingContent() {
+        newService(60000, true);
+        service.submit(1, "a.txt", 1, "مسودة");
+        assertEquals("مسودة", service.pendingContent(1, 1));
+        service.markSaved(1, 1, "قديم");
+        service.flush();
+        assertNull(service.pendingContent(1, 1));
+        assertEquals("1:1:مسودة", writes.get(0), "The stored page must not replace a pending edit");
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: A failed write should be retried on the next submit")
+    public void testFailedWriteIsRetried() {
+        newService(60000, false);
+        service.submit(1, "a.txt", 1, "نص");
+        assertFalse(service.flush());
+        assertTrue(service.submit(1, "a.txt", 1, "نص"), "The same content should be queued again");
+        assertEquals(1, service.getFailureCount());
+    }
+
+    @Test
+    @DisplayName("Negative: A failed write should stay pending and be retried without a new submit")
+    public void testFailedWriteIsRetriedInBackground() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        service = new AutoSaveService((fileId, fileName, pageNumber, content) -> {
+            writes.add(fileId + ":" + pageNumber + ":" + content);
+            return attempts.incrementAndGet() > 1;
+        }, 0, 50, 4);
+        service.submit(1, "a.txt", 1, "نص");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getSaveCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, service.getSaveCount(), "The page should be written on a retry");
+        assertEquals(1, service.getFailureCount());
+        assertEquals(2, writes.size());
+        assertEquals("1:1:نص", writes.get(1));
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Negative: A failed write replaced by a newer submit should not be written")
+    public void testFailedWriteReplacedByNewerSubmit() {
+        AtomicInteger attempts = new AtomicInteger();
+        service = new AutoSaveService((fileId, fileName, pageNumber, content) -> {
+            writes.add(fileId + ":" + pageNumber + ":" + content);
+            return attempts.incrementAndGet() > 1;
+        }, 60000, 60000, 4);
+        service.submit(1, "a.txt", 1, "قديم");
+        assertFalse(service.flush());
+        assertEquals("قديم", service.pendingContent(1, 1), "The failed write should stay pending");
+        service.submit(1, "a.txt", 1, "جديد");
+        assertTrue(service.flush());
+        assertEquals(2, writes.size());
+        assertEquals("1:1:جديد", writes.get(1));
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Negative: Submitting after close should not queue a write")
+    public void testSubmitAfterClose() {
+        newService(60000, true);
+        service.submit(1, "a.txt", 1, "نص");
+        service.close();
+        assertEquals(1, writes.size(), "Close should write what is pending");
+        assertFalse(service.submit(1, "a.txt", 1, "نص آخر"));
+    }
+}
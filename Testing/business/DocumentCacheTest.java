@@ -0,0 +1,130 @@
+package business;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import bll.DocumentCache;
+import dto.Documents;
+import dto.Pages;
+
+/**
+ * JUnit 5 tests for DocumentCache (Business Layer).
+ * Uses a counting loader instead of the database so hits, invalidation and
+ * the size limits can be checked directly.
+ */
+public class DocumentCacheTest {
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        loads = new AtomicInteger();
+    }
+
+    private DocumentCache newCache(int maxDocuments, long maxChars) {
+        return new DocumentCache(maxDocuments, maxChars, id -> {
+            loads.incrementAndGet();
+            if (id <= 0) {
+                return null;
+            }
+            return new Documents(id, "file" + id + ".txt", "hash", "now", "now",
+                    Arrays.asList(new Pages(id, id, 1, "نص الصفحة")));
+        });
+    }
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Repeated lookups of a document should load it once")
+    public void testRepeatedLookupIsCached() {
+        DocumentCache cache = newCache(8, 1024);
+        Documents first = cache.get(1);
+        Documents second = cache.get(1);
+
+        assertNotSame(first, second, "Each caller should get a copy of the cached document");
+        assertEquals(first.getName(), second.getName());
+        assertEquals(first.getPages().get(0).getPageContent(), second.getPages().get(0).getPageContent());
+        assertEquals(1, loads.get(), "The document should be loaded only once");
+        assertEquals(0.5, cache.getHitRate(), 1e-9, "One hit out of two requests");
+    }
+
+    @Test
+    @DisplayName("Positive: Invalidating a document should reload it on the next lookup")
+    public void testInvalidateReloads() {
+        DocumentCache cache = newCache(8, 1024);
+        cache.get(1);
+        cache.invalidate(1);
+        cache.get(1);
+
+        assertEquals(2, loads.get(), "An invalidated document should be loaded again");
+    }
+
+    @Test
+    @DisplayName("Positive: Changing a returned document should not change the cached copy")
+    public void testReturnedDocumentIsACopy() {
+        DocumentCache cache = newCache(8, 1024);
+        Documents loaded = cache.get(1);
+        loaded.getPages().get(0).setPageContent("تعديل الأول");
+        Documents hit = cache.get(1);
+        assertEquals("نص الصفحة", hit.getPages().get(0).getPageContent(), "The loaded copy should not be cached");
+
+        hit.setName("other.txt");
+        hit.getPages().get(0).setPageContent("تعديل الثاني");
+        hit.setPages(new ArrayList<>());
+        Documents again = cache.get(1);
+        assertEquals("file1.txt", again.getName());
+        assertEquals(1, again.getPages().size());
+        assertEquals("نص الصفحة", again.getPages().get(0).getPageContent());
+        assertEquals(1, loads.get());
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: Missing documents should return null and not be cached")
+    public void testMissingDocumentNotCached() {
+        DocumentCache cache = newCache(8, 1024);
+        assertNull(cache.get(-1), "A missing document should be null");
+        assertNull(cache.get(-1));
+
+        assertEquals(2, loads.get(), "Missing documents should not be cached");
+        assertEquals(0, cache.size());
+    }
+
+    // ==================== Boundary Tests ====================
+
+    @Test
+    @DisplayName("Boundary: The least recently used document should be evicted at the limit")
+    public void testEvictsLeastRecentlyUsed() {
+        DocumentCache cache = newCache(2, 1024);
+        cache.get(1);
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);
+
+        assertEquals(2, cache.size(), "Cache should not exceed its document limit");
+        assertEquals(1, cache.getEvictionCount());
+        cache.get(1);
+        assertEquals(3, loads.get(), "The recently used document should still be cached");
+        cache.get(2);
+        assertEquals(4, loads.get(), "The least recently used document should have been evicted");
+    }
+
+    @Test
+    @DisplayName("Boundary: A document larger than the character budget should not be cached")
+    public void testOversizedDocumentNotCached() {
+        DocumentCache cache = newCache(8, 2);
+        cache.get(1);
+        cache.get(1);
+
+        assertEquals(0, cache.size(), "Oversized document should not be cached");
+        assertEquals(2, loads.get());
+    }
+}
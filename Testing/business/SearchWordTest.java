@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import bll.SearchWord;
 import dto.Documents;
 import dto.Pages; 
+import dto.SearchHit;
 
 /**
  * JUnit 5 tests for SearchWord (Business Layer).
@@ -86,6 +87,20 @@ public class SearchWordTest {
         assertTrue(results.get(0).contains("brown"), "Result should contain prefix word 'brown'");
     }
 
+    @Test
+    @DisplayName("Positive: Index hits should be formatted like scanned results, one per hit")
+    public void testDescribeHitsMatchesScanFormat() {
+        List<SearchHit> hits = Arrays.asList(
+                new SearchHit(1, "doc1.txt", 1, 1, 3, "fox", "brown"),
+                new SearchHit(1, "doc1.txt", 5, 2, 0, "fox", ""));
+        List<String> results = SearchWord.describeHits("fox", hits);
+
+        assertEquals(2, results.size(), "Every hit should be reported");
+        assertEquals(SearchWord.searchKeyword("fox", testDocs).get(0), results.get(0),
+                "Index hits should use the same format as the scan");
+        assertEquals("doc1.txt -  fox...", results.get(1), "First word of a page has an empty prefix");
+    }
+
     // ==================== Negative Tests ====================
 
     @Test
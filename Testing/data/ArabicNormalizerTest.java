@@ -0,0 +1,82 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.ArabicNormalizer;
+import dal.ArabicNormalizer.Profile;
+import dal.PreProcessText;
+
+/**
+ * JUnit 5 tests for ArabicNormalizer (Data Layer).
+ */
+public class ArabicNormalizerTest {
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: The preprocess profile should remove harakat and non-Arabic characters")
+    public void testPreprocessProfile() {
+        assertEquals("بسم  الله\tالرحمن ", ArabicNormalizer.normalize("بِسْمِ Hello اللَّهِ!\tالرَّحْمَنِ 123", Profile.PREPROCESS));
+        assertEquals(PreProcessText.preprocessText("بِسْمِ Hello اللَّهِ!"),
+                new ArabicNormalizer(Profile.PREPROCESS).normalize("بِسْمِ Hello اللَّهِ!").toString());
+    }
+
+    @Test
+    @DisplayName("Positive: Already normalized text should be returned as is")
+    public void testUnchangedText() {
+        String text = "بسم الله الرحمن الرحيم";
+        assertSame(text, ArabicNormalizer.normalize(text, Profile.PREPROCESS));
+    }
+
+    @Test
+    @DisplayName("Positive: The Arabic profile should fold alef, ta marbuta and alef maqsura")
+    public void testArabicProfile() {
+        assertEquals("احمد اسلام امن مدرسه مصطفي", ArabicNormalizer.normalize("أحمد إسلام آمن مدرسة مصطفى", Profile.ARABIC));
+        assertEquals("أحمد مدرسة", ArabicNormalizer.normalize("أحمد مدرسة", Profile.PREPROCESS));
+    }
+
+    @Test
+    @DisplayName("Positive: Offsets should map normalized characters back to the original text")
+    public void testOffsets() {
+        String text = "xكَتَبَ ة";
+        ArabicNormalizer normalizer = new ArabicNormalizer(Profile.ARABIC, true).normalize(text);
+        assertEquals("كتب ه", normalizer.toString());
+        assertEquals(1, normalizer.originalOffset(0));
+        assertEquals(3, normalizer.originalOffset(1));
+        assertEquals(5, normalizer.originalOffset(2));
+        assertEquals(8, normalizer.originalOffset(4));
+        assertEquals(text.length(), normalizer.originalOffset(normalizer.length()));
+    }
+
+    @Test
+    @DisplayName("Positive: A reused normalizer should grow and replace its previous result")
+    public void testReuse() {
+        ArabicNormalizer normalizer = new ArabicNormalizer(Profile.PREPROCESS);
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longText.append("كلمة ");
+        }
+        assertEquals(longText.length(), normalizer.normalize(longText).length());
+        assertEquals("نص", normalizer.normalize("abc نص", 3, 6).toString().trim());
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: Offsets should not be available unless tracked")
+    public void testOffsetsNotTracked() {
+        ArabicNormalizer normalizer = new ArabicNormalizer(Profile.PREPROCESS).normalize("نص");
+        assertThrows(IllegalStateException.class, () -> normalizer.originalOffset(0));
+    }
+
+    @Test
+    @DisplayName("Negative: Text without Arabic should normalize to whitespace only")
+    public void testNoArabic() {
+        assertEquals("", ArabicNormalizer.normalize("abc!?123\u0000", Profile.ARABIC));
+        assertEquals(" ", ArabicNormalizer.normalize("a b", Profile.PREPROCESS));
+        assertThrows(IndexOutOfBoundsException.class, () -> new ArabicNormalizer(Profile.ARABIC).charAt(0));
+    }
+}
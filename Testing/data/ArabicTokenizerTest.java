@@ -0,0 +1,91 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.ArabicTokenizer;
+import dal.PreProcessText;
+import dal.TokenDictionary;
+
+/**
+ * JUnit 5 tests for ArabicTokenizer (Data Layer).
+ */
+public class ArabicTokenizerTest {
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Words should be split on any whitespace")
+    public void testWhitespace() {
+        assertEquals(Arrays.asList("بسم", "الله", "الرحمن", "الرحيم"),
+                ArabicTokenizer.tokens("  بسم\tالله الرحمن\r\n الرحيم "));
+    }
+
+    @Test
+    @DisplayName("Positive: Arabic punctuation should separate words")
+    public void testArabicPunctuation() {
+        assertEquals(Arrays.asList("قال", "نعم", "لماذا", "هكذا"), ArabicTokenizer.tokens("قال، نعم؛لماذا؟ هكذا"));
+    }
+
+    @Test
+    @DisplayName("Positive: Tatweel should be trimmed from word ends but kept inside")
+    public void testTatweel() {
+        assertEquals(Arrays.asList("الرحـــمن", "كتب"), ArabicTokenizer.tokens("ـالرحـــمنـــ ــــ ـكتب"));
+    }
+
+    @Test
+    @DisplayName("Positive: Spans should point into the text and the tokenizer should be reusable")
+    public void testSpansAndReuse() {
+        ArabicTokenizer tokenizer = new ArabicTokenizer();
+        tokenizer.tokenize("ab cd");
+        tokenizer.tokenize(" الله اكبر");
+        assertEquals(2, tokenizer.size());
+        assertEquals(1, tokenizer.start(0));
+        assertEquals(5, tokenizer.end(0));
+        assertEquals("اكبر", tokenizer.token(1));
+        assertTrue(tokenizer.matchesIgnoreCase(0, "الله"));
+        assertTrue(new ArabicTokenizer().tokenize("The Fox").matchesIgnoreCase(1, "fOX"));
+    }
+
+    @Test
+    @DisplayName("Positive: Preprocessed ids should match preprocessing word by word")
+    public void testEncodePreprocessed() {
+        String text = "بِسْمِ اللَّهِ abc الرَّحْمَٰنِ";
+        ArabicTokenizer tokenizer = new ArabicTokenizer().tokenize(text);
+        TokenDictionary dictionary = new TokenDictionary();
+        int[] ids = tokenizer.encodePreprocessed(dictionary);
+
+        assertEquals(3, ids.length, "The Latin word should be dropped");
+        assertEquals(PreProcessText.preprocessText("اللَّهِ"), dictionary.token(ids[1]));
+        assertEquals(PreProcessText.preprocessText("الرَّحْمَٰنِ"), dictionary.token(ids[2]));
+    }
+
+    @Test
+    @DisplayName("Positive: Many words should be kept when the spans grow")
+    public void testGrowth() {
+        String text = String.join(" ", Collections.nCopies(1000, "كلمة"));
+        assertEquals(1000, new ArabicTokenizer().tokenize(text).size());
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: Text of separators only should have no words")
+    public void testNoWords() {
+        assertTrue(ArabicTokenizer.tokens("").isEmpty());
+        assertTrue(ArabicTokenizer.tokens(" ، ؛ ؟ ـ \n").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Negative: Spans outside the words should be rejected")
+    public void testIndexOutOfBounds() {
+        ArabicTokenizer tokenizer = new ArabicTokenizer().tokenize("كلمة");
+        assertThrows(IndexOutOfBoundsException.class, () -> tokenizer.start(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tokenizer.token(-1));
+    }
+}
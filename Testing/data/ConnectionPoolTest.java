@@ -0,0 +1,229 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.ConnectionPool;
+import dal.EditorConfig;
+
+/**
+ * JUnit 5 tests for ConnectionPool (Data Layer).
+ * Each test runs its own small pool against the configured database, with
+ * timeouts short enough for the housekeeper to act within the test.
+ */
+public class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    private ConnectionPool newPool(int minSize, int maxSize, long maxWaitMillis, long idleTimeoutMillis,
+            long leakDetectionMillis) {
+        EditorConfig config = EditorConfig.getInstance();
+        pool = new ConnectionPool(config.getString("db.url", null), config.getString("db.username", null),
+                config.getString("db.password", null), minSize, maxSize, maxWaitMillis, idleTimeoutMillis,
+                leakDetectionMillis);
+        return pool;
+    }
+
+    private static int queryInt(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "Timed out");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: A returned connection should be reused for the next borrow")
+    public void testConnectionReused() throws SQLException {
+        newPool(0, 1, 1000, 60000, 0);
+        int sessionId;
+        try (Connection conn = pool.getConnection()) {
+            sessionId = queryInt(conn, "SELECT CONNECTION_ID()");
+        }
+        try (Connection conn = pool.getConnection()) {
+            assertEquals(sessionId, queryInt(conn, "SELECT CONNECTION_ID()"), "The same session should be handed out");
+        }
+        assertEquals(1, pool.getTotalCount());
+        assertEquals(2, pool.getBorrowCount());
+    }
+
+    @Test
+    @DisplayName("Positive: An uncommitted transaction should be rolled back and autocommit restored on close")
+    public void testRollbackOnClose() throws SQLException {
+        newPool(0, 1, 1000, 60000, 0);
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TEMPORARY TABLE pool_test (id INT) ENGINE=InnoDB");
+        }
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("INSERT INTO pool_test VALUES (1), (2)");
+            }
+            assertEquals(2, queryInt(conn, "SELECT COUNT(*) FROM pool_test"));
+        }
+        // One connection, so this is the same session and sees its temporary table
+        try (Connection conn = pool.getConnection()) {
+            assertTrue(conn.getAutoCommit(), "Autocommit should be restored");
+            assertEquals(0, queryInt(conn, "SELECT COUNT(*) FROM pool_test"), "The insert should be rolled back");
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: Statements created through a connection should be closed when it is returned")
+    public void testStatementsClosedOnReturn() throws SQLException {
+        newPool(0, 1, 1000, 60000, 0);
+        Statement stmt;
+        PreparedStatement prepared;
+        try (Connection conn = pool.getConnection()) {
+            stmt = conn.createStatement();
+            prepared = conn.prepareStatement("SELECT 1");
+            prepared.executeQuery();
+            assertFalse(stmt.isClosed());
+        }
+        assertTrue(stmt.isClosed(), "Statement should be closed with the connection");
+        assertTrue(prepared.isClosed(), "Prepared statement should be closed with the connection");
+    }
+
+    @Test
+    @DisplayName("Positive: Idle connections above the minimum should be evicted after the idle timeout")
+    public void testIdleEviction() throws Exception {
+        newPool(1, 3, 1000, 200, 0);
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        Connection third = pool.getConnection();
+        first.close();
+        second.close();
+        third.close();
+        assertEquals(3, pool.getIdleCount());
+        waitFor(() -> pool.getTotalCount() == 1);
+        assertEquals(2, pool.getEvictedCount());
+        try (Connection conn = pool.getConnection()) {
+            assertEquals(1, queryInt(conn, "SELECT 1"), "The remaining connection should still work");
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: A connection held past the leak threshold should be reported once")
+    public void testLeakDetection() throws Exception {
+        newPool(0, 1, 1000, 60000, 100);
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+            waitFor(() -> pool.getLeakCount() == 1);
+            Thread.sleep(150);
+            assertEquals(1, pool.getLeakCount(), "A leak should be reported once per borrow");
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: Concurrent borrowers should share the pool without exceeding its size")
+    public void testConcurrentBorrowers() throws Exception {
+        newPool(0, 4, 10000, 60000, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    int sum = 0;
+                    for (int i = 0; i < 50; i++) {
+                        try (Connection conn = pool.getConnection()) {
+                            sum += queryInt(conn, "SELECT 1");
+                        }
+                    }
+                    return sum;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(50, result.get().intValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(400, pool.getBorrowCount());
+        assertTrue(pool.getTotalCount() <= 4, "The pool should not open more than its maximum");
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(0, pool.getTimeoutCount());
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: Borrowing from an exhausted pool should time out")
+    public void testBorrowTimeout() throws SQLException {
+        newPool(0, 1, 200, 60000, 0);
+        try (Connection held = pool.getConnection()) {
+            assertFalse(held.isClosed());
+            long start = System.nanoTime();
+            assertThrows(SQLTimeoutException.class, () -> pool.getConnection());
+            assertTrue(System.nanoTime() - start >= 150_000_000L, "The borrower should wait before giving up");
+            assertEquals(1, pool.getTimeoutCount());
+        }
+        try (Connection conn = pool.getConnection()) {
+            assertNotNull(conn, "A connection should be available again once returned");
+        }
+    }
+
+    @Test
+    @DisplayName("Negative: Using a connection after closing it should throw")
+    public void testUseAfterClose() throws SQLException {
+        newPool(0, 1, 1000, 60000, 0);
+        Connection conn = pool.getConnection();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, () -> conn.createStatement());
+        assertThrows(SQLException.class, () -> conn.setAutoCommit(false));
+        conn.close();
+        assertEquals(0, pool.getActiveCount(), "Closing twice should return the connection once");
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    @DisplayName("Negative: Leak detection set to 0 should report nothing")
+    public void testLeakDetectionOff() throws Exception {
+        newPool(0, 1, 1000, 200, 0);
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+            Thread.sleep(300);
+            assertEquals(0, pool.getLeakCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Negative: A closed pool should refuse to lend connections")
+    public void testClosedPool() throws SQLException {
+        newPool(0, 1, 1000, 60000, 0);
+        pool.close();
+        assertThrows(SQLException.class, () -> pool.getConnection());
+    }
+}
@@ -2,32 +2,113 @@ package data;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import dal.ConnectionPool;
+import dal.DatabaseConnection;
+import dal.EditorConfig;
 import dal.EditorDBDAO;
 import dal.HashCalculator;
 import dal.IEditorDBDAO;
+import dal.MorphologyBundle;
+import dal.PageAnalysis;
+import dal.PageAnalysisPipeline;
+import dal.Transliteration;
 import dal.AbstractDAOEditorFactory;
 import dto.Documents;
+import dto.FileMetadata;
+import dto.Pages;
+import dto.SearchHit;
 
 /**
  * JUnit 5 tests for EditorDBDAO (Data Persistence Layer).
  * Tests CRUD operations and hashing integrity.
  * Designed against the IEditorDBDAO interface for swappability.
+ * Tests that store files give them unique content and names and delete
+ * them afterwards.
  */
 public class EditorDBDAOTest {
 
+    private static final String TEXT = "بسم الله الرحمن الرحيم الحمد لله رب العالمين الرحمن الرحيم مالك يوم الدين "
+            + "إياك نعبد وإياك نستعين اهدنا الصراط المستقيم صراط الذين أنعمت عليهم غير المغضوب عليهم ولا الضالين";
+
     private IEditorDBDAO editorDAO;
+    private final List<Integer> storedFiles = new ArrayList<>();
 
     @BeforeEach
     public void setUp() {
         editorDAO = AbstractDAOEditorFactory.getInstance().createEditorDAO();
     }
 
+    @AfterEach
+    public void tearDown() {
+        for (int fileId : storedFiles) {
+            editorDAO.deleteFileInDB(fileId);
+        }
+    }
+
+    private static String uniqueText() {
+        // Unique per test, so files left by other runs are never duplicates. Files
+        // are read as lines, so it ends with the newline an imported file gets.
+        return TEXT + " " + System.nanoTime() + " " + TEXT + "\n";
+    }
+
+    private static String uniqueName(String prefix) {
+        return prefix + "-" + System.nanoTime() + ".txt";
+    }
+
+    private static File writeFile(String content) throws IOException {
+        Path path = Files.createTempFile("editor-dao-test", ".txt");
+        path.toFile().deleteOnExit();
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path.toFile();
+    }
+
+    /**
+     * The id of the stored file with the name, remembered for deletion, or
+     * null if there is none.
+     */
+    private Integer findStored(String name) {
+        for (FileMetadata file : editorDAO.getFileSummariesFromDB()) {
+            if (file.getName().equals(name)) {
+                storedFiles.add(file.getId());
+                return file.getId();
+            }
+        }
+        return null;
+    }
+
+    private String storedContent(int fileId) {
+        StringBuilder content = new StringBuilder();
+        for (Pages page : editorDAO.getPagesFromDB(fileId, 1, Integer.MAX_VALUE)) {
+            content.append(page.getPageContent());
+        }
+        return content.toString();
+    }
+
     // ==================== Positive Tests ====================
 
     @Test
@@ -45,6 +126,32 @@ public class EditorDBDAOTest {
         assertTrue(docs instanceof List, "Should return a List");
     }
 
+    @Test
+    @DisplayName("Positive: getFileSummariesFromDB should list the same files as getFilesFromDB")
+    public void testFileSummariesMatchFiles() {
+        List<Documents> docs = editorDAO.getFilesFromDB();
+        List<FileMetadata> summaries = editorDAO.getFileSummariesFromDB();
+        assertNotNull(summaries, "getFileSummariesFromDB should never return null");
+        assertEquals(docs.size(), summaries.size(), "Every file should have a summary");
+        for (FileMetadata summary : summaries) {
+            Documents doc = docs.stream().filter(d -> d.getId() == summary.getId()).findFirst().orElse(null);
+            assertNotNull(doc, "Summary should refer to an existing file");
+            assertEquals(doc.getPages().size(), summary.getPageCount(), "Page count should match the stored pages");
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: getFileFromDB should return the same file and pages as getFilesFromDB")
+    public void testGetFileByIdMatchesFiles() {
+        for (Documents doc : editorDAO.getFilesFromDB()) {
+            Documents byId = editorDAO.getFileFromDB(doc.getId());
+            assertNotNull(byId, "Existing file should be found by id");
+            assertEquals(doc.getName(), byId.getName());
+            assertEquals(doc.getPages().size(), byId.getPages().size(), "All pages should be loaded");
+        }
+        assertNull(editorDAO.getFileFromDB(-999), "Non-existent file should be null");
+    }
+
     // ==================== Hashing Integrity Tests ====================
 
     @Test
@@ -87,8 +194,376 @@ public class EditorDBDAOTest {
                 "The edited content should have a different hash than the import");
     }
 
+    // ==================== Duplicate Import Tests ====================
+
+    @Test
+    @DisplayName("Positive: Importing stored content again under skip should store nothing")
+    public void testSkipUnchangedDuplicate() throws Exception {
+        EditorDBDAO dao = new EditorDBDAO();
+        File file = writeFile(uniqueText());
+        String original = uniqueName("original");
+        String duplicate = uniqueName("duplicate");
+        assertTrue(dao.importFileInDB(original, file, EditorDBDAO.DuplicatePolicy.SKIP));
+        assertNotNull(findStored(original));
+        assertTrue(dao.importFileInDB(duplicate, file, EditorDBDAO.DuplicatePolicy.SKIP));
+        assertNull(findStored(duplicate), "A duplicate should be skipped");
+    }
+
+    @Test
+    @DisplayName("Positive: After an edit the original content should no longer count as stored under skip")
+    public void testSkipAfterEdit() throws Exception {
+        EditorDBDAO dao = new EditorDBDAO();
+        String content = uniqueText();
+        File file = writeFile(content);
+        String original = uniqueName("original");
+        assertTrue(dao.importFileInDB(original, file, EditorDBDAO.DuplicatePolicy.SKIP));
+        Integer originalId = findStored(original);
+        assertNotNull(originalId);
+        assertTrue(dao.updateFileInDB(originalId, original, 1, "نص معدل"));
+
+        String reimported = uniqueName("reimported");
+        assertTrue(dao.importFileInDB(reimported, file, EditorDBDAO.DuplicatePolicy.SKIP));
+        Integer reimportedId = findStored(reimported);
+        assertNotNull(reimportedId, "The original content should be stored again once the file was edited");
+        assertEquals(content, storedContent(reimportedId));
+    }
+
+    @Test
+    @DisplayName("Positive: Under link a duplicate should get the imported content, not an edited copy")
+    public void testLinkAfterEdit() throws Exception {
+        EditorDBDAO dao = new EditorDBDAO();
+        String content = uniqueText();
+        File file = writeFile(content);
+        String original = uniqueName("original");
+        assertTrue(dao.importFileInDB(original, file, EditorDBDAO.DuplicatePolicy.LINK));
+        Integer originalId = findStored(original);
+        assertNotNull(originalId);
+        assertTrue(dao.updateFileInDB(originalId, original, 1, "نص معدل"));
+
+        String imported = uniqueName("imported");
+        assertTrue(dao.importFileInDB(imported, file, EditorDBDAO.DuplicatePolicy.LINK));
+        Integer importedId = findStored(imported);
+        assertNotNull(importedId);
+        assertEquals(content, storedContent(importedId), "The edited file should not be linked");
+
+        String linked = uniqueName("linked");
+        assertTrue(dao.importFileInDB(linked, file, EditorDBDAO.DuplicatePolicy.LINK));
+        Integer linkedId = findStored(linked);
+        assertNotNull(linkedId);
+        assertEquals(content, storedContent(linkedId), "An unedited file with the content should be linked");
+    }
+
+    @Test
+    @DisplayName("Positive: Concurrent imports of the same content under skip should store it once")
+    public void testConcurrentSkip() throws Exception {
+        EditorDBDAO dao = new EditorDBDAO();
+        File file = writeFile(uniqueText());
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            names.add(uniqueName("concurrent" + i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(names.size());
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (String name : names) {
+                results.add(executor.submit(() -> dao.importFileInDB(name, file, EditorDBDAO.DuplicatePolicy.SKIP)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        int stored = 0;
+        for (String name : names) {
+            if (findStored(name) != null) {
+                stored++;
+            }
+        }
+        assertEquals(1, stored, "Only the first import should store the content");
+    }
+
+    /**
+     * The number of pending TF-IDF jobs of a file.
+     */
+    private static int tfidfJobs(Connection conn, int fileId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM analysis_jobs j "
+                + "JOIN pages p ON p.pageId = j.pageId WHERE p.fileId = ? AND j.analysisType = 'tfidf'")) {
+            stmt.setInt(1, fileId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: With lazy TF-IDF, importing stored content again should queue one TF-IDF job per file")
+    public void testLazyTfIdfReimport() throws Exception {
+        // config.properties is loaded once and read-only, so the policy is set on the loaded properties
+        Field field = EditorConfig.class.getDeclaredField("properties");
+        field.setAccessible(true);
+        Properties properties = (Properties) field.get(EditorConfig.getInstance());
+        Object policy = properties.setProperty("analysis.policy.tfidf", "lazy");
+        try {
+            EditorDBDAO dao = new EditorDBDAO();
+            File file = writeFile(uniqueText());
+            String original = uniqueName("original");
+            String reimported = uniqueName("reimported");
+            String linked = uniqueName("linked");
+            assertTrue(dao.importFileInDB(original, file, EditorDBDAO.DuplicatePolicy.REIMPORT));
+            Integer originalId = findStored(original);
+            // The pages are copied from the original, pending TF-IDF job aside
+            assertTrue(dao.importFileInDB(reimported, file, EditorDBDAO.DuplicatePolicy.REIMPORT));
+            Integer reimportedId = findStored(reimported);
+            assertTrue(dao.importFileInDB(linked, file, EditorDBDAO.DuplicatePolicy.LINK));
+            Integer linkedId = findStored(linked);
+
+            try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+                assertEquals(1, tfidfJobs(conn, originalId));
+                assertEquals(1, tfidfJobs(conn, reimportedId), "The re-import should have a job of its own");
+                assertEquals(1, tfidfJobs(conn, linkedId), "The linked file should be scored on its own");
+            }
+        } finally {
+            if (policy == null) {
+                properties.remove("analysis.policy.tfidf");
+            } else {
+                properties.put("analysis.policy.tfidf", policy);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: An import under skip or link should borrow one connection, lock included")
+    public void testDuplicateCheckUsesOneConnection() throws Exception {
+        EditorDBDAO dao = new EditorDBDAO();
+        ConnectionPool pool = DatabaseConnection.getInstance().getPool();
+        File file = writeFile(uniqueText());
+        String original = uniqueName("original");
+        String linked = uniqueName("linked");
+        String skipped = uniqueName("skipped");
+
+        long borrows = pool.getBorrowCount();
+        assertTrue(dao.importFileInDB(original, file, EditorDBDAO.DuplicatePolicy.LINK));
+        assertEquals(borrows + 1, pool.getBorrowCount(), "Storing new content");
+        borrows = pool.getBorrowCount();
+        assertTrue(dao.importFileInDB(linked, file, EditorDBDAO.DuplicatePolicy.LINK));
+        assertEquals(borrows + 1, pool.getBorrowCount(), "Linking a duplicate");
+        borrows = pool.getBorrowCount();
+        assertTrue(dao.importFileInDB(skipped, file, EditorDBDAO.DuplicatePolicy.SKIP));
+        assertEquals(borrows + 1, pool.getBorrowCount(), "Skipping a duplicate");
+
+        assertNotNull(findStored(original));
+        assertNotNull(findStored(linked));
+        assertNull(findStored(skipped));
+    }
+
+    // ==================== Page Reanalysis Tests ====================
+
+    /**
+     * The rows of a morphology or score table for the page, by word, failing
+     * if a word has more than one row.
+     */
+    private static Map<String, Object> pageRows(Connection conn, String table, String column, int pageId)
+            throws SQLException {
+        Map<String, Object> rows = new HashMap<>();
+        try (PreparedStatement stmt = conn
+                .prepareStatement("SELECT word, " + column + " FROM " + table + " WHERE pageId = ?")) {
+            stmt.setInt(1, pageId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Object previous = rows.put(rs.getString("word"), rs.getObject(column));
+                    assertNull(previous, table + " should have one row per word, not for " + rs.getString("word"));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static void addDuplicateRow(Connection conn, String table, String column, int pageId, String wordPattern)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO " + table + " (pageId, word, " + column
+                + ") SELECT pageId, word, " + column + " FROM " + table + " WHERE pageId = ? AND word LIKE ? LIMIT 1")) {
+            stmt.setInt(1, pageId);
+            stmt.setString(2, wordPattern);
+            assertEquals(1, stmt.executeUpdate(), "The word should have a row to duplicate");
+        }
+    }
+
+    /**
+     * Asserts that every analytics table holds for the page exactly the rows
+     * a fresh analysis of the content gives.
+     */
+    private static void assertMatchesFreshAnalysis(Connection conn, int fileId, int pageId, String content)
+            throws SQLException {
+        PageAnalysis fresh = PageAnalysisPipeline.analyze(new Pages(pageId, fileId, 1, content));
+        MorphologyBundle morphology = fresh.getMorphology();
+        Map<String, Object> posTags = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : morphology.getPosTags().entrySet()) {
+            posTags.put(entry.getKey(), String.join("|", entry.getValue()));
+        }
+        assertEquals(posTags, pageRows(conn, "pos", "pos", pageId));
+        assertEquals(new HashMap<String, Object>(morphology.getLemmas()),
+                pageRows(conn, "lemmatization", "lemma", pageId));
+        assertEquals(new HashMap<String, Object>(morphology.getRoots()),
+                pageRows(conn, "rootextraction", "root", pageId));
+        assertEquals(new HashMap<String, Object>(morphology.getSegments()),
+                pageRows(conn, "wordsegementation", "segment", pageId));
+        assertEquals(new HashMap<String, Object>(morphology.getStems()), pageRows(conn, "stemmation", "stem", pageId));
+        assertEquals(new HashMap<String, Object>(fresh.getPklScores()), pageRows(conn, "pkl", "pklScore", pageId));
+        assertEquals(new HashMap<String, Object>(fresh.getPmiScores()), pageRows(conn, "pmi", "pmiScore", pageId));
+    }
+
+    @Test
+    @DisplayName("Positive: After edits every analytics table should match a fresh analysis of the page")
+    public void testReanalysisMatchesFreshAnalysis() throws Exception {
+        String name = uniqueName("reanalysis");
+        String original = "كتب الطالب الدرس ثم كتب المعلم الدرس في الصف " + System.nanoTime();
+        assertTrue(editorDAO.createFileInDB(name, original));
+        Integer fileId = findStored(name);
+        assertNotNull(fileId);
+        int pageId = editorDAO.getPageFromDB(fileId, 1).getPageId();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            assertMatchesFreshAnalysis(conn, fileId, pageId, original);
+            // Duplicate rows of a word that stays, e.g. left by an older import, should be dropped
+            addDuplicateRow(conn, "pos", "pos", pageId, "كتب");
+            addDuplicateRow(conn, "stemmation", "stem", pageId, "كتب");
+            addDuplicateRow(conn, "pkl", "pklScore", pageId, "%");
+            addDuplicateRow(conn, "pmi", "pmiScore", pageId, "%");
+
+            // Words added, removed and repeated; the word count changes every score
+            String added = "كتب الطالب الطالب الكتاب الجديد ثم كتب كتب الطالب";
+            assertTrue(editorDAO.updateFileInDB(fileId, name, 1, added));
+            assertMatchesFreshAnalysis(conn, fileId, pageId, added);
+
+            // Same word count, one word replaced, so only its contexts change
+            String replaced = "كتب الطالب الطالب الكتاب القديم ثم كتب كتب الطالب";
+            assertTrue(editorDAO.updateFileInDB(fileId, name, 1, replaced));
+            assertMatchesFreshAnalysis(conn, fileId, pageId, replaced);
+
+            // Every word removed
+            assertTrue(editorDAO.updateFileInDB(fileId, name, 1, ""));
+            assertMatchesFreshAnalysis(conn, fileId, pageId, "");
+        }
+        assertEquals("", editorDAO.getPageFromDB(fileId, 1).getPageContent());
+    }
+
+    // ==================== File Transliteration Tests ====================
+
+    /**
+     * Checks that each page of the file has exactly one stored
+     * transliteration and that it is the transliteration of the page.
+     */
+    private static void assertTransliterated(Connection conn, int fileId, int expectedPages) throws SQLException {
+        int pages = 0;
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT p.pageNumber, p.pageContent, t.transliteratedText "
+                + "FROM pages p LEFT JOIN transliteratedpages t ON t.pageId = p.pageId WHERE p.fileId = ? "
+                + "ORDER BY p.pageNumber")) {
+            stmt.setInt(1, fileId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    pages++;
+                    assertEquals(pages, rs.getInt("pageNumber"), "Each page should have one transliteration");
+                    assertEquals(Transliteration.transliterate(rs.getString("pageContent")),
+                            rs.getString("transliteratedText"), "Page " + pages + " should be transliterated");
+                }
+            }
+        }
+        assertEquals(expectedPages, pages);
+    }
+
+    @Test
+    @DisplayName("Positive: transliterateFileInDB should store the transliteration of every page, chunk by chunk")
+    public void testTransliterateFile() throws Exception {
+        EditorDBDAO dao = new EditorDBDAO();
+        String name = uniqueName("transliterate");
+        assertTrue(dao.createFileInDB(name, uniqueText() + TEXT + "\n" + TEXT + "\n" + TEXT));
+        Integer fileId = findStored(name);
+        assertNotNull(fileId);
+        int pageCount = editorDAO.getPagesFromDB(fileId, 1, Integer.MAX_VALUE).size();
+        assertTrue(pageCount > 4, "The file should span several chunks");
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            // Chunks of two pages, the last one short
+            assertEquals(pageCount, dao.transliterateFileInDB(fileId, 2));
+            assertTransliterated(conn, fileId, pageCount);
+
+            // Running again replaces the stored rows rather than adding to them
+            assertTrue(dao.updateFileInDB(fileId, name, 1, "كتب الولد الدرس"));
+            assertEquals(pageCount, editorDAO.transliterateFileInDB(fileId));
+            assertTransliterated(conn, fileId, pageCount);
+
+            // Chunks that divide the pages evenly
+            int chunk = pageCount % 2 == 0 ? pageCount / 2 : pageCount;
+            assertEquals(pageCount, dao.transliterateFileInDB(fileId, chunk));
+            assertTransliterated(conn, fileId, pageCount);
+        }
+    }
+
+    // ==================== Search Index Tests ====================
+
+    /**
+     * Stores a file with a word of its own and drops its postings, as if it
+     * had been stored before the index existed. Returns the word.
+     */
+    private String storeUnindexed(String prefix) throws SQLException {
+        String word = "كلمة" + System.nanoTime();
+        String name = uniqueName(prefix);
+        assertTrue(editorDAO.createFileInDB(name, uniqueText() + word));
+        Integer fileId = findStored(name);
+        assertNotNull(fileId);
+        assertEquals(1, editorDAO.searchWordInDB(word).size());
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                PreparedStatement stmt = conn.prepareStatement("DELETE FROM search_index WHERE fileId = ?")) {
+            stmt.setInt(1, fileId);
+            stmt.executeUpdate();
+        }
+        return word;
+    }
+
+    private static int searchIndexVersion(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT searchIndexVersion FROM corpus_stats WHERE id = 1");
+                ResultSet rs = stmt.executeQuery()) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: initializeSearchIndexInDB should index pages stored before the index, once per database")
+    public void testInitializeSearchIndex() throws SQLException {
+        String word = storeUnindexed("search-backfill");
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement("UPDATE corpus_stats SET searchIndexVersion = 0 WHERE id = 1")) {
+                stmt.executeUpdate();
+            }
+            assertTrue(editorDAO.initializeSearchIndexInDB());
+            assertEquals(1, editorDAO.searchWordInDB(word).size(), "The page should be indexed");
+            assertTrue(searchIndexVersion(conn) > 0, "The backfill should be recorded as done");
+
+            // Done for this database, so it is not run again
+            String later = storeUnindexed("search-backfill-done");
+            assertTrue(editorDAO.initializeSearchIndexInDB());
+            assertTrue(editorDAO.searchWordInDB(later).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: searchWordInDB should only read the index, not index missing pages")
+    public void testSearchDoesNotBackfill() throws SQLException {
+        String word = storeUnindexed("search-no-backfill");
+        assertTrue(editorDAO.searchWordInDB(word).isEmpty());
+    }
+
     // ==================== Negative Tests ====================
 
+    @Test
+    @DisplayName("Negative: transliterateFileInDB with non-existent ID should return -1")
+    public void testTransliterateNonExistentFile() {
+        assertEquals(-1, editorDAO.transliterateFileInDB(-999), "A missing file should not report 0 pages");
+    }
+
     @Test
     @DisplayName("Negative: deleteFileInDB with non-existent ID should return false")
     public void testDeleteNonExistentFile() {
@@ -103,6 +578,21 @@ public class EditorDBDAOTest {
         assertFalse(result, "Updating non-existent file should return false");
     }
 
+    @Test
+    @DisplayName("Negative: getPageFromDB for a non-existent file should return null")
+    public void testGetPageNonExistentFile() {
+        Pages page = editorDAO.getPageFromDB(-999, 1);
+        assertNull(page, "A page of a non-existent file should be null");
+    }
+
+    @Test
+    @DisplayName("Negative: searchWordInDB for a word no page contains should return an empty list")
+    public void testSearchWordNotIndexed() {
+        List<SearchHit> hits = editorDAO.searchWordInDB("nonexistentkeyword");
+        assertNotNull(hits, "Should return an empty list, not null");
+        assertTrue(hits.isEmpty(), "Unknown word should have no hits");
+    }
+
     // ==================== Boundary Tests ====================
 
     @Test
@@ -112,5 +602,12 @@ public class EditorDBDAOTest {
         List<Documents> docs = editorDAO.getFilesFromDB();
         assertNotNull(docs, "Should return empty list, not null, when DB is empty");
     }
-}
 
+    @Test
+    @DisplayName("Boundary: getPagesFromDB with an empty range should return an empty list")
+    public void testGetPagesEmptyRange() {
+        List<Pages> pages = editorDAO.getPagesFromDB(-999, 2, 1);
+        assertNotNull(pages, "Should return an empty list, not null");
+        assertTrue(pages.isEmpty(), "A reversed page range should match no pages");
+    }
+}
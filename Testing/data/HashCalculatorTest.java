@@ -105,5 +105,16 @@ public class HashCalculatorTest {
         assertNotNull(hash, "Long string should produce a hash");
         assertEquals(32, hash.length(), "Long string hash should be 32 characters");
     }
-}
 
+    @Test
+    @DisplayName("Boundary: Hashing in pieces split inside a surrogate pair should match the whole")
+    public void testIncrementalHashMatchesWhole() throws Exception {
+        String text = "بسم الله \uD83D\uDE00 الرحمن";
+        int split = text.indexOf('\uD83D') + 1;
+        HashCalculator.IncrementalHash hash = HashCalculator.newIncrementalHash();
+        hash.update(text.substring(0, split));
+        hash.update(text.substring(split));
+        assertEquals(HashCalculator.calculateHash(text), hash.finish(),
+                "Incremental hash should equal the hash of the joined text");
+    }
+}
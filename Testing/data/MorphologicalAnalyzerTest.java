@@ -0,0 +1,98 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.ArabicTokenizer;
+import dal.Lemmatization;
+import dal.MorphologicalAnalyzer;
+import dal.MorphologyBundle;
+import dal.POSTagger;
+import dal.RootExtraction;
+import dal.Stemmation;
+import dal.TokenAnalysisCache;
+import dal.WordSegmentation;
+
+/**
+ * JUnit 5 tests for MorphologicalAnalyzer (Data Layer).
+ * The one shared pass must give every word the same POS tags, lemma,
+ * root, stem and segment as the per-analysis classes it replaces. The
+ * token cache is cleared before each side, so both ask the analyzer.
+ */
+public class MorphologicalAnalyzerTest {
+
+    // Repeated words, prefixes and suffixes, punctuation, harakat and a line break
+    private static final String TEXT = "كتب الولد الدرس في المدرسة، والمعلمون يكتبون الكتابات. كتب الولد\n"
+            + "بِسْمِ ٱللَّهِ ٱلرَّحْمَٰنِ ٱلرَّحِيمِ وسيكتبونه فالكتاب مكتبة";
+
+    @AfterEach
+    public void tearDown() {
+        TokenAnalysisCache.getInstance().clear();
+    }
+
+    private static MorphologyBundle analyze(String text) {
+        TokenAnalysisCache.getInstance().clear();
+        return MorphologicalAnalyzer.analyze(text);
+    }
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: The shared pass should match each per-analysis class word for word")
+    public void testBundleMatchesSeparatePasses() {
+        MorphologyBundle bundle = analyze(TEXT);
+        assertFalse(bundle.getPosTags().isEmpty(), "The text should have words");
+
+        TokenAnalysisCache.getInstance().clear();
+        assertEquals(POSTagger.extractPOS(TEXT), bundle.getPosTags(), "POS tags");
+        TokenAnalysisCache.getInstance().clear();
+        assertEquals(Lemmatization.lemmatizeWords(TEXT), bundle.getLemmas(), "Lemmas");
+        TokenAnalysisCache.getInstance().clear();
+        assertEquals(RootExtraction.extractRoots(TEXT), bundle.getRoots(), "Roots");
+        TokenAnalysisCache.getInstance().clear();
+        assertEquals(Stemmation.stemWords(TEXT), bundle.getStems(), "Stems");
+        TokenAnalysisCache.getInstance().clear();
+        assertEquals(WordSegmentation.extractSegments(TEXT), bundle.getSegments(), "Segments");
+    }
+
+    @Test
+    @DisplayName("Positive: Every map of the bundle should cover the same words")
+    public void testBundleMapsShareWords() {
+        MorphologyBundle bundle = analyze(TEXT);
+        assertEquals(bundle.getPosTags().keySet(), bundle.getLemmas().keySet());
+        assertEquals(bundle.getPosTags().keySet(), bundle.getRoots().keySet());
+        assertEquals(bundle.getPosTags().keySet(), bundle.getStems().keySet());
+        assertEquals(bundle.getPosTags().keySet(), bundle.getSegments().keySet());
+        assertEquals(new HashSet<>(ArabicTokenizer.tokens(TEXT)), bundle.getPosTags().keySet(),
+                "Each distinct token should be analyzed");
+    }
+
+    @Test
+    @DisplayName("Positive: Analyzing pre-split tokens should match analyzing the text")
+    public void testAnalyzeTokensMatchesText() {
+        MorphologyBundle fromText = analyze(TEXT);
+        TokenAnalysisCache.getInstance().clear();
+        MorphologyBundle fromTokens = MorphologicalAnalyzer.analyzeTokens(ArabicTokenizer.tokens(TEXT));
+        assertEquals(fromText.getPosTags(), fromTokens.getPosTags());
+        assertEquals(fromText.getSegments(), fromTokens.getSegments());
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: Text without Arabic words should give empty maps, as the separate passes do")
+    public void testNoWords() {
+        for (String text : Arrays.asList("", "   \n", "123 ، . !")) {
+            MorphologyBundle bundle = analyze(text);
+            assertEquals(POSTagger.extractPOS(text), bundle.getPosTags());
+            assertEquals(Stemmation.stemWords(text), bundle.getStems());
+            assertEquals(WordSegmentation.extractSegments(text), bundle.getSegments());
+        }
+    }
+}
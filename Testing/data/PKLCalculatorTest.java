@@ -0,0 +1,83 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.PKLCalculator;
+import dal.TokenDictionary;
+
+/**
+ * JUnit 5 tests for PKLCalculator (Data Layer): aggregation of repeated
+ * contexts and the corpus-wide scope.
+ */
+public class PKLCalculatorTest {
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Repeated contexts should be passed once with their count")
+    public void testContextsAggregated() {
+        PKLCalculator calculator = new PKLCalculator("قال الله قال الله قال الله");
+        List<Integer> counts = new ArrayList<>();
+        calculator.forEachContext((left, word, right, count, pkl) -> counts.add(count));
+
+        assertEquals(2, calculator.getContextCount(), "Only two distinct contexts should be counted");
+        assertEquals(2, counts.get(0));
+        assertEquals(2, counts.get(1));
+    }
+
+    @Test
+    @DisplayName("Positive: Context scores should match the scores of the word map")
+    public void testContextsMatchWordMap() {
+        PKLCalculator calculator = new PKLCalculator("بسم الله الرحمن الرحيم الحمد لله رب العالمين الرحمن الرحيم");
+        Map<String, Double> scores = calculator.calculatePKLForAllWords();
+        TokenDictionary dictionary = calculator.getDictionary();
+        List<String> keys = new ArrayList<>();
+        calculator.forEachContext((left, word, right, count, pkl) -> {
+            String key = dictionary.token(word) + " (" + dictionary.token(left) + ", " + dictionary.token(right) + ")";
+            keys.add(key);
+            assertEquals(scores.get(key), pkl, 0.0);
+        });
+        assertEquals(new ArrayList<>(scores.keySet()), keys, "Contexts should come in order of first appearance");
+    }
+
+    @Test
+    @DisplayName("Positive: A corpus should use word probabilities over all documents")
+    public void testCorpusScope() {
+        String first = "بسم الله الرحمن الرحيم";
+        String second = "الحمد لله رب العالمين الرحمن الرحيم";
+        PKLCalculator corpus = new PKLCalculator();
+        corpus.addDocument(first);
+        corpus.addDocument(second);
+        PKLCalculator joined = new PKLCalculator(first + " " + second);
+
+        assertEquals(joined.calculatePKL("الرحمن", "الله", "الرحيم"), corpus.calculatePKL("الرحمن", "الله", "الرحيم"),
+                1e-15);
+        assertEquals(6, corpus.getContextCount(), "Contexts should not span two documents");
+        assertEquals(8, joined.getContextCount());
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: Documents shorter than three words should have no contexts")
+    public void testShortDocuments() {
+        PKLCalculator calculator = new PKLCalculator();
+        calculator.addDocument("");
+        calculator.addDocument("كلمة واحدة");
+        assertEquals(0, calculator.getContextCount());
+        assertTrue(calculator.calculatePKLForAllWords().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Negative: Unknown words should score zero")
+    public void testUnknownWords() {
+        assertEquals(0.0, new PKLCalculator("بسم الله الرحمن").calculatePKL("غائب", "بسم", "الرحمن"));
+    }
+}
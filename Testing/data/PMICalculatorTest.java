@@ -0,0 +1,88 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.PMICalculator;
+
+/**
+ * JUnit 5 tests for PMICalculator (Data Layer), mainly the bounded
+ * strongest-bigram selection used for stored rows.
+ */
+public class PMICalculatorTest {
+
+    private static final String TEXT = "بسم الله الرحمن الرحيم الحمد لله رب العالمين الرحمن الرحيم";
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Without limits every bigram should be kept, strongest first")
+    public void testUnboundedKeepsAllBigrams() {
+        PMICalculator calculator = new PMICalculator(TEXT);
+        Map<String, Double> all = calculator.calculatePMIForAllBigrams();
+        Map<String, Double> strongest = calculator.calculateStrongestBigrams(1, 0);
+
+        assertEquals(all, strongest, "The same bigrams and scores should be returned");
+        double previous = Double.POSITIVE_INFINITY;
+        for (double score : strongest.values()) {
+            assertTrue(score <= previous, "Scores should not increase");
+            previous = score;
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: Top-K should keep the K strongest bigrams")
+    public void testTopK() {
+        Random random = new Random(3);
+        String[] words = { "كتب", "قرأ", "علم", "درس", "بيت", "باب", "قلم", "نور" };
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        PMICalculator calculator = new PMICalculator(text.toString());
+        List<Map.Entry<String, Double>> all = new ArrayList<>(calculator.calculateStrongestBigrams(1, 0).entrySet());
+        List<Map.Entry<String, Double>> top = new ArrayList<>(calculator.calculateStrongestBigrams(1, 10).entrySet());
+
+        assertEquals(10, top.size());
+        assertEquals(all.subList(0, 10), top, "Top-K should be the head of the full ranking");
+    }
+
+    @Test
+    @DisplayName("Positive: Bigrams seen fewer than the minimum count should be dropped")
+    public void testMinCount() {
+        Map<String, Double> scores = new PMICalculator(TEXT).calculateStrongestBigrams(2, 0);
+        assertEquals(1, scores.size());
+        assertTrue(scores.containsKey("الرحمن الرحيم"));
+    }
+
+    @Test
+    @DisplayName("Positive: Equal scores should keep the order of first appearance")
+    public void testTiesKeepTextOrder() {
+        Map<String, Double> scores = new PMICalculator("الف باء تاء ثاء").calculateStrongestBigrams(1, 2);
+        assertEquals(Arrays.asList("الف باء", "باء تاء"), new ArrayList<>(scores.keySet()));
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: Text without bigrams should give no scores")
+    public void testNoBigrams() {
+        assertTrue(new PMICalculator("").calculateStrongestBigrams(1, 10).isEmpty());
+        assertTrue(new PMICalculator("كلمة").calculateStrongestBigrams(1, 10).isEmpty());
+        assertTrue(new PMICalculator("abc def").calculateStrongestBigrams(1, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Negative: A minimum count no bigram reaches should give no scores")
+    public void testMinCountTooHigh() {
+        assertTrue(new PMICalculator(TEXT).calculateStrongestBigrams(3, 0).isEmpty());
+    }
+}
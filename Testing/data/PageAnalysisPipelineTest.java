@@ -0,0 +1,119 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.AnalysisType;
+import dal.PKLCalculator;
+import dal.PMICalculator;
+import dal.PageAnalysis;
+import dal.PageAnalysisPipeline;
+import dal.Transliteration;
+import dto.Pages;
+
+/**
+ * JUnit 5 tests for PageAnalysisPipeline (Data Layer): analyzing a page for
+ * some analyses only, as lazy policies and pending analyses do, and the
+ * order and failure handling of pages analyzed on the shared pool.
+ */
+public class PageAnalysisPipelineTest {
+
+    private static final String TEXT = "بسم الله الرحمن الرحيم الحمد لله رب العالمين الرحمن الرحيم";
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Requested analyses should match the calculators")
+    public void testRequestedAnalyses() {
+        PageAnalysis analysis = PageAnalysisPipeline.analyze(new Pages(1, 1, 1, TEXT),
+                EnumSet.of(AnalysisType.TRANSLITERATION, AnalysisType.PKL, AnalysisType.PMI));
+        assertEquals(Transliteration.transliterate(TEXT), analysis.getTransliteration());
+        assertEquals(new PKLCalculator(TEXT).calculatePKLForAllWords(), analysis.getPklScores());
+        assertEquals(new PMICalculator(TEXT).calculateStoredBigrams(), analysis.getPmiScores());
+        assertEquals(10, analysis.getTokens().size(), "The words for the search index should always be found");
+    }
+
+    @Test
+    @DisplayName("Positive: Analysis types should be found by their configuration key")
+    public void testTypeKeys() {
+        for (AnalysisType type : AnalysisType.values()) {
+            assertSame(type, AnalysisType.fromKey(type.getKey()));
+        }
+        assertTrue(AnalysisType.LEMMA.isMorphology());
+        assertFalse(AnalysisType.TFIDF.isPerPage());
+    }
+
+    @Test
+    @DisplayName("Positive: Pages analyzed on the pool should reach the writer in input order")
+    public void testPageOrder() throws Exception {
+        List<Pages> pages = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            // Pages of different lengths finish out of order on the pool
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 1 + (i * 7) % 13; j++) {
+                content.append(TEXT).append(' ');
+            }
+            pages.add(new Pages(i, 1, i, content.toString()));
+        }
+        List<Integer> written = new ArrayList<>();
+        PageAnalysisPipeline.process(pages.iterator(), EnumSet.of(AnalysisType.TRANSLITERATION),
+                analysis -> written.add(analysis.getPage().getPageNumber()));
+        assertEquals(200, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(i + 1, written.get(i).intValue(), "Pages should be written in order");
+        }
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: A failing writer should stop the pipeline and its error reach the caller to roll back")
+    public void testWriterFailure() {
+        List<Pages> pages = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            pages.add(new Pages(i, 1, i, TEXT));
+        }
+        List<Integer> written = new ArrayList<>();
+        Exception failure = assertThrows(IllegalStateException.class,
+                () -> PageAnalysisPipeline.process(pages.iterator(), EnumSet.of(AnalysisType.TRANSLITERATION),
+                        analysis -> {
+                            if (analysis.getPage().getPageNumber() == 10) {
+                                throw new IllegalStateException("write failed");
+                            }
+                            written.add(analysis.getPage().getPageNumber());
+                        }));
+        assertEquals("write failed", failure.getMessage());
+        assertEquals(9, written.size(), "No page after the failure should be written");
+    }
+
+    @Test
+    @DisplayName("Negative: A page that cannot be analyzed should fail the whole file")
+    public void testAnalysisFailure() {
+        List<Pages> pages = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            pages.add(new Pages(i, 1, i, i == 5 ? null : TEXT));
+        }
+        List<Integer> written = new ArrayList<>();
+        assertThrows(Exception.class, () -> PageAnalysisPipeline.process(pages.iterator(),
+                EnumSet.of(AnalysisType.TRANSLITERATION), analysis -> written.add(analysis.getPage().getPageNumber())));
+        assertEquals(4, written.size(), "Pages before the failure are written, none after");
+    }
+
+    @Test
+    @DisplayName("Negative: Analyses not requested should be left out")
+    public void testSkippedAnalyses() {
+        PageAnalysis analysis = PageAnalysisPipeline.analyze(new Pages(1, 1, 1, TEXT),
+                EnumSet.of(AnalysisType.TRANSLITERATION));
+        assertNotNull(analysis.getTransliteration());
+        assertTrue(analysis.getMorphology().getLemmas().isEmpty());
+        assertTrue(analysis.getPklScores().isEmpty());
+        assertTrue(analysis.getPmiScores().isEmpty());
+        assertNull(AnalysisType.fromKey("unknown"));
+    }
+}
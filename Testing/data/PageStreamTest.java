@@ -0,0 +1,106 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.PageStream;
+import dto.Pages;
+
+/**
+ * JUnit 5 tests for PageStream (Data Layer).
+ * Tests that files are paged while read, with line endings read as the importer reads lines.
+ */
+public class PageStreamTest {
+
+    private Path tempFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempFile = Files.createTempFile("test_stream", ".txt");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(tempFile);
+    }
+
+    private String readAll(Path path) throws IOException {
+        StringBuilder content = new StringBuilder();
+        try (PageStream stream = PageStream.open(path)) {
+            List<Pages> pages;
+            while (!(pages = stream.nextPages(7)).isEmpty()) {
+                for (Pages page : pages) {
+                    content.append(page.getPageContent());
+                }
+            }
+        }
+        return content.toString();
+    }
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Arabic text larger than the read buffer should page back to the same text")
+    public void testLargeArabicFile() throws IOException {
+        StringBuilder sb = new StringBuilder("x");
+        for (int i = 0; i < 20000; i++) {
+            sb.append("بسم الله الرحمن الرحيم\n");
+        }
+        Files.write(tempFile, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(sb.toString(), readAll(tempFile), "Streamed pages should join to the file content");
+    }
+
+    @Test
+    @DisplayName("Positive: Pages should be numbered in order and full except the last")
+    public void testPageNumbering() throws IOException {
+        Files.write(tempFile, new String(new char[250]).replace('\0', 'A').getBytes(StandardCharsets.UTF_8));
+
+        try (PageStream stream = PageStream.open(tempFile)) {
+            List<Pages> pages = stream.nextPages(10);
+            assertEquals(3, pages.size(), "250 chars and a line end should produce 3 pages");
+            assertEquals(100, pages.get(0).getPageContent().length());
+            assertEquals(51, pages.get(2).getPageContent().length());
+            assertEquals(3, pages.get(2).getPageNumber());
+            assertTrue(stream.nextPages(10).isEmpty(), "No pages should follow the last one");
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: Line endings should be read as the importer reads lines")
+    public void testLineEndingsNormalized() throws IOException {
+        Files.write(tempFile, "سطر\r\nسطر\rسطر\nأخير".getBytes(StandardCharsets.UTF_8));
+        assertEquals("سطر\nسطر\nسطر\nأخير\n", readAll(tempFile), "CR and CRLF should become LF and the last line end");
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: Malformed UTF-8 should be replaced instead of failing")
+    public void testMalformedInputReplaced() throws IOException {
+        Files.write(tempFile, new byte[] { 'a', (byte) 0xFF, 'b' });
+        assertEquals("a�b\n", readAll(tempFile), "Malformed bytes should become the replacement character");
+    }
+
+    // ==================== Boundary Tests ====================
+
+    @Test
+    @DisplayName("Boundary: Empty file should produce one empty page")
+    public void testEmptyFile() throws IOException {
+        try (PageStream stream = PageStream.open(tempFile)) {
+            List<Pages> pages = stream.nextPages(10);
+            assertEquals(1, pages.size(), "Empty file should produce 1 page");
+            assertEquals("", pages.get(0).getPageContent());
+        }
+    }
+}
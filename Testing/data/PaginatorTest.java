@@ -0,0 +1,118 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.Paginator;
+import dto.Pages;
+
+/**
+ * JUnit 5 tests for Paginator (Data Layer).
+ * Tests that pages respect word and harakat boundaries and join back to the text.
+ */
+public class PaginatorTest {
+
+    private String join(List<Pages> pages) {
+        StringBuilder sb = new StringBuilder();
+        for (Pages page : pages) {
+            sb.append(page.getPageContent());
+        }
+        return sb.toString();
+    }
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Character pages should not cut through Arabic words")
+    public void testWordsNotSplit() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            sb.append("بِسْمِ اللَّهِ الرَّحْمَٰنِ ");
+        }
+        String content = sb.toString();
+        List<String> words = Arrays.asList(content.trim().split("\\s+"));
+
+        List<Pages> pages = new Paginator(Paginator.Unit.CHARACTERS, 100).paginate(content);
+        assertTrue(pages.size() > 1, "Content should span several pages");
+        assertEquals(content, join(pages), "Pages should join back to the content");
+        for (Pages page : pages) {
+            assertTrue(page.getPageContent().length() <= 100, "Page should not exceed the page size");
+            for (String word : page.getPageContent().trim().split("\\s+")) {
+                assertTrue(words.contains(word), "Page should only hold whole words: " + word);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: Word pages should hold the configured number of words")
+    public void testWordPages() {
+        List<Pages> pages = new Paginator(Paginator.Unit.WORDS, 3).paginate("بسم الله الرحمن الرحيم الحمد لله رب");
+        assertEquals(3, pages.size(), "7 words at 3 per page should produce 3 pages");
+        assertEquals("بسم الله الرحمن ", pages.get(0).getPageContent());
+        assertEquals("رب", pages.get(2).getPageContent());
+        assertEquals(3, pages.get(2).getPageNumber());
+    }
+
+    @Test
+    @DisplayName("Positive: Feeding characters one by one should match paginating the whole text")
+    public void testStreamingMatchesWholeText() {
+        String content = "الحمد لله رب العالمين الرحمن الرحيم مالك يوم الدين ";
+        Paginator streaming = new Paginator(Paginator.Unit.CHARACTERS, 12);
+        List<Pages> streamed = new ArrayList<>();
+        for (char c : content.toCharArray()) {
+            Pages page = streaming.accept(c);
+            if (page != null) {
+                streamed.add(page);
+            }
+        }
+        streamed.add(streaming.finish());
+
+        List<Pages> whole = new Paginator(Paginator.Unit.CHARACTERS, 12).paginate(content);
+        assertEquals(whole.size(), streamed.size(), "Both should produce the same number of pages");
+        for (int i = 0; i < whole.size(); i++) {
+            assertEquals(whole.get(i).getPageContent(), streamed.get(i).getPageContent());
+        }
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: A non-positive page size should be rejected")
+    public void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new Paginator(Paginator.Unit.CHARACTERS, 0));
+    }
+
+    // ==================== Boundary Tests ====================
+
+    @Test
+    @DisplayName("Boundary: A word longer than a page should not be cut between a letter and its harakat")
+    public void testHarakatClusterNotSplit() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            sb.append("بَّ");
+        }
+        String content = sb.toString();
+
+        List<Pages> pages = new Paginator(Paginator.Unit.CHARACTERS, 100).paginate(content);
+        assertEquals(content, join(pages), "Pages should join back to the content");
+        for (Pages page : pages) {
+            int type = Character.getType(page.getPageContent().charAt(0));
+            assertNotEquals(Character.NON_SPACING_MARK, type, "Page should not start with a haraka");
+        }
+    }
+
+    @Test
+    @DisplayName("Boundary: A surrogate pair at the page edge should stay on one page")
+    public void testSurrogatePairNotSplit() {
+        String content = "abcd😀";
+        List<Pages> pages = new Paginator(Paginator.Unit.CHARACTERS, 5).paginate(content);
+        assertEquals("abcd", pages.get(0).getPageContent());
+        assertEquals("😀", pages.get(1).getPageContent());
+    }
+}
@@ -0,0 +1,293 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.AnalysisType;
+import dal.DatabaseConnection;
+import dal.EditorDBDAO;
+import dal.PendingAnalysis;
+import dto.FileMetadata;
+import dto.Pages;
+
+/**
+ * JUnit 5 tests for PendingAnalysis (Data Layer).
+ * Each test stores a file of its own, queues jobs for its pages and drives
+ * the claims of workers through separate connections, so the row locking
+ * of analysis_jobs is exercised as concurrent processes would.
+ */
+public class PendingAnalysisTest {
+
+    private static final String TEXT = "بسم الله الرحمن الرحيم الحمد لله رب العالمين الرحمن الرحيم مالك يوم الدين "
+            + "إياك نعبد وإياك نستعين اهدنا الصراط المستقيم صراط الذين أنعمت عليهم غير المغضوب عليهم ولا الضالين ";
+    private static final Set<AnalysisType> TYPES = EnumSet.of(AnalysisType.TRANSLITERATION, AnalysisType.STEM);
+
+    private final EditorDBDAO dao = new EditorDBDAO();
+    private final List<Connection> connections = new ArrayList<>();
+    private Integer fileId;
+    private List<Integer> pageIds;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            assertEquals(Collections.emptyMap(), PendingAnalysis.countByStatus(conn),
+                    "The tests need a job queue with no other jobs");
+        }
+        String name = "pending-" + System.nanoTime() + ".txt";
+        assertTrue(dao.createFileInDB(name, TEXT + System.nanoTime() + " " + TEXT + TEXT));
+        for (FileMetadata file : dao.getFileSummariesFromDB()) {
+            if (file.getName().equals(name)) {
+                fileId = file.getId();
+            }
+        }
+        assertNotNull(fileId);
+        pageIds = new ArrayList<>();
+        for (Pages page : dao.getPagesFromDB(fileId, 1, Integer.MAX_VALUE)) {
+            pageIds.add(page.getPageId());
+        }
+        assertTrue(pageIds.size() >= 3, "The file should have several pages");
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            for (int pageId : pageIds) {
+                for (AnalysisType type : TYPES) {
+                    PendingAnalysis.add(conn, pageId, type);
+                }
+            }
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        for (Connection conn : connections) {
+            if (!conn.isClosed()) {
+                conn.rollback();
+                conn.close();
+            }
+        }
+        if (fileId != null) {
+            // Deleting the file deletes its pages and their jobs
+            dao.deleteFileInDB(fileId);
+        }
+    }
+
+    /**
+     * A connection in a transaction of its own, standing in for a worker.
+     */
+    private Connection worker() throws SQLException {
+        Connection conn = DatabaseConnection.getInstance().getConnection();
+        conn.setAutoCommit(false);
+        connections.add(conn);
+        return conn;
+    }
+
+    private int jobCount() {
+        return pageIds.size() * TYPES.size();
+    }
+
+    private static int count(Map<Integer, Set<AnalysisType>> jobs) {
+        int count = 0;
+        for (Set<AnalysisType> types : jobs.values()) {
+            count += types.size();
+        }
+        return count;
+    }
+
+    /**
+     * The status and attempts of a job, e.g. "pending/1", or null if it is
+     * gone.
+     */
+    private static String job(int pageId, AnalysisType type) throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT status, attempts FROM analysis_jobs WHERE pageId = ? AND analysisType = ?")) {
+            stmt.setInt(1, pageId);
+            stmt.setString(2, type.getKey());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString("status") + "/" + rs.getInt("attempts") : null;
+            }
+        }
+    }
+
+    private static int rowCount(String table, int pageId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM " + table + " WHERE pageId = ?")) {
+            stmt.setInt(1, pageId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Two workers claiming at once should get disjoint jobs")
+    public void testConcurrentClaimsAreDisjoint() throws SQLException {
+        Connection first = worker();
+        Connection second = worker();
+        // The first claim is not yet committed, so its rows are still locked
+        Map<Integer, Set<AnalysisType>> firstJobs = PendingAnalysis.claim(first, 3);
+        Map<Integer, Set<AnalysisType>> secondJobs = PendingAnalysis.claim(second, jobCount());
+        assertEquals(3, count(firstJobs));
+        assertEquals(jobCount() - 3, count(secondJobs), "The second worker should skip the locked jobs");
+        for (Map.Entry<Integer, Set<AnalysisType>> page : firstJobs.entrySet()) {
+            Set<AnalysisType> shared = new HashSet<>(page.getValue());
+            shared.retainAll(secondJobs.getOrDefault(page.getKey(), Collections.emptySet()));
+            assertTrue(shared.isEmpty(), "Page " + page.getKey() + " should not be claimed twice");
+        }
+        first.commit();
+        second.commit();
+
+        for (int pageId : pageIds) {
+            for (AnalysisType type : TYPES) {
+                assertEquals("running/1", job(pageId, type));
+            }
+        }
+        assertTrue(PendingAnalysis.claim(first, jobCount()).isEmpty(), "Nothing should be left to claim");
+    }
+
+    @Test
+    @DisplayName("Positive: A claimed batch should be computed and its jobs removed")
+    public void testClaimAndComplete() throws Exception {
+        Connection conn = worker();
+        Map<Integer, Set<AnalysisType>> claimed = PendingAnalysis.claim(conn, jobCount());
+        conn.commit();
+        assertEquals(jobCount(), PendingAnalysis.complete(conn, claimed));
+        conn.commit();
+        for (int pageId : pageIds) {
+            assertEquals(1, rowCount("transliteratedpages", pageId));
+            for (AnalysisType type : TYPES) {
+                assertNull(job(pageId, type), "A computed job should be gone");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: Jobs should be resumed only once their lease is over")
+    public void testResumeAfterLease() throws SQLException {
+        Connection conn = worker();
+        PendingAnalysis.claim(conn, jobCount());
+        conn.commit();
+
+        // Just claimed, as by another live process: left alone
+        assertEquals(0, PendingAnalysis.resume(conn, 600));
+        conn.commit();
+        assertEquals("running/1", job(pageIds.get(0), AnalysisType.STEM));
+
+        try (PreparedStatement stmt = conn.prepareStatement("UPDATE analysis_jobs SET claimedAt = "
+                + "CURRENT_TIMESTAMP() - INTERVAL 700 SECOND WHERE pageId = ?")) {
+            stmt.setInt(1, pageIds.get(0));
+            stmt.executeUpdate();
+        }
+        conn.commit();
+        assertEquals(TYPES.size(), PendingAnalysis.resume(conn, 600), "Only the jobs past the lease should be resumed");
+        conn.commit();
+        assertEquals("pending/1", job(pageIds.get(0), AnalysisType.STEM));
+        assertEquals("running/1", job(pageIds.get(1), AnalysisType.STEM));
+    }
+
+    @Test
+    @DisplayName("Positive: Opening a page while a worker holds its claimed batch should compute it once")
+    public void testMaterializeRacingClaimedBatch() throws Exception {
+        Connection workerConn = worker();
+        Connection editorConn = worker();
+        Map<Integer, Set<AnalysisType>> claimed = PendingAnalysis.claim(workerConn, jobCount());
+        workerConn.commit();
+
+        // The page is opened and its jobs locked while the worker starts on the batch
+        int pageId = pageIds.get(0);
+        assertEquals(TYPES.size(), PendingAnalysis.materialize(editorConn, Collections.singletonList(pageId)));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> completed = executor.submit(() -> {
+                int analyses = PendingAnalysis.complete(workerConn, claimed);
+                workerConn.commit();
+                return analyses;
+            });
+            assertThrows(TimeoutException.class, () -> completed.get(300, TimeUnit.MILLISECONDS),
+                    "The worker should wait for the page's jobs");
+            editorConn.commit();
+            assertEquals(jobCount() - TYPES.size(), completed.get(30, TimeUnit.SECONDS).intValue(),
+                    "The worker should skip the jobs done by opening the page");
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int id : pageIds) {
+            assertEquals(1, rowCount("transliteratedpages", id), "Page " + id + " should be transliterated once");
+            assertNull(job(id, AnalysisType.TRANSLITERATION));
+        }
+        // Opening the page again finds nothing to do
+        assertEquals(0, PendingAnalysis.materialize(editorConn, Collections.singletonList(pageId)));
+        editorConn.commit();
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: A failed batch should go back to pending, then to failed after maxAttempts")
+    public void testReleaseAndFail() throws SQLException {
+        Connection conn = worker();
+        Map<Integer, Set<AnalysisType>> claimed = PendingAnalysis.claim(conn, jobCount());
+        conn.commit();
+        PendingAnalysis.release(conn, claimed, "first failure", 2);
+        conn.commit();
+        assertEquals("pending/1", job(pageIds.get(0), AnalysisType.TRANSLITERATION));
+
+        claimed = PendingAnalysis.claim(conn, jobCount());
+        conn.commit();
+        assertEquals(jobCount(), count(claimed), "Released jobs should be claimable again");
+        PendingAnalysis.release(conn, claimed, "second failure", 2);
+        conn.commit();
+        assertEquals("failed/2", job(pageIds.get(0), AnalysisType.TRANSLITERATION));
+        assertTrue(PendingAnalysis.claim(conn, jobCount()).isEmpty(), "Failed jobs should not be claimed");
+        conn.commit();
+
+        try (PreparedStatement stmt = conn
+                .prepareStatement("SELECT lastError FROM analysis_jobs WHERE pageId = ? AND analysisType = ?")) {
+            stmt.setInt(1, pageIds.get(0));
+            stmt.setString(2, AnalysisType.STEM.getKey());
+            try (ResultSet rs = stmt.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals("second failure", rs.getString("lastError"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Negative: Releasing jobs completed meanwhile should not bring them back")
+    public void testReleaseAfterMaterialize() throws Exception {
+        Connection conn = worker();
+        Map<Integer, Set<AnalysisType>> claimed = PendingAnalysis.claim(conn, jobCount());
+        conn.commit();
+        assertEquals(jobCount(), PendingAnalysis.materialize(conn, pageIds));
+        conn.commit();
+        PendingAnalysis.release(conn, claimed, "late failure", 3);
+        conn.commit();
+        try (Connection check = DatabaseConnection.getInstance().getConnection()) {
+            assertEquals(Collections.emptyMap(), PendingAnalysis.countByStatus(check));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.LatencyHistogram;
+import dal.StageMetrics;
+import dto.StageStatistics;
+
+/**
+ * JUnit 5 tests for LatencyHistogram and StageMetrics (Data Layer).
+ * Durations are recorded directly, so percentiles and the JMX view can be
+ * checked without running an import.
+ */
+public class StageMetricsTest {
+
+    private static final long MILLISECOND = 1_000_000L;
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Percentiles should be within the bucket precision")
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * MILLISECOND);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000 * MILLISECOND, histogram.getMaxNanos());
+        assertEquals(500 * MILLISECOND, histogram.getPercentileNanos(50), 500 * MILLISECOND * 0.125);
+        assertEquals(990 * MILLISECOND, histogram.getPercentileNanos(99), 990 * MILLISECOND * 0.125);
+        assertTrue(histogram.getPercentileNanos(100) <= histogram.getMaxNanos(),
+                "A percentile should never exceed the largest value");
+    }
+
+    @Test
+    @DisplayName("Positive: Small and single values should be reported exactly")
+    public void testSmallValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5);
+        assertEquals(5, histogram.getPercentileNanos(50));
+        assertEquals(5, histogram.getPercentileNanos(99));
+    }
+
+    @Test
+    @DisplayName("Positive: Stages should be summarized in milliseconds and ordered by name")
+    public void testStageStatistics() {
+        StageMetrics metrics = StageMetrics.getInstance();
+        metrics.record("test.zeta", 2 * MILLISECOND);
+        metrics.record("test.alpha", 4 * MILLISECOND);
+        metrics.record("test.alpha", 8 * MILLISECOND);
+
+        StageStatistics alpha = null;
+        int alphaIndex = -1;
+        int zetaIndex = -1;
+        List<StageStatistics> stages = metrics.getStages();
+        for (int i = 0; i < stages.size(); i++) {
+            if (stages.get(i).getStage().equals("test.alpha")) {
+                alpha = stages.get(i);
+                alphaIndex = i;
+            } else if (stages.get(i).getStage().equals("test.zeta")) {
+                zetaIndex = i;
+            }
+        }
+        assertNotNull(alpha);
+        assertTrue(alphaIndex < zetaIndex);
+        assertTrue(alpha.getCount() >= 2);
+        assertEquals(8.0, alpha.getMaxMillis(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Positive: Metrics should be readable through the MBean server")
+    public void testJmxAttributes() throws Exception {
+        StageMetrics metrics = StageMetrics.getInstance();
+        metrics.record("test.jmx", MILLISECOND);
+        metrics.addRows("test_table", 3);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(StageMetrics.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+
+        boolean found = false;
+        for (CompositeData stage : (CompositeData[]) server.getAttribute(name, "Stages")) {
+            found |= stage.get("stage").equals("test.jmx");
+        }
+        assertTrue(found, "The recorded stage should be listed");
+        TabularData rows = (TabularData) server.getAttribute(name, "TableRows");
+        assertNotNull(rows.get(new Object[] { "test_table" }));
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: An empty histogram should report zero")
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(99));
+    }
+
+    @Test
+    @DisplayName("Negative: Non-positive row counts should not create a table entry")
+    public void testNonPositiveRows() {
+        StageMetrics metrics = StageMetrics.getInstance();
+        metrics.addRows("test_nothing", 0);
+        metrics.addRows("test_nothing", -4);
+        assertFalse(metrics.getTableRows().containsKey("test_nothing"));
+    }
+}
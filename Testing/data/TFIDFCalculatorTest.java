@@ -2,10 +2,14 @@ package data;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import dal.DocumentTermCounter;
 import dal.TFIDFCalculator;
 
 /**
@@ -90,6 +94,45 @@ public class TFIDFCalculatorTest {
         assertTrue(Double.isFinite(score), "Multiple corpus docs TF-IDF should be finite");
     }
 
+    @Test
+    @DisplayName("Positive: Stored document frequencies should give the same score as the in-memory corpus")
+    public void testDocumentFrequencyLookupMatchesCorpus() {
+        String[] corpus = { "بسم الله الرحمن الرحيم", "الحمد لله رب العالمين", "الرحمن الرحيم" };
+        Map<String, Integer> documentFrequencies = new HashMap<>();
+        for (String document : corpus) {
+            calculator.addDocumentToCorpus(document);
+            for (String term : TFIDFCalculator.documentTerms(document)) {
+                documentFrequencies.merge(term, 1, Integer::sum);
+            }
+        }
+
+        String document = "الله الرحمن الرحيم ملك";
+        assertEquals(calculator.calculateDocumentTfIdf(document),
+                new TFIDFCalculator().calculateDocumentTfIdf(document, corpus.length, documentFrequencies), 1e-12,
+                "Document frequency lookup should reproduce the corpus TF-IDF");
+    }
+
+    @Test
+    @DisplayName("Positive: Terms counted in pieces should score like the whole document")
+    public void testStreamedTermCountsMatchDocument() {
+        Map<String, Integer> documentFrequencies = new HashMap<>();
+        documentFrequencies.put("الله", 2);
+        documentFrequencies.put("الرحمن", 1);
+
+        String document = " بِسْمِ اللَّهِ abc الرَّحْمَٰنِ\nالرَّحِيمِ الله  الله";
+        DocumentTermCounter counter = new DocumentTermCounter();
+        for (int i = 0; i < document.length(); i += 3) {
+            counter.accept(document.substring(i, Math.min(i + 3, document.length())));
+        }
+
+        assertEquals(TFIDFCalculator.documentTerms(document), counter.getTermCounts().keySet(),
+                "Streamed terms should be the document's terms");
+        assertEquals(new TFIDFCalculator().calculateDocumentTfIdf(document, 3, documentFrequencies),
+                new TFIDFCalculator().calculateDocumentTfIdf(counter.getTermCounts(), counter.getWordCount(), 3,
+                        documentFrequencies), 1e-12,
+                "Streamed term counts should reproduce the document TF-IDF");
+    }
+
     // ==================== Negative Tests ====================
 
     @Test
@@ -0,0 +1,175 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.TokenAnalysis;
+import dal.TokenAnalysisCache;
+
+/**
+ * JUnit 5 tests for TokenAnalysisCache (Data Layer).
+ * Uses a counting loader instead of AlKhalil so hits, misses and the
+ * memory budget can be checked directly.
+ */
+public class TokenAnalysisCacheTest {
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        loads = new AtomicInteger();
+    }
+
+    private TokenAnalysisCache newCache(long maxBytes) {
+        return new TokenAnalysisCache(maxBytes, word -> {
+            loads.incrementAndGet();
+            return new TokenAnalysis(Arrays.asList("noun"), word, word, word, word);
+        });
+    }
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Repeated token should be analyzed only once")
+    public void testRepeatedTokenIsCached() {
+        TokenAnalysisCache cache = newCache(1024 * 1024);
+        TokenAnalysis first = cache.get("كتاب");
+        TokenAnalysis second = cache.get("كتاب");
+
+        assertSame(first, second, "Second lookup should return the cached analysis");
+        assertEquals(1, loads.get(), "Loader should run once for a repeated token");
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Positive: Cached analysis should expose the loaded values")
+    public void testCachedValues() {
+        TokenAnalysisCache cache = newCache(1024 * 1024);
+        TokenAnalysis analysis = cache.get("قلم");
+        assertEquals("قلم", analysis.getLemma());
+        assertEquals(Arrays.asList("noun"), analysis.getPosTags());
+    }
+
+    @Test
+    @DisplayName("Positive: Frequently requested token should survive a burst of one-off tokens")
+    public void testFrequentTokenSurvivesBurst() {
+        TokenAnalysisCache cache = newCache(4096);
+        for (int i = 0; i < 20; i++) {
+            cache.get("الله");
+        }
+        for (int i = 0; i < 200; i++) {
+            cache.get("كلمة" + i);
+        }
+        int loadsBefore = loads.get();
+        cache.get("الله");
+        assertEquals(loadsBefore, loads.get(), "Hot token should still be cached");
+    }
+
+    @Test
+    @DisplayName("Positive: The loader should never run on two threads at once")
+    public void testLoaderIsSerialized() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        TokenAnalysisCache cache = new TokenAnalysisCache(1024 * 1024, word -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            loads.incrementAndGet();
+            return new TokenAnalysis(Arrays.asList("noun"), word, word, word, word);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        cache.get("كلمة" + thread + "-" + i);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(160, loads.get());
+        assertEquals(1, maxRunning.get(), "Misses should reach the analyzer one at a time");
+    }
+
+    @Test
+    @DisplayName("Positive: Hits should not wait for a load in progress, and a token loading should load once")
+    public void testHitsDuringLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TokenAnalysisCache cache = new TokenAnalysisCache(1024 * 1024, word -> {
+            if (word.equals("بطيء")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            loads.incrementAndGet();
+            return new TokenAnalysis(Arrays.asList("noun"), word, word, word, word);
+        });
+        cache.get("سريع");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<TokenAnalysis> first = executor.submit(() -> cache.get("بطيء"));
+            Future<TokenAnalysis> second = executor.submit(() -> cache.get("بطيء"));
+            Thread.sleep(100);
+            assertEquals("سريع", cache.get("سريع").getLemma(), "A hit should be served while the loader is busy");
+            release.countDown();
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertEquals(2, loads.get(), "The waiting request should find the token loaded");
+    }
+
+    // ==================== Boundary Tests ====================
+
+    @Test
+    @DisplayName("Boundary: Cache should never exceed its memory budget")
+    public void testBudgetIsRespected() {
+        TokenAnalysisCache cache = newCache(2048);
+        for (int i = 0; i < 500; i++) {
+            cache.get("token" + i);
+        }
+        assertTrue(cache.getEstimatedBytes() <= 2048, "Estimated size should stay within the budget");
+        assertTrue(cache.getEvictionCount() + cache.getRejectionCount() > 0,
+                "Overflow should evict or reject entries");
+    }
+
+    @Test
+    @DisplayName("Boundary: Clear should empty the cache and force a reload")
+    public void testClear() {
+        TokenAnalysisCache cache = newCache(1024 * 1024);
+        cache.get("بيت");
+        cache.clear();
+        assertEquals(0, cache.size());
+        cache.get("بيت");
+        assertEquals(2, loads.get(), "Token should be reloaded after clear");
+    }
+}
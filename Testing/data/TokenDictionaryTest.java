@@ -0,0 +1,133 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.IntIntCountMap;
+import dal.LongIntCountMap;
+import dal.PMICalculator;
+import dal.PreProcessText;
+import dal.TokenDictionary;
+
+/**
+ * JUnit 5 tests for TokenDictionary and the primitive count maps (Data Layer).
+ */
+public class TokenDictionaryTest {
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Tokens should get dense ids in order of first appearance")
+    public void testDenseIds() {
+        TokenDictionary dictionary = new TokenDictionary();
+        int[] ids = dictionary.encode("بسم الله الرحمن الله");
+        assertArrayEquals(new int[] { 0, 1, 2, 1 }, ids);
+        assertEquals(3, dictionary.size());
+        assertEquals("الرحمن", dictionary.token(2));
+        assertEquals(1, dictionary.lookup("الله"));
+        assertEquals(1, dictionary.id(" الله ", 1, 5), "A character range should find the same token");
+    }
+
+    @Test
+    @DisplayName("Positive: Encoding should produce the tokens of splitting on whitespace")
+    public void testEncodeMatchesSplit() {
+        String[] texts = { "", " ", "   ", "كلمة", " كلمة", "كلمة ", "\tكلمة\n\nنص  ", " بسم  الله\r\nالرحمن " };
+        for (String text : texts) {
+            TokenDictionary dictionary = new TokenDictionary();
+            int[] ids = dictionary.encode(text);
+            String[] expected = text.split("\\s+");
+            assertEquals(expected.length, ids.length, "Token count of \"" + text + "\"");
+            for (int i = 0; i < ids.length; i++) {
+                assertEquals(expected[i], dictionary.token(ids[i]));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: Dictionary and count maps should keep every entry when they grow")
+    public void testGrowth() {
+        TokenDictionary dictionary = new TokenDictionary(1);
+        IntIntCountMap counts = new IntIntCountMap(1);
+        LongIntCountMap pairs = new LongIntCountMap(1);
+        for (int round = 1; round <= 3; round++) {
+            for (int i = 0; i < 5000; i++) {
+                int id = dictionary.id("token" + i);
+                assertEquals(i, id);
+                counts.increment(id);
+                pairs.add(LongIntCountMap.pair(id, -id), 2);
+            }
+        }
+        assertEquals(5000, dictionary.size());
+        assertEquals(5000, counts.size());
+        assertEquals(5000, pairs.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(3, counts.get(i));
+            assertEquals(6, pairs.get(LongIntCountMap.pair(i, -i)));
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: Walking the slots should visit every count once")
+    public void testSlotWalk() {
+        IntIntCountMap counts = new IntIntCountMap();
+        int[] keys = { 7, -3, 0, 7, 123456, -3, 7 };
+        for (int key : keys) {
+            counts.increment(key);
+        }
+        Map<Integer, Integer> seen = new HashMap<>();
+        for (int slot = counts.next(-1); slot >= 0; slot = counts.next(slot)) {
+            assertNull(seen.put(counts.keyAt(slot), counts.valueAt(slot)));
+        }
+        Map<Integer, Integer> expected = new HashMap<>();
+        expected.put(7, 3);
+        expected.put(-3, 2);
+        expected.put(0, 1);
+        expected.put(123456, 1);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    @DisplayName("Positive: Pairs should unpack to their ids")
+    public void testPair() {
+        long pair = LongIntCountMap.pair(-5, 42);
+        assertEquals(-5, LongIntCountMap.first(pair));
+        assertEquals(42, LongIntCountMap.second(pair));
+    }
+
+    @Test
+    @DisplayName("Positive: Calculators sharing one encoding should score like separate ones")
+    public void testSharedEncoding() {
+        String content = "بسم الله الرحمن الرحيم الله الرحمن";
+        TokenDictionary dictionary = new TokenDictionary();
+        int[] tokens = dictionary.encode(PreProcessText.preprocessText(content));
+        assertEquals(new PMICalculator(content).calculatePMIForAllBigrams(),
+                new PMICalculator(dictionary, tokens).calculatePMIForAllBigrams());
+        assertEquals(Math.log(3) / Math.log(2), new PMICalculator(content).calculatePMI("الله", "الرحمن"), 1e-12,
+                "Bigram seen twice among six words, each word twice");
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: Unknown tokens and keys should not be found")
+    public void testUnknown() {
+        TokenDictionary dictionary = new TokenDictionary();
+        dictionary.encode("كلمة");
+        assertEquals(-1, dictionary.lookup("نص"));
+        assertEquals(0, new IntIntCountMap().get(1));
+        assertEquals(Double.NEGATIVE_INFINITY, new PMICalculator("كلمة نص").calculatePMI("كلمة", "غائب"));
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.token(1));
+    }
+
+    @Test
+    @DisplayName("Negative: Counts should not be decreased")
+    public void testCountsOnlyGrow() {
+        assertThrows(IllegalArgumentException.class, () -> new IntIntCountMap().add(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new LongIntCountMap().add(1L, -1));
+    }
+}
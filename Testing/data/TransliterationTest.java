@@ -0,0 +1,80 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.Transliteration;
+
+/**
+ * JUnit 5 tests for Transliteration (Data Layer).
+ */
+public class TransliterationTest {
+
+    private static final String TEXT = "بِسْمِ اللَّهِ الرَّحْمَنِ الرَّحِيمِ";
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: Words should be transliterated and capitalized")
+    public void testTransliterate() {
+        assertEquals("Bismi Allahi AlraHmani AlraHiymi", Transliteration.transliterate(TEXT));
+        assertEquals("3ly Sbr", Transliteration.transliterate("علي صبر"));
+    }
+
+    @Test
+    @DisplayName("Positive: Runs of spaces should become one space with none at the ends")
+    public void testSpaces() {
+        assertEquals("Ktb Qlm", Transliteration.transliterate("   كتب    قلم  "));
+        assertEquals("Ktb Qlm", Transliteration.transliterate("كتب abc قلم"));
+    }
+
+    @Test
+    @DisplayName("Positive: Text appended in chunks should match the whole text")
+    public void testChunks() throws IOException {
+        String expected = Transliteration.transliterate(TEXT);
+        for (int cut = 0; cut <= TEXT.length(); cut++) {
+            StringBuilder out = new StringBuilder();
+            new Transliteration(out).append(TEXT, 0, cut).append(TEXT, cut, TEXT.length());
+            assertEquals(expected, out.toString(), "Cut at " + cut);
+        }
+    }
+
+    @Test
+    @DisplayName("Positive: A reader should be transliterated to a writer as a stream")
+    public void testReaderToWriter() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append(TEXT).append(' ');
+        }
+        StringWriter out = new StringWriter();
+        Transliteration.transliterate(new StringReader(text.toString()), out);
+        assertEquals(Transliteration.transliterate(text.toString()), out.toString());
+    }
+
+    @Test
+    @DisplayName("Positive: Reset should start the next text without a space")
+    public void testReset() throws IOException {
+        StringBuilder out = new StringBuilder();
+        Transliteration transliteration = new Transliteration(out);
+        transliteration.append("كتب ");
+        transliteration.reset();
+        transliteration.append("قلم");
+        assertEquals("KtbQlm", out.toString());
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: Text without Arabic letters should give empty text")
+    public void testNoArabic() {
+        assertEquals("", Transliteration.transliterate(""));
+        assertEquals("", Transliteration.transliterate("Hello, 123 \n\t"));
+        assertEquals("", Transliteration.transliterate("ٰ ۝ ؟"));
+    }
+}
@@ -0,0 +1,164 @@
+package presentation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import bll.IEditorBO;
+import dto.FileMetadata;
+import pl.BulkIngestCommand;
+
+/**
+ * JUnit 5 tests for the headless bulk ingest (Presentation Layer).
+ * The business layer is replaced by a proxy that records imports, so no
+ * database or display is needed.
+ */
+public class BulkIngestCommandTest {
+
+    @TempDir
+    Path directory;
+
+    private final Set<String> imported = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final List<FileMetadata> summaries = Collections.synchronizedList(new ArrayList<>());
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    private IEditorBO businessObj(String failing) {
+        return (IEditorBO) Proxy.newProxyInstance(IEditorBO.class.getClassLoader(), new Class<?>[] { IEditorBO.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "importTextFiles":
+                        attempts.incrementAndGet();
+                        String name = (String) args[1];
+                        if (name.equals(failing)) {
+                            return false;
+                        }
+                        imported.add(name);
+                        summaries.add(new FileMetadata(summaries.size() + 1, name, "", "", "", 3));
+                        return true;
+                    case "getMaxConcurrentImports":
+                        return 3;
+                    case "getFileSummaries":
+                        return new ArrayList<>(summaries);
+                    case "getFileExtension":
+                        String fileName = (String) args[0];
+                        int dot = fileName.lastIndexOf('.');
+                        return dot == -1 ? "" : fileName.substring(dot + 1);
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private PrintStream out() {
+        return new PrintStream(output, true);
+    }
+
+    private void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, "نص عربي".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ==================== Positive Tests ====================
+
+    @Test
+    @DisplayName("Positive: A directory should be ingested recursively, skipping unsupported files")
+    public void testDirectoryIsIngested() throws IOException {
+        write(directory.resolve("a.txt"));
+        write(directory.resolve("sub/b.md"));
+        write(directory.resolve("sub/c.pdf"));
+
+        BulkIngestCommand.Report report = new BulkIngestCommand(businessObj(null), 3, 0, out())
+                .run(Collections.singletonList(directory.toFile()));
+
+        assertEquals(2, report.getFiles());
+        assertEquals(0, report.getFailedFiles());
+        assertEquals(6, report.getPages(), "Pages added during the run should be counted");
+        assertTrue(imported.contains("a.txt") && imported.contains("b.md"));
+        assertFalse(imported.contains("c.pdf"));
+    }
+
+    @Test
+    @DisplayName("Positive: The report should give throughput and per-file percentiles")
+    public void testReport() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            write(directory.resolve("f" + i + ".txt"));
+        }
+        BulkIngestCommand.Report report = new BulkIngestCommand(businessObj(null), 4, 0, out())
+                .run(Collections.singletonList(directory.toFile()));
+
+        assertEquals(20, report.getFiles());
+        assertTrue(report.getFilesPerSecond() > 0);
+        assertTrue(report.getLatencyMillis(50) <= report.getLatencyMillis(99));
+        String printed = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(printed.contains("20/20 files"), "Progress should be printed");
+        assertTrue(printed.contains("p99"), "The report should be printed");
+    }
+
+    @Test
+    @DisplayName("Positive: Command-line arguments should select workers and files")
+    public void testExecute() throws IOException {
+        write(directory.resolve("a.txt"));
+        int status = BulkIngestCommand.execute(businessObj(null),
+                new String[] { "--workers", "2", directory.resolve("a.txt").toString() }, out());
+        assertEquals(0, status);
+        assertEquals(1, imported.size());
+    }
+
+    @Test
+    @DisplayName("Positive: More workers than the connection pool can serve should be cut down with a warning")
+    public void testWorkersCappedToPool() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            write(directory.resolve("f" + i + ".txt"));
+        }
+        int status = BulkIngestCommand.execute(businessObj(null),
+                new String[] { "--workers", "8", directory.toString() }, out());
+        assertEquals(0, status);
+        assertEquals(5, imported.size());
+        String printed = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(printed.contains("Using 3 workers rather than 8"), "The cap should be reported");
+        assertTrue(printed.contains("Ingesting 5 files with 3 workers"));
+    }
+
+    // ==================== Negative Tests ====================
+
+    @Test
+    @DisplayName("Negative: A failing file should be retried and reported")
+    public void testFailedFileIsRetried() throws IOException {
+        write(directory.resolve("good.txt"));
+        write(directory.resolve("bad.txt"));
+
+        BulkIngestCommand.Report report = new BulkIngestCommand(businessObj("bad.txt"), 2, 2, out())
+                .run(Collections.singletonList(directory.toFile()));
+
+        assertEquals(1, report.getFailedFiles());
+        assertEquals(4, attempts.get(), "One import of the good file and three of the bad one");
+        assertTrue(new String(output.toByteArray(), StandardCharsets.UTF_8).contains("Failed: "));
+    }
+
+    @Test
+    @DisplayName("Negative: Invalid arguments should give exit status 2")
+    public void testInvalidArguments() {
+        assertEquals(2, BulkIngestCommand.execute(businessObj(null), new String[0], out()));
+        assertEquals(2, BulkIngestCommand.execute(businessObj(null), new String[] { "--workers", "x", "a" }, out()));
+        File missing = directory.resolve("missing").toFile();
+        assertEquals(2, BulkIngestCommand.execute(businessObj(null), new String[] { missing.getPath() }, out()));
+    }
+}
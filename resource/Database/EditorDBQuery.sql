@@ -7,7 +7,8 @@ CREATE TABLE `files` (
 	`fileHash` VARCHAR(255) NOT NULL COLLATE 'utf8mb4_general_ci',
 	`dateCreated` TIMESTAMP NOT NULL DEFAULT current_timestamp(),
 	`lastModified` TIMESTAMP NOT NULL DEFAULT current_timestamp() ON UPDATE current_timestamp(),
-	PRIMARY KEY (`fileid`) USING BTREE
+	PRIMARY KEY (`fileid`) USING BTREE,
+	INDEX `file_hash` (`fileHash`) USING BTREE
 )
 COLLATE='utf8mb4_general_ci'
 ENGINE=InnoDB
@@ -18,8 +19,10 @@ CREATE TABLE `pages` (
 	`fileId` INT(11) NOT NULL,
 	`pageNumber` INT(11) NOT NULL,
 	`pageContent` LONGTEXT NOT NULL COLLATE 'utf8mb4_general_ci',
+	`pageHash` CHAR(32) NULL DEFAULT NULL COLLATE 'ascii_bin',
 	PRIMARY KEY (`pageId`) USING BTREE,
 	UNIQUE INDEX `file_id` (`fileId`, `pageNumber`) USING BTREE,
+	INDEX `page_hash` (`pageHash`) USING BTREE,
 	CONSTRAINT `pages_ibfk_1` FOREIGN KEY (`fileId`) REFERENCES `files` (`fileid`) ON UPDATE RESTRICT ON DELETE CASCADE
 )
 COLLATE='utf8mb4_general_ci'
@@ -154,3 +157,61 @@ COLLATE='utf8mb4_general_ci'
 ENGINE=InnoDB
 AUTO_INCREMENT=14517
 ;
+
+CREATE TABLE `corpus_stats` (
+	`id` TINYINT(4) NOT NULL,
+	`documentCount` INT(11) NOT NULL DEFAULT '0',
+	`initialized` TINYINT(1) NOT NULL DEFAULT '0',
+	`searchIndexVersion` TINYINT(4) NOT NULL DEFAULT '0',
+	PRIMARY KEY (`id`) USING BTREE
+)
+COLLATE='utf8mb4_general_ci'
+ENGINE=InnoDB
+;
+CREATE TABLE `term_df` (
+	`term` VARCHAR(255) NOT NULL COLLATE 'utf8mb4_bin',
+	`docFreq` INT(11) NOT NULL DEFAULT '0',
+	PRIMARY KEY (`term`) USING BTREE
+)
+COLLATE='utf8mb4_general_ci'
+ENGINE=InnoDB
+;
+CREATE TABLE `file_terms` (
+	`fileId` INT(11) NOT NULL,
+	`term` VARCHAR(255) NOT NULL COLLATE 'utf8mb4_bin',
+	`termCount` INT(11) NOT NULL DEFAULT '0',
+	PRIMARY KEY (`fileId`, `term`) USING BTREE,
+	CONSTRAINT `file_terms_fk` FOREIGN KEY (`fileId`) REFERENCES `files` (`fileid`) ON UPDATE RESTRICT ON DELETE CASCADE
+)
+COLLATE='utf8mb4_general_ci'
+ENGINE=InnoDB
+;
+CREATE TABLE `search_index` (
+	`pageId` INT(11) NOT NULL,
+	`position` INT(11) NOT NULL,
+	`fileId` INT(11) NOT NULL,
+	`term` VARCHAR(255) NOT NULL COLLATE 'utf8mb4_bin',
+	`word` LONGTEXT NOT NULL COLLATE 'utf8mb4_general_ci',
+	PRIMARY KEY (`pageId`, `position`) USING BTREE,
+	INDEX `search_term` (`term`) USING BTREE,
+	INDEX `search_index_file_fk` (`fileId`) USING BTREE,
+	CONSTRAINT `search_index_fk` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE,
+	CONSTRAINT `search_index_file_fk` FOREIGN KEY (`fileId`) REFERENCES `files` (`fileid`) ON UPDATE RESTRICT ON DELETE CASCADE
+)
+COLLATE='utf8mb4_general_ci'
+ENGINE=InnoDB
+;
+CREATE TABLE `analysis_jobs` (
+	`pageId` INT(11) NOT NULL,
+	`analysisType` VARCHAR(32) NOT NULL COLLATE 'ascii_bin',
+	`status` VARCHAR(16) NOT NULL DEFAULT 'pending' COLLATE 'ascii_bin',
+	`attempts` INT(11) NOT NULL DEFAULT '0',
+	`claimedAt` TIMESTAMP NULL DEFAULT NULL,
+	`lastError` VARCHAR(255) NULL DEFAULT NULL,
+	PRIMARY KEY (`pageId`, `analysisType`) USING BTREE,
+	INDEX `analysis_jobs_status` (`status`, `pageId`) USING BTREE,
+	CONSTRAINT `analysis_jobs_fk` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE
+)
+COLLATE='utf8mb4_general_ci'
+ENGINE=InnoDB
+;
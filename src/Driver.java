@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 import bll.EditorBO;
 import bll.FacadeBO;
 import bll.IFacadeBO;
@@ -5,6 +7,7 @@ import dal.AbstractDAOEditorFactory;
 import dal.FacadeDAO;
 import dal.IEditorDBDAO;
 import dal.IFacadeDAO;
+import pl.BulkIngestCommand;
 import pl.EditorPO;
 
 public class Driver {
@@ -17,6 +20,12 @@ public class Driver {
     	IEditorDBDAO editorDAO = AbstractDAOEditorFactory.getInstance().createEditorDAO();
         IFacadeDAO facadeDAO = new FacadeDAO(editorDAO);
         IFacadeBO editorBO = new FacadeBO(new EditorBO(facadeDAO));
+        // Pages stored before the search index existed, indexed once per database
+        editorBO.initializeSearchIndex();
+        if (args.length > 0 && args[0].equals(BulkIngestCommand.OPTION)) {
+        	// Headless: no window is created
+        	System.exit(BulkIngestCommand.execute(editorBO, Arrays.copyOfRange(args, 1, args.length), System.out));
+        }
         new EditorPO(editorBO);
     }
 }
\ No newline at end of file
@@ -0,0 +1,359 @@
+package bll;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import dal.EditorConfig;
+import pl.EditorPO;
+
+/**
+ * Drains the analysis jobs a lazy policy left in the database, on a pool of
+ * analysis.filler.threads worker threads (0 = one per core). Pages asked
+ * for, e.g. the page just opened in the editor, are done first. Otherwise
+ * each worker claims up to analysis.filler.batchJobs pending jobs and
+ * commits their results together; a worker rests for
+ * analysis.filler.idleMillis once nothing is pending or a batch failed.
+ *
+ * Jobs are durable: on start, and again whenever none are pending, the
+ * workers put jobs claimed more than analysis.filler.leaseSeconds ago and
+ * still running back to pending, e.g. those of a run that stopped
+ * mid-batch. Jobs claimed more recently are left alone, as another process
+ * sharing the database may still be working on them. With
+ * analysis.filler.enabled false only pages asked for are analyzed.
+ *
+ * The analyses themselves run on the shared page-analysis threads, so more
+ * workers keep more batches in flight rather than more cores busy; each
+ * holds a database connection while its batch is stored. Queue depth and
+ * the rate of jobs done are exposed as realeditor:type=AnalysisWorkers
+ * unless metrics.jmx.enabled is false.
+ */
+public class AnalysisFiller implements AnalysisFillerMXBean, AutoCloseable {
+	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+	public static final String OBJECT_NAME = "realeditor:type=AnalysisWorkers";
+	// Seconds over which the rate of jobs done is averaged
+	private static final int RATE_WINDOW = 60;
+
+	/**
+	 * The analysis_jobs table, as reached through the business layer.
+	 */
+	public interface JobStore {
+		/**
+		 * Computes the pending analyses of a page, returning how many there
+		 * were, or -1 on failure.
+		 */
+		int analyzePage(int pageId);
+
+		/**
+		 * Claims and computes up to maxJobs pending jobs, returning the
+		 * number of jobs, 0 when none are pending, or -1 on failure.
+		 */
+		int analyzeBatch(int maxJobs);
+
+		/**
+		 * Puts jobs claimed at least leaseSeconds ago back to pending,
+		 * returning their number, or -1 on failure.
+		 */
+		int resume(int leaseSeconds);
+
+		Map<String, Integer> countJobs();
+	}
+
+	private final JobStore store;
+	private final int workers;
+	private final int batchJobs;
+	private final long idleMillis;
+	private final int leaseSeconds;
+	private final boolean background;
+	private final ExecutorService executor;
+	private final Set<Integer> requested = new LinkedHashSet<>();
+	private boolean closed;
+	private ObjectName objectName;
+
+	private final AtomicLong pagesRequested = new AtomicLong();
+	private final AtomicLong jobsDone = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	// Jobs done per second of the last RATE_WINDOW seconds, by second
+	private final long[] rateSeconds = new long[RATE_WINDOW];
+	private final long[] rateJobs = new long[RATE_WINDOW];
+
+	public AnalysisFiller(JobStore store, int workers, int batchJobs, long idleMillis, int leaseSeconds,
+			boolean background) {
+		this.store = store;
+		this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+		this.batchJobs = Math.max(1, batchJobs);
+		this.idleMillis = Math.max(1, idleMillis);
+		this.leaseSeconds = Math.max(0, leaseSeconds);
+		this.background = background;
+		AtomicInteger count = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(this.workers, runnable -> {
+			Thread thread = new Thread(runnable, "analysis-worker-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.execute(this::start);
+	}
+
+	public static AnalysisFiller fromConfig(IEditorBO businessObj) {
+		EditorConfig config = EditorConfig.getInstance();
+		AnalysisFiller filler = new AnalysisFiller(new JobStore() {
+			@Override
+			public int analyzePage(int pageId) {
+				return businessObj.materializeAnalysis(pageId);
+			}
+
+			@Override
+			public int analyzeBatch(int maxJobs) {
+				return businessObj.fillPendingAnalysis(maxJobs);
+			}
+
+			@Override
+			public int resume(int leaseSeconds) {
+				return businessObj.resumeAnalysisJobs(leaseSeconds);
+			}
+
+			@Override
+			public Map<String, Integer> countJobs() {
+				return businessObj.getAnalysisJobCounts();
+			}
+		}, config.getInt("analysis.filler.threads", 2), config.getInt("analysis.filler.batchJobs", 200),
+				config.getLong("analysis.filler.idleMillis", 10000), config.getInt("analysis.filler.leaseSeconds", 600),
+				config.getBoolean("analysis.filler.enabled", true));
+		if (config.getBoolean("metrics.jmx.enabled", true)) {
+			filler.register();
+		}
+		return filler;
+	}
+
+	private void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(this, name);
+				objectName = name;
+			}
+		} catch (Exception e) {
+			// The workers run the same, only unobserved
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+	}
+
+	/**
+	 * Asks for the pending analyses of the page to be computed before any
+	 * other page's.
+	 */
+	public synchronized void request(int pageId) {
+		if (!closed && requested.add(pageId)) {
+			notifyAll();
+		}
+	}
+
+	private void start() {
+		if (background) {
+			// Jobs running within their lease may belong to another live process
+			resume(leaseSeconds);
+		}
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			for (int i = 1; i < workers; i++) {
+				executor.execute(() -> run(false));
+			}
+		}
+		run(true);
+	}
+
+	private void run(boolean first) {
+		boolean idle = false;
+		while (true) {
+			Integer pageId = null;
+			synchronized (this) {
+				if (!closed && requested.isEmpty() && (idle || !background)) {
+					try {
+						wait(background ? idleMillis : 0);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					idle = false;
+				}
+				if (closed) {
+					return;
+				}
+				Iterator<Integer> next = requested.iterator();
+				if (next.hasNext()) {
+					pageId = next.next();
+					next.remove();
+				} else if (!background) {
+					continue;
+				}
+			}
+
+			try {
+				if (pageId != null) {
+					int analyses = store.analyzePage(pageId);
+					if (analyses < 0) {
+						failures.incrementAndGet();
+					} else if (analyses > 0) {
+						pagesRequested.incrementAndGet();
+						recordJobs(analyses);
+					}
+				} else {
+					int jobs = store.analyzeBatch(batchJobs);
+					if (jobs < 0) {
+						failures.incrementAndGet();
+					} else {
+						recordJobs(jobs);
+					}
+					idle = jobs <= 0;
+					if (jobs == 0 && first) {
+						// Jobs a worker dropped are looked for once no others are pending
+						resume(leaseSeconds);
+					}
+				}
+			} catch (RuntimeException e) {
+				// The worker carries on; a failed batch is retried after a rest
+				e.printStackTrace();
+				LOGGER.error(e.getMessage());
+				failures.incrementAndGet();
+				idle = true;
+			}
+		}
+	}
+
+	private void resume(int leaseSeconds) {
+		try {
+			if (store.resume(leaseSeconds) < 0) {
+				failures.incrementAndGet();
+			}
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			failures.incrementAndGet();
+		}
+	}
+
+	private void recordJobs(int jobs) {
+		if (jobs <= 0) {
+			return;
+		}
+		jobsDone.addAndGet(jobs);
+		long second = System.currentTimeMillis() / 1000;
+		int slot = (int) (second % RATE_WINDOW);
+		synchronized (rateJobs) {
+			if (rateSeconds[slot] != second) {
+				rateSeconds[slot] = second;
+				rateJobs[slot] = 0;
+			}
+			rateJobs[slot] += jobs;
+		}
+	}
+
+	/**
+	 * Stops the workers, letting the pages and batches in progress finish.
+	 * Jobs still pending stay in the database for next time, as do jobs of
+	 * a batch cut short, which are resumed once their lease is over.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			requested.clear();
+			notifyAll();
+		}
+		executor.shutdown();
+		try {
+			executor.awaitTermination(idleMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (Exception e) {
+				e.printStackTrace();
+				LOGGER.error(e.getMessage());
+			}
+			objectName = null;
+		}
+	}
+
+	@Override
+	public int getWorkerCount() {
+		return workers;
+	}
+
+	/**
+	 * Jobs in the database per status, read afresh.
+	 */
+	@Override
+	public Map<String, Integer> getQueueDepth() {
+		return store.countJobs();
+	}
+
+	/**
+	 * Jobs done per second, averaged over the last minute.
+	 */
+	@Override
+	public double getJobsPerSecond() {
+		long now = System.currentTimeMillis() / 1000;
+		long jobs = 0;
+		synchronized (rateJobs) {
+			for (int i = 0; i < RATE_WINDOW; i++) {
+				// The current second is still filling up and is left out
+				if (rateSeconds[i] < now && rateSeconds[i] >= now - RATE_WINDOW) {
+					jobs += rateJobs[i];
+				}
+			}
+		}
+		return (double) jobs / RATE_WINDOW;
+	}
+
+	/**
+	 * Analysis jobs done, for requested pages and in background batches.
+	 */
+	@Override
+	public long getJobsDone() {
+		return jobsDone.get();
+	}
+
+	/**
+	 * Pages asked for that had pending analyses computed.
+	 */
+	@Override
+	public long getPagesRequested() {
+		return pagesRequested.get();
+	}
+
+	@Override
+	public long getFailureCount() {
+		return failures.get();
+	}
+
+	@Override
+	public synchronized int getRequestedCount() {
+		return requested.size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("AnalysisFiller[workers=%d, requested=%d, pagesRequested=%d, jobsDone=%d, failures=%d]",
+				getWorkerCount(), getRequestedCount(), getPagesRequested(), getJobsDone(), getFailureCount());
+	}
+}
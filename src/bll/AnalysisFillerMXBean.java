@@ -0,0 +1,23 @@
+package bll;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link AnalysisFiller}, registered as
+ * realeditor:type=AnalysisWorkers.
+ */
+public interface AnalysisFillerMXBean {
+	int getWorkerCount();
+
+	Map<String, Integer> getQueueDepth();
+
+	double getJobsPerSecond();
+
+	long getJobsDone();
+
+	long getPagesRequested();
+
+	long getFailureCount();
+
+	int getRequestedCount();
+}
@@ -0,0 +1,380 @@
+package bll;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import dal.EditorConfig;
+import dal.HashCalculator;
+import pl.EditorPO;
+
+/**
+ * Write-behind saving of edited pages. A submitted page is compared by hash
+ * with the last content saved or queued for it and dropped when nothing
+ * changed, so an idle editor never writes. Changed pages wait in a pending
+ * map for a quiet period; submits that arrive meanwhile replace the queued
+ * content, so a burst of edits becomes one write. Writes run one at a time
+ * on a single background thread fed by a bounded queue, and flush writes
+ * everything pending on the caller's thread.
+ *
+ * A page stays pending until it is written, so content read back while its
+ * write is queued or running can be taken from pendingContent instead of
+ * the database. A failed write stays pending too and is retried by the
+ * background thread after a backoff that starts at the autosave interval
+ * and doubles with each failure, up to MAX_RETRY_MILLIS; it is only given
+ * up when a newer submit of the page replaces it.
+ */
+public class AutoSaveService implements AutoCloseable {
+	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+	// Longest wait between retries of a failed write
+	private static final long MAX_RETRY_MILLIS = 5 * 60 * 1000;
+
+	/**
+	 * Writes a page, returning whether it was stored.
+	 */
+	public interface PageWriter {
+		boolean write(int fileId, String fileName, int pageNumber, String content);
+	}
+
+	private static final class PendingSave {
+		final int fileId;
+		final String fileName;
+		final int pageNumber;
+		final String content;
+		final String hash;
+		final long sequence;
+		final long dueAt;
+		// Failed writes of the page since it was last written
+		final int attempts;
+
+		PendingSave(int fileId, String fileName, int pageNumber, String content, String hash, long sequence,
+				long dueAt, int attempts) {
+			this.fileId = fileId;
+			this.fileName = fileName;
+			this.pageNumber = pageNumber;
+			this.content = content;
+			this.hash = hash;
+			this.sequence = sequence;
+			this.dueAt = dueAt;
+			this.attempts = attempts;
+		}
+
+		PendingSave retryAt(long retryAt) {
+			return new PendingSave(fileId, fileName, pageNumber, content, hash, sequence, retryAt, attempts + 1);
+		}
+	}
+
+	private final PageWriter writer;
+	private final long quietNanos;
+	private final long intervalMillis;
+	private final ThreadPoolExecutor executor;
+	private final Map<String, PendingSave> pending = new LinkedHashMap<>();
+	private final Map<String, String> savedHashes = new HashMap<>();
+	// Held for the whole of a write so pages are never written concurrently
+	private final Object writeLock = new Object();
+	private long sequence;
+	private boolean drainQueued;
+	private boolean closed;
+
+	private final AtomicLong saves = new AtomicLong();
+	private final AtomicLong unchanged = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private volatile long lastFlushMillis = -1;
+
+	public AutoSaveService(PageWriter writer, long quietMillis, long intervalMillis, int queueCapacity) {
+		this.writer = writer;
+		this.quietNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, quietMillis));
+		this.intervalMillis = intervalMillis;
+		this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+					Thread thread = new Thread(runnable, "autosave");
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	public static AutoSaveService fromConfig(IEditorBO businessObj) {
+		EditorConfig config = EditorConfig.getInstance();
+		return new AutoSaveService(businessObj::updateFile, config.getLong("autosave.quietMillis", 2000),
+				config.getLong("autosave.intervalMillis", 10000), config.getInt("autosave.queueCapacity", 16));
+	}
+
+	/**
+	 * Queues the page for saving unless its content matches what was last
+	 * saved or queued for it. Returns whether a write is now pending.
+	 */
+	public boolean submit(int fileId, String fileName, int pageNumber, String content) {
+		String text = content == null ? "" : content;
+		String hash = hash(text);
+		String key = key(fileId, pageNumber);
+		synchronized (this) {
+			if (closed) {
+				LOGGER.warn("Autosave is closed, page " + pageNumber + " of file " + fileId + " was not queued");
+				return false;
+			}
+			PendingSave previous = pending.get(key);
+			String current = previous != null ? previous.hash : savedHashes.get(key);
+			if (hash != null && hash.equals(current)) {
+				unchanged.incrementAndGet();
+				return previous != null;
+			}
+			if (previous != null) {
+				coalesced.incrementAndGet();
+			}
+			// A page keeps its place in line while it is edited, so steady typing cannot postpone its write,
+			// and a page whose write failed keeps its backoff
+			long dueAt = previous != null ? previous.dueAt : System.nanoTime() + quietNanos;
+			int attempts = previous != null ? previous.attempts : 0;
+			pending.put(key, new PendingSave(fileId, fileName, pageNumber, text, hash, ++sequence, dueAt, attempts));
+			scheduleDrain();
+			return true;
+		}
+	}
+
+	/**
+	 * Records the content of a page as read from the database, so that
+	 * submitting it unchanged does not write. Ignored while the page has a
+	 * pending write.
+	 */
+	public synchronized void markSaved(int fileId, int pageNumber, String content) {
+		String key = key(fileId, pageNumber);
+		if (!pending.containsKey(key)) {
+			String hash = hash(content == null ? "" : content);
+			if (hash != null) {
+				savedHashes.put(key, hash);
+			}
+		}
+	}
+
+	/**
+	 * Content queued for the page that is not yet written, or null.
+	 */
+	public synchronized String pendingContent(int fileId, int pageNumber) {
+		PendingSave save = pending.get(key(fileId, pageNumber));
+		return save == null ? null : save.content;
+	}
+
+	/**
+	 * Writes the page now on the caller's thread, replacing any pending write
+	 * of it, even when the content is unchanged.
+	 */
+	public boolean saveNow(int fileId, String fileName, int pageNumber, String content) {
+		String text = content == null ? "" : content;
+		String key = key(fileId, pageNumber);
+		synchronized (this) {
+			PendingSave previous = pending.get(key);
+			pending.put(key, new PendingSave(fileId, fileName, pageNumber, text, hash(text), ++sequence,
+					System.nanoTime(), previous != null ? previous.attempts : 0));
+		}
+		return write(key);
+	}
+
+	/**
+	 * Writes every pending page on the caller's thread, returning false if
+	 * any write failed.
+	 */
+	public boolean flush() {
+		List<String> keys;
+		synchronized (this) {
+			keys = new ArrayList<>(pending.keySet());
+		}
+		boolean flushed = true;
+		for (String key : keys) {
+			flushed &= write(key);
+		}
+		return flushed;
+	}
+
+	private void scheduleDrain() {
+		if (drainQueued) {
+			notifyAll();
+			return;
+		}
+		try {
+			executor.execute(this::drain);
+			drainQueued = true;
+		} catch (RejectedExecutionException e) {
+			// The page stays pending and is written by the next drain or flush
+			LOGGER.warn("Autosave queue is full: " + e.getMessage());
+		}
+	}
+
+	private void drain() {
+		while (true) {
+			String key = null;
+			synchronized (this) {
+				PendingSave next = null;
+				for (Map.Entry<String, PendingSave> entry : pending.entrySet()) {
+					if (next == null || entry.getValue().dueAt < next.dueAt) {
+						next = entry.getValue();
+						key = entry.getKey();
+					}
+				}
+				if (next == null || closed) {
+					drainQueued = false;
+					return;
+				}
+				long wait = TimeUnit.NANOSECONDS.toMillis(next.dueAt - System.nanoTime());
+				if (wait > 0) {
+					try {
+						wait(wait);
+					} catch (InterruptedException e) {
+						drainQueued = false;
+						Thread.currentThread().interrupt();
+						return;
+					}
+					continue;
+				}
+			}
+			write(key);
+		}
+	}
+
+	private boolean write(String key) {
+		synchronized (writeLock) {
+			PendingSave save;
+			synchronized (this) {
+				save = pending.get(key);
+			}
+			if (save == null) {
+				// Written by a flush or drain that got here first
+				return true;
+			}
+			long start = System.nanoTime();
+			boolean written;
+			try {
+				written = writer.write(save.fileId, save.fileName, save.pageNumber, save.content);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+				LOGGER.error(e.getMessage());
+				written = false;
+			}
+			lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			synchronized (this) {
+				PendingSave latest = pending.get(key);
+				boolean current = latest != null && latest.sequence == save.sequence;
+				if (written) {
+					if (current) {
+						pending.remove(key);
+					}
+					saves.incrementAndGet();
+					if (save.hash != null) {
+						savedHashes.put(key, save.hash);
+					}
+				} else {
+					failures.incrementAndGet();
+					// The stored page is no longer known, so unchanged content is written again after this
+					savedHashes.remove(key);
+					String page = "Autosave of page " + save.pageNumber + " of file " + save.fileId + " failed";
+					if (current) {
+						long retryMillis = retryMillis(save.attempts + 1);
+						pending.put(key, save.retryAt(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryMillis)));
+						if (!closed) {
+							scheduleDrain();
+						}
+						LOGGER.error(page + ", retrying in " + retryMillis + " ms");
+					} else {
+						// A newer submit replaced this content and is written instead
+						LOGGER.error(page + ", a newer edit is pending");
+					}
+				}
+			}
+			return written;
+		}
+	}
+
+	/**
+	 * Writes what is pending and stops the background thread. Pages whose
+	 * write still fails are logged and not retried.
+	 */
+	@Override
+	public void close() {
+		flush();
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+			if (!pending.isEmpty()) {
+				LOGGER.error("Autosave closed with " + pending.size() + " unsaved pages");
+			}
+		}
+		executor.shutdown();
+		try {
+			executor.awaitTermination(intervalMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private long retryMillis(int attempts) {
+		long retry = Math.max(1, intervalMillis);
+		for (int i = 1; i < attempts && retry < MAX_RETRY_MILLIS; i++) {
+			retry *= 2;
+		}
+		return Math.min(retry, MAX_RETRY_MILLIS);
+	}
+
+	private static String key(int fileId, int pageNumber) {
+		return fileId + ":" + pageNumber;
+	}
+
+	private static String hash(String content) {
+		try {
+			return HashCalculator.calculateHash(content);
+		} catch (Exception e) {
+			// Without a hash the page is always written
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return null;
+		}
+	}
+
+	public long getIntervalMillis() {
+		return intervalMillis;
+	}
+
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Duration of the most recent page write in milliseconds, -1 before the
+	 * first one.
+	 */
+	public long getLastFlushMillis() {
+		return lastFlushMillis;
+	}
+
+	public long getSaveCount() {
+		return saves.get();
+	}
+
+	public long getUnchangedCount() {
+		return unchanged.get();
+	}
+
+	public long getCoalescedCount() {
+		return coalesced.get();
+	}
+
+	public long getFailureCount() {
+		return failures.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("AutoSaveService[pending=%d, saves=%d, unchanged=%d, coalesced=%d, failures=%d, lastFlushMillis=%d]",
+				getPendingCount(), getSaveCount(), getUnchangedCount(), getCoalescedCount(), getFailureCount(),
+				getLastFlushMillis());
+	}
+}
@@ -0,0 +1,155 @@
+package bll;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import dto.Documents;
+import dto.Pages;
+
+/**
+ * Bounded LRU cache of documents keyed by file id, limited both by the
+ * number of documents and by the total characters of their pages. Entries
+ * are dropped when the file is updated or deleted; a load that overlaps an
+ * invalidation is returned to the caller but not cached, so a stale copy
+ * read before the change cannot be stored after it.
+ *
+ * Documents and pages are mutable, so the cache keeps a copy of its own
+ * and every caller gets a fresh copy; a caller changing the document it
+ * was handed cannot change what the next caller reads. Page contents are
+ * immutable strings and are shared.
+ */
+public class DocumentCache {
+	private final int maxDocuments;
+	private final long maxChars;
+	private final IntFunction<Documents> loader;
+	private final LinkedHashMap<Integer, Documents> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long currentChars;
+	private long generation;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	public DocumentCache(int maxDocuments, long maxChars, IntFunction<Documents> loader) {
+		this.maxDocuments = maxDocuments;
+		this.maxChars = maxChars;
+		this.loader = loader;
+	}
+
+	/**
+	 * Returns the document, loading it on a miss. Returns null if it does not
+	 * exist.
+	 */
+	public Documents get(int id) {
+		long loadGeneration;
+		synchronized (this) {
+			Documents doc = entries.get(id);
+			if (doc != null) {
+				hits.incrementAndGet();
+				return copy(doc);
+			}
+			loadGeneration = generation;
+		}
+		misses.incrementAndGet();
+
+		Documents doc = loader.apply(id);
+		if (doc != null) {
+			put(id, copy(doc), loadGeneration);
+		}
+		return doc;
+	}
+
+	private synchronized void put(int id, Documents doc, long loadGeneration) {
+		if (loadGeneration != generation || entries.containsKey(id)) {
+			return;
+		}
+		long weight = chars(doc);
+		if (weight > maxChars || maxDocuments <= 0) {
+			return;
+		}
+
+		Iterator<Map.Entry<Integer, Documents>> eldest = entries.entrySet().iterator();
+		while ((entries.size() >= maxDocuments || currentChars + weight > maxChars) && eldest.hasNext()) {
+			currentChars -= chars(eldest.next().getValue());
+			eldest.remove();
+			evictions.incrementAndGet();
+		}
+		entries.put(id, doc);
+		currentChars += weight;
+	}
+
+	public synchronized void invalidate(int id) {
+		generation++;
+		Documents doc = entries.remove(id);
+		if (doc != null) {
+			currentChars -= chars(doc);
+		}
+	}
+
+	public synchronized void clear() {
+		generation++;
+		entries.clear();
+		currentChars = 0;
+	}
+
+	private static Documents copy(Documents doc) {
+		List<Pages> pages = null;
+		if (doc.getPages() != null) {
+			pages = new ArrayList<>(doc.getPages().size());
+			for (Pages page : doc.getPages()) {
+				pages.add(new Pages(page.getPageId(), page.getFileId(), page.getPageNumber(), page.getPageContent()));
+			}
+		}
+		return new Documents(doc.getId(), doc.getName(), doc.getHash(), doc.getLastModified(), doc.getDateCreated(),
+				pages);
+	}
+
+	private static long chars(Documents doc) {
+		long total = 0;
+		if (doc.getPages() != null) {
+			for (Pages page : doc.getPages()) {
+				if (page.getPageContent() != null) {
+					total += page.getPageContent().length();
+				}
+			}
+		}
+		return total;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getCachedChars() {
+		return currentChars;
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	public double getHitRate() {
+		long requests = hits.get() + misses.get();
+		return requests == 0 ? 0.0 : (double) hits.get() / requests;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("DocumentCache[documents=%d/%d, chars=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.2f]",
+				size(), maxDocuments, getCachedChars(), maxChars, getHitCount(), getMissCount(), getEvictionCount(),
+				getHitRate());
+	}
+}
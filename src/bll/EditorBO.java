@@ -1,8 +1,6 @@
 package bll;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -10,18 +8,27 @@ import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import dal.EditorConfig;
 import dal.IFacadeDAO;
+import dal.StageMetrics;
 import dto.Documents;
+import dto.FileMetadata;
 import dto.Pages;
+import dto.SearchHit;
+import dto.StageStatistics;
 import pl.EditorPO;
 
 public class EditorBO implements IEditorBO {
 	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
 
 	private IFacadeDAO db;
+	private final DocumentCache documentCache;
 
 	public EditorBO(IFacadeDAO db) {
 		this.db = db;
+		EditorConfig config = EditorConfig.getInstance();
+		this.documentCache = new DocumentCache(config.getInt("document.cache.maxDocuments", 32),
+				config.getLong("document.cache.maxChars", 8L * 1024 * 1024), db::getFileFromDB);
 	}
 
 	@Override
@@ -43,6 +50,8 @@ public class EditorBO implements IEditorBO {
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
 			return false;
+		} finally {
+			documentCache.invalidate(id);
 		}
 	}
 
@@ -54,42 +63,37 @@ public class EditorBO implements IEditorBO {
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
 			return false;
+		} finally {
+			documentCache.invalidate(id);
 		}
 	}
 
 	@Override
 	public boolean importTextFiles(File file, String fileName) {
-		StringBuilder fileContent = new StringBuilder();
 		String fileExtension = getFileExtension(fileName);
-		BufferedReader reader;
-		try {
-			reader = new BufferedReader(new FileReader(file));
-			String line;
-
-			while ((line = reader.readLine()) != null) {
-				fileContent.append(line).append("\n");
-			}
-			reader.close();
-
-			if (fileExtension.equalsIgnoreCase("txt") || fileExtension.equalsIgnoreCase("md")) {
-				return db.createFileInDB(fileName, fileContent.toString());
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
-			LOGGER.error(e.getMessage());
+		if (fileExtension.equalsIgnoreCase("txt") || fileExtension.equalsIgnoreCase("md")) {
+			// Read, paged and stored as a stream; the content is never held whole
+			return db.importFileInDB(fileName, file);
 		}
 		return false;
 	}
 
 	@Override
 	public Documents getFile(int id) {
-		List<Documents> docs = getAllFiles();
-		for (int i = 0; i < docs.size(); i++) {
-			if (id == docs.get(i).getId()) {
-				return docs.get(i);
-			}
-		}
-		return null;
+		return documentCache.get(id);
+	}
+
+	public DocumentCache getDocumentCache() {
+		return documentCache;
+	}
+
+	/**
+	 * Imports that can run at once without waiting for a database
+	 * connection: each holds one pooled connection until it is done.
+	 */
+	@Override
+	public int getMaxConcurrentImports() {
+		return Math.max(1, EditorConfig.getInstance().getInt("db.pool.maxSize", 10));
 	}
 
 	@Override
@@ -103,15 +107,65 @@ public class EditorBO implements IEditorBO {
 		return db.getFilesFromDB();
 	}
 
+	@Override
+	public List<FileMetadata> getFileSummaries() {
+		return db.getFileSummariesFromDB();
+	}
+
+	@Override
+	public Pages getPage(int fileId, int pageNumber) {
+		return db.getPageFromDB(fileId, pageNumber);
+	}
+
+	@Override
+	public List<Pages> getPages(int fileId, int fromPage, int toPage) {
+		return db.getPagesFromDB(fileId, fromPage, toPage);
+	}
+
 	@Override
 	public String transliterate(int pageId, String arabicText) {
 		return db.transliterateInDB(pageId, arabicText);
 	}
 
+	@Override
+	public int transliterateFile(int fileId) {
+		return db.transliterateFileInDB(fileId);
+	}
+
+	@Override
+	public int materializeAnalysis(int pageId) {
+		return db.materializeAnalysisInDB(pageId);
+	}
+
+	@Override
+	public int fillPendingAnalysis(int maxJobs) {
+		return db.fillPendingAnalysisInDB(maxJobs);
+	}
+
+	@Override
+	public int resumeAnalysisJobs(int leaseSeconds) {
+		return db.resumeAnalysisJobsInDB(leaseSeconds);
+	}
+
+	@Override
+	public Map<String, Integer> getAnalysisJobCounts() {
+		return db.getAnalysisJobCountsFromDB();
+	}
+
+	@Override
+	public boolean initializeSearchIndex() {
+		return db.initializeSearchIndexInDB();
+	}
+
 	@Override
 	public List<String> searchKeyword(String keyword) {
+		return SearchWord.describeHits(keyword, searchKeywordHits(keyword));
+	}
 
-		return SearchWord.searchKeyword(keyword, getAllFiles());
+	@Override
+	public List<SearchHit> searchKeywordHits(String keyword) {
+		SearchWord.validateKeyword(keyword);
+		return db.searchWordInDB(keyword);
 	}
 
 	@Override
@@ -160,4 +214,14 @@ public class EditorBO implements IEditorBO {
 		return db.segmentWords(text);
 	}
 
+	@Override
+	public List<StageStatistics> getStageStatistics() {
+		return StageMetrics.getInstance().getStages();
+	}
+
+	@Override
+	public Map<String, Long> getTableRowCounts() {
+		return StageMetrics.getInstance().getTableRows();
+	}
+
 }
@@ -5,6 +5,10 @@ import java.util.List;
 import java.util.Map;
 
 import dto.Documents;
+import dto.FileMetadata;
+import dto.Pages;
+import dto.SearchHit;
+import dto.StageStatistics;
 
 public class FacadeBO implements IFacadeBO {
 
@@ -38,6 +42,11 @@ public class FacadeBO implements IFacadeBO {
 		return bo.importTextFiles(file, fileName);
 	}
 
+	@Override
+	public int getMaxConcurrentImports() {
+		return bo.getMaxConcurrentImports();
+	}
+
 	@Override
 	public Documents getFile(int id) {
 		// TODO Auto-generated method stub
@@ -50,6 +59,21 @@ public class FacadeBO implements IFacadeBO {
 		return bo.getAllFiles();
 	}
 
+	@Override
+	public List<FileMetadata> getFileSummaries() {
+		return bo.getFileSummaries();
+	}
+
+	@Override
+	public Pages getPage(int fileId, int pageNumber) {
+		return bo.getPage(fileId, pageNumber);
+	}
+
+	@Override
+	public List<Pages> getPages(int fileId, int fromPage, int toPage) {
+		return bo.getPages(fileId, fromPage, toPage);
+	}
+
 	@Override
 	public String getFileExtension(String fileName) {
 		// TODO Auto-generated method stub
@@ -61,11 +85,46 @@ public class FacadeBO implements IFacadeBO {
 		return bo.transliterate(pageId, arabicText);
 	}
 
+	@Override
+	public int transliterateFile(int fileId) {
+		return bo.transliterateFile(fileId);
+	}
+
+	@Override
+	public int materializeAnalysis(int pageId) {
+		return bo.materializeAnalysis(pageId);
+	}
+
+	@Override
+	public int fillPendingAnalysis(int maxJobs) {
+		return bo.fillPendingAnalysis(maxJobs);
+	}
+
+	@Override
+	public int resumeAnalysisJobs(int leaseSeconds) {
+		return bo.resumeAnalysisJobs(leaseSeconds);
+	}
+
+	@Override
+	public Map<String, Integer> getAnalysisJobCounts() {
+		return bo.getAnalysisJobCounts();
+	}
+
+	@Override
+	public boolean initializeSearchIndex() {
+		return bo.initializeSearchIndex();
+	}
+
 	@Override
 	public List<String> searchKeyword(String keyword) {
 		return bo.searchKeyword(keyword);
 	}
 
+	@Override
+	public List<SearchHit> searchKeywordHits(String keyword) {
+		return bo.searchKeywordHits(keyword);
+	}
+
 	@Override
 	public Map<String, String> lemmatizeWords(String text) {
 		// TODO Auto-generated method stub
@@ -114,4 +173,14 @@ public class FacadeBO implements IFacadeBO {
 		return bo.segmentWords(text);
 	}
 
+	@Override
+	public List<StageStatistics> getStageStatistics() {
+		return bo.getStageStatistics();
+	}
+
+	@Override
+	public Map<String, Long> getTableRowCounts() {
+		return bo.getTableRowCounts();
+	}
+
 }
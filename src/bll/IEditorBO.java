@@ -5,6 +5,10 @@ import java.util.List;
 import java.util.Map;
 
 import dto.Documents;
+import dto.FileMetadata;
+import dto.Pages;
+import dto.SearchHit;
+import dto.StageStatistics;
 
 public interface IEditorBO {
 	boolean createFile(String nameOfFile, String content);
@@ -15,16 +19,38 @@ public interface IEditorBO {
 
 	boolean importTextFiles(File file, String fileName);
 
+	int getMaxConcurrentImports();
+
 	Documents getFile(int id);
 
 	List<Documents> getAllFiles();
 
+	List<FileMetadata> getFileSummaries();
+
+	Pages getPage(int fileId, int pageNumber);
+
+	List<Pages> getPages(int fileId, int fromPage, int toPage);
+
 	String getFileExtension(String fileName);
 
 	String transliterate(int pageId, String arabicText);
 
+	int transliterateFile(int fileId);
+
+	int materializeAnalysis(int pageId);
+
+	int fillPendingAnalysis(int maxJobs);
+
+	int resumeAnalysisJobs(int leaseSeconds);
+
+	Map<String, Integer> getAnalysisJobCounts();
+
+	boolean initializeSearchIndex();
+
 	List<String> searchKeyword(String keyword);
 
+	List<SearchHit> searchKeywordHits(String keyword);
+
 	Map<String, String> lemmatizeWords(String text);
 
 	Map<String, List<String>> extractPOS(String text);
@@ -41,4 +67,8 @@ public interface IEditorBO {
 
 	Map<String, String> segmentWords(String text);
 
+	List<StageStatistics> getStageStatistics();
+
+	Map<String, Long> getTableRowCounts();
+
 }
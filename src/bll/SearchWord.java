@@ -6,31 +6,32 @@ import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import dal.ArabicTokenizer;
 import dto.Documents;
 import dto.Pages;
+import dto.SearchHit;
 import pl.EditorPO;
 
 public class SearchWord {
 	public static List<String> searchKeyword(String keyword, List<Documents> docs) {
 		final Logger LOGGER = LogManager.getLogger(EditorPO.class);
 		List<String> getFiles = new ArrayList<>();
-		if (keyword == null || keyword.length() < 3) {
-			throw new IllegalArgumentException("Could not Search, Please Enter at least 3 letter to search");
-		}
+		validateKeyword(keyword);
+		ArabicTokenizer words = new ArabicTokenizer();
 
 		for (Documents doc : docs) {
 			for (Pages page : doc.getPages()) {
 				String pageContent = page.getPageContent();
 				if (pageContent.toLowerCase().contains(keyword.toLowerCase())) {
 
-					String[] words = pageContent.split("\\s+");
+					words.tokenize(pageContent);
 
-					for (int i = 0; i < words.length; i++) {
-						if (words[i].equalsIgnoreCase(keyword)) {
+					for (int i = 0; i < words.size(); i++) {
+						if (words.matchesIgnoreCase(i, keyword)) {
 
 							String prefixWord;
 							if (i > 0) {
-								prefixWord = words[i - 1];
+								prefixWord = words.token(i - 1);
 							} else {
 								prefixWord = "";
 							}
@@ -45,4 +46,21 @@ public class SearchWord {
 		return getFiles;
 	}
 
+	public static void validateKeyword(String keyword) {
+		if (keyword == null || keyword.length() < 3) {
+			throw new IllegalArgumentException("Could not Search, Please Enter at least 3 letter to search");
+		}
+	}
+
+	/**
+	 * Formats index hits the same way as searchKeyword, one entry per hit.
+	 */
+	public static List<String> describeHits(String keyword, List<SearchHit> hits) {
+		List<String> results = new ArrayList<>();
+		for (SearchHit hit : hits) {
+			results.add(hit.getFileName() + " - " + hit.getPrefixWord() + " " + keyword + "...");
+		}
+		return results;
+	}
+
 }
@@ -0,0 +1,29 @@
+package bll;
+
+import dal.ArabicTokenizer;
+
+/**
+ * Word statistics of editor text, with words found the same way analysis
+ * and search find them.
+ */
+public class WordCounter {
+
+	public static int countWords(String text) {
+		if (text == null || text.isEmpty()) {
+			return 0;
+		}
+		return new ArabicTokenizer().tokenize(text).size();
+	}
+
+	public static double averageWordLength(String text) {
+		if (text == null || text.isEmpty()) {
+			return 0;
+		}
+		ArabicTokenizer words = new ArabicTokenizer().tokenize(text);
+		int totalLength = 0;
+		for (int i = 0; i < words.size(); i++) {
+			totalLength += words.end(i) - words.start(i);
+		}
+		return words.size() == 0 ? 0 : (double) totalLength / words.size();
+	}
+}
@@ -0,0 +1,83 @@
+package dal;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The analyses stored for pages. Each is either eager, computed while a
+ * file is imported, or lazy, left pending in analysis_jobs until the page
+ * is opened or the background filler gets to it, as set by
+ * analysis.policy.<key> in config.properties. TF-IDF is scored per file;
+ * its pending job is kept on the first page of the file.
+ */
+public enum AnalysisType {
+	TRANSLITERATION("transliteration", "transliteratedpages"),
+	POS("pos", "pos"),
+	LEMMA("lemma", "lemmatization"),
+	ROOT("root", "rootextraction"),
+	SEGMENT("segment", "wordsegementation"),
+	STEM("stem", "stemmation"),
+	PKL("pkl", "pkl"),
+	PMI("pmi", "pmi"),
+	TFIDF("tfidf", "tfidf");
+
+	private final String key;
+	private final String table;
+
+	AnalysisType(String key, String table) {
+		this.key = key;
+		this.table = table;
+	}
+
+	/**
+	 * Name of the analysis in config.properties and analysis_jobs.
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	public String getTable() {
+		return table;
+	}
+
+	/**
+	 * Whether the analysis comes from the AlKhalil morphology pass, which
+	 * produces all five of them at once.
+	 */
+	public boolean isMorphology() {
+		return this == POS || this == LEMMA || this == ROOT || this == SEGMENT || this == STEM;
+	}
+
+	/**
+	 * Whether the analysis is stored per page, rather than per file.
+	 */
+	public boolean isPerPage() {
+		return this != TFIDF;
+	}
+
+	public boolean isLazy() {
+		return "lazy".equalsIgnoreCase(EditorConfig.getInstance().getString("analysis.policy." + key, "eager"));
+	}
+
+	public static Set<AnalysisType> lazyTypes() {
+		Set<AnalysisType> types = EnumSet.noneOf(AnalysisType.class);
+		for (AnalysisType type : values()) {
+			if (type.isLazy()) {
+				types.add(type);
+			}
+		}
+		return types;
+	}
+
+	/**
+	 * The type with the given key, or null if there is none.
+	 */
+	public static AnalysisType fromKey(String key) {
+		for (AnalysisType type : values()) {
+			if (type.key.equals(key)) {
+				return type;
+			}
+		}
+		return null;
+	}
+}
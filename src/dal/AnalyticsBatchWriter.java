@@ -0,0 +1,446 @@
+package dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import dto.Pages;
+
+/**
+ * Writes the pages of one file and their analytics rows using per-file JDBC
+ * batches. All pages are inserted in a single batch, and rows for the
+ * transliteration, analytics and search index tables accumulate across
+ * pages until import.batch.rows is reached. The caller owns the transaction.
+ * Analyses whose policy is lazy are not written; each page gets a pending
+ * row in analysis_jobs for them instead.
+ *
+ * Pages are stored with an MD5 of their content. A page whose content was
+ * already analyzed, in another file or earlier in this one, gets copies of
+ * the earlier page's rows and pending analyses instead of being analyzed
+ * again.
+ */
+public class AnalyticsBatchWriter implements AutoCloseable {
+	private static final int TRANSLITERATION = 0;
+	private static final int POS = 1;
+	private static final int LEMMA = 2;
+	private static final int ROOT = 3;
+	private static final int SEGMENT = 4;
+	private static final int STEM = 5;
+	private static final int PKL = 6;
+	private static final int PMI = 7;
+	private static final int SEARCH = 8;
+	private static final int JOB = 9;
+
+	private static final String[] TABLES = { "transliteratedpages", "pos", "lemmatization", "rootextraction",
+			"wordsegementation", "stemmation", "pkl", "pmi", "search_index", "analysis_jobs" };
+
+	private static final String[] QUERIES = {
+			"INSERT INTO transliteratedpages (pageId, transliteratedText) VALUES (?, ?)",
+			"INSERT INTO pos (pageId, word, pos) VALUES (?, ?, ?)",
+			"INSERT INTO lemmatization (pageId, word, lemma) VALUES (?, ?, ?)",
+			"INSERT INTO rootextraction (pageId, word, root) VALUES (?, ?, ?)",
+			"INSERT INTO wordsegementation (pageId, word, segment) VALUES (?, ?, ?)",
+			"INSERT INTO stemmation (pageId, word, stem) VALUES (?, ?, ?)",
+			"INSERT INTO pkl (pageId, word, pklScore) VALUES (?, ?, ?)",
+			"INSERT INTO pmi (pageId, word, pmiScore) VALUES (?, ?, ?)",
+			SearchIndex.INSERT_QUERY,
+			PendingAnalysis.INSERT_QUERY };
+
+	// Tables copied for a reused page, and the columns copied besides pageId
+	private static final String[][] COPIED_TABLES = {
+			{ "transliteratedpages", "transliteratedText" },
+			{ "pos", "word", "pos" },
+			{ "lemmatization", "word", "lemma" },
+			{ "rootextraction", "word", "root" },
+			{ "wordsegementation", "word", "segment" },
+			{ "stemmation", "word", "stem" },
+			{ "pkl", "word", "pklScore" },
+			{ "pmi", "word", "pmiScore" } };
+	private static final int COPY_CHUNK = 500;
+
+	private final Connection conn;
+	private final int flushThreshold;
+	// Per-page analyses written on import, and those left pending
+	private final Set<AnalysisType> analyzed = EnumSet.noneOf(AnalysisType.class);
+	private final Set<AnalysisType> deferred = EnumSet.noneOf(AnalysisType.class);
+	private final PreparedStatement[] statements = new PreparedStatement[QUERIES.length];
+	private final int[] pending = new int[QUERIES.length];
+	private int pendingRows;
+	private long rowsWritten;
+	private int roundTrips;
+	private int pagesReused;
+	private int analysesDeferred;
+	private final List<int[]> pendingCopies = new ArrayList<>();
+
+	public AnalyticsBatchWriter(Connection conn) throws SQLException {
+		this.conn = conn;
+		this.flushThreshold = Math.max(1, EditorConfig.getInstance().getInt("import.batch.rows", 5000));
+		for (AnalysisType type : AnalysisType.values()) {
+			if (type.isPerPage()) {
+				(type.isLazy() ? deferred : analyzed).add(type);
+			}
+		}
+		try {
+			for (int i = 0; i < QUERIES.length; i++) {
+				statements[i] = conn.prepareStatement(QUERIES[i]);
+			}
+		} catch (SQLException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Inserts the pages in one batch and stores each generated pageId back on
+	 * its Pages object. Keys are read back by (fileId, pageNumber), which is
+	 * unique, rather than relying on the driver returning batch keys in order.
+	 */
+	public void insertPages(int fileId, List<Pages> pages) throws SQLException {
+		if (pages.isEmpty()) {
+			return;
+		}
+		String pageQuery = "INSERT INTO pages (fileId, pageNumber, pageContent, pageHash) VALUES (?, ?, ?, ?)";
+		String pageIdQuery = "SELECT pageId, pageNumber FROM pages WHERE fileId = ? AND pageNumber BETWEEN ? AND ?";
+
+		int firstPage = Integer.MAX_VALUE;
+		int lastPage = Integer.MIN_VALUE;
+		try (PreparedStatement pageStmt = conn.prepareStatement(pageQuery)) {
+			for (Pages page : pages) {
+				pageStmt.setInt(1, fileId);
+				pageStmt.setInt(2, page.getPageNumber());
+				pageStmt.setString(3, page.getPageContent());
+				pageStmt.setString(4, pageHash(page.getPageContent()));
+				pageStmt.addBatch();
+				firstPage = Math.min(firstPage, page.getPageNumber());
+				lastPage = Math.max(lastPage, page.getPageNumber());
+			}
+			long start = System.nanoTime();
+			pageStmt.executeBatch();
+			StageMetrics.getInstance().recordSince("batch.pages", start);
+			roundTrips++;
+		}
+
+		Map<Integer, Integer> pageIds = new HashMap<>();
+		try (PreparedStatement pageIdStmt = conn.prepareStatement(pageIdQuery)) {
+			pageIdStmt.setInt(1, fileId);
+			pageIdStmt.setInt(2, firstPage);
+			pageIdStmt.setInt(3, lastPage);
+			try (ResultSet rs = pageIdStmt.executeQuery()) {
+				while (rs.next()) {
+					pageIds.put(rs.getInt("pageNumber"), rs.getInt("pageId"));
+				}
+			}
+			roundTrips++;
+		}
+
+		for (Pages page : pages) {
+			Integer pageId = pageIds.get(page.getPageNumber());
+			if (pageId == null) {
+				throw new SQLException("Page " + page.getPageNumber() + " of file " + fileId + " was not inserted");
+			}
+			page.setPageId(pageId);
+			page.setFileId(fileId);
+		}
+		rowsWritten += pages.size();
+		StageMetrics.getInstance().addRows("pages", pages.size());
+	}
+
+	/**
+	 * Finds, for the given inserted pages, the earliest other page with the
+	 * same content, keyed by the inserted pageId. Those pages only need their
+	 * analysis copied. Candidates are found with a plain read, which neither
+	 * sees nor waits for pages other imports have not committed; only the
+	 * chosen sources are then share-locked so they cannot be deleted before
+	 * the copies are made. A source deleted in between is left out.
+	 */
+	public Map<Integer, Integer> findAnalyzedCopies(int fileId, List<Pages> pages) throws SQLException {
+		Map<Integer, Integer> sources = new HashMap<>();
+		if (pages.isEmpty()) {
+			return sources;
+		}
+		String query = "SELECT p.pageId, MIN(s.pageId) AS sourceId FROM pages p "
+				+ "JOIN pages s ON s.pageHash = p.pageHash AND s.pageId < p.pageId "
+				+ "WHERE p.fileId = ? AND p.pageNumber BETWEEN ? AND ? GROUP BY p.pageId";
+		try (PreparedStatement stmt = conn.prepareStatement(query)) {
+			stmt.setInt(1, fileId);
+			stmt.setInt(2, pages.get(0).getPageNumber());
+			stmt.setInt(3, pages.get(pages.size() - 1).getPageNumber());
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					sources.put(rs.getInt("pageId"), rs.getInt("sourceId"));
+				}
+			}
+			roundTrips++;
+		}
+		if (sources.isEmpty()) {
+			return sources;
+		}
+
+		Set<Integer> sourceIds = new HashSet<>(sources.values());
+		StringBuilder lockQuery = new StringBuilder("SELECT pageId FROM pages WHERE pageId IN (");
+		for (int i = 0; i < sourceIds.size(); i++) {
+			lockQuery.append(i == 0 ? "?" : ", ?");
+		}
+		lockQuery.append(") LOCK IN SHARE MODE");
+		Set<Integer> locked = new HashSet<>();
+		try (PreparedStatement stmt = conn.prepareStatement(lockQuery.toString())) {
+			int index = 1;
+			for (int sourceId : sourceIds) {
+				stmt.setInt(index++, sourceId);
+			}
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					locked.add(rs.getInt("pageId"));
+				}
+			}
+			roundTrips++;
+		}
+		sources.values().retainAll(locked);
+		return sources;
+	}
+
+	/**
+	 * Queues copies of every analytics row of the source page for an already
+	 * inserted page with the same content. Copies run after the queued
+	 * inserts on each flush, so a source analyzed in this import must be
+	 * queued first.
+	 */
+	public void copyPageAnalysis(Pages page, int sourcePageId) throws SQLException {
+		pendingCopies.add(new int[] { page.getPageId(), page.getFileId(), sourcePageId });
+		pagesReused++;
+		if (pendingCopies.size() >= COPY_CHUNK) {
+			flush();
+		}
+	}
+
+	/**
+	 * The per-page analyses written on import, which pages analyzed for
+	 * addPageAnalysis need.
+	 */
+	public Set<AnalysisType> getAnalyzedTypes() {
+		return analyzed;
+	}
+
+	/**
+	 * Queues the rows of the eager analyses and the search index of an
+	 * already inserted page, and a pending job for each lazy analysis,
+	 * flushing every table once the row threshold is reached.
+	 */
+	public void addPageAnalysis(PageAnalysis analysis) throws SQLException {
+		int pageId = analysis.getPage().getPageId();
+		addAnalysisRows(analysis, analyzed);
+
+		Pages page = analysis.getPage();
+		int postings = SearchIndex.addPostings(statements[SEARCH], page.getFileId(), pageId, analysis.getTokens());
+		pending[SEARCH] += postings;
+		pendingRows += postings;
+
+		PreparedStatement jobStmt = statements[JOB];
+		for (AnalysisType type : deferred) {
+			jobStmt.setInt(1, pageId);
+			jobStmt.setString(2, type.getKey());
+			addRow(JOB);
+			analysesDeferred++;
+		}
+
+		if (pendingRows >= flushThreshold) {
+			flush();
+		}
+	}
+
+	/**
+	 * Queues the rows of the given analyses only, e.g. pending ones now
+	 * computed for a page already in the search index.
+	 */
+	public void addAnalysis(PageAnalysis analysis, Set<AnalysisType> types) throws SQLException {
+		addAnalysisRows(analysis, types);
+		if (pendingRows >= flushThreshold) {
+			flush();
+		}
+	}
+
+	private void addAnalysisRows(PageAnalysis analysis, Set<AnalysisType> types) throws SQLException {
+		int pageId = analysis.getPage().getPageId();
+		MorphologyBundle morphology = analysis.getMorphology();
+
+		if (types.contains(AnalysisType.TRANSLITERATION)) {
+			PreparedStatement transliterateStmt = statements[TRANSLITERATION];
+			transliterateStmt.setInt(1, pageId);
+			transliterateStmt.setString(2, analysis.getTransliteration());
+			addRow(TRANSLITERATION);
+		}
+
+		if (types.contains(AnalysisType.POS)) {
+			for (Map.Entry<String, List<String>> entry : morphology.getPosTags().entrySet()) {
+				addWordRow(POS, pageId, entry.getKey(), String.join("|", entry.getValue()));
+			}
+		}
+		if (types.contains(AnalysisType.LEMMA)) {
+			addWordRows(LEMMA, pageId, morphology.getLemmas());
+		}
+		if (types.contains(AnalysisType.ROOT)) {
+			addWordRows(ROOT, pageId, morphology.getRoots());
+		}
+		if (types.contains(AnalysisType.SEGMENT)) {
+			addWordRows(SEGMENT, pageId, morphology.getSegments());
+		}
+		if (types.contains(AnalysisType.STEM)) {
+			addWordRows(STEM, pageId, morphology.getStems());
+		}
+		if (types.contains(AnalysisType.PKL)) {
+			addScoreRows(PKL, pageId, analysis.getPklScores());
+		}
+		if (types.contains(AnalysisType.PMI)) {
+			addScoreRows(PMI, pageId, analysis.getPmiScores());
+		}
+	}
+
+	private void addWordRows(int table, int pageId, Map<String, String> values) throws SQLException {
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			addWordRow(table, pageId, entry.getKey(), entry.getValue());
+		}
+	}
+
+	private void addWordRow(int table, int pageId, String word, String value) throws SQLException {
+		PreparedStatement stmt = statements[table];
+		stmt.setInt(1, pageId);
+		stmt.setString(2, word);
+		stmt.setString(3, value);
+		addRow(table);
+	}
+
+	private void addScoreRows(int table, int pageId, Map<String, Double> scores) throws SQLException {
+		PreparedStatement stmt = statements[table];
+		for (Map.Entry<String, Double> entry : scores.entrySet()) {
+			stmt.setInt(1, pageId);
+			stmt.setString(2, entry.getKey());
+			stmt.setDouble(3, entry.getValue());
+			addRow(table);
+		}
+	}
+
+	private void addRow(int table) throws SQLException {
+		statements[table].addBatch();
+		pending[table]++;
+		pendingRows++;
+	}
+
+	public void flush() throws SQLException {
+		StageMetrics metrics = StageMetrics.getInstance();
+		for (int i = 0; i < statements.length; i++) {
+			if (pending[i] > 0) {
+				long start = System.nanoTime();
+				statements[i].executeBatch();
+				metrics.recordSince("batch." + TABLES[i], start);
+				metrics.addRows(TABLES[i], pending[i]);
+				roundTrips++;
+				rowsWritten += pending[i];
+				pending[i] = 0;
+			}
+		}
+		pendingRows = 0;
+		if (!pendingCopies.isEmpty()) {
+			copyPending();
+		}
+	}
+
+	/**
+	 * Copies the rows of every pending source page with one INSERT ... SELECT
+	 * per table, joining the (page, file, source) triples as a derived table.
+	 */
+	private void copyPending() throws SQLException {
+		StringBuilder pairs = new StringBuilder("SELECT ? AS pageId, ? AS fileId, ? AS sourceId");
+		for (int i = 1; i < pendingCopies.size(); i++) {
+			pairs.append(" UNION ALL SELECT ?, ?, ?");
+		}
+
+		List<String> queries = new ArrayList<>();
+		for (String[] table : COPIED_TABLES) {
+			StringBuilder columns = new StringBuilder();
+			StringBuilder values = new StringBuilder();
+			for (int i = 1; i < table.length; i++) {
+				columns.append(", ").append(table[i]);
+				values.append(", x.").append(table[i]);
+			}
+			queries.add("INSERT INTO " + table[0] + " (pageId" + columns + ") SELECT c.pageId" + values + " FROM ("
+					+ pairs + ") c JOIN " + table[0] + " x ON x.pageId = c.sourceId");
+		}
+		queries.add("INSERT INTO search_index (pageId, position, fileId, term, word) "
+				+ "SELECT c.pageId, x.position, c.fileId, x.term, x.word FROM (" + pairs
+				+ ") c JOIN search_index x ON x.pageId = c.sourceId");
+		// Analyses still pending on the source are new pending jobs of the copy, but for TF-IDF, which is per file
+		// and queued by the caller for the file as a whole
+		queries.add("INSERT INTO analysis_jobs (pageId, analysisType) SELECT c.pageId, x.analysisType FROM (" + pairs
+				+ ") c JOIN analysis_jobs x ON x.pageId = c.sourceId AND x.analysisType <> '"
+				+ AnalysisType.TFIDF.getKey() + "'");
+
+		StageMetrics metrics = StageMetrics.getInstance();
+		for (int q = 0; q < queries.size(); q++) {
+			String table = q < COPIED_TABLES.length ? COPIED_TABLES[q][0]
+					: q == COPIED_TABLES.length ? "search_index" : "analysis_jobs";
+			try (PreparedStatement stmt = conn.prepareStatement(queries.get(q))) {
+				int index = 1;
+				for (int[] copy : pendingCopies) {
+					for (int value : copy) {
+						stmt.setInt(index++, value);
+					}
+				}
+				long start = System.nanoTime();
+				int rows = stmt.executeUpdate();
+				metrics.recordSince("copy." + table, start);
+				metrics.addRows(table, rows);
+				rowsWritten += rows;
+				roundTrips++;
+			}
+		}
+		pendingCopies.clear();
+	}
+
+	public long getRowsWritten() {
+		return rowsWritten;
+	}
+
+	public int getRoundTrips() {
+		return roundTrips;
+	}
+
+	public int getPagesReused() {
+		return pagesReused;
+	}
+
+	/**
+	 * Pending analyses queued for analyzed pages, not counting those copied.
+	 */
+	public int getAnalysesDeferred() {
+		return analysesDeferred;
+	}
+
+	private static String pageHash(String content) throws SQLException {
+		try {
+			return HashCalculator.calculateHash(content);
+		} catch (Exception e) {
+			throw new SQLException("Could not hash page content", e);
+		}
+	}
+
+	@Override
+	public void close() {
+		for (PreparedStatement stmt : statements) {
+			if (stmt != null) {
+				try {
+					stmt.close();
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package dal;
+
+import java.util.Arrays;
+
+/**
+ * Normalizes text in one pass through a per-character table, into a buffer
+ * that is reused from text to text. The PREPROCESS profile gives exactly
+ * PreProcessText.preprocessText: harakat removed, only Arabic-script
+ * characters and \s whitespace kept. The ARABIC profile also folds the
+ * usual spelling variants: alef with hamza or madda and alef wasla to
+ * bare alef, ta marbuta to ha and alef maqsura to ya.
+ *
+ * With offsets enabled, every normalized character records the index of
+ * the original character it came from, so matches found in normalized
+ * text can be mapped back, e.g. for highlighting. A normalizer is not
+ * thread-safe; the result is read through the CharSequence methods and is
+ * valid until the next call to normalize.
+ */
+public class ArabicNormalizer implements CharSequence {
+	public enum Profile {
+		PREPROCESS, ARABIC
+	}
+
+	// Output character per input character, 0 = dropped
+	private static final char[] PREPROCESS_TABLE = new char[Character.MAX_VALUE + 1];
+	private static final char[] ARABIC_TABLE;
+	private static final String HARAKAT = "ًٌٍَُِّْ";
+
+	static {
+		for (int c = 0; c <= Character.MAX_VALUE; c++) {
+			if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r'
+					|| (!Character.isSurrogate((char) c) && HARAKAT.indexOf(c) < 0
+							&& Character.UnicodeScript.of(c) == Character.UnicodeScript.ARABIC)) {
+				PREPROCESS_TABLE[c] = (char) c;
+			}
+		}
+		ARABIC_TABLE = Arrays.copyOf(PREPROCESS_TABLE, PREPROCESS_TABLE.length);
+		for (char alef : "أإآٱ".toCharArray()) {
+			ARABIC_TABLE[alef] = 'ا';
+		}
+		ARABIC_TABLE['ة'] = 'ه';
+		ARABIC_TABLE['ى'] = 'ي';
+	}
+
+	private final char[] table;
+	private final boolean trackOffsets;
+	private char[] buffer = new char[256];
+	private int[] offsets;
+	private int length;
+	private int sourceEnd;
+
+	public ArabicNormalizer(Profile profile) {
+		this(profile, false);
+	}
+
+	public ArabicNormalizer(Profile profile, boolean trackOffsets) {
+		this.table = profile == Profile.ARABIC ? ARABIC_TABLE : PREPROCESS_TABLE;
+		this.trackOffsets = trackOffsets;
+		this.offsets = trackOffsets ? new int[256] : null;
+	}
+
+	public ArabicNormalizer normalize(CharSequence text) {
+		return normalize(text, 0, text.length());
+	}
+
+	/**
+	 * Normalizes text[start, end), replacing the previous result.
+	 */
+	public ArabicNormalizer normalize(CharSequence text, int start, int end) {
+		length = 0;
+		sourceEnd = end;
+		ensureCapacity(end - start);
+		char[] out = buffer;
+		int n = 0;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			if (Character.isHighSurrogate(c)) {
+				// Outside the table: Arabic-script supplementary characters are
+				// kept. Harakat are removed first, so they do not split a pair.
+				int low = i + 1;
+				while (low < end && isHarakah(text.charAt(low))) {
+					low++;
+				}
+				if (low < end && Character.isLowSurrogate(text.charAt(low))) {
+					int codePoint = Character.toCodePoint(c, text.charAt(low));
+					if (Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.ARABIC) {
+						if (trackOffsets) {
+							offsets[n] = i;
+							offsets[n + 1] = low;
+						}
+						out[n++] = c;
+						out[n++] = text.charAt(low);
+					}
+					i = low;
+					continue;
+				}
+			}
+			char mapped = table[c];
+			if (mapped != 0) {
+				if (trackOffsets) {
+					offsets[n] = i;
+				}
+				out[n++] = mapped;
+			}
+		}
+		length = n;
+		return this;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (buffer.length < capacity) {
+			buffer = new char[Math.max(capacity, buffer.length * 2)];
+			if (trackOffsets) {
+				offsets = new int[buffer.length];
+			}
+		}
+	}
+
+	/**
+	 * Index in the original text of the character at the normalized index;
+	 * the normalized length maps to the end of the normalized range.
+	 */
+	public int originalOffset(int index) {
+		if (!trackOffsets) {
+			throw new IllegalStateException("Offsets are not tracked");
+		}
+		if (index < 0 || index > length) {
+			throw new IndexOutOfBoundsException("No character " + index);
+		}
+		return index == length ? sourceEnd : offsets[index];
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("No character " + index);
+		}
+		return buffer[index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException("No range " + start + "-" + end);
+		}
+		return new String(buffer, start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return new String(buffer, 0, length);
+	}
+
+	/**
+	 * Normalizes a whole text to a new String, without a reusable buffer.
+	 */
+	public static String normalize(String text, Profile profile) {
+		char[] table = profile == Profile.ARABIC ? ARABIC_TABLE : PREPROCESS_TABLE;
+		char[] out = null;
+		int n = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			char mapped;
+			if (Character.isSurrogate(c)) {
+				// Rare: fall back to the general path for the rest of the text
+				ArabicNormalizer normalizer = new ArabicNormalizer(profile);
+				normalizer.normalize(text, i, text.length());
+				StringBuilder result = new StringBuilder(n + normalizer.length());
+				if (out == null) {
+					result.append(text, 0, i);
+				} else {
+					result.append(out, 0, n);
+				}
+				return result.append(normalizer.buffer, 0, normalizer.length()).toString();
+			}
+			mapped = table[c];
+			if (mapped == c && c != 0 && out == null) {
+				continue;
+			}
+			if (out == null) {
+				// Copy lazily, so text that is already normalized is returned as is
+				out = new char[text.length()];
+				text.getChars(0, i, out, 0);
+				n = i;
+			}
+			if (mapped != 0) {
+				out[n++] = mapped;
+			}
+		}
+		return out == null ? text : new String(out, 0, n);
+	}
+
+	/**
+	 * Whether the character is one of the harakat PreProcessText removes.
+	 */
+	static boolean isHarakah(char c) {
+		return c >= 'ً' && c <= 'ْ';
+	}
+}
@@ -0,0 +1,171 @@
+package dal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits text into words in one scan and keeps them as offset spans into
+ * the text, so callers read words in place instead of through a String[]
+ * from split. A tokenizer is reused from text to text; the spans of the
+ * last text stay valid until the next call to tokenize.
+ *
+ * Words are separated by any Unicode whitespace or space character
+ * (including no-break spaces) and by the Arabic comma, semicolon and
+ * question mark (، ؛ ؟), which are not words themselves. Tatweel (ـ)
+ * stretches letters inside a word: it is trimmed from the ends of a word,
+ * and a run of tatweel alone is not a word.
+ */
+public class ArabicTokenizer {
+	private static final char TATWEEL = 'ـ';
+
+	private CharSequence text = "";
+	private int[] starts = new int[64];
+	private int[] ends = new int[64];
+	private int size;
+
+	/**
+	 * Finds the words of the text, replacing those of the previous text.
+	 */
+	public ArabicTokenizer tokenize(CharSequence text) {
+		this.text = text;
+		size = 0;
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			while (i < length && (isSeparator(text.charAt(i)) || text.charAt(i) == TATWEEL)) {
+				i++;
+			}
+			int start = i;
+			while (i < length && !isSeparator(text.charAt(i))) {
+				i++;
+			}
+			int end = i;
+			while (end > start && text.charAt(end - 1) == TATWEEL) {
+				end--;
+			}
+			if (end > start) {
+				add(start, end);
+			}
+		}
+		return this;
+	}
+
+	private void add(int start, int end) {
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			ends = Arrays.copyOf(ends, size * 2);
+		}
+		starts[size] = start;
+		ends[size] = end;
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public CharSequence text() {
+		return text;
+	}
+
+	public int start(int index) {
+		checkIndex(index);
+		return starts[index];
+	}
+
+	public int end(int index) {
+		checkIndex(index);
+		return ends[index];
+	}
+
+	/**
+	 * The word as a new String. Prefer reading it in place where a String is
+	 * not needed.
+	 */
+	public String token(int index) {
+		checkIndex(index);
+		return text.subSequence(starts[index], ends[index]).toString();
+	}
+
+	/**
+	 * Whether the word equals the given one, ignoring case.
+	 */
+	public boolean matchesIgnoreCase(int index, String word) {
+		checkIndex(index);
+		int length = ends[index] - starts[index];
+		if (length != word.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			char a = text.charAt(starts[index] + i);
+			char b = word.charAt(i);
+			if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)
+					&& Character.toLowerCase(a) != Character.toLowerCase(b)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The ids of the words in the dictionary, adding new ones, without
+	 * building a String for words already in it.
+	 */
+	public int[] encode(TokenDictionary dictionary) {
+		int[] ids = new int[size];
+		for (int i = 0; i < size; i++) {
+			ids[i] = dictionary.id(text, starts[i], ends[i]);
+		}
+		return ids;
+	}
+
+	/**
+	 * The ids of the words after PreProcessText, each word preprocessed on
+	 * its own; words left empty, e.g. Latin ones, are dropped.
+	 */
+	public int[] encodePreprocessed(TokenDictionary dictionary) {
+		int[] ids = new int[size];
+		int count = 0;
+		ArabicNormalizer word = new ArabicNormalizer(ArabicNormalizer.Profile.PREPROCESS);
+		for (int i = 0; i < size; i++) {
+			word.normalize(text, starts[i], ends[i]);
+			if (word.length() > 0) {
+				ids[count++] = dictionary.id(word, 0, word.length());
+			}
+		}
+		return count == size ? ids : Arrays.copyOf(ids, count);
+	}
+
+	public List<String> tokens() {
+		List<String> tokens = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			tokens.add(token(i));
+		}
+		return tokens;
+	}
+
+	/**
+	 * The words of a text as Strings, for callers that tokenize only once.
+	 */
+	public static List<String> tokens(CharSequence text) {
+		return new ArabicTokenizer().tokenize(text).tokens();
+	}
+
+	public static boolean isSeparator(char c) {
+		// Fast paths for the ASCII and Arabic blocks, where nearly all text is
+		if (c > ' ' && c < 0x7F) {
+			return false;
+		}
+		if (c >= '\u0600' && c <= '\u06FF') {
+			return c == '،' || c == '؛' || c == '؟';
+		}
+		return Character.isWhitespace(c) || Character.isSpaceChar(c);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("No token " + index);
+		}
+	}
+}
@@ -0,0 +1,500 @@
+package dal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import pl.EditorPO;
+
+/**
+ * A small JDBC connection pool. Borrowed connections are proxies whose
+ * close() hands the physical connection back to the pool after rolling back
+ * any open transaction and closing the statements created through it.
+ *
+ * Connections are validated on borrow unless they were returned within the
+ * last half second, idle connections above the minimum size are closed
+ * after the idle timeout, and connections held longer than the leak
+ * detection threshold are logged with the stack trace of the borrower. A
+ * threshold of 0 turns leak detection off, and with it the capture of the
+ * borrower's stack trace. The housekeeper checks every half of the shorter
+ * of the two timeouts, but at least every 30 seconds.
+ */
+public class ConnectionPool {
+	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+	private static final long VALIDATION_BYPASS_MILLIS = 500;
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+	private static final long MAX_HOUSEKEEPING_MILLIS = 30000;
+	private static final long MIN_HOUSEKEEPING_MILLIS = 50;
+
+	private final String url;
+	private final String username;
+	private final String password;
+	private final int minSize;
+	private final int maxSize;
+	private final long maxWaitMillis;
+	private final long idleTimeoutMillis;
+	private final long leakDetectionMillis;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final Deque<PooledConnection> idle = new ArrayDeque<>();
+	private final Set<PooledConnection> leased = new HashSet<>();
+	private final ScheduledExecutorService housekeeper;
+	private int totalConnections;
+	private boolean closed;
+
+	private long borrowCount;
+	private long waitCount;
+	private long totalWaitNanos;
+	private long maxWaitNanos;
+	private long timeoutCount;
+	private long leakCount;
+	private long evictedCount;
+
+	public ConnectionPool(String url, String username, String password, int minSize, int maxSize,
+			long maxWaitMillis, long idleTimeoutMillis, long leakDetectionMillis) {
+		this.url = url;
+		this.username = username;
+		this.password = password;
+		this.maxSize = Math.max(1, maxSize);
+		this.minSize = Math.max(0, Math.min(minSize, this.maxSize));
+		this.maxWaitMillis = maxWaitMillis;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.leakDetectionMillis = leakDetectionMillis;
+
+		housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		housekeeper.scheduleWithFixedDelay(this::houseKeep, 0, housekeepingMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	private long housekeepingMillis() {
+		long shortest = idleTimeoutMillis > 0 ? idleTimeoutMillis : MAX_HOUSEKEEPING_MILLIS;
+		if (leakDetectionMillis > 0) {
+			shortest = Math.min(shortest, leakDetectionMillis);
+		}
+		return Math.max(MIN_HOUSEKEEPING_MILLIS, Math.min(MAX_HOUSEKEEPING_MILLIS, shortest / 2));
+	}
+
+	/**
+	 * Borrows a connection, waiting up to the configured maximum wait time
+	 * when every connection is in use. The caller must close it.
+	 */
+	public Connection getConnection() throws SQLException {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+		boolean waited = false;
+
+		while (true) {
+			PooledConnection pooled = null;
+			boolean create = false;
+
+			lock.lock();
+			try {
+				while (pooled == null && !create) {
+					if (closed) {
+						throw new SQLException("Connection pool is closed");
+					}
+					if (!idle.isEmpty()) {
+						pooled = idle.pollFirst();
+					} else if (totalConnections < maxSize) {
+						totalConnections++;
+						create = true;
+					} else {
+						long remaining = deadline - System.nanoTime();
+						if (remaining <= 0) {
+							timeoutCount++;
+							throw new SQLTimeoutException("No database connection available after " + maxWaitMillis
+									+ " ms (" + leased.size() + " in use)");
+						}
+						waited = true;
+						available.awaitNanos(remaining);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for a database connection", e);
+			} finally {
+				lock.unlock();
+			}
+
+			if (create) {
+				pooled = createConnection();
+			} else if (!isValid(pooled)) {
+				discard(pooled);
+				continue;
+			}
+			return lease(pooled, System.nanoTime() - start, waited);
+		}
+	}
+
+	private PooledConnection createConnection() throws SQLException {
+		try {
+			return new PooledConnection(DriverManager.getConnection(url, username, password));
+		} catch (SQLException e) {
+			lock.lock();
+			try {
+				totalConnections--;
+				available.signal();
+			} finally {
+				lock.unlock();
+			}
+			throw e;
+		}
+	}
+
+	private boolean isValid(PooledConnection pooled) {
+		if (System.currentTimeMillis() - pooled.lastReturned < VALIDATION_BYPASS_MILLIS) {
+			return true;
+		}
+		try {
+			return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private Connection lease(PooledConnection pooled, long waitNanos, boolean waited) {
+		lock.lock();
+		try {
+			pooled.borrowedAt = System.currentTimeMillis();
+			// Filling in a stack trace on every borrow is only worth it when it may be reported
+			pooled.borrowSite = leakDetectionMillis > 0 ? new Exception("Connection borrowed here") : null;
+			pooled.leakReported = false;
+			leased.add(pooled);
+			borrowCount++;
+			totalWaitNanos += waitNanos;
+			maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+			if (waited) {
+				waitCount++;
+			}
+		} finally {
+			lock.unlock();
+		}
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new ConnectionHandler(pooled));
+	}
+
+	private void release(PooledConnection pooled) {
+		for (Statement stmt : pooled.openStatements) {
+			try {
+				stmt.close();
+			} catch (SQLException e) {
+				LOGGER.error(e.getMessage());
+			}
+		}
+		pooled.openStatements.clear();
+
+		try {
+			if (!pooled.physical.getAutoCommit()) {
+				pooled.physical.rollback();
+				pooled.physical.setAutoCommit(true);
+			}
+		} catch (SQLException e) {
+			LOGGER.error(e.getMessage());
+			lock.lock();
+			try {
+				leased.remove(pooled);
+			} finally {
+				lock.unlock();
+			}
+			discard(pooled);
+			return;
+		}
+
+		lock.lock();
+		try {
+			leased.remove(pooled);
+			if (closed) {
+				totalConnections--;
+				closeQuietly(pooled);
+			} else {
+				pooled.lastReturned = System.currentTimeMillis();
+				idle.addFirst(pooled);
+				available.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void discard(PooledConnection pooled) {
+		closeQuietly(pooled);
+		lock.lock();
+		try {
+			totalConnections--;
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void closeQuietly(PooledConnection pooled) {
+		try {
+			pooled.physical.close();
+		} catch (SQLException e) {
+			LOGGER.error(e.getMessage());
+		}
+	}
+
+	private void houseKeep() {
+		long now = System.currentTimeMillis();
+		List<PooledConnection> expired = new ArrayList<>();
+		int missing;
+
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			for (PooledConnection pooled : leased) {
+				if (leakDetectionMillis > 0 && !pooled.leakReported && now - pooled.borrowedAt > leakDetectionMillis) {
+					pooled.leakReported = true;
+					leakCount++;
+					LOGGER.warn("Possible connection leak: connection held for " + (now - pooled.borrowedAt) + " ms",
+							pooled.borrowSite);
+				}
+			}
+
+			Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+			while (oldestFirst.hasNext() && totalConnections - expired.size() > minSize) {
+				PooledConnection pooled = oldestFirst.next();
+				if (now - pooled.lastReturned > idleTimeoutMillis) {
+					oldestFirst.remove();
+					expired.add(pooled);
+				}
+			}
+			totalConnections -= expired.size();
+			evictedCount += expired.size();
+
+			missing = Math.max(0, minSize - totalConnections);
+			totalConnections += missing;
+		} finally {
+			lock.unlock();
+		}
+
+		for (PooledConnection pooled : expired) {
+			closeQuietly(pooled);
+		}
+		for (int i = 0; i < missing; i++) {
+			try {
+				PooledConnection pooled = createConnection();
+				lock.lock();
+				try {
+					pooled.lastReturned = System.currentTimeMillis();
+					idle.addLast(pooled);
+					available.signal();
+				} finally {
+					lock.unlock();
+				}
+			} catch (SQLException e) {
+				LOGGER.error("Could not open pooled connection: " + e.getMessage());
+				lock.lock();
+				try {
+					totalConnections -= missing - i - 1;
+				} finally {
+					lock.unlock();
+				}
+				break;
+			}
+		}
+	}
+
+	public void close() {
+		housekeeper.shutdownNow();
+		List<PooledConnection> toClose;
+		lock.lock();
+		try {
+			closed = true;
+			toClose = new ArrayList<>(idle);
+			totalConnections -= idle.size();
+			idle.clear();
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		for (PooledConnection pooled : toClose) {
+			closeQuietly(pooled);
+		}
+	}
+
+	public int getActiveCount() {
+		lock.lock();
+		try {
+			return leased.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getIdleCount() {
+		lock.lock();
+		try {
+			return idle.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getTotalCount() {
+		lock.lock();
+		try {
+			return totalConnections;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getBorrowCount() {
+		lock.lock();
+		try {
+			return borrowCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Number of borrows that had to wait for a connection to be returned. */
+	public long getWaitCount() {
+		lock.lock();
+		try {
+			return waitCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public double getAverageWaitMillis() {
+		lock.lock();
+		try {
+			return borrowCount == 0 ? 0.0 : totalWaitNanos / 1e6 / borrowCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public double getMaxWaitMillis() {
+		lock.lock();
+		try {
+			return maxWaitNanos / 1e6;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getTimeoutCount() {
+		lock.lock();
+		try {
+			return timeoutCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getLeakCount() {
+		lock.lock();
+		try {
+			return leakCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getEvictedCount() {
+		lock.lock();
+		try {
+			return evictedCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ConnectionPool[active=%d, idle=%d, total=%d/%d, borrows=%d, waits=%d, "
+				+ "avgWait=%.2f ms, maxWait=%.2f ms, timeouts=%d, leaks=%d, evicted=%d]", getActiveCount(),
+				getIdleCount(), getTotalCount(), maxSize, getBorrowCount(), getWaitCount(), getAverageWaitMillis(),
+				getMaxWaitMillis(), getTimeoutCount(), getLeakCount(), getEvictedCount());
+	}
+
+	private static class PooledConnection {
+		private final Connection physical;
+		private final List<Statement> openStatements = new ArrayList<>();
+		private long lastReturned;
+		private long borrowedAt;
+		private Exception borrowSite;
+		private boolean leakReported;
+
+		PooledConnection(Connection physical) {
+			this.physical = physical;
+		}
+	}
+
+	private class ConnectionHandler implements InvocationHandler {
+		private final PooledConnection pooled;
+		private boolean returned;
+
+		ConnectionHandler(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (!returned) {
+					returned = true;
+					release(pooled);
+				}
+				return null;
+			case "isClosed":
+				return returned || pooled.physical.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Pooled" + pooled.physical;
+			default:
+				break;
+			}
+			if (returned) {
+				throw new SQLException("Connection has already been returned to the pool");
+			}
+
+			Object result;
+			try {
+				result = method.invoke(pooled.physical, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+			if (result instanceof Statement) {
+				pooled.openStatements.add((Statement) result);
+			}
+			return result;
+		}
+	}
+}
@@ -1,39 +1,29 @@
 package dal;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Properties;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import pl.EditorPO;
 
-import java.io.FileInputStream;
-import java.io.IOException;
-
+/**
+ * Entry point for database access. Connections come from a shared pool and
+ * must be closed by the caller, which returns them to the pool.
+ */
 public class DatabaseConnection {
     private static DatabaseConnection INSTANCE;
-    private Connection connection;
-    private String url;
-    private String username;
-    private String password;
+    private final ConnectionPool pool;
     final Logger LOGGER = LogManager.getLogger(EditorPO.class);
 
     private DatabaseConnection() {
-        try {
-            FileInputStream propertiesInput = new FileInputStream("config.properties");
-            Properties properties = new Properties();
-            properties.load(propertiesInput);
-            url = properties.getProperty("db.url");
-            username = properties.getProperty("db.username");
-            password = properties.getProperty("db.password");
-            connection = DriverManager.getConnection(url, username, password);
-        } catch (IOException | SQLException e) {
-            e.printStackTrace();
-            LOGGER.error(e.getMessage());
-        }
+        EditorConfig config = EditorConfig.getInstance();
+        pool = new ConnectionPool(config.getString("db.url", null), config.getString("db.username", null),
+                config.getString("db.password", null), config.getInt("db.pool.minSize", 2),
+                config.getInt("db.pool.maxSize", Runtime.getRuntime().availableProcessors() + 2),
+                config.getLong("db.pool.maxWaitMillis", 10000), config.getLong("db.pool.idleTimeoutMillis", 300000),
+                config.getLong("db.pool.leakDetectionMillis", 60000));
     }
 
     public static synchronized DatabaseConnection getInstance() {
@@ -43,18 +33,25 @@ public class DatabaseConnection {
         return INSTANCE;
     }
 
+    /**
+     * Borrows a connection from the pool, or returns null if none could be
+     * opened. Close it when done to hand it back.
+     */
     public Connection getConnection() {
-        return connection;
+        try {
+            return pool.getConnection();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            LOGGER.error(e.getMessage());
+            return null;
+        }
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
     }
 
     public void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
-                LOGGER.error(e.getMessage());
-            }
-        }
+        pool.close();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package dal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the terms of a document fed in pieces, e.g. page by page during an
+ * import, without keeping the document itself. Pieces may end anywhere,
+ * including inside a word. The counts are those TFIDFCalculator gets from
+ * splitting the whole preprocessed document on whitespace, so a streamed
+ * file scores exactly like the same text scored in one piece.
+ */
+public class DocumentTermCounter {
+	private final TokenDictionary terms = new TokenDictionary();
+	private final IntIntCountMap termCounts = new IntIntCountMap();
+	private Map<String, Integer> termCountMap;
+	private final StringBuilder word = new StringBuilder();
+	private String pendingHighSurrogate = "";
+	private boolean started;
+	private boolean leadingWhitespace;
+	private boolean finished;
+	private int wordCount;
+
+	public void accept(String text) {
+		if (finished) {
+			throw new IllegalStateException("Counter already finished");
+		}
+		String piece = pendingHighSurrogate + text;
+		int end = piece.length();
+		if (end > 0 && Character.isHighSurrogate(piece.charAt(end - 1))) {
+			end--;
+		}
+		pendingHighSurrogate = piece.substring(end);
+		count(PreProcessText.preprocessText(piece.substring(0, end)));
+	}
+
+	private void count(String preprocessed) {
+		for (int i = 0; i < preprocessed.length(); i++) {
+			char c = preprocessed.charAt(i);
+			if (TokenDictionary.isWhitespace(c)) {
+				if (!started) {
+					leadingWhitespace = true;
+				}
+				endWord();
+			} else {
+				word.append(c);
+			}
+			started = true;
+		}
+	}
+
+	private void endWord() {
+		if (word.length() > 0) {
+			termCounts.increment(terms.id(word, 0, word.length()));
+			wordCount++;
+			word.setLength(0);
+		}
+	}
+
+	/**
+	 * Closes the document. String.split keeps an empty leading term when the
+	 * text starts with whitespace, and returns the empty term for empty text.
+	 */
+	public void finish() {
+		if (finished) {
+			return;
+		}
+		count(PreProcessText.preprocessText(pendingHighSurrogate));
+		pendingHighSurrogate = "";
+		endWord();
+		if (!started || (leadingWhitespace && wordCount > 0)) {
+			termCounts.increment(terms.id(""));
+			wordCount++;
+		}
+		finished = true;
+	}
+
+	public Map<String, Integer> getTermCounts() {
+		finish();
+		if (termCountMap == null) {
+			termCountMap = new HashMap<>(termCounts.size() * 2);
+			for (int slot = termCounts.next(-1); slot >= 0; slot = termCounts.next(slot)) {
+				termCountMap.put(terms.token(termCounts.keyAt(slot)), termCounts.valueAt(slot));
+			}
+		}
+		return termCountMap;
+	}
+
+	public int getWordCount() {
+		finish();
+		return wordCount;
+	}
+}
@@ -0,0 +1,63 @@
+package dal;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import pl.EditorPO;
+
+/**
+ * Read-only view of config.properties, loaded once per process. Missing or
+ * malformed keys fall back to the default passed by the caller.
+ */
+public class EditorConfig {
+	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+	private static EditorConfig INSTANCE;
+	private final Properties properties = new Properties();
+
+	private EditorConfig() {
+		try (FileInputStream input = new FileInputStream("config.properties")) {
+			properties.load(input);
+		} catch (IOException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+	}
+
+	public static synchronized EditorConfig getInstance() {
+		if (INSTANCE == null) {
+			INSTANCE = new EditorConfig();
+		}
+		return INSTANCE;
+	}
+
+	public String getString(String key, String defaultValue) {
+		String value = properties.getProperty(key);
+		return value == null ? defaultValue : value.trim();
+	}
+
+	public int getInt(String key, int defaultValue) {
+		try {
+			return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+		} catch (NumberFormatException e) {
+			LOGGER.error("Invalid value for " + key + ": " + e.getMessage());
+			return defaultValue;
+		}
+	}
+
+	public long getLong(String key, long defaultValue) {
+		try {
+			return Long.parseLong(getString(key, String.valueOf(defaultValue)));
+		} catch (NumberFormatException e) {
+			LOGGER.error("Invalid value for " + key + ": " + e.getMessage());
+			return defaultValue;
+		}
+	}
+
+	public boolean getBoolean(String key, boolean defaultValue) {
+		return Boolean.parseBoolean(getString(key, String.valueOf(defaultValue)));
+	}
+}
@@ -1,262 +1,436 @@
 package dal;
 
+import java.io.File;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import dto.Documents;
+import dto.FileMetadata;
 import dto.Pages;
+import dto.SearchHit;
 import pl.EditorPO;
 
 public class EditorDBDAO implements IEditorDBDAO {
 	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
-	Connection conn = null;
+	private static final int IMPORT_CHUNK_PAGES = 500;
+	// Analyses PageReanalysis brings up to date when a page is saved
+	private static final EnumSet<AnalysisType> REANALYZED = EnumSet.of(AnalysisType.POS, AnalysisType.LEMMA,
+			AnalysisType.ROOT, AnalysisType.SEGMENT, AnalysisType.STEM, AnalysisType.PKL, AnalysisType.PMI);
+
+	/**
+	 * What importing a file whose content is already stored does, as set by
+	 * import.duplicatePolicy.
+	 */
+	public enum DuplicatePolicy {
+		REIMPORT, SKIP, LINK
+	}
 
 	public EditorDBDAO() {
-		this.conn = DatabaseConnection.getInstance().getConnection();
-
 	}
 
 	@Override
-	public synchronized boolean createFileInDB(String nameOfFile, String content) {
-		String hash = null;
-		List<Pages> pages = null;
-
-		String insertQuery = "INSERT INTO files (fileName, fileHash) VALUES (?, ?)";
-		String pageQuery = "INSERT INTO pages (fileId, pageNumber, pageContent) VALUES (?, ?, ?)";
-		String transliterateQuery = "INSERT INTO transliteratedpages (pageId, transliteratedText) VALUES (?, ?)";
-		;
-		String posQuery = "INSERT INTO pos (pageId, word, pos) VALUES (?, ?, ?)";
-		String lemmaQuery = "INSERT INTO lemmatization (pageId, word, lemma) VALUES (?, ?, ?)";
-		String rootQuery = "INSERT INTO rootextraction (pageId, word, root) VALUES (?, ?, ?)";
-		String stemQuery = "INSERT INTO stemmation (pageId, word, stem) VALUES (?, ?, ?)";
-		String segmentQuery = "INSERT INTO wordsegementation (pageId, word, segment) VALUES (?, ?, ?)";
-		String tfidfQuery = "INSERT INTO tfidf (fileId, tfidfScore) VALUES (?, ?)";
-		String pklQuery = "INSERT INTO pkl (pageId, word, pklScore) VALUES (?, ?, ?)";
-		String pmiQuery = "INSERT INTO pmi (pageId, word, pmiScore) VALUES (?, ?, ?)";
-		Map<String, String> analyticsMap = new HashMap<>();
-		Map<String, Double> scoreMap = new HashMap<>();
+	public boolean createFileInDB(String nameOfFile, String content) {
+		return storeFile("create", nameOfFile, new PageStream(content, Paginator.fromConfig()));
+	}
 
-//		PreparedStatement fileStmt = null;
-//		PreparedStatement transliteratetStmt = null;
-//		PreparedStatement posStmt = null;
-//		PreparedStatement lemmaStmt = null;
-//		PreparedStatement rootStmt = null;
-//		PreparedStatement segmentStmt = null;
-//		PreparedStatement stemStmt = null;
-//		PreparedStatement pklStmt = null;
-//		PreparedStatement pmiStmt = null;
-//		PreparedStatement tfidfStmt = null;
+	/**
+	 * Imports a file under import.duplicatePolicy.
+	 */
+	@Override
+	public boolean importFileInDB(String nameOfFile, File file) {
+		DuplicatePolicy policy;
 		try {
+			policy = DuplicatePolicy.valueOf(EditorConfig.getInstance().getString("import.duplicatePolicy", "reimport")
+					.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return false;
+		}
+		return importFileInDB(nameOfFile, file, policy);
+	}
 
-			hash = HashCalculator.calculateHash(content);
-			pages = PaginationDAO.paginate(content);
+	/**
+	 * Imports a file, first checking for a stored file with the same content
+	 * unless the policy is reimport. A duplicate is then either skipped or
+	 * linked: stored under the new name as a copy of the existing file's
+	 * pages and analysis, without reading or analyzing it again.
+	 *
+	 * A file's hash is that of its content as imported, so a stored file is
+	 * only a duplicate while its pages, in order, still hash the same as the
+	 * new file's; an edited file is not. The check and the import that
+	 * follows hold a database lock named after the content hash, so imports
+	 * of the same content, e.g. by two ingest workers, wait for each other
+	 * for up to import.duplicateLockSeconds rather than both storing it. The
+	 * lock is taken on the connection that then checks for and stores the
+	 * file, so an import only ever holds one pooled connection.
+	 */
+	public boolean importFileInDB(String nameOfFile, File file, DuplicatePolicy policy) {
+		try {
+			if (policy == DuplicatePolicy.REIMPORT) {
+				return storeFile("import", nameOfFile, PageStream.open(file.toPath()));
+			}
+			ContentHash content = hashOf(file);
+			try (Connection conn = getConnection()) {
+				String lockName = "realeditor.import." + content.fileHash;
+				lockContent(conn, lockName);
+				try {
+					Integer existingFileId = findFileByContent(conn, content);
+					if (existingFileId != null && policy == DuplicatePolicy.SKIP) {
+						LOGGER.info(String.format("Skipped '%s': same content as file %d", nameOfFile, existingFileId));
+						return true;
+					}
+					if (existingFileId != null) {
+						return linkFile(conn, nameOfFile, existingFileId);
+					}
+					return storeFile(conn, "import", nameOfFile, PageStream.open(file.toPath()));
+				} finally {
+					// Named locks belong to the session, so a rolled back import still holds it
+					unlockContent(conn, lockName);
+				}
+			}
 		} catch (Exception e) {
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
 		}
+		return false;
+	}
 
-		try (PreparedStatement fileStmt = conn.prepareStatement(insertQuery, PreparedStatement.RETURN_GENERATED_KEYS);
-				PreparedStatement pageStmt = conn.prepareStatement(pageQuery, PreparedStatement.RETURN_GENERATED_KEYS);
-				PreparedStatement transliteratetStmt = conn.prepareStatement(transliterateQuery);
-				PreparedStatement posStmt = conn.prepareStatement(posQuery);
-				PreparedStatement lemmaStmt = conn.prepareStatement(lemmaQuery);
-				PreparedStatement rootStmt = conn.prepareStatement(rootQuery);
-				PreparedStatement segmentStmt = conn.prepareStatement(segmentQuery);
-				PreparedStatement stemStmt = conn.prepareStatement(stemQuery);
-				PreparedStatement pklStmt = conn.prepareStatement(pklQuery);
-				PreparedStatement pmiStmt = conn.prepareStatement(pmiQuery);
-				PreparedStatement tfidfStmt = conn.prepareStatement(tfidfQuery)) {
-			conn = DatabaseConnection.getInstance().getConnection();
-			double tfidf = performTFIDF(getAllExistingFilesContent(conn), content);
-			conn.setAutoCommit(false);
+	/**
+	 * The hash of a file's content and the hash of its page hashes in order.
+	 */
+	private static class ContentHash {
+		private final String fileHash;
+		private final String pagesHash;
 
-			// Insert into files table
-//			fileStmt = conn.prepareStatement(insertQuery, PreparedStatement.RETURN_GENERATED_KEYS);
-			fileStmt.setString(1, nameOfFile);
-			fileStmt.setString(2, hash);
-			fileStmt.executeUpdate();
+		ContentHash(String fileHash, String pagesHash) {
+			this.fileHash = fileHash;
+			this.pagesHash = pagesHash;
+		}
+	}
 
-			ResultSet fileRS = fileStmt.getGeneratedKeys();
-			fileRS.next();
-			int fileID = fileRS.getInt(1);
+	private ContentHash hashOf(File file) throws Exception {
+		HashCalculator.IncrementalHash hash = HashCalculator.newIncrementalHash();
+		HashCalculator.IncrementalHash pageHashes = HashCalculator.newIncrementalHash();
+		try (PageStream pages = PageStream.open(file.toPath())) {
+			List<Pages> chunk;
+			while (!(chunk = pages.nextPages(IMPORT_CHUNK_PAGES)).isEmpty()) {
+				for (Pages page : chunk) {
+					hash.update(page.getPageContent());
+					pageHashes.update(HashCalculator.calculateHash(page.getPageContent()));
+				}
+			}
+		}
+		return new ContentHash(hash.finish(), pageHashes.finish());
+	}
 
-			for (Pages page : pages) {
-				// Insert into pages table
-//				pageStmt = conn.prepareStatement(pageQuery, PreparedStatement.RETURN_GENERATED_KEYS);
-				pageStmt.setInt(1, fileID);
-				pageStmt.setInt(2, page.getPageNumber());
-				pageStmt.setString(3, page.getPageContent());
-				pageStmt.executeUpdate();
-
-				ResultSet pageRS = pageStmt.getGeneratedKeys();
-				pageRS.next();
-				int pageId = pageRS.getInt(1);
-
-				// Transliteration
-				String transliteratedText = Transliteration.transliterate(page.getPageContent());
-//				transliteratetStmt = conn.prepareStatement(transliterateQuery);
-				transliteratetStmt.setInt(1, pageId);
-				transliteratetStmt.setString(2, transliteratedText);
-				transliteratetStmt.executeUpdate();
-
-				// POS Tagging
-				Map<String, List<String>> posTagsMap = POSTagger.extractPOS(page.getPageContent());
-
-//				posStmt = conn.prepareStatement(posQuery);
-
-				for (Map.Entry<String, List<String>> entry : posTagsMap.entrySet()) {
-					String word = entry.getKey();
-					List<String> posTags = entry.getValue();
-					String posTagString = String.join("|", posTags);
-
-					posStmt.setInt(1, pageId);
-					posStmt.setString(2, word);
-					posStmt.setString(3, posTagString);
-					posStmt.addBatch();
+	/**
+	 * The first stored file imported with the same content whose pages have
+	 * not been edited since, or null if there is none.
+	 */
+	private Integer findFileByContent(Connection conn, ContentHash content) throws Exception {
+		try (PreparedStatement fileStmt = conn
+				.prepareStatement("SELECT fileId FROM files WHERE fileHash = ? ORDER BY fileId");
+				PreparedStatement pageStmt = conn
+						.prepareStatement("SELECT pageHash FROM pages WHERE fileId = ? ORDER BY pageNumber")) {
+			fileStmt.setString(1, content.fileHash);
+			List<Integer> candidates = new ArrayList<>();
+			try (ResultSet rs = fileStmt.executeQuery()) {
+				while (rs.next()) {
+					candidates.add(rs.getInt("fileId"));
+				}
+			}
+			for (int fileId : candidates) {
+				HashCalculator.IncrementalHash pageHashes = HashCalculator.newIncrementalHash();
+				pageStmt.setInt(1, fileId);
+				try (ResultSet rs = pageStmt.executeQuery()) {
+					while (rs.next()) {
+						String pageHash = rs.getString("pageHash");
+						pageHashes.update(pageHash == null ? "" : pageHash);
+					}
 				}
-				posStmt.executeBatch();
+				if (pageHashes.finish().equals(content.pagesHash)) {
+					return fileId;
+				}
+			}
+		}
+		return null;
+	}
 
-				analyticsMap = Lemmatization.lemmatizeWords(page.getPageContent());
+	private void lockContent(Connection conn, String lockName) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+			stmt.setString(1, lockName);
+			stmt.setInt(2, EditorConfig.getInstance().getInt("import.duplicateLockSeconds", 600));
+			try (ResultSet rs = stmt.executeQuery()) {
+				if (!rs.next() || rs.getInt(1) != 1) {
+					throw new SQLException("Timed out waiting for another import of the same content");
+				}
+			}
+		}
+	}
 
-//				lemmaStmt = conn.prepareStatement(lemmaQuery);
+	private void unlockContent(Connection conn, String lockName) {
+		try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+			stmt.setString(1, lockName);
+			stmt.executeQuery().close();
+		} catch (SQLException e) {
+			// A failed release means a broken session, which the server ends along with its locks
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+	}
 
-				for (Map.Entry<String, String> entry : analyticsMap.entrySet()) {
-					String word = entry.getKey();
-					String lemma = entry.getValue();
-					String lemmaString = String.join("|", lemma);
+	/**
+	 * Stores a new file with the content, analysis and TF-IDF score of an
+	 * existing one, in a transaction on the caller's connection.
+	 */
+	private boolean linkFile(Connection conn, String nameOfFile, int sourceFileId) {
+		String fileQuery = "INSERT INTO files (fileName, fileHash) SELECT ?, fileHash FROM files WHERE fileId = ?";
+		String pageQuery = "INSERT INTO pages (fileId, pageNumber, pageContent, pageHash) "
+				+ "SELECT ?, pageNumber, pageContent, pageHash FROM pages WHERE fileId = ? ORDER BY pageNumber";
+		String pairQuery = "SELECT p.pageId, p.pageNumber, s.pageId AS sourceId FROM pages p "
+				+ "JOIN pages s ON s.fileId = ? AND s.pageNumber = p.pageNumber WHERE p.fileId = ?";
+		String tfidfQuery = "INSERT INTO tfidf (fileId, tfidfScore) SELECT ?, tfidfScore FROM tfidf WHERE fileId = ?";
+
+		long startTime = System.currentTimeMillis();
+		long totalStart = System.nanoTime();
+		try (PreparedStatement fileStmt = conn.prepareStatement(fileQuery, PreparedStatement.RETURN_GENERATED_KEYS);
+				PreparedStatement pageStmt = conn.prepareStatement(pageQuery);
+				PreparedStatement pairStmt = conn.prepareStatement(pairQuery);
+				PreparedStatement tfidfStmt = conn.prepareStatement(tfidfQuery);
+				AnalyticsBatchWriter batchWriter = new AnalyticsBatchWriter(conn)) {
+			TermStatistics.ensureInitialized(conn);
+			conn.setAutoCommit(false);
 
-					lemmaStmt.setInt(1, pageId);
-					lemmaStmt.setString(2, word);
-					lemmaStmt.setString(3, lemmaString);
-					lemmaStmt.addBatch();
-				}
-				lemmaStmt.executeBatch();
-				analyticsMap = RootExtraction.extractRoots(page.getPageContent());
+			fileStmt.setString(1, nameOfFile);
+			fileStmt.setInt(2, sourceFileId);
+			if (fileStmt.executeUpdate() == 0) {
+				throw new SQLException("File " + sourceFileId + " no longer exists");
+			}
+			ResultSet fileRS = fileStmt.getGeneratedKeys();
+			fileRS.next();
+			int fileID = fileRS.getInt(1);
 
-//				rootStmt = conn.prepareStatement(rootQuery);
+			pageStmt.setInt(1, fileID);
+			pageStmt.setInt(2, sourceFileId);
+			int pageCount = pageStmt.executeUpdate();
+			StageMetrics.getInstance().addRows("pages", pageCount);
+
+			pairStmt.setInt(1, sourceFileId);
+			pairStmt.setInt(2, fileID);
+			int firstPageId = 0;
+			try (ResultSet rs = pairStmt.executeQuery()) {
+				while (rs.next()) {
+					if (rs.getInt("pageNumber") == 1) {
+						firstPageId = rs.getInt("pageId");
+					}
+					batchWriter.copyPageAnalysis(new Pages(rs.getInt("pageId"), fileID, rs.getInt("pageNumber"), null),
+							rs.getInt("sourceId"));
+				}
+			}
+			batchWriter.flush();
 
-				for (Map.Entry<String, String> entry : analyticsMap.entrySet()) {
-					String word = entry.getKey();
-					String root = entry.getValue();
-					String rootString = String.join("|", root);
+			tfidfStmt.setInt(1, fileID);
+			tfidfStmt.setInt(2, sourceFileId);
+			if (tfidfStmt.executeUpdate() == 0 && firstPageId != 0) {
+				// The source is not scored yet, so the copy is queued to be scored on its own
+				PendingAnalysis.add(conn, firstPageId, AnalysisType.TFIDF);
+			}
 
-					rootStmt.setInt(1, pageId);
-					rootStmt.setString(2, word);
-					rootStmt.setString(3, rootString);
-					rootStmt.addBatch();
-				}
-				rootStmt.executeBatch();
+			TermStatistics.copyDocument(conn, sourceFileId, fileID);
 
-				analyticsMap = WordSegmentation.extractSegments(page.getPageContent());
-//				segmentStmt = conn.prepareStatement(segmentQuery);
+			conn.commit();
+			StageMetrics.getInstance().recordSince("link.total", totalStart);
+			StageMetrics.getInstance().addRows("files", 1);
+			LOGGER.info(String.format("Linked '%s' to file %d: %d pages, %d rows, %d ms", nameOfFile, sourceFileId,
+					pageCount, batchWriter.getRowsWritten(), System.currentTimeMillis() - startTime));
+			return true;
 
-				for (Map.Entry<String, String> entry : analyticsMap.entrySet()) {
-					String word = entry.getKey();
-					String segment = entry.getValue();
-					String segmentString = String.join("|", segment);
+		} catch (Exception e) {
+			rollback(conn);
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+		return false;
+	}
 
-					segmentStmt.setInt(1, pageId);
-					segmentStmt.setString(2, word);
-					segmentStmt.setString(3, segmentString);
-					segmentStmt.addBatch();
-				}
-				segmentStmt.executeBatch();
+	/**
+	 * Stores a file page chunk by page chunk as the stream produces them, so
+	 * only one chunk of pages is in memory at a time. The hash and the term
+	 * counts for TF-IDF are accumulated on the way and written once the last
+	 * page is in; the whole file is still one transaction. Analyses with a
+	 * lazy policy are only recorded as pending.
+	 */
+	private boolean storeFile(String operation, String nameOfFile, PageStream pageStream) {
+		try (Connection conn = getConnection()) {
+			return storeFile(conn, operation, nameOfFile, pageStream);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+		return false;
+	}
 
-				analyticsMap = Stemmation.stemWords(page.getPageContent());
-//				stemStmt = conn.prepareStatement(stemQuery);
+	/**
+	 * Stores a file as above, in a transaction on the caller's connection.
+	 */
+	private boolean storeFile(Connection conn, String operation, String nameOfFile, PageStream pageStream) {
+		String insertQuery = "INSERT INTO files (fileName, fileHash) VALUES (?, ?)";
+		String hashQuery = "UPDATE files SET fileHash = ? WHERE fileId = ?";
+		String tfidfQuery = "INSERT INTO tfidf (fileId, tfidfScore) VALUES (?, ?)";
 
-				for (Map.Entry<String, String> entry : analyticsMap.entrySet()) {
-					String word = entry.getKey();
-					String stem = entry.getValue();
-					String stemString = String.join("|", stem);
+		StageMetrics metrics = StageMetrics.getInstance();
+		long startTime = System.currentTimeMillis();
+		long totalStart = System.nanoTime();
+		try (PageStream pages = pageStream;
+				PreparedStatement fileStmt = conn.prepareStatement(insertQuery, PreparedStatement.RETURN_GENERATED_KEYS);
+				PreparedStatement hashStmt = conn.prepareStatement(hashQuery);
+				PreparedStatement tfidfStmt = conn.prepareStatement(tfidfQuery);
+				AnalyticsBatchWriter batchWriter = new AnalyticsBatchWriter(conn)) {
+			TermStatistics.ensureInitialized(conn);
+			HashCalculator.IncrementalHash hash = HashCalculator.newIncrementalHash();
+			DocumentTermCounter terms = new DocumentTermCounter();
+			conn.setAutoCommit(false);
 
-					stemStmt.setInt(1, pageId);
-					stemStmt.setString(2, word);
-					stemStmt.setString(3, stemString);
-					stemStmt.addBatch();
-				}
-				stemStmt.executeBatch();
+			// Insert into files table; the hash is known once the last page is read
+			fileStmt.setString(1, nameOfFile);
+			fileStmt.setString(2, "");
+			fileStmt.executeUpdate();
 
-				scoreMap = performPKL(page.getPageContent());
-//				pklStmt = conn.prepareStatement(pklQuery);
+			ResultSet fileRS = fileStmt.getGeneratedKeys();
+			fileRS.next();
+			int fileID = fileRS.getInt(1);
 
-				for (Map.Entry<String, Double> entry : scoreMap.entrySet()) {
-					String word = entry.getKey();
-					Double pkl = entry.getValue();
+			int pageCount = 0;
+			int firstPageId = 0;
+			List<Pages> chunk;
+			long stageStart = System.nanoTime();
+			while (!(chunk = pages.nextPages(IMPORT_CHUNK_PAGES)).isEmpty()) {
+				metrics.recordSince(operation + ".paginate", stageStart);
 
-					pklStmt.setInt(1, pageId);
-					pklStmt.setString(2, word);
-					pklStmt.setDouble(3, pkl);
-					pklStmt.addBatch();
+				stageStart = System.nanoTime();
+				for (Pages page : chunk) {
+					hash.update(page.getPageContent());
 				}
-				pklStmt.executeBatch();
-
-				scoreMap = performPMI(page.getPageContent());
-//				pmiStmt = conn.prepareStatement(pmiQuery);
+				metrics.recordSince(operation + ".hash", stageStart);
 
-				for (Map.Entry<String, Double> entry : scoreMap.entrySet()) {
-					String word = entry.getKey();
-					Double pmi = entry.getValue();
+				stageStart = System.nanoTime();
+				for (Pages page : chunk) {
+					terms.accept(page.getPageContent());
+				}
+				metrics.recordSince(operation + ".terms", stageStart);
+
+				// Insert the chunk in one batch so analytics rows can reference their ids
+				stageStart = System.nanoTime();
+				batchWriter.insertPages(fileID, chunk);
+				metrics.recordSince(operation + ".insertPages", stageStart);
+				if (pageCount == 0) {
+					firstPageId = chunk.get(0).getPageId();
+				}
 
-					pmiStmt.setInt(1, pageId);
-					pmiStmt.setString(2, word);
-					pmiStmt.setDouble(3, pmi);
-					pmiStmt.addBatch();
+				// Pages already analyzed elsewhere get copies of those rows instead
+				stageStart = System.nanoTime();
+				Map<Integer, Integer> analyzedCopies = batchWriter.findAnalyzedCopies(fileID, chunk);
+				metrics.recordSince(operation + ".findCopies", stageStart);
+				List<Pages> toAnalyze = new ArrayList<>(chunk.size());
+				for (Pages page : chunk) {
+					if (!analyzedCopies.containsKey(page.getPageId())) {
+						toAnalyze.add(page);
+					}
 				}
-				pmiStmt.executeBatch();
 
+				// Pages are analyzed concurrently; this thread queues their rows in page order
+				stageStart = System.nanoTime();
+				PageAnalysisPipeline.process(toAnalyze.iterator(), batchWriter.getAnalyzedTypes(),
+						batchWriter::addPageAnalysis);
+				for (Pages page : chunk) {
+					Integer sourcePageId = analyzedCopies.get(page.getPageId());
+					if (sourcePageId != null) {
+						batchWriter.copyPageAnalysis(page, sourcePageId);
+					}
+				}
+				metrics.recordSince(operation + ".analysis", stageStart);
+				pageCount += chunk.size();
+				stageStart = System.nanoTime();
+			}
+			stageStart = System.nanoTime();
+			batchWriter.flush();
+			metrics.recordSince(operation + ".flush", stageStart);
+
+			hashStmt.setString(1, hash.finish());
+			hashStmt.setInt(2, fileID);
+			hashStmt.executeUpdate();
+
+			// Scored against the corpus as it was before this file is added
+			stageStart = System.nanoTime();
+			if (AnalysisType.TFIDF.isLazy()) {
+				PendingAnalysis.add(conn, firstPageId, AnalysisType.TFIDF);
+			} else {
+				tfidfStmt.setInt(1, fileID);
+				tfidfStmt.setDouble(2, TermStatistics.calculateTfIdf(conn, terms));
+				tfidfStmt.executeUpdate();
 			}
+			metrics.recordSince(operation + ".tfidf", stageStart);
 
-//			tfidfStmt = conn.prepareStatement(tfidfQuery);
-			tfidfStmt.setInt(1, fileID);
-			tfidfStmt.setDouble(2, tfidf);
-			tfidfStmt.executeUpdate();
+			stageStart = System.nanoTime();
+			TermStatistics.addDocumentTerms(conn, fileID, terms.getTermCounts());
+			metrics.recordSince(operation + ".termStatistics", stageStart);
 
+			stageStart = System.nanoTime();
 			conn.commit();
+			metrics.recordSince(operation + ".commit", stageStart);
+			metrics.recordSince(operation + ".total", totalStart);
+			metrics.addRows("files", 1);
+			LOGGER.info(String.format(
+					"Imported '%s': %d pages (%d reused), %d rows in %d batches, %d analyses pending, %d ms",
+					nameOfFile, pageCount, batchWriter.getPagesReused(), batchWriter.getRowsWritten(),
+					batchWriter.getRoundTrips(), batchWriter.getAnalysesDeferred(),
+					System.currentTimeMillis() - startTime));
 			return true;
 
 		} catch (Exception e) {
-			try {
-				conn.rollback();
-			} catch (SQLException e1) {
-				e1.printStackTrace();
-				LOGGER.error(e1.getMessage());
-			}
+			rollback(conn);
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
 		}
-
 		return false;
 	}
 
+	/**
+	 * Saves a page and updates its analysis by difference with what is
+	 * stored, so a small edit changes few rows. The file's term counts change
+	 * by the difference between the old and new page, counted together with
+	 * the neighbouring pages since a word can run across a page edge.
+	 */
 	@Override
 	public boolean updateFileInDB(int fileId, String fileName, int pageNumber, String content) {
 
+		Connection conn = null;
 		PreparedStatement fileStmt = null;
 		PreparedStatement pageStmt = null;
-		// PreparedStatement transliterateStmt = null;
-		PreparedStatement posStmt = null;
-		PreparedStatement lemmaStmt = null;
-		PreparedStatement rootStmt = null;
-		PreparedStatement segmentStmt = null;
-		PreparedStatement stemStmt = null;
-		PreparedStatement pklStmt = null;
-		PreparedStatement pmiStmt = null;
 		PreparedStatement tfidfStmt = null;
+		StageMetrics metrics = StageMetrics.getInstance();
+		long totalStart = System.nanoTime();
 
 		try {
 
+			conn = getConnection();
+			TermStatistics.ensureInitialized(conn);
 			conn.setAutoCommit(false);
+			long stageStart = System.nanoTime();
 
 			// Update file information
 			String fileQuery = "UPDATE files SET fileName = ?, lastModified = CURRENT_TIMESTAMP() WHERE fileId = ?";
@@ -265,189 +439,143 @@ public class EditorDBDAO implements IEditorDBDAO {
 			fileStmt.setInt(2, fileId);
 			fileStmt.executeUpdate();
 
+			// Read the page and its neighbours before it changes
+			Map<Integer, Pages> window = getPageWindow(conn, fileId, pageNumber);
+			Pages oldPage = window.get(pageNumber);
+			if (oldPage == null) {
+				throw new SQLException("Page not found for the given fileId and pageNumber");
+			}
+			int pageId = oldPage.getPageId();
+
 			// Update page content
-			String pageQuery = "UPDATE pages SET pageContent = ? WHERE fileId = ? AND pageNumber = ?";
+			String pageQuery = "UPDATE pages SET pageContent = ?, pageHash = ? WHERE pageId = ?";
 			pageStmt = conn.prepareStatement(pageQuery);
 			pageStmt.setString(1, content);
-			pageStmt.setInt(2, fileId);
-			pageStmt.setInt(3, pageNumber);
+			pageStmt.setString(2, HashCalculator.calculateHash(content));
+			pageStmt.setInt(3, pageId);
 			pageStmt.executeUpdate();
-
-			// Get the pageId of the updated page
-			String pageIdQuery = "SELECT pageId FROM pages WHERE fileId = ? AND pageNumber = ?";
-			PreparedStatement pageIdStmt = conn.prepareStatement(pageIdQuery);
-			pageIdStmt.setInt(1, fileId);
-			pageIdStmt.setInt(2, pageNumber);
-			ResultSet pageIdRS = pageIdStmt.executeQuery();
-			if (!pageIdRS.next()) {
-				throw new SQLException("Page not found for the given fileId and pageNumber");
-			}
-			int pageId = pageIdRS.getInt("pageId");
-
-//	        // Update transliteration
-//	        String transliteratedText = Transliteration.transliterate(content);
-//	        String transliterateQuery = "UPDATE transliteratedpages SET transliteratedText = ? WHERE pageId = ?";
-//	        transliterateStmt = conn.prepareStatement(transliterateQuery);
-//	        transliterateStmt.setString(1, transliteratedText);
-//	        transliterateStmt.setInt(2, pageId);
-//	        transliterateStmt.executeUpdate();
-
-			// Update POS tagging
-			Map<String, List<String>> posTagsMap = POSTagger.extractPOS(content);
-			String deletePosQuery = "DELETE FROM pos WHERE pageId = ?";
-			posStmt = conn.prepareStatement(deletePosQuery);
-			posStmt.setInt(1, pageId);
-			posStmt.executeUpdate();
-
-			String insertPosQuery = "INSERT INTO pos (pageId, word, pos) VALUES (?, ?, ?)";
-			posStmt = conn.prepareStatement(insertPosQuery);
-			for (Map.Entry<String, List<String>> entry : posTagsMap.entrySet()) {
-				String word = entry.getKey();
-				String posTags = String.join("|", entry.getValue());
-				posStmt.setInt(1, pageId);
-				posStmt.setString(2, word);
-				posStmt.setString(3, posTags);
-				posStmt.addBatch();
-			}
-			posStmt.executeBatch();
-
-			// Update lemmatization
-			Map<String, String> lemmaMap = Lemmatization.lemmatizeWords(content);
-			String deleteLemmaQuery = "DELETE FROM lemmatization WHERE pageId = ?";
-			lemmaStmt = conn.prepareStatement(deleteLemmaQuery);
-			lemmaStmt.setInt(1, pageId);
-			lemmaStmt.executeUpdate();
-
-			String insertLemmaQuery = "INSERT INTO lemmatization (pageId, word, lemma) VALUES (?, ?, ?)";
-			lemmaStmt = conn.prepareStatement(insertLemmaQuery);
-			for (Map.Entry<String, String> entry : lemmaMap.entrySet()) {
-				lemmaStmt.setInt(1, pageId);
-				lemmaStmt.setString(2, entry.getKey());
-				lemmaStmt.setString(3, entry.getValue());
-				lemmaStmt.addBatch();
-			}
-			lemmaStmt.executeBatch();
-
-			// Update root extraction
-			Map<String, String> rootMap = RootExtraction.extractRoots(content);
-			String deleteRootQuery = "DELETE FROM rootextraction WHERE pageId = ?";
-			rootStmt = conn.prepareStatement(deleteRootQuery);
-			rootStmt.setInt(1, pageId);
-			rootStmt.executeUpdate();
-
-			String insertRootQuery = "INSERT INTO rootextraction (pageId, word, root) VALUES (?, ?, ?)";
-			rootStmt = conn.prepareStatement(insertRootQuery);
-			for (Map.Entry<String, String> entry : rootMap.entrySet()) {
-				rootStmt.setInt(1, pageId);
-				rootStmt.setString(2, entry.getKey());
-				rootStmt.setString(3, entry.getValue());
-				rootStmt.addBatch();
-			}
-			rootStmt.executeBatch();
-
-			// Update word segmentation
-			Map<String, String> segmentMap = WordSegmentation.extractSegments(content);
-			String deleteSegmentQuery = "DELETE FROM wordsegementation WHERE pageId = ?";
-			segmentStmt = conn.prepareStatement(deleteSegmentQuery);
-			segmentStmt.setInt(1, pageId);
-			segmentStmt.executeUpdate();
-
-			String insertSegmentQuery = "INSERT INTO wordsegementation (pageId, word, segment) VALUES (?, ?, ?)";
-			segmentStmt = conn.prepareStatement(insertSegmentQuery);
-			for (Map.Entry<String, String> entry : segmentMap.entrySet()) {
-				segmentStmt.setInt(1, pageId);
-				segmentStmt.setString(2, entry.getKey());
-				segmentStmt.setString(3, entry.getValue());
-				segmentStmt.addBatch();
-			}
-			segmentStmt.executeBatch();
-
-			// Update stemming
-			Map<String, String> stemMap = Stemmation.stemWords(content);
-			String deleteStemQuery = "DELETE FROM stemmation WHERE pageId = ?";
-			stemStmt = conn.prepareStatement(deleteStemQuery);
-			stemStmt.setInt(1, pageId);
-			stemStmt.executeUpdate();
-
-			String insertStemQuery = "INSERT INTO stemmation (pageId, word, stem) VALUES (?, ?, ?)";
-			stemStmt = conn.prepareStatement(insertStemQuery);
-			for (Map.Entry<String, String> entry : stemMap.entrySet()) {
-				stemStmt.setInt(1, pageId);
-				stemStmt.setString(2, entry.getKey());
-				stemStmt.setString(3, entry.getValue());
-				stemStmt.addBatch();
-			}
-			stemStmt.executeBatch();
-
-			// Update PKL
-			Map<String, Double> pklMap = performPKL(content);
-			String deletePklQuery = "DELETE FROM pkl WHERE pageId = ?";
-			pklStmt = conn.prepareStatement(deletePklQuery);
-			pklStmt.setInt(1, pageId);
-			pklStmt.executeUpdate();
-
-			String insertPklQuery = "INSERT INTO pkl (pageId, word, pklScore) VALUES (?, ?, ?)";
-			pklStmt = conn.prepareStatement(insertPklQuery);
-			for (Map.Entry<String, Double> entry : pklMap.entrySet()) {
-				pklStmt.setInt(1, pageId);
-				pklStmt.setString(2, entry.getKey());
-				pklStmt.setDouble(3, entry.getValue());
-				pklStmt.addBatch();
-			}
-			pklStmt.executeBatch();
-
-			// Update PMI
-			Map<String, Double> pmiMap = performPMI(content);
-			String deletePmiQuery = "DELETE FROM pmi WHERE pageId = ?";
-			pmiStmt = conn.prepareStatement(deletePmiQuery);
-			pmiStmt.setInt(1, pageId);
-			pmiStmt.executeUpdate();
-
-			String insertPmiQuery = "INSERT INTO pmi (pageId, word, pmiScore) VALUES (?, ?, ?)";
-			pmiStmt = conn.prepareStatement(insertPmiQuery);
-			for (Map.Entry<String, Double> entry : pmiMap.entrySet()) {
-				pmiStmt.setInt(1, pageId);
-				pmiStmt.setString(2, entry.getKey());
-				pmiStmt.setDouble(3, entry.getValue());
-				pmiStmt.addBatch();
-			}
-			pmiStmt.executeBatch();
-
-			// Update TF-IDF
-			double tfidf = performTFIDF(getAllExistingFilesContent(conn), content);
+			metrics.recordSince("update.page", stageStart);
+
+			stageStart = System.nanoTime();
+			SearchIndex.reindexPage(conn, fileId, pageId, content);
+			metrics.recordSince("update.searchIndex", stageStart);
+
+			// POS, lemma, root, stem, segment, PKL and PMI rows by difference
+			stageStart = System.nanoTime();
+			int rowChanges = PageReanalysis.update(conn, pageId, content);
+			// Analyses pending for the page have now been stored in full
+			PendingAnalysis.clear(conn, pageId, REANALYZED);
+			metrics.recordSince("update.reanalysis", stageStart);
+
+			// Update TF-IDF: apply the page's change in term counts, then score the page
+			stageStart = System.nanoTime();
+			TermStatistics.applyTermDelta(conn, fileId, termDelta(window, pageNumber, content));
+			metrics.recordSince("update.termStatistics", stageStart);
+
+			stageStart = System.nanoTime();
+			double tfidf = TermStatistics.calculateTfIdf(conn, content);
 			String tfidfQuery = "UPDATE tfidf SET tfidfScore = ? WHERE fileId = ?";
 			tfidfStmt = conn.prepareStatement(tfidfQuery);
 			tfidfStmt.setDouble(1, tfidf);
 			tfidfStmt.setInt(2, fileId);
 			tfidfStmt.executeUpdate();
+			metrics.recordSince("update.tfidf", stageStart);
 
+			stageStart = System.nanoTime();
 			conn.commit();
+			metrics.recordSince("update.commit", stageStart);
+			metrics.recordSince("update.total", totalStart);
+			LOGGER.info(String.format("Updated page %d of file %d: %d analytics rows changed", pageNumber, fileId,
+					rowChanges));
 			return true;
 		} catch (Exception e) {
-			try {
-
-				conn.rollback();
-
-			} catch (SQLException rollbackEx) {
-				rollbackEx.printStackTrace();
-				LOGGER.error(rollbackEx.getMessage());
-			}
+			rollback(conn);
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
 			return false;
+		} finally {
+			close(conn);
 		}
 	}
 
-	@Override
-	public boolean deleteFileInDB(int id) {
-		String query = "DELETE FROM FILES WHERE fileId = ?";
-		try (PreparedStatement fileStmt = conn.prepareStatement(query)) {
+	/**
+	 * The page and the pages either side of it, locked for the update.
+	 */
+	private Map<Integer, Pages> getPageWindow(Connection conn, int fileId, int pageNumber) throws SQLException {
+		Map<Integer, Pages> window = new HashMap<>();
+		String query = "SELECT pageId, pageNumber, pageContent FROM pages WHERE fileId = ? AND pageNumber BETWEEN ? AND ? "
+				+ "FOR UPDATE";
+		try (PreparedStatement stmt = conn.prepareStatement(query)) {
+			stmt.setInt(1, fileId);
+			stmt.setInt(2, pageNumber - 1);
+			stmt.setInt(3, pageNumber + 1);
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					window.put(rs.getInt("pageNumber"),
+							new Pages(rs.getInt("pageId"), fileId, rs.getInt("pageNumber"), rs.getString("pageContent")));
+				}
+			}
+		}
+		return window;
+	}
+
+	private Map<String, Integer> termDelta(Map<Integer, Pages> window, int pageNumber, String content) {
+		Pages previous = window.get(pageNumber - 1);
+		Pages next = window.get(pageNumber + 1);
+		String before = previous == null ? "" : previous.getPageContent();
+		String after = next == null ? "" : next.getPageContent();
 
-			fileStmt.setInt(1, id);
-			int rowsAffected = fileStmt.executeUpdate();
+		DocumentTermCounter oldTerms = new DocumentTermCounter();
+		oldTerms.accept(before + window.get(pageNumber).getPageContent() + after);
+		DocumentTermCounter newTerms = new DocumentTermCounter();
+		newTerms.accept(before + content + after);
 
-			return rowsAffected > 0;
+		Map<String, Integer> delta = new HashMap<>(newTerms.getTermCounts());
+		for (Map.Entry<String, Integer> entry : oldTerms.getTermCounts().entrySet()) {
+			delta.merge(entry.getKey(), -entry.getValue(), Integer::sum);
+		}
+		if (previous != null) {
+			// The empty leading term only exists at the start of a file
+			delta.remove("");
+		}
+		return delta;
+	}
 
+	@Override
+	public boolean deleteFileInDB(int id) {
+		String query = "DELETE FROM files WHERE fileId = ?";
+		StageMetrics metrics = StageMetrics.getInstance();
+		long totalStart = System.nanoTime();
+		try (Connection conn = getConnection()) {
+			try (PreparedStatement fileStmt = conn.prepareStatement(query)) {
+				TermStatistics.ensureInitialized(conn);
+				conn.setAutoCommit(false);
+
+				// Terms must leave the statistics before the cascade drops them
+				long stageStart = System.nanoTime();
+				TermStatistics.removeDocument(conn, id);
+				metrics.recordSince("delete.termStatistics", stageStart);
+
+				stageStart = System.nanoTime();
+				fileStmt.setInt(1, id);
+				int rowsAffected = fileStmt.executeUpdate();
+				if (rowsAffected == 0) {
+					conn.rollback();
+					return false;
+				}
+				metrics.recordSince("delete.rows", stageStart);
+
+				stageStart = System.nanoTime();
+				conn.commit();
+				metrics.recordSince("delete.commit", stageStart);
+				metrics.recordSince("delete.total", totalStart);
+				return true;
+			} catch (SQLException e) {
+				rollback(conn);
+				e.printStackTrace();
+				LOGGER.error(e.getMessage());
+				return false;
+			}
 		} catch (SQLException e) {
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
@@ -455,7 +583,7 @@ public class EditorDBDAO implements IEditorDBDAO {
 		}
 	}
 //	public boolean deleteFileInDB(int id) {
-//		String query = "DELETE FROM FILES WHERE fileId = ?";
+//		String query = "DELETE FROM files WHERE fileId = ?";
 //
 //		PreparedStatement fileStmt = null;
 //
@@ -477,12 +605,14 @@ public class EditorDBDAO implements IEditorDBDAO {
 	public List<Documents> getFilesFromDB() {
 		List<Documents> documents = new ArrayList<>();
 
+		Connection conn = null;
 		PreparedStatement stmt = null;
 		String query = null;
 		ResultSet rs;
 
 		try {
 
+			conn = getConnection();
 			conn.setAutoCommit(false);
 			query = "SELECT fileId, fileName, filehash, dateCreated, lastModified FROM files";
 			stmt = conn.prepareStatement(query);
@@ -510,28 +640,141 @@ public class EditorDBDAO implements IEditorDBDAO {
 			}
 			conn.commit();
 		} catch (Exception e) {
-			try {
-				conn.rollback();
-			} catch (SQLException e1) {
-				e1.printStackTrace();
-			}
+			rollback(conn);
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
+		} finally {
+			close(conn);
 		}
 		return documents;
 	}
 
+	@Override
+	public Documents getFileFromDB(int id) {
+		Documents document = null;
+		String query = "SELECT f.fileId, f.fileName, f.fileHash, f.dateCreated, f.lastModified, p.pageId, p.pageNumber, "
+				+ "p.pageContent FROM files f LEFT JOIN pages p ON p.fileId = f.fileId WHERE f.fileId = ? ORDER BY p.pageNumber";
+
+		try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(query)) {
+			stmt.setInt(1, id);
+			try (ResultSet rs = stmt.executeQuery()) {
+				List<Pages> pages = new ArrayList<>();
+				while (rs.next()) {
+					if (document == null) {
+						document = new Documents(rs.getInt("fileId"), rs.getString("fileName"), rs.getString("fileHash"),
+								rs.getString("lastModified"), rs.getString("dateCreated"), pages);
+					}
+					int pageId = rs.getInt("pageId");
+					if (!rs.wasNull()) {
+						pages.add(new Pages(pageId, id, rs.getInt("pageNumber"), rs.getString("pageContent")));
+					}
+				}
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+		return document;
+	}
+
+	/**
+	 * Indexes pages stored before the search index existed, once per
+	 * database. Returns false on failure.
+	 */
+	@Override
+	public boolean initializeSearchIndexInDB() {
+		try (Connection conn = getConnection()) {
+			SearchIndex.ensureInitialized(conn);
+			return true;
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return false;
+		}
+	}
+
+	@Override
+	public List<SearchHit> searchWordInDB(String keyword) {
+		long totalStart = System.nanoTime();
+		try (Connection conn = getConnection()) {
+			List<SearchHit> hits = SearchIndex.search(conn, keyword);
+			StageMetrics.getInstance().recordSince("search.total", totalStart);
+			return hits;
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return new ArrayList<>();
+		}
+	}
+
+	@Override
+	public List<FileMetadata> getFileSummariesFromDB() {
+		List<FileMetadata> files = new ArrayList<>();
+		String query = "SELECT f.fileId, f.fileName, f.fileHash, f.dateCreated, f.lastModified, "
+				+ "(SELECT COUNT(*) FROM pages p WHERE p.fileId = f.fileId) AS pageCount FROM files f ORDER BY f.fileId";
+
+		try (Connection conn = getConnection();
+				PreparedStatement stmt = conn.prepareStatement(query);
+				ResultSet rs = stmt.executeQuery()) {
+			while (rs.next()) {
+				files.add(new FileMetadata(rs.getInt("fileId"), rs.getString("fileName"), rs.getString("fileHash"),
+						rs.getString("lastModified"), rs.getString("dateCreated"), rs.getInt("pageCount")));
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+		return files;
+	}
+
+	@Override
+	public Pages getPageFromDB(int fileId, int pageNumber) {
+		List<Pages> pages = getPagesFromDB(fileId, pageNumber, pageNumber);
+		return pages.isEmpty() ? null : pages.get(0);
+	}
+
+	@Override
+	public List<Pages> getPagesFromDB(int fileId, int fromPage, int toPage) {
+		List<Pages> pages = new ArrayList<>();
+		String query = "SELECT pageId, fileId, pageNumber, pageContent FROM pages "
+				+ "WHERE fileId = ? AND pageNumber BETWEEN ? AND ? ORDER BY pageNumber";
+
+		try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(query)) {
+			stmt.setInt(1, fileId);
+			stmt.setInt(2, fromPage);
+			stmt.setInt(3, toPage);
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					pages.add(new Pages(rs.getInt("pageId"), rs.getInt("fileId"), rs.getInt("pageNumber"),
+							rs.getString("pageContent")));
+				}
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+		return pages;
+	}
+
 	@Override
 	public String transliterateInDB(int pageId, String arabicText) {
 		String content;
+		Connection conn = null;
 		String deleteQuery = "DELETE FROM transliteratedpages WHERE pageId = ?";
 		String insertQuery = "INSERT INTO transliteratedpages (pageId, transliteratedText) VALUES (?, ?)";
 
+		StageMetrics metrics = StageMetrics.getInstance();
+		long totalStart = System.nanoTime();
+
 		try {
 			// Ensure the transliteration result is valid
+			long stageStart = System.nanoTime();
 			content = Transliteration.transliterate(arabicText);
+			metrics.recordSince("transliterate.convert", stageStart);
+			stageStart = System.nanoTime();
 
 			// Begin transaction
+			conn = getConnection();
 			conn.setAutoCommit(false);
 
 			// Delete existing entries
@@ -546,59 +789,322 @@ public class EditorDBDAO implements IEditorDBDAO {
 				insertStmt.setString(2, content);
 				insertStmt.executeUpdate();
 			}
+			PendingAnalysis.clear(conn, pageId, EnumSet.of(AnalysisType.TRANSLITERATION));
 
 			// Commit transaction
 			conn.commit();
+			metrics.recordSince("transliterate.store", stageStart);
+			metrics.recordSince("transliterate.total", totalStart);
+			metrics.addRows("transliteratedpages", 1);
 			return content;
 
 		} catch (Exception e) {
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
-			try {
+			rollback(conn);
+			return null;
+		} finally {
+			close(conn);
+		}
+	}
+
+	/**
+	 * Transliterates every page of a file in one transaction, replacing the
+	 * stored transliterations, reading pages in chunks of
+	 * transliterate.chunkPages.
+	 */
+	@Override
+	public int transliterateFileInDB(int fileId) {
+		return transliterateFileInDB(fileId, EditorConfig.getInstance().getInt("transliterate.chunkPages", 1000));
+	}
+
+	/**
+	 * Transliterates every page of a file in one transaction, replacing the
+	 * stored transliterations. Pages are read in chunks of chunkPages by
+	 * page number, so memory stays bounded however long the file, and each
+	 * chunk is transliterated into one reused buffer and inserted as a batch
+	 * once its result set is closed. Returns the number of pages, or -1 if
+	 * the file does not exist or could not be transliterated.
+	 */
+	public int transliterateFileInDB(int fileId, int chunkPages) {
+		Connection conn = null;
+		String fileQuery = "SELECT fileid FROM files WHERE fileid = ? FOR UPDATE";
+		String deleteQuery = "DELETE t FROM transliteratedpages t JOIN pages p ON p.pageId = t.pageId WHERE p.fileId = ?";
+		String selectQuery = "SELECT pageId, pageNumber, pageContent FROM pages WHERE fileId = ? AND pageNumber > ? "
+				+ "ORDER BY pageNumber LIMIT ?";
+		String insertQuery = "INSERT INTO transliteratedpages (pageId, transliteratedText) VALUES (?, ?)";
+		int batchRows = Math.max(1, chunkPages);
 
-				conn.rollback();
+		StageMetrics metrics = StageMetrics.getInstance();
+		long totalStart = System.nanoTime();
 
-			} catch (SQLException rollbackEx) {
-				rollbackEx.printStackTrace();
-				LOGGER.error(rollbackEx.getMessage());
+		try {
+			conn = getConnection();
+			conn.setAutoCommit(false);
+
+			// Locking the file keeps its pages from changing while they are read chunk by chunk
+			try (PreparedStatement fileStmt = conn.prepareStatement(fileQuery)) {
+				fileStmt.setInt(1, fileId);
+				try (ResultSet rs = fileStmt.executeQuery()) {
+					if (!rs.next()) {
+						LOGGER.error("File " + fileId + " does not exist");
+						rollback(conn);
+						return -1;
+					}
+				}
 			}
-			return null;
+
+			try (PreparedStatement deleteStmt = conn.prepareStatement(deleteQuery)) {
+				deleteStmt.setInt(1, fileId);
+				deleteStmt.executeUpdate();
+			}
+
+			int pages = 0;
+			long convertNanos = 0;
+			try (PreparedStatement selectStmt = conn.prepareStatement(selectQuery);
+					PreparedStatement insertStmt = conn.prepareStatement(insertQuery)) {
+				StringBuilder romanText = new StringBuilder();
+				Transliteration transliteration = new Transliteration(romanText);
+				List<Integer> pageIds = new ArrayList<>();
+				List<String> contents = new ArrayList<>();
+				int lastPage = 0;
+				while (true) {
+					pageIds.clear();
+					contents.clear();
+					selectStmt.setInt(1, fileId);
+					selectStmt.setInt(2, lastPage);
+					selectStmt.setInt(3, batchRows);
+					try (ResultSet rs = selectStmt.executeQuery()) {
+						while (rs.next()) {
+							pageIds.add(rs.getInt("pageId"));
+							contents.add(rs.getString("pageContent"));
+							lastPage = rs.getInt("pageNumber");
+						}
+					}
+					if (pageIds.isEmpty()) {
+						break;
+					}
+
+					for (int i = 0; i < pageIds.size(); i++) {
+						long stageStart = System.nanoTime();
+						romanText.setLength(0);
+						transliteration.reset();
+						transliteration.append(contents.get(i));
+						convertNanos += System.nanoTime() - stageStart;
+
+						insertStmt.setInt(1, pageIds.get(i));
+						insertStmt.setString(2, romanText.toString());
+						insertStmt.addBatch();
+					}
+					insertStmt.executeBatch();
+					pages += pageIds.size();
+					if (pageIds.size() < batchRows) {
+						break;
+					}
+				}
+			}
+			PendingAnalysis.clearFile(conn, fileId, AnalysisType.TRANSLITERATION);
+
+			conn.commit();
+			metrics.record("transliterate.file.convert", convertNanos);
+			metrics.recordSince("transliterate.file.total", totalStart);
+			metrics.addRows("transliteratedpages", pages);
+			LOGGER.info(String.format("Transliterated %d pages of file %d", pages, fileId));
+			return pages;
+
+		} catch (Exception e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			rollback(conn);
+			return -1;
+		} finally {
+			close(conn);
 		}
 	}
 
-	private List<String> getAllExistingFilesContent(Connection conn) throws SQLException {
-		List<String> allFilesContent = new ArrayList<>();
-		String query = "SELECT f.fileId, GROUP_CONCAT(p.pageContent ORDER BY p.pageNumber SEPARATOR '') AS fileContent "
-				+ "FROM files f " + "JOIN pages p ON f.fileId = p.fileId " + "GROUP BY f.fileId";
+	/**
+	 * Computes and stores the pending analyses of a page, e.g. when it is
+	 * opened. Returns the number of analyses computed, 0 if none were
+	 * pending, or -1 on failure.
+	 */
+	@Override
+	public int materializeAnalysisInDB(int pageId) {
+		Connection conn = null;
+		long start = System.nanoTime();
+		try {
+			conn = getConnection();
+			conn.setAutoCommit(false);
+			int analyses = PendingAnalysis.materialize(conn, Collections.singletonList(pageId));
+			conn.commit();
+			if (analyses > 0) {
+				StageMetrics.getInstance().recordSince("pending.page", start);
+			}
+			return analyses;
+		} catch (Exception e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			rollback(conn);
+			return -1;
+		} finally {
+			close(conn);
+		}
+	}
 
-		try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
-			while (rs.next()) {
-				allFilesContent.add(rs.getString("fileContent"));
+	/**
+	 * Claims up to maxJobs pending analysis jobs for a background worker and
+	 * computes them, the claim and the results each in one transaction. A
+	 * failed batch is released for another attempt, up to
+	 * analysis.filler.maxAttempts. Returns the number of jobs claimed, 0
+	 * once nothing is pending, or -1 on failure.
+	 */
+	@Override
+	public int fillPendingAnalysisInDB(int maxJobs) {
+		Connection conn = null;
+		Map<Integer, Set<AnalysisType>> claimed = Collections.emptyMap();
+		long start = System.nanoTime();
+		try {
+			conn = getConnection();
+			conn.setAutoCommit(false);
+			claimed = PendingAnalysis.claim(conn, maxJobs);
+			conn.commit();
+			if (claimed.isEmpty()) {
+				return 0;
+			}
+			int jobs = 0;
+			for (Set<AnalysisType> types : claimed.values()) {
+				jobs += types.size();
+			}
+			int analyses = PendingAnalysis.complete(conn, claimed);
+			conn.commit();
+			StageMetrics.getInstance().recordSince("pending.batch", start);
+			LOGGER.info(String.format("Computed %d of %d claimed analysis jobs of %d pages", analyses, jobs,
+					claimed.size()));
+			return jobs;
+		} catch (Exception e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			rollback(conn);
+			releaseJobs(conn, claimed, e);
+			return -1;
+		} finally {
+			close(conn);
+		}
+	}
+
+	private void releaseJobs(Connection conn, Map<Integer, Set<AnalysisType>> claimed, Exception cause) {
+		if (conn == null || claimed.isEmpty()) {
+			return;
+		}
+		try {
+			PendingAnalysis.release(conn, claimed, String.valueOf(cause.getMessage()),
+					Math.max(1, EditorConfig.getInstance().getInt("analysis.filler.maxAttempts", 3)));
+			conn.commit();
+		} catch (SQLException e) {
+			// Left running; resume puts them back once their lease is over
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			rollback(conn);
+		}
+	}
+
+	/**
+	 * Puts analysis jobs claimed more than leaseSeconds ago that are still
+	 * running back to pending. Returns their number, or -1 on failure.
+	 */
+	@Override
+	public int resumeAnalysisJobsInDB(int leaseSeconds) {
+		Connection conn = null;
+		try {
+			conn = getConnection();
+			int resumed = PendingAnalysis.resume(conn, leaseSeconds);
+			if (resumed > 0) {
+				LOGGER.info(String.format("Resumed %d interrupted analysis jobs", resumed));
 			}
+			return resumed;
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return -1;
+		} finally {
+			close(conn);
+		}
+	}
+
+	/**
+	 * Number of analysis jobs per status, empty if none are left or on
+	 * failure.
+	 */
+	@Override
+	public Map<String, Integer> getAnalysisJobCountsFromDB() {
+		Connection conn = null;
+		try {
+			conn = getConnection();
+			return PendingAnalysis.countByStatus(conn);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return Collections.emptyMap();
+		} finally {
+			close(conn);
+		}
+	}
+
+	/**
+	 * Borrows a connection from the pool for a single operation; callers
+	 * close it when done so it goes back to the pool.
+	 */
+	private Connection getConnection() throws SQLException {
+		Connection conn = DatabaseConnection.getInstance().getConnection();
+		if (conn == null) {
+			throw new SQLException("No database connection available");
+		}
+		return conn;
+	}
+
+	private void rollback(Connection conn) {
+		if (conn == null) {
+			return;
+		}
+		try {
+			conn.rollback();
+		} catch (SQLException rollbackEx) {
+			rollbackEx.printStackTrace();
+			LOGGER.error(rollbackEx.getMessage());
+		}
+	}
+
+	private void close(Connection conn) {
+		if (conn == null) {
+			return;
+		}
+		try {
+			conn.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
 		}
-		return allFilesContent;
 	}
 
 	@Override
-	public synchronized Map<String, String> lemmatizeWords(String text) {
+	public Map<String, String> lemmatizeWords(String text) {
 		// TODO Auto-generated method stub
 		return Lemmatization.lemmatizeWords(PreProcessText.preprocessText(text));
 	}
 
 	@Override
-	public synchronized Map<String, List<String>> extractPOS(String text) {
+	public Map<String, List<String>> extractPOS(String text) {
 		// TODO Auto-generated method stub
 		return POSTagger.extractPOS(PreProcessText.preprocessText(text));
 	}
 
 	@Override
-	public synchronized Map<String, String> extractRoots(String text) {
+	public Map<String, String> extractRoots(String text) {
 		// TODO Auto-generated method stub
 		return RootExtraction.extractRoots(PreProcessText.preprocessText(text));
 	}
 
 	@Override
-	public synchronized double performTFIDF(List<String> unSelectedDocsContent, String selectedDocContent) {
+	public double performTFIDF(List<String> unSelectedDocsContent, String selectedDocContent) {
 		TFIDFCalculator tfidf = new TFIDFCalculator();
 		for (String unSelectedDocContent : unSelectedDocsContent) {
 			tfidf.addDocumentToCorpus(unSelectedDocContent);
@@ -607,16 +1113,16 @@ public class EditorDBDAO implements IEditorDBDAO {
 	}
 
 	@Override
-	public synchronized Map<String, Double> performPMI(String content) {
+	public Map<String, Double> performPMI(String content) {
 		// TODO Auto-generated method stub
 		PMICalculator pmi = new PMICalculator(content);
-		Map<String, Double> pmiScores = pmi.calculatePMIForAllBigrams();
+		Map<String, Double> pmiScores = pmi.calculateStoredBigrams();
 
 		return pmiScores;
 	}
 
 	@Override
-	public synchronized Map<String, Double> performPKL(String content) {
+	public Map<String, Double> performPKL(String content) {
 		// TODO Auto-generated method stub
 		PKLCalculator pkl = new PKLCalculator(content);
 		Map<String, Double> pklScores = pkl.calculatePKLForAllWords();
@@ -624,13 +1130,13 @@ public class EditorDBDAO implements IEditorDBDAO {
 	}
 
 	@Override
-	public synchronized Map<String, String> stemWords(String text) {
+	public Map<String, String> stemWords(String text) {
 		// TODO Auto-generated method stub
 		return Stemmation.stemWords(PreProcessText.preprocessText(text));
 	}
 
 	@Override
-	public synchronized Map<String, String> segmentWords(String text) {
+	public Map<String, String> segmentWords(String text) {
 		// TODO Auto-generated method stub
 		return WordSegmentation.extractSegments(PreProcessText.preprocessText(text));
 	}
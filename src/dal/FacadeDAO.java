@@ -1,9 +1,13 @@
 package dal;
 
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 
 import dto.Documents;
+import dto.FileMetadata;
+import dto.Pages;
+import dto.SearchHit;
 
 public class FacadeDAO implements IFacadeDAO {
 
@@ -18,6 +22,11 @@ public class FacadeDAO implements IFacadeDAO {
 		return mariaDB.createFileInDB(nameOfFile, content);
 	}
 
+	@Override
+	public boolean importFileInDB(String nameOfFile, File file) {
+		return mariaDB.importFileInDB(nameOfFile, file);
+	}
+
 	@Override
 	public boolean updateFileInDB(int id, String fileName, int pageNumber, String content) {
 		return mariaDB.updateFileInDB(id, fileName, pageNumber, content);
@@ -33,12 +42,67 @@ public class FacadeDAO implements IFacadeDAO {
 		return mariaDB.getFilesFromDB();
 	}
 
+	@Override
+	public Documents getFileFromDB(int id) {
+		return mariaDB.getFileFromDB(id);
+	}
+
+	@Override
+	public List<FileMetadata> getFileSummariesFromDB() {
+		return mariaDB.getFileSummariesFromDB();
+	}
+
+	@Override
+	public Pages getPageFromDB(int fileId, int pageNumber) {
+		return mariaDB.getPageFromDB(fileId, pageNumber);
+	}
+
+	@Override
+	public List<Pages> getPagesFromDB(int fileId, int fromPage, int toPage) {
+		return mariaDB.getPagesFromDB(fileId, fromPage, toPage);
+	}
+
 	@Override
 	public String transliterateInDB(int pageId, String arabicText) {
 		// TODO Auto-generated method stub
 		return mariaDB.transliterateInDB(pageId, arabicText);
 	}
 
+	@Override
+	public int transliterateFileInDB(int fileId) {
+		return mariaDB.transliterateFileInDB(fileId);
+	}
+
+	@Override
+	public int materializeAnalysisInDB(int pageId) {
+		return mariaDB.materializeAnalysisInDB(pageId);
+	}
+
+	@Override
+	public int fillPendingAnalysisInDB(int maxJobs) {
+		return mariaDB.fillPendingAnalysisInDB(maxJobs);
+	}
+
+	@Override
+	public int resumeAnalysisJobsInDB(int leaseSeconds) {
+		return mariaDB.resumeAnalysisJobsInDB(leaseSeconds);
+	}
+
+	@Override
+	public Map<String, Integer> getAnalysisJobCountsFromDB() {
+		return mariaDB.getAnalysisJobCountsFromDB();
+	}
+
+	@Override
+	public boolean initializeSearchIndexInDB() {
+		return mariaDB.initializeSearchIndexInDB();
+	}
+
+	@Override
+	public List<SearchHit> searchWordInDB(String keyword) {
+		return mariaDB.searchWordInDB(keyword);
+	}
+
 
 	@Override
 	public Map<String, String> lemmatizeWords(String text) {
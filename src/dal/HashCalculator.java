@@ -12,6 +12,40 @@ public class HashCalculator {
 	        return hexHash;
 	    }
 
+	    /**
+	     * Starts an MD5 over text that arrives in pieces. The result equals
+	     * calculateHash of the pieces joined, even when a piece ends between
+	     * the two halves of a surrogate pair.
+	     */
+	    public static IncrementalHash newIncrementalHash() throws Exception {
+	        return new IncrementalHash(MessageDigest.getInstance("MD5"));
+	    }
+
+	    public static class IncrementalHash {
+	        private final MessageDigest md;
+	        private String pendingHighSurrogate = "";
+
+	        private IncrementalHash(MessageDigest md) {
+	            this.md = md;
+	        }
+
+	        public void update(String text) {
+	            String piece = pendingHighSurrogate + text;
+	            int end = piece.length();
+	            if (end > 0 && Character.isHighSurrogate(piece.charAt(end - 1))) {
+	                end--;
+	            }
+	            pendingHighSurrogate = piece.substring(end);
+	            md.update(piece.substring(0, end).getBytes(StandardCharsets.UTF_8));
+	        }
+
+	        public String finish() {
+	            md.update(pendingHighSurrogate.getBytes(StandardCharsets.UTF_8));
+	            pendingHighSurrogate = "";
+	            return bytesToHex(md.digest());
+	        }
+	    }
+
 	    private static String bytesToHex(byte[] bytes) {
 	        StringBuilder hexString = new StringBuilder();
 	        for (byte b : bytes) {
@@ -1,21 +1,49 @@
 package dal;
 
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 
 import dto.Documents;
+import dto.FileMetadata;
+import dto.Pages;
+import dto.SearchHit;
 
 public interface IEditorDBDAO {
 	boolean createFileInDB(String nameOfFile, String content);
 
+	boolean importFileInDB(String nameOfFile, File file);
+
 	boolean updateFileInDB(int id, String fileName, int pageNumber, String content);
 
 	boolean deleteFileInDB(int id);
 
 	List<Documents> getFilesFromDB();
 
+	Documents getFileFromDB(int id);
+
+	List<FileMetadata> getFileSummariesFromDB();
+
+	Pages getPageFromDB(int fileId, int pageNumber);
+
+	List<Pages> getPagesFromDB(int fileId, int fromPage, int toPage);
+
 	String transliterateInDB(int pageId, String arabicText);
 
+	int transliterateFileInDB(int fileId);
+
+	int materializeAnalysisInDB(int pageId);
+
+	int fillPendingAnalysisInDB(int maxJobs);
+
+	int resumeAnalysisJobsInDB(int leaseSeconds);
+
+	Map<String, Integer> getAnalysisJobCountsFromDB();
+
+	boolean initializeSearchIndexInDB();
+
+	List<SearchHit> searchWordInDB(String keyword);
+
 	Map<String, String> lemmatizeWords(String text);
 
 	Map<String, List<String>> extractPOS(String text);
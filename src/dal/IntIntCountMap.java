@@ -0,0 +1,140 @@
+package dal;
+
+import java.util.Arrays;
+
+/**
+ * Counts per int key, e.g. per token id, in two primitive arrays with open
+ * addressing and linear probing, so counting allocates nothing but the
+ * occasional doubling of the arrays. A slot is free while its count is 0,
+ * which is why counts may only grow.
+ *
+ * Entries are walked by slot, without an iterator:
+ *
+ * <pre>
+ * for (int slot = map.next(-1); slot >= 0; slot = map.next(slot)) {
+ * 	use(map.keyAt(slot), map.valueAt(slot));
+ * }
+ * </pre>
+ */
+public class IntIntCountMap {
+	private int[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+
+	public IntIntCountMap() {
+		this(16);
+	}
+
+	public IntIntCountMap(int expectedKeys) {
+		int capacity = tableSize(expectedKeys);
+		keys = new int[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	public int increment(int key) {
+		return add(key, 1);
+	}
+
+	/**
+	 * Adds a positive amount to the key's count and returns the new count.
+	 */
+	public int add(int key, int amount) {
+		if (amount <= 0) {
+			throw new IllegalArgumentException("Counts can only grow: " + amount);
+		}
+		int slot = mix(key) & mask;
+		while (values[slot] != 0) {
+			if (keys[slot] == key) {
+				return values[slot] += amount;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if ((size + 1) * 2 > keys.length) {
+			grow();
+			return add(key, amount);
+		}
+		keys[slot] = key;
+		values[slot] = amount;
+		size++;
+		return amount;
+	}
+
+	/**
+	 * The key's count, 0 if it was never added.
+	 */
+	public int get(int key) {
+		int slot = mix(key) & mask;
+		while (values[slot] != 0) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * The first used slot after the given one, or -1 when there is none.
+	 * Start with -1.
+	 */
+	public int next(int slot) {
+		for (int i = slot + 1; i < values.length; i++) {
+			if (values[i] != 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public int keyAt(int slot) {
+		return keys[slot];
+	}
+
+	public int valueAt(int slot) {
+		return values[slot];
+	}
+
+	public void clear() {
+		Arrays.fill(values, 0);
+		size = 0;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new int[oldKeys.length * 2];
+		values = new int[oldValues.length * 2];
+		mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != 0) {
+				int slot = mix(oldKeys[i]) & mask;
+				while (values[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	// Spreads dense ids and String hashes over the whole table
+	static int mix(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	// Power of two holding the keys at most half full
+	static int tableSize(int expectedKeys) {
+		int capacity = 8;
+		while (capacity < expectedKeys * 2L && capacity < (1 << 30)) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
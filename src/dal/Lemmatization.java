@@ -1,12 +1,14 @@
 package dal;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import net.oujda_nlp_team.AlKhalil2Analyzer;
+import net.oujda_nlp_team.entity.ResultList;
 import pl.EditorPO;
 
 public class Lemmatization {
@@ -15,20 +17,15 @@ public class Lemmatization {
 		final Logger logger = LogManager.getLogger(EditorPO.class);
 		Map<String, String> wordLemmaMap = new HashMap<>();
 
-		String[] words = text.split("\\s+");
+		List<String> words = ArabicTokenizer.tokens(text);
 
 		try {
 			AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
 
 			if (analyzer != null) {
+				TokenAnalysisCache cache = TokenAnalysisCache.getInstance();
 				for (String word : words) {
-					String lemma = analyzer.processToken(word).getAllLemmasString();
-
-					if (lemma != null && !lemma.isEmpty()) {
-						wordLemmaMap.put(word, PreProcessText.preprocessText(lemma));
-					} else {
-						wordLemmaMap.put(word, "Not found");
-					}
+					wordLemmaMap.put(word, cache.get(word).getLemma());
 				}
 			} else {
 				System.err.println("Failed to initialize AlKhalil2Analyzer.");
@@ -41,4 +38,13 @@ public class Lemmatization {
 
 		return wordLemmaMap;
 	}
+
+	static String lemma(ResultList resultList) {
+		String lemma = resultList.getAllLemmasString();
+
+		if (lemma != null && !lemma.isEmpty()) {
+			return PreProcessText.preprocessText(lemma);
+		}
+		return "Not found";
+	}
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package dal;
+
+import java.util.Arrays;
+
+/**
+ * IntIntCountMap for long keys, e.g. a bigram of two token ids packed with
+ * pair(first, second). Walked by slot the same way.
+ */
+public class LongIntCountMap {
+	private long[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+
+	public LongIntCountMap() {
+		this(16);
+	}
+
+	public LongIntCountMap(int expectedKeys) {
+		int capacity = IntIntCountMap.tableSize(expectedKeys);
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * The key of the pair of ids, first in the high half.
+	 */
+	public static long pair(int first, int second) {
+		return ((long) first << 32) | (second & 0xFFFFFFFFL);
+	}
+
+	public static int first(long pair) {
+		return (int) (pair >>> 32);
+	}
+
+	public static int second(long pair) {
+		return (int) pair;
+	}
+
+	public int increment(long key) {
+		return add(key, 1);
+	}
+
+	/**
+	 * Adds a positive amount to the key's count and returns the new count.
+	 */
+	public int add(long key, int amount) {
+		if (amount <= 0) {
+			throw new IllegalArgumentException("Counts can only grow: " + amount);
+		}
+		int slot = mix(key) & mask;
+		while (values[slot] != 0) {
+			if (keys[slot] == key) {
+				return values[slot] += amount;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if ((size + 1) * 2 > keys.length) {
+			grow();
+			return add(key, amount);
+		}
+		keys[slot] = key;
+		values[slot] = amount;
+		size++;
+		return amount;
+	}
+
+	/**
+	 * The key's count, 0 if it was never added.
+	 */
+	public int get(long key) {
+		int slot = mix(key) & mask;
+		while (values[slot] != 0) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * The first used slot after the given one, or -1 when there is none.
+	 * Start with -1.
+	 */
+	public int next(int slot) {
+		for (int i = slot + 1; i < values.length; i++) {
+			if (values[i] != 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public long keyAt(int slot) {
+		return keys[slot];
+	}
+
+	public int valueAt(int slot) {
+		return values[slot];
+	}
+
+	public void clear() {
+		Arrays.fill(values, 0);
+		size = 0;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldValues.length * 2];
+		mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != 0) {
+				int slot = mix(oldKeys[i]) & mask;
+				while (values[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private static int mix(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+}
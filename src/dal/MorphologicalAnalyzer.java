@@ -0,0 +1,67 @@
+package dal;
+
+import java.util.Collection;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.oujda_nlp_team.AlKhalil2Analyzer;
+import pl.EditorPO;
+
+/**
+ * Runs POS tagging, lemmatization, root extraction, stemming and word
+ * segmentation in one pass: the text is tokenized once and each distinct
+ * token is looked up once in the shared {@link TokenAnalysisCache}.
+ */
+public class MorphologicalAnalyzer {
+
+	public static MorphologyBundle analyze(String text) {
+		return analyze(new ArabicTokenizer().tokenize(text));
+	}
+
+	/**
+	 * Analyzes the words of an already tokenized text.
+	 */
+	public static MorphologyBundle analyze(ArabicTokenizer tokens) {
+		TokenDictionary words = new TokenDictionary(tokens.size());
+		tokens.encode(words);
+		return analyzeTokens(words.tokens());
+	}
+
+	/**
+	 * Analyzes tokens that were already split from a text, e.g. only those a
+	 * page edit introduced.
+	 */
+	public static MorphologyBundle analyzeTokens(Collection<String> words) {
+		final Logger logger = LogManager.getLogger(EditorPO.class);
+		MorphologyBundle bundle = new MorphologyBundle();
+
+		try {
+			AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
+
+			if (analyzer != null) {
+				TokenAnalysisCache cache = TokenAnalysisCache.getInstance();
+				for (String word : words) {
+					if (bundle.getPosTags().containsKey(word)) {
+						continue;
+					}
+					TokenAnalysis analysis = cache.get(word);
+
+					bundle.getPosTags().put(word, analysis.getPosTags());
+					bundle.getLemmas().put(word, analysis.getLemma());
+					bundle.getRoots().put(word, analysis.getRoot());
+					bundle.getStems().put(word, analysis.getStem());
+					bundle.getSegments().put(word, analysis.getSegment());
+				}
+			} else {
+				System.err.println("Failed to initialize AlKhalil2Analyzer.");
+				logger.error("Failed to initialize AlKhalil2Analyzer.");
+			}
+		} catch (Exception e) {
+			System.err.println("Error while analyzing words: " + e.getMessage());
+			logger.error("Error while analyzing words: " + e.getMessage());
+		}
+
+		return bundle;
+	}
+}
@@ -0,0 +1,33 @@
+package dal;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MorphologyBundle {
+	private Map<String, List<String>> posTags = new LinkedHashMap<>();
+	private Map<String, String> lemmas = new LinkedHashMap<>();
+	private Map<String, String> roots = new LinkedHashMap<>();
+	private Map<String, String> stems = new LinkedHashMap<>();
+	private Map<String, String> segments = new LinkedHashMap<>();
+
+	public Map<String, List<String>> getPosTags() {
+		return posTags;
+	}
+
+	public Map<String, String> getLemmas() {
+		return lemmas;
+	}
+
+	public Map<String, String> getRoots() {
+		return roots;
+	}
+
+	public Map<String, String> getStems() {
+		return stems;
+	}
+
+	public Map<String, String> getSegments() {
+		return segments;
+	}
+}
@@ -1,35 +1,116 @@
 package dal;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * PKL of each word in its context (left word, word, right word). Distinct
+ * contexts are counted as the text is added, so each score is computed
+ * once however often the context repeats, and the text itself is not
+ * kept. Documents can be added one after another for a corpus-wide
+ * result: word probabilities are then over the whole corpus, while
+ * contexts never span two documents.
+ */
 public class PKLCalculator {
-    private String document;
-    private Map<String, Integer> wordFreq;
-    private int totalWords;
+    public interface ContextConsumer {
+        void accept(int left, int word, int right, int count, double pkl);
+    }
+
+    private final TokenDictionary dictionary;
+    private final IntIntCountMap wordFreq = new IntIntCountMap();
+    private long totalWords;
+
+    // Ids are stored plus one, 0 meaning absent. A context is its (left,
+    // word) pair and right word; context ids follow first appearance.
+    private final LongIntCountMap pairIds = new LongIntCountMap();
+    private final LongIntCountMap contextIds = new LongIntCountMap();
+    private int[] pairLeft = new int[16];
+    private int[] pairWord = new int[16];
+    private int pairCount;
+    private int[] contextPair = new int[16];
+    private int[] contextRight = new int[16];
+    private int[] contextCounts = new int[16];
+    private int contextCount;
+
+    /**
+     * An empty calculator for a corpus; add documents with addDocument.
+     */
+    public PKLCalculator() {
+        this(new TokenDictionary());
+    }
+
+    public PKLCalculator(TokenDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
 
     public PKLCalculator(String document) {
-        this.document = PreProcessText.preprocessText(document);
-        this.wordFreq = new HashMap<>();
-        this.totalWords = 0;
-        computeWordFrequencies();
+        this();
+        addDocument(document);
+    }
+
+    /**
+     * Works on a document already preprocessed and encoded, e.g. shared with
+     * a PMICalculator for the same page.
+     */
+    public PKLCalculator(TokenDictionary dictionary, int[] tokens) {
+        this(dictionary);
+        addTokens(tokens);
+    }
+
+    public void addDocument(String document) {
+        addTokens(dictionary.encode(PreProcessText.preprocessText(document)));
+    }
+
+    /**
+     * Adds a document encoded with this calculator's dictionary.
+     */
+    public void addTokens(int[] tokens) {
+        for (int token : tokens) {
+            wordFreq.increment(token);
+        }
+        totalWords += tokens.length;
+
+        for (int i = 1; i < tokens.length - 1; i++) {
+            countContext(tokens[i - 1], tokens[i], tokens[i + 1]);
+        }
     }
 
-    private void computeWordFrequencies() {
-        String[] words = document.split("\\s+");
-        totalWords = words.length;
+    private void countContext(int left, int word, int right) {
+        long pairKey = LongIntCountMap.pair(left, word);
+        int pair = pairIds.get(pairKey) - 1;
+        if (pair < 0) {
+            pair = pairCount++;
+            pairIds.add(pairKey, pair + 1);
+            if (pair == pairLeft.length) {
+                pairLeft = Arrays.copyOf(pairLeft, pair * 2);
+                pairWord = Arrays.copyOf(pairWord, pair * 2);
+            }
+            pairLeft[pair] = left;
+            pairWord[pair] = word;
+        }
 
-        for (String word : words) {
-            wordFreq.put(word, wordFreq.getOrDefault(word, 0) + 1);
+        long contextKey = LongIntCountMap.pair(pair, right);
+        int context = contextIds.get(contextKey) - 1;
+        if (context < 0) {
+            context = contextCount++;
+            contextIds.add(contextKey, context + 1);
+            if (context == contextPair.length) {
+                contextPair = Arrays.copyOf(contextPair, context * 2);
+                contextRight = Arrays.copyOf(contextRight, context * 2);
+                contextCounts = Arrays.copyOf(contextCounts, context * 2);
+            }
+            contextPair[context] = pair;
+            contextRight[context] = right;
         }
+        contextCounts[context]++;
     }
 
-    private double calculateWordProbability(String word) {
-        return (double) wordFreq.getOrDefault(word, 0) / totalWords;
+    private double calculateWordProbability(int word) {
+        return word < 0 ? 0 : (double) wordFreq.get(word) / totalWords;
     }
 
-    public double calculatePKL(String v, String ul, String ur) {
+    private double calculatePKL(int v, int ul, int ur) {
         double pV = calculateWordProbability(v);
         double pUl = calculateWordProbability(ul);
         double pUr = calculateWordProbability(ur);
@@ -41,19 +122,41 @@ public class PKLCalculator {
         return pV * Math.log(pV / (pUl * pUr));
     }
 
-    public Map<String, Double> calculatePKLForAllWords() {
-        Map<String, Double> pklScores = new LinkedHashMap<>();
-        String[] words = document.split("\\s+");
-
-        for (int i = 1; i < words.length - 1; i++) {
-            String ul = words[i - 1];
-            String v = words[i];
-            String ur = words[i + 1];
+    public double calculatePKL(String v, String ul, String ur) {
+        return calculatePKL(dictionary.lookup(v), dictionary.lookup(ul), dictionary.lookup(ur));
+    }
 
-            double pkl = calculatePKL(v, ul, ur);
-            pklScores.put(v + " (" + ul + ", " + ur + ")", pkl);
+    /**
+     * Passes every distinct context, in order of first appearance, with the
+     * number of times it occurred and its PKL, without building any
+     * Strings. Token ids are those of getDictionary().
+     */
+    public void forEachContext(ContextConsumer consumer) {
+        for (int context = 0; context < contextCount; context++) {
+            int pair = contextPair[context];
+            int left = pairLeft[pair];
+            int word = pairWord[pair];
+            int right = contextRight[context];
+            consumer.accept(left, word, right, contextCounts[context], calculatePKL(word, left, right));
         }
+    }
+
+    public int getContextCount() {
+        return contextCount;
+    }
 
+    public TokenDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Every distinct context as "word (left, right)" with its PKL, in order
+     * of first appearance.
+     */
+    public Map<String, Double> calculatePKLForAllWords() {
+        Map<String, Double> pklScores = new LinkedHashMap<>(contextCount * 2);
+        forEachContext((left, word, right, count, pkl) -> pklScores.put(dictionary.token(word) + " ("
+                + dictionary.token(left) + ", " + dictionary.token(right) + ")", pkl));
         return pklScores;
     }
 
@@ -1,50 +1,50 @@
 package dal;
 
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class PMICalculator {
-    private String document;
-    private Map<String, Integer> wordFreq;
-    private Map<String, Integer> bigramFreq;
-    private int totalWords;
+    private final TokenDictionary dictionary;
+    private final int[] tokens;
+    private final IntIntCountMap wordFreq;
+    private final LongIntCountMap bigramFreq;
+    private final int totalWords;
 
     public PMICalculator(String document) {
-        this.document = PreProcessText.preprocessText(document);
-        this.wordFreq = new HashMap<>();
-        this.bigramFreq = new HashMap<>();
-        this.totalWords = 0;
+        this(new TokenDictionary(), document);
+    }
+
+    private PMICalculator(TokenDictionary dictionary, String document) {
+        this(dictionary, dictionary.encode(PreProcessText.preprocessText(document)));
+    }
+
+    /**
+     * Works on a document already preprocessed and encoded, e.g. shared with
+     * a PKLCalculator for the same page.
+     */
+    public PMICalculator(TokenDictionary dictionary, int[] tokens) {
+        this.dictionary = dictionary;
+        this.tokens = tokens;
+        this.wordFreq = new IntIntCountMap(tokens.length);
+        this.bigramFreq = new LongIntCountMap(tokens.length);
+        this.totalWords = tokens.length;
         computeWordAndBigramFrequencies();
     }
 
     private void computeWordAndBigramFrequencies() {
-        String[] words = document.split("\\s+");
-        totalWords = words.length;
-
-        for (String word : words) {
-            wordFreq.put(word, wordFreq.getOrDefault(word, 0) + 1);
+        for (int token : tokens) {
+            wordFreq.increment(token);
         }
 
-        for (int i = 0; i < words.length - 1; i++) {
-            String bigram = words[i] + " " + words[i + 1];
-            bigramFreq.put(bigram, bigramFreq.getOrDefault(bigram, 0) + 1);
+        for (int i = 0; i < tokens.length - 1; i++) {
+            bigramFreq.increment(LongIntCountMap.pair(tokens[i], tokens[i + 1]));
         }
     }
 
-    private double calculateWordProbability(String word) {
-        return (double) wordFreq.getOrDefault(word, 0) / totalWords;
-    }
-
-    private double calculateBigramProbability(String word1, String word2) {
-        String bigram = word1 + " " + word2;
-        return (double) bigramFreq.getOrDefault(bigram, 0) / totalWords;
-    }
-
-    public double calculatePMI(String word1, String word2) {
-        double probWord1 = calculateWordProbability(word1);
-        double probWord2 = calculateWordProbability(word2);
-        double probBigram = calculateBigramProbability(word1, word2);
+    private double calculatePMI(int word1, int word2, int bigramCount) {
+        double probWord1 = (double) wordFreq.get(word1) / totalWords;
+        double probWord2 = (double) wordFreq.get(word2) / totalWords;
+        double probBigram = (double) bigramCount / totalWords;
 
         if (probWord1 == 0 || probWord2 == 0 || probBigram == 0) {
             return Double.NEGATIVE_INFINITY;
@@ -53,22 +53,175 @@ public class PMICalculator {
         return Math.log(probBigram / (probWord1 * probWord2)) / Math.log(2);
     }
 
+    public double calculatePMI(String word1, String word2) {
+        int id1 = dictionary.lookup(word1);
+        int id2 = dictionary.lookup(word2);
+        if (id1 < 0 || id2 < 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return calculatePMI(id1, id2, bigramFreq.get(LongIntCountMap.pair(id1, id2)));
+    }
+
     public Map<String, Double> calculatePMIForAllBigrams() {
         Map<String, Double> pmiScores = new LinkedHashMap<>();
-        String[] words = document.split("\\s+");
+        // A repeated bigram keeps the place and score of its first occurrence
+        LongIntCountMap scored = new LongIntCountMap(bigramFreq.size());
+
+        for (int i = 0; i < tokens.length - 1; i++) {
+            long bigram = LongIntCountMap.pair(tokens[i], tokens[i + 1]);
+            if (scored.increment(bigram) == 1) {
+                double pmiScore = calculatePMI(tokens[i], tokens[i + 1], bigramFreq.get(bigram));
+                pmiScores.put(dictionary.token(tokens[i]) + " " + dictionary.token(tokens[i + 1]), pmiScore);
+            }
+        }
 
-        for (int i = 0; i < words.length - 1; i++) {
-            String word1 = words[i];
-            String word2 = words[i + 1];
-            String bigram = word1 + " " + word2;
+        return pmiScores;
+    }
 
-            double pmiScore = calculatePMI(word1, word2);
-            pmiScores.put(bigram, pmiScore);
+    /**
+     * The strongest collocations of the document: distinct bigrams seen at
+     * least minCount times with a finite PMI, strongest first, at most topK
+     * of them (all when topK is 0 or less). Equal scores keep the order the
+     * bigrams first appear in, so the same text always keeps the same rows.
+     */
+    public Map<String, Double> calculateStrongestBigrams(int minCount, int topK) {
+        int capacity = topK > 0 ? Math.min(topK, bigramFreq.size()) : bigramFreq.size();
+        BigramHeap heap = new BigramHeap(capacity);
+        LongIntCountMap scored = new LongIntCountMap(bigramFreq.size());
+
+        for (int i = 0; i < tokens.length - 1 && capacity > 0; i++) {
+            long bigram = LongIntCountMap.pair(tokens[i], tokens[i + 1]);
+            if (scored.increment(bigram) > 1) {
+                continue;
+            }
+            int count = bigramFreq.get(bigram);
+            if (count < minCount) {
+                continue;
+            }
+            double pmiScore = calculatePMI(tokens[i], tokens[i + 1], count);
+            if (!Double.isNaN(pmiScore) && !Double.isInfinite(pmiScore)) {
+                heap.offer(bigram, pmiScore);
+            }
         }
 
+        int size = heap.size();
+        long[] bigrams = new long[size];
+        double[] scores = new double[size];
+        for (int i = size - 1; i >= 0; i--) {
+            scores[i] = heap.worstScore();
+            bigrams[i] = heap.pollWorst();
+        }
+        Map<String, Double> pmiScores = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            pmiScores.put(dictionary.token(LongIntCountMap.first(bigrams[i])) + " "
+                    + dictionary.token(LongIntCountMap.second(bigrams[i])), scores[i]);
+        }
         return pmiScores;
     }
 
+    /**
+     * The bigrams stored for a page, limited by analysis.pmi.minCount and
+     * analysis.pmi.topK.
+     */
+    public Map<String, Double> calculateStoredBigrams() {
+        EditorConfig config = EditorConfig.getInstance();
+        return calculateStrongestBigrams(config.getInt("analysis.pmi.minCount", 1),
+                config.getInt("analysis.pmi.topK", 50));
+    }
+
+    /**
+     * Bounded min-heap of bigrams by score, the root being the weakest. Among
+     * equal scores the later offer is weaker, so it is dropped first.
+     */
+    private static class BigramHeap {
+        private final long[] bigrams;
+        private final double[] scores;
+        private final int[] order;
+        private int size;
+        private int offers;
+
+        BigramHeap(int capacity) {
+            bigrams = new long[capacity];
+            scores = new double[capacity];
+            order = new int[capacity];
+        }
+
+        void offer(long bigram, double score) {
+            int offer = offers++;
+            if (size < bigrams.length) {
+                set(size, bigram, score, offer);
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                set(0, bigram, score, offer);
+                siftDown(0);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        double worstScore() {
+            return scores[0];
+        }
+
+        long pollWorst() {
+            long bigram = bigrams[0];
+            size--;
+            set(0, bigrams[size], scores[size], order[size]);
+            siftDown(0);
+            return bigram;
+        }
+
+        private boolean weaker(int a, int b) {
+            return scores[a] < scores[b] || (scores[a] == scores[b] && order[a] > order[b]);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!weaker(i, parent)) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int weakest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && weaker(left, weakest)) {
+                    weakest = left;
+                }
+                if (right < size && weaker(right, weakest)) {
+                    weakest = right;
+                }
+                if (weakest == i) {
+                    return;
+                }
+                swap(i, weakest);
+                i = weakest;
+            }
+        }
+
+        private void set(int i, long bigram, double score, int offer) {
+            bigrams[i] = bigram;
+            scores[i] = score;
+            order[i] = offer;
+        }
+
+        private void swap(int a, int b) {
+            long bigram = bigrams[a];
+            double score = scores[a];
+            int offer = order[a];
+            set(a, bigrams[b], scores[b], order[b]);
+            set(b, bigram, score, offer);
+        }
+    }
+
 //    public static void main(String[] args) {
 //        String document = "ٱللَّهُ لَآ إِلَـٰهَ إِلَّا هُوَ ٱلْحَىُّ ٱلْقَيُّومُ ۚ لَا تَأْخُذُهُۥ سِنَةٌۭ وَلَا نَوْمٌۭ ۚ لَّهُۥ مَا فِى ٱلسَّمَـٰوَٰتِ وَمَا فِى ٱلْأَرْضِ ۗ مَن ذَا ٱلَّذِى يَشْفَعُ عِندَهُۥٓ إِلَّا بِإِذْنِهِۦ ۚ يَعْلَمُ مَا بَيْنَ أَيْدِيهِمْ وَمَا خَلْفَهُمْ ۖ وَلَا يُحِيطُونَ بِشَىْءٍۢ مِّنْ عِلْمِهِۦٓ إِلَّا بِمَا شَآءَ ۚ وَسِعَ كُرْسِيُّهُ ٱلسَّمَـٰوَٰتِ وَٱلْأَرْضَ ۖ وَلَا يَـُٔودُهُۥ حِفْظُهُمَا ۚ وَهُوَ ٱلْعَلِىُّ ٱلْعَظِيمُ";
 //        PMI pmiCalculator = new PMI(document);
@@ -10,6 +10,7 @@ import org.apache.logging.log4j.Logger;
 
 import net.oujda_nlp_team.AlKhalil2Analyzer;
 import net.oujda_nlp_team.entity.Result;
+import net.oujda_nlp_team.entity.ResultList;
 import pl.EditorPO;
 
 public class POSTagger {
@@ -18,27 +19,15 @@ public class POSTagger {
 
         Map<String, List<String>> wordPosMap = new HashMap<>();
 
-        String[] words = text.split("\\s+");
+        List<String> words = ArabicTokenizer.tokens(text);
 
         try {
             AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
 
             if (analyzer != null) {
+                TokenAnalysisCache cache = TokenAnalysisCache.getInstance();
                 for (String word : words) {
-                    List<String> posTags = new ArrayList<>();
-                    List<Result> results = analyzer.processToken(word).getAllResults();
-
-                    if (results != null && !results.isEmpty()) {
-                        String[] splitWords = results.get(0).getPartOfSpeech().split("\\|");
-
-                        for (String tag : splitWords) {
-                            posTags.add(tag);
-                        }
-                    } else {
-                        posTags.add("None"); 
-                    }
-
-                    wordPosMap.put(word, posTags);
+                    wordPosMap.put(word, cache.get(word).getPosTags());
                 }
             } else {
                 System.err.println("Failed to initialize AlKhalil2Analyzer.");
@@ -52,4 +41,20 @@ public class POSTagger {
 
         return wordPosMap;
     }
+
+    static List<String> posTags(ResultList resultList) {
+        List<String> posTags = new ArrayList<>();
+        List<Result> results = resultList.getAllResults();
+
+        if (results != null && !results.isEmpty()) {
+            String[] splitWords = results.get(0).getPartOfSpeech().split("\\|");
+
+            for (String tag : splitWords) {
+                posTags.add(tag);
+            }
+        } else {
+            posTags.add("None");
+        }
+        return posTags;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package dal;
+
+import java.util.Map;
+
+import dto.Pages;
+
+/**
+ * Everything computed for one page before it is written: transliteration,
+ * morphology and the PKL/PMI scores, and the words of the page for the
+ * search index.
+ */
+public class PageAnalysis {
+	private final Pages page;
+	private final ArabicTokenizer tokens;
+	private final String transliteration;
+	private final MorphologyBundle morphology;
+	private final Map<String, Double> pklScores;
+	private final Map<String, Double> pmiScores;
+
+	public PageAnalysis(Pages page, ArabicTokenizer tokens, String transliteration, MorphologyBundle morphology,
+			Map<String, Double> pklScores, Map<String, Double> pmiScores) {
+		this.page = page;
+		this.tokens = tokens;
+		this.transliteration = transliteration;
+		this.morphology = morphology;
+		this.pklScores = pklScores;
+		this.pmiScores = pmiScores;
+	}
+
+	public Pages getPage() {
+		return page;
+	}
+
+	public ArabicTokenizer getTokens() {
+		return tokens;
+	}
+
+	public String getTransliteration() {
+		return transliteration;
+	}
+
+	public MorphologyBundle getMorphology() {
+		return morphology;
+	}
+
+	public Map<String, Double> getPklScores() {
+		return pklScores;
+	}
+
+	public Map<String, Double> getPmiScores() {
+		return pmiScores;
+	}
+}
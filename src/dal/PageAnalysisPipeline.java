@@ -0,0 +1,165 @@
+package dal;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dto.Pages;
+
+/**
+ * Analyzes pages on a shared worker pool while the calling thread writes the
+ * finished results. Results are handed to the writer strictly in input
+ * order, and at most a small window of pages is in flight at once, so the
+ * writer can keep a single JDBC transaction open for the whole file.
+ *
+ * The pool size comes from import.pipeline.threads (0 = one per core);
+ * setting import.pipeline.enabled to false analyzes on the writer thread.
+ * Only the requested analyses are computed; the words of a page, which the
+ * search index needs, always are.
+ */
+public class PageAnalysisPipeline {
+	private static final Set<AnalysisType> ALL_TYPES = Collections.unmodifiableSet(EnumSet.allOf(AnalysisType.class));
+
+	private static ExecutorService EXECUTOR;
+	private static int THREADS;
+
+	public interface PageWriter {
+		void write(PageAnalysis analysis) throws Exception;
+	}
+
+	public static PageAnalysis analyze(Pages page) {
+		return analyze(page, ALL_TYPES);
+	}
+
+	/**
+	 * Analyzes the page for the given analyses; the others are left null or
+	 * empty in the result.
+	 */
+	public static PageAnalysis analyze(Pages page, Set<AnalysisType> types) {
+		String content = page.getPageContent();
+		StageMetrics metrics = StageMetrics.getInstance();
+		// Every consumer below reads this one tokenization of the page
+		long start = System.nanoTime();
+		ArabicTokenizer tokens = new ArabicTokenizer().tokenize(content);
+		TokenDictionary dictionary = new TokenDictionary();
+		boolean scores = types.contains(AnalysisType.PKL) || types.contains(AnalysisType.PMI);
+		int[] ids = scores ? tokens.encodePreprocessed(dictionary) : null;
+		metrics.recordSince("analysis.tokenize", start);
+
+		String transliteration = null;
+		if (types.contains(AnalysisType.TRANSLITERATION)) {
+			start = System.nanoTime();
+			transliteration = Transliteration.transliterate(content);
+			metrics.recordSince("analysis.transliteration", start);
+		}
+
+		MorphologyBundle morphology = new MorphologyBundle();
+		if (needsMorphology(types)) {
+			start = System.nanoTime();
+			morphology = MorphologicalAnalyzer.analyze(tokens);
+			metrics.recordSince("analysis.morphology", start);
+		}
+
+		Map<String, Double> pklScores = Collections.emptyMap();
+		if (types.contains(AnalysisType.PKL)) {
+			start = System.nanoTime();
+			pklScores = new PKLCalculator(dictionary, ids).calculatePKLForAllWords();
+			metrics.recordSince("analysis.pkl", start);
+		}
+
+		Map<String, Double> pmiScores = Collections.emptyMap();
+		if (types.contains(AnalysisType.PMI)) {
+			start = System.nanoTime();
+			pmiScores = new PMICalculator(dictionary, ids).calculateStoredBigrams();
+			metrics.recordSince("analysis.pmi", start);
+		}
+		return new PageAnalysis(page, tokens, transliteration, morphology, pklScores, pmiScores);
+	}
+
+	private static boolean needsMorphology(Set<AnalysisType> types) {
+		for (AnalysisType type : types) {
+			if (type.isMorphology()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Analyzes every page and passes the results to the writer in page order.
+	 * If analysis or writing fails, pending work is cancelled and the first
+	 * failure is rethrown so the caller can roll back.
+	 */
+	public static void process(Iterator<Pages> pages, PageWriter writer) throws Exception {
+		process(pages, ALL_TYPES, writer);
+	}
+
+	/**
+	 * As above, computing only the given analyses.
+	 */
+	public static void process(Iterator<Pages> pages, Set<AnalysisType> types, PageWriter writer) throws Exception {
+		ExecutorService executor = getExecutor();
+		if (executor == null) {
+			while (pages.hasNext()) {
+				writer.write(analyze(pages.next(), types));
+			}
+			return;
+		}
+
+		int window = THREADS * 2;
+		Deque<Future<PageAnalysis>> inFlight = new ArrayDeque<>();
+		try {
+			while (pages.hasNext() || !inFlight.isEmpty()) {
+				while (pages.hasNext() && inFlight.size() < window) {
+					Pages page = pages.next();
+					inFlight.add(executor.submit(() -> analyze(page, types)));
+				}
+				writer.write(await(inFlight.poll()));
+			}
+		} finally {
+			for (Future<PageAnalysis> pending : inFlight) {
+				pending.cancel(true);
+			}
+		}
+	}
+
+	private static PageAnalysis await(Future<PageAnalysis> future) throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (EXECUTOR == null) {
+			EditorConfig config = EditorConfig.getInstance();
+			if (!config.getBoolean("import.pipeline.enabled", true)) {
+				return null;
+			}
+			THREADS = config.getInt("import.pipeline.threads", 0);
+			if (THREADS <= 0) {
+				THREADS = Runtime.getRuntime().availableProcessors();
+			}
+			AtomicInteger count = new AtomicInteger();
+			EXECUTOR = Executors.newFixedThreadPool(THREADS, runnable -> {
+				Thread thread = new Thread(runnable, "page-analysis-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return EXECUTOR;
+	}
+}
@@ -0,0 +1,210 @@
+package dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings the analytics rows of an edited page up to date by comparing the
+ * stored rows with the new content instead of deleting and rebuilding them.
+ * Morphology rows exist once per distinct token, so only tokens the edit
+ * introduced are analyzed and only rows of tokens that disappeared are
+ * deleted. PKL and PMI scores are recomputed in memory, which is cheap, and
+ * only rows whose context or score changed are written. Both scores depend
+ * on the page's word count, so an edit that adds or removes words still
+ * updates most score rows, while replacing a word touches only its contexts.
+ */
+public class PageReanalysis {
+	// Morphology tables and their value column
+	private static final String[][] MORPHOLOGY_TABLES = { { "pos", "pos" }, { "lemmatization", "lemma" },
+			{ "rootextraction", "root" }, { "wordsegementation", "segment" }, { "stemmation", "stem" } };
+
+	private PageReanalysis() {
+	}
+
+	/**
+	 * Updates the morphology, PKL and PMI rows of the page for its new
+	 * content and returns the number of rows inserted, updated or deleted.
+	 */
+	public static int update(Connection conn, int pageId, String content) throws SQLException {
+		ArabicTokenizer words = new ArabicTokenizer().tokenize(content);
+		int changes = updateMorphology(conn, pageId, words);
+		TokenDictionary dictionary = new TokenDictionary();
+		int[] tokens = words.encodePreprocessed(dictionary);
+		changes += updateScores(conn, "pkl", "pklScore", pageId,
+				new PKLCalculator(dictionary, tokens).calculatePKLForAllWords());
+		changes += updateScores(conn, "pmi", "pmiScore", pageId,
+				new PMICalculator(dictionary, tokens).calculateStoredBigrams());
+		return changes;
+	}
+
+	private static int updateMorphology(Connection conn, int pageId, ArabicTokenizer words) throws SQLException {
+		Set<String> tokens = new LinkedHashSet<>(words.tokens());
+
+		List<Map<String, List<Integer>>> stored = new ArrayList<>();
+		Set<String> missing = new LinkedHashSet<>();
+		for (String[] table : MORPHOLOGY_TABLES) {
+			Map<String, List<Integer>> rows = readWordIds(conn, table[0], pageId);
+			stored.add(rows);
+			for (String token : tokens) {
+				if (!rows.containsKey(token)) {
+					missing.add(token);
+				}
+			}
+		}
+
+		MorphologyBundle bundle = missing.isEmpty() ? new MorphologyBundle()
+				: MorphologicalAnalyzer.analyzeTokens(missing);
+
+		int changes = 0;
+		for (int t = 0; t < MORPHOLOGY_TABLES.length; t++) {
+			String table = MORPHOLOGY_TABLES[t][0];
+			Map<String, List<Integer>> rows = stored.get(t);
+			Map<String, String> values = values(bundle, t);
+
+			List<Integer> deletes = new ArrayList<>();
+			for (Map.Entry<String, List<Integer>> row : rows.entrySet()) {
+				List<Integer> ids = row.getValue();
+				// Rows of tokens still on the page are kept; duplicates of them are dropped
+				deletes.addAll(tokens.contains(row.getKey()) ? ids.subList(1, ids.size()) : ids);
+			}
+			int tableChanges = deleteRows(conn, table, deletes);
+
+			try (PreparedStatement insertStmt = conn.prepareStatement(
+					"INSERT INTO " + table + " (pageId, word, " + MORPHOLOGY_TABLES[t][1] + ") VALUES (?, ?, ?)")) {
+				int inserts = 0;
+				for (String token : tokens) {
+					if (!rows.containsKey(token) && values.containsKey(token)) {
+						insertStmt.setInt(1, pageId);
+						insertStmt.setString(2, token);
+						insertStmt.setString(3, values.get(token));
+						insertStmt.addBatch();
+						inserts++;
+					}
+				}
+				if (inserts > 0) {
+					insertStmt.executeBatch();
+				}
+				tableChanges += inserts;
+			}
+			StageMetrics.getInstance().addRows(table, tableChanges);
+			changes += tableChanges;
+		}
+		return changes;
+	}
+
+	private static Map<String, String> values(MorphologyBundle bundle, int table) {
+		switch (table) {
+		case 0:
+			Map<String, String> posTags = new LinkedHashMap<>();
+			for (Map.Entry<String, List<String>> entry : bundle.getPosTags().entrySet()) {
+				posTags.put(entry.getKey(), String.join("|", entry.getValue()));
+			}
+			return posTags;
+		case 1:
+			return bundle.getLemmas();
+		case 2:
+			return bundle.getRoots();
+		case 3:
+			return bundle.getSegments();
+		default:
+			return bundle.getStems();
+		}
+	}
+
+	private static Map<String, List<Integer>> readWordIds(Connection conn, String table, int pageId)
+			throws SQLException {
+		Map<String, List<Integer>> rows = new HashMap<>();
+		try (PreparedStatement stmt = conn.prepareStatement("SELECT id, word FROM " + table + " WHERE pageId = ? ORDER BY id")) {
+			stmt.setInt(1, pageId);
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					rows.computeIfAbsent(rs.getString("word"), word -> new ArrayList<>()).add(rs.getInt("id"));
+				}
+			}
+		}
+		return rows;
+	}
+
+	private static int updateScores(Connection conn, String table, String column, int pageId,
+			Map<String, Double> scores) throws SQLException {
+		Map<String, Integer> storedIds = new HashMap<>();
+		Map<String, Double> storedScores = new HashMap<>();
+		List<Integer> deletes = new ArrayList<>();
+		try (PreparedStatement stmt = conn
+				.prepareStatement("SELECT id, word, " + column + " FROM " + table + " WHERE pageId = ? ORDER BY id")) {
+			stmt.setInt(1, pageId);
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					String word = rs.getString("word");
+					if (storedIds.containsKey(word)) {
+						deletes.add(rs.getInt("id"));
+					} else {
+						storedIds.put(word, rs.getInt("id"));
+						storedScores.put(word, rs.getDouble(column));
+					}
+				}
+			}
+		}
+		for (Map.Entry<String, Integer> stored : storedIds.entrySet()) {
+			if (!scores.containsKey(stored.getKey())) {
+				deletes.add(stored.getValue());
+			}
+		}
+		int changes = deleteRows(conn, table, deletes);
+
+		try (PreparedStatement insertStmt = conn
+				.prepareStatement("INSERT INTO " + table + " (pageId, word, " + column + ") VALUES (?, ?, ?)");
+				PreparedStatement updateStmt = conn
+						.prepareStatement("UPDATE " + table + " SET " + column + " = ? WHERE id = ?")) {
+			int inserts = 0;
+			int updates = 0;
+			for (Map.Entry<String, Double> score : scores.entrySet()) {
+				Integer id = storedIds.get(score.getKey());
+				if (id == null) {
+					insertStmt.setInt(1, pageId);
+					insertStmt.setString(2, score.getKey());
+					insertStmt.setDouble(3, score.getValue());
+					insertStmt.addBatch();
+					inserts++;
+				} else if (Double.compare(storedScores.get(score.getKey()), score.getValue()) != 0) {
+					updateStmt.setDouble(1, score.getValue());
+					updateStmt.setInt(2, id);
+					updateStmt.addBatch();
+					updates++;
+				}
+			}
+			if (inserts > 0) {
+				insertStmt.executeBatch();
+			}
+			if (updates > 0) {
+				updateStmt.executeBatch();
+			}
+			changes += inserts + updates;
+		}
+		StageMetrics.getInstance().addRows(table, changes);
+		return changes;
+	}
+
+	private static int deleteRows(Connection conn, String table, List<Integer> ids) throws SQLException {
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + table + " WHERE id = ?")) {
+			for (int id : ids) {
+				stmt.setInt(1, id);
+				stmt.addBatch();
+			}
+			stmt.executeBatch();
+		}
+		return ids.size();
+	}
+}
@@ -0,0 +1,164 @@
+package dal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import dto.Pages;
+
+/**
+ * Feeds text to a Paginator as it is read, so a file never has to be held
+ * in memory as a whole. Files are decoded as UTF-8 from a channel through
+ * fixed-size buffers, malformed input being replaced rather than failing
+ * the import. Line endings of files are read the way the importer always
+ * read them line by line: \r\n and \r become \n and the last line is
+ * terminated. Text that is already in memory is paged as is.
+ */
+public class PageStream implements AutoCloseable {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final ReadableByteChannel channel;
+	private final CharsetDecoder decoder;
+	private final ByteBuffer bytes;
+	private final CharBuffer chars;
+	private final boolean normalizeLines;
+	private final Paginator paginator;
+
+	private boolean endOfInput;
+	private boolean drained;
+	private boolean finished;
+	private boolean readAny;
+	private boolean lineTerminated = true;
+	private int pushedBack = -1;
+
+	public PageStream(ReadableByteChannel channel, Paginator paginator) {
+		this.channel = channel;
+		this.decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		this.chars = CharBuffer.allocate(BUFFER_SIZE);
+		this.chars.flip();
+		this.normalizeLines = true;
+		this.paginator = paginator;
+	}
+
+	public PageStream(CharSequence content, Paginator paginator) {
+		this.channel = null;
+		this.decoder = null;
+		this.bytes = null;
+		this.chars = CharBuffer.wrap(content == null ? "" : content);
+		this.drained = true;
+		this.normalizeLines = false;
+		this.paginator = paginator;
+	}
+
+	public static PageStream open(Path path) throws IOException {
+		return new PageStream(FileChannel.open(path, StandardOpenOption.READ), Paginator.fromConfig());
+	}
+
+	/**
+	 * Reads up to max further pages, numbered from 1 in order. Returns an
+	 * empty list once the text is exhausted; empty text yields one empty page.
+	 */
+	public List<Pages> nextPages(int max) throws IOException {
+		List<Pages> pages = new ArrayList<>(Math.min(max, 1024));
+		while (pages.size() < max && !finished) {
+			Pages next = nextPage();
+			if (next != null) {
+				pages.add(next);
+			}
+		}
+		return pages;
+	}
+
+	public boolean hasMorePages() {
+		return !finished;
+	}
+
+	private Pages nextPage() throws IOException {
+		while (true) {
+			int c = nextChar();
+			if (c < 0) {
+				finished = true;
+				return paginator.finish();
+			}
+			Pages completed = paginator.accept((char) c);
+			if (completed != null) {
+				return completed;
+			}
+		}
+	}
+
+	private int nextChar() throws IOException {
+		int c = read();
+		if (!normalizeLines) {
+			return c;
+		}
+		if (c < 0) {
+			if (readAny && !lineTerminated) {
+				lineTerminated = true;
+				return '\n';
+			}
+			return -1;
+		}
+		readAny = true;
+		if (c == '\r') {
+			int next = read();
+			if (next >= 0 && next != '\n') {
+				pushedBack = next;
+			}
+			c = '\n';
+		}
+		lineTerminated = c == '\n';
+		return c;
+	}
+
+	private int read() throws IOException {
+		if (pushedBack >= 0) {
+			int c = pushedBack;
+			pushedBack = -1;
+			return c;
+		}
+		if (!chars.hasRemaining() && !fill()) {
+			return -1;
+		}
+		return chars.get();
+	}
+
+	private boolean fill() throws IOException {
+		if (drained) {
+			return false;
+		}
+		chars.clear();
+		while (!drained && chars.position() == 0) {
+			if (!endOfInput && channel.read(bytes) < 0) {
+				endOfInput = true;
+			}
+			bytes.flip();
+			boolean underflow = decoder.decode(bytes, chars, endOfInput).isUnderflow();
+			bytes.compact();
+			if (endOfInput && underflow) {
+				decoder.flush(chars);
+				drained = true;
+			}
+		}
+		chars.flip();
+		return chars.hasRemaining();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+		}
+	}
+}
@@ -1,6 +1,5 @@
 package dal;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import dto.Pages;
@@ -9,24 +8,6 @@ public class PaginationDAO {
 
 	
 	public static List<Pages> paginate(String fileContent){
-		int pageSize = 100;
-		int pageNumber = 1;
-		String pageContent = "";
-		List<Pages> pages = new ArrayList<Pages>();
-		if(fileContent==null || fileContent.isEmpty())
-		{
-			pages.add(new Pages(0, 0, pageNumber, pageContent.toString()));
-			return pages;
-		}
-		for(int i = 0; i < fileContent.length(); i++)
-		{
-			pageContent += fileContent.charAt(i);
-			if (pageContent.length() == pageSize || i == fileContent.length() - 1){
-				pages.add(new Pages(0, 0, pageNumber, pageContent));
-				pageNumber++;
-				pageContent = "";
-			}
-		}
-		return pages;
+		return Paginator.fromConfig().paginate(fileContent);
 	} 
 }
@@ -0,0 +1,145 @@
+package dal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import dto.Pages;
+
+/**
+ * Splits text into pages in one pass. Pages hold at most a number of
+ * characters or a number of words (pagination.unit and pagination.size).
+ * A character page is cut after the last whitespace that fits; a word
+ * longer than a whole page is cut between grapheme clusters, never between
+ * a letter and its harakat or inside a surrogate pair. Joining the pages
+ * always gives back the text.
+ *
+ * A paginator holds the state of one document: feed it characters with
+ * accept and call finish at the end, or use paginate for text in memory.
+ */
+public class Paginator {
+	public enum Unit {
+		CHARACTERS, WORDS
+	}
+
+	public static final int DEFAULT_SIZE = 100;
+
+	private final Unit unit;
+	private final int size;
+	private final StringBuilder page;
+	private int nextPageNumber = 1;
+	private int wordsInPage;
+	private boolean inWord;
+	private boolean finished;
+
+	public Paginator(Unit unit, int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Page size must be positive: " + size);
+		}
+		this.unit = unit;
+		this.size = size;
+		this.page = new StringBuilder(unit == Unit.CHARACTERS ? size + 1 : 256);
+	}
+
+	public static Paginator fromConfig() {
+		EditorConfig config = EditorConfig.getInstance();
+		Unit unit = Unit.valueOf(config.getString("pagination.unit", "characters").trim().toUpperCase(Locale.ROOT));
+		return new Paginator(unit, config.getInt("pagination.size", DEFAULT_SIZE));
+	}
+
+	/**
+	 * Pages of the whole text; empty or null text gives one empty page.
+	 */
+	public List<Pages> paginate(CharSequence text) {
+		List<Pages> pages = new ArrayList<>();
+		if (text != null) {
+			for (int i = 0; i < text.length(); i++) {
+				Pages completed = accept(text.charAt(i));
+				if (completed != null) {
+					pages.add(completed);
+				}
+			}
+		}
+		Pages last = finish();
+		if (last != null) {
+			pages.add(last);
+		}
+		return pages;
+	}
+
+	/**
+	 * Adds the next character, returning the page it completes, if any.
+	 */
+	public Pages accept(char c) {
+		if (finished) {
+			throw new IllegalStateException("Paginator already finished");
+		}
+		Pages completed = null;
+		if (unit == Unit.WORDS) {
+			boolean whitespace = Character.isWhitespace(c);
+			if (!whitespace && !inWord) {
+				if (wordsInPage == size) {
+					completed = emit(page.length());
+				}
+				wordsInPage++;
+			}
+			inWord = !whitespace;
+		} else if (page.length() == size) {
+			completed = emit(cutPoint(c));
+		}
+		page.append(c);
+		return completed;
+	}
+
+	/**
+	 * Ends the text, returning its last page: the partial page, or an empty
+	 * page when the text was empty.
+	 */
+	public Pages finish() {
+		if (finished) {
+			return null;
+		}
+		finished = true;
+		return page.length() > 0 || nextPageNumber == 1 ? emit(page.length()) : null;
+	}
+
+	private Pages emit(int end) {
+		Pages completed = new Pages(0, 0, nextPageNumber++, page.substring(0, end));
+		page.delete(0, end);
+		wordsInPage = 0;
+		return completed;
+	}
+
+	/**
+	 * Where to cut a full page, given the character that comes after it.
+	 */
+	private int cutPoint(char next) {
+		for (int i = size; i > 0; i--) {
+			char after = i == size ? next : page.charAt(i);
+			if (Character.isWhitespace(page.charAt(i - 1)) || Character.isWhitespace(after)) {
+				return i;
+			}
+		}
+		for (int i = size; i > 0; i--) {
+			char after = i == size ? next : page.charAt(i);
+			if (!extendsCluster(page.charAt(i - 1), after)) {
+				return i;
+			}
+		}
+		return size;
+	}
+
+	private static boolean extendsCluster(char before, char c) {
+		if (Character.isHighSurrogate(before) && Character.isLowSurrogate(c)) {
+			return true;
+		}
+		switch (Character.getType(c)) {
+		case Character.NON_SPACING_MARK:
+		case Character.ENCLOSING_MARK:
+		case Character.COMBINING_SPACING_MARK:
+			return true;
+		default:
+			return c == '\u200C' || c == '\u200D';
+		}
+	}
+}
@@ -0,0 +1,348 @@
+package dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import dto.Pages;
+
+/**
+ * Analyses left pending on import by a lazy policy, one analysis_jobs row
+ * per page and analysis with a status and an attempt count. Computing them
+ * writes the same rows an eager import would have and removes the jobs; a
+ * page's analysis is done once its job is gone.
+ *
+ * Background workers claim pending jobs with SELECT ... FOR UPDATE SKIP
+ * LOCKED, so concurrent workers never wait for or take each other's jobs,
+ * and commit the claim, marking the jobs running, before the work starts.
+ * Results are then stored in a second transaction for the whole batch. A
+ * batch that fails puts its jobs back to pending, or to failed once they
+ * have used up their attempts. Jobs left running by a process that stopped
+ * are put back to pending by resume once their lease is over; a shorter
+ * lease could take jobs another process is still working on. Opening a page computes its jobs
+ * whatever their status; a worker finishing the same jobs afterwards finds
+ * them gone and writes nothing.
+ *
+ * A pending TF-IDF score is computed from the stored term counts of the
+ * file against the corpus as it is then, where an eager import scores the
+ * file against the corpus as it was before the file was added.
+ */
+public class PendingAnalysis {
+	static final String INSERT_QUERY = "INSERT INTO analysis_jobs (pageId, analysisType) VALUES (?, ?)";
+	private static final String PENDING = "pending";
+	private static final String RUNNING = "running";
+	private static final String FAILED = "failed";
+	private static final int MAX_ERROR_LENGTH = 255;
+
+	private PendingAnalysis() {
+	}
+
+	public static void add(Connection conn, int pageId, AnalysisType type) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(INSERT_QUERY)) {
+			stmt.setInt(1, pageId);
+			stmt.setString(2, type.getKey());
+			stmt.executeUpdate();
+		}
+	}
+
+	/**
+	 * Claims up to max pending jobs, in page order, skipping jobs other
+	 * transactions hold, and marks them running. The caller commits the claim
+	 * before computing the jobs with complete.
+	 */
+	public static Map<Integer, Set<AnalysisType>> claim(Connection conn, int max) throws SQLException {
+		Map<Integer, Set<AnalysisType>> jobs = new LinkedHashMap<>();
+		try (PreparedStatement stmt = conn.prepareStatement("SELECT pageId, analysisType FROM analysis_jobs "
+				+ "WHERE status = ? ORDER BY pageId, analysisType LIMIT ? FOR UPDATE SKIP LOCKED")) {
+			stmt.setString(1, PENDING);
+			stmt.setInt(2, max);
+			readJobs(stmt, jobs);
+		}
+		if (jobs.isEmpty()) {
+			return jobs;
+		}
+		try (PreparedStatement stmt = conn.prepareStatement("UPDATE analysis_jobs SET status = ?, "
+				+ "attempts = attempts + 1, claimedAt = CURRENT_TIMESTAMP() WHERE pageId = ? AND analysisType = ?")) {
+			for (Map.Entry<Integer, Set<AnalysisType>> page : jobs.entrySet()) {
+				for (AnalysisType type : page.getValue()) {
+					stmt.setString(1, RUNNING);
+					stmt.setInt(2, page.getKey());
+					stmt.setString(3, type.getKey());
+					stmt.addBatch();
+				}
+			}
+			stmt.executeBatch();
+		}
+		return jobs;
+	}
+
+	/**
+	 * Computes and stores the claimed jobs that are still running, i.e. were
+	 * not done meanwhile by a page being opened, returning their number.
+	 */
+	public static int complete(Connection conn, Map<Integer, Set<AnalysisType>> claimed) throws Exception {
+		if (claimed.isEmpty()) {
+			return 0;
+		}
+		Map<Integer, Set<AnalysisType>> running = new LinkedHashMap<>();
+		try (PreparedStatement stmt = conn.prepareStatement("SELECT pageId, analysisType FROM analysis_jobs "
+				+ "WHERE pageId IN (" + placeholders(claimed.size()) + ") AND status = ? ORDER BY pageId FOR UPDATE")) {
+			int index = 1;
+			for (int pageId : claimed.keySet()) {
+				stmt.setInt(index++, pageId);
+			}
+			stmt.setString(index, RUNNING);
+			readJobs(stmt, running);
+		}
+		Map<Integer, Set<AnalysisType>> jobs = new LinkedHashMap<>();
+		for (Map.Entry<Integer, Set<AnalysisType>> page : running.entrySet()) {
+			Set<AnalysisType> types = EnumSet.noneOf(AnalysisType.class);
+			types.addAll(page.getValue());
+			types.retainAll(claimed.get(page.getKey()));
+			if (!types.isEmpty()) {
+				jobs.put(page.getKey(), types);
+			}
+		}
+		return store(conn, jobs);
+	}
+
+	/**
+	 * Puts claimed jobs whose batch failed back to pending, or to failed
+	 * once they were attempted maxAttempts times.
+	 */
+	public static void release(Connection conn, Map<Integer, Set<AnalysisType>> claimed, String error,
+			int maxAttempts) throws SQLException {
+		String message = error == null ? null
+				: error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+		try (PreparedStatement stmt = conn.prepareStatement("UPDATE analysis_jobs SET "
+				+ "status = IF(attempts >= ?, ?, ?), claimedAt = NULL, lastError = ? "
+				+ "WHERE pageId = ? AND analysisType = ? AND status = ?")) {
+			for (Map.Entry<Integer, Set<AnalysisType>> page : claimed.entrySet()) {
+				for (AnalysisType type : page.getValue()) {
+					stmt.setInt(1, maxAttempts);
+					stmt.setString(2, FAILED);
+					stmt.setString(3, PENDING);
+					stmt.setString(4, message);
+					stmt.setInt(5, page.getKey());
+					stmt.setString(6, type.getKey());
+					stmt.setString(7, RUNNING);
+					stmt.addBatch();
+				}
+			}
+			stmt.executeBatch();
+		}
+	}
+
+	/**
+	 * Puts jobs claimed more than leaseSeconds ago and still running back to
+	 * pending, e.g. those of a process that was closed in the middle of a
+	 * batch, and returns their number.
+	 */
+	public static int resume(Connection conn, int leaseSeconds) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement("UPDATE analysis_jobs SET status = ?, claimedAt = NULL "
+				+ "WHERE status = ? AND claimedAt <= CURRENT_TIMESTAMP() - INTERVAL ? SECOND")) {
+			stmt.setString(1, PENDING);
+			stmt.setString(2, RUNNING);
+			stmt.setInt(3, Math.max(0, leaseSeconds));
+			return stmt.executeUpdate();
+		}
+	}
+
+	/**
+	 * Number of jobs per status.
+	 */
+	public static Map<String, Integer> countByStatus(Connection conn) throws SQLException {
+		Map<String, Integer> counts = new TreeMap<>();
+		try (PreparedStatement stmt = conn
+				.prepareStatement("SELECT status, COUNT(*) AS jobs FROM analysis_jobs GROUP BY status");
+				ResultSet rs = stmt.executeQuery()) {
+			while (rs.next()) {
+				counts.put(rs.getString("status"), rs.getInt("jobs"));
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Computes and stores every pending analysis of the pages, whatever the
+	 * status of its job, returning the number of analyses computed.
+	 */
+	public static int materialize(Connection conn, Collection<Integer> pageIds) throws Exception {
+		if (pageIds.isEmpty()) {
+			return 0;
+		}
+		return store(conn, lockJobs(conn, pageIds));
+	}
+
+	/**
+	 * Computes and stores the locked jobs and removes them.
+	 */
+	private static int store(Connection conn, Map<Integer, Set<AnalysisType>> jobs) throws Exception {
+		if (jobs.isEmpty()) {
+			return 0;
+		}
+
+		Set<AnalysisType> pageTypes = EnumSet.noneOf(AnalysisType.class);
+		List<Pages> pages = readPages(conn, jobs.keySet());
+		List<Pages> toAnalyze = new ArrayList<>(pages.size());
+		for (Pages page : pages) {
+			Set<AnalysisType> types = EnumSet.copyOf(jobs.get(page.getPageId()));
+			types.remove(AnalysisType.TFIDF);
+			if (!types.isEmpty()) {
+				pageTypes.addAll(types);
+				toAnalyze.add(page);
+			}
+		}
+
+		// Rows a page may already have, e.g. from an earlier eager policy, are replaced
+		for (AnalysisType type : pageTypes) {
+			List<Integer> pending = new ArrayList<>();
+			for (Pages page : toAnalyze) {
+				if (jobs.get(page.getPageId()).contains(type)) {
+					pending.add(page.getPageId());
+				}
+			}
+			deleteRows(conn, type.getTable(), pending);
+		}
+		try (AnalyticsBatchWriter batchWriter = new AnalyticsBatchWriter(conn)) {
+			PageAnalysisPipeline.process(toAnalyze.iterator(), pageTypes,
+					analysis -> batchWriter.addAnalysis(analysis, jobs.get(analysis.getPage().getPageId())));
+			batchWriter.flush();
+		}
+
+		for (Pages page : pages) {
+			if (jobs.get(page.getPageId()).contains(AnalysisType.TFIDF)) {
+				storeTfIdf(conn, page.getFileId());
+			}
+		}
+
+		int analyses = 0;
+		try (PreparedStatement stmt = conn
+				.prepareStatement("DELETE FROM analysis_jobs WHERE pageId = ? AND analysisType = ?")) {
+			for (Map.Entry<Integer, Set<AnalysisType>> page : jobs.entrySet()) {
+				for (AnalysisType type : page.getValue()) {
+					stmt.setInt(1, page.getKey());
+					stmt.setString(2, type.getKey());
+					stmt.addBatch();
+					analyses++;
+				}
+			}
+			stmt.executeBatch();
+		}
+		return analyses;
+	}
+
+	/**
+	 * Removes the pending jobs of the page for analyses the caller has just
+	 * stored itself.
+	 */
+	public static void clear(Connection conn, int pageId, Set<AnalysisType> types) throws SQLException {
+		try (PreparedStatement stmt = conn
+				.prepareStatement("DELETE FROM analysis_jobs WHERE pageId = ? AND analysisType = ?")) {
+			for (AnalysisType type : types) {
+				stmt.setInt(1, pageId);
+				stmt.setString(2, type.getKey());
+				stmt.addBatch();
+			}
+			stmt.executeBatch();
+		}
+	}
+
+	/**
+	 * As above, for one analysis of every page of a file.
+	 */
+	public static void clearFile(Connection conn, int fileId, AnalysisType type) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement("DELETE j FROM analysis_jobs j "
+				+ "JOIN pages p ON p.pageId = j.pageId WHERE p.fileId = ? AND j.analysisType = ?")) {
+			stmt.setInt(1, fileId);
+			stmt.setString(2, type.getKey());
+			stmt.executeUpdate();
+		}
+	}
+
+	private static Map<Integer, Set<AnalysisType>> lockJobs(Connection conn, Collection<Integer> pageIds)
+			throws SQLException {
+		Map<Integer, Set<AnalysisType>> jobs = new LinkedHashMap<>();
+		try (PreparedStatement stmt = conn.prepareStatement("SELECT pageId, analysisType FROM analysis_jobs "
+				+ "WHERE pageId IN (" + placeholders(pageIds.size()) + ") ORDER BY pageId FOR UPDATE")) {
+			int index = 1;
+			for (int pageId : pageIds) {
+				stmt.setInt(index++, pageId);
+			}
+			readJobs(stmt, jobs);
+		}
+		return jobs;
+	}
+
+	private static void readJobs(PreparedStatement stmt, Map<Integer, Set<AnalysisType>> jobs) throws SQLException {
+		try (ResultSet rs = stmt.executeQuery()) {
+			while (rs.next()) {
+				// Jobs of an analysis that no longer exists are left alone
+				AnalysisType type = AnalysisType.fromKey(rs.getString("analysisType"));
+				if (type != null) {
+					jobs.computeIfAbsent(rs.getInt("pageId"), pageId -> EnumSet.noneOf(AnalysisType.class)).add(type);
+				}
+			}
+		}
+	}
+
+	private static List<Pages> readPages(Connection conn, Collection<Integer> pageIds) throws SQLException {
+		List<Pages> pages = new ArrayList<>();
+		try (PreparedStatement stmt = conn.prepareStatement("SELECT pageId, fileId, pageNumber, pageContent FROM pages "
+				+ "WHERE pageId IN (" + placeholders(pageIds.size()) + ") ORDER BY pageId")) {
+			int index = 1;
+			for (int pageId : pageIds) {
+				stmt.setInt(index++, pageId);
+			}
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					pages.add(new Pages(rs.getInt("pageId"), rs.getInt("fileId"), rs.getInt("pageNumber"),
+							rs.getString("pageContent")));
+				}
+			}
+		}
+		return pages;
+	}
+
+	private static void storeTfIdf(Connection conn, int fileId) throws SQLException {
+		double score = TermStatistics.calculateStoredTfIdf(conn, fileId);
+		try (PreparedStatement deleteStmt = conn.prepareStatement("DELETE FROM tfidf WHERE fileId = ?");
+				PreparedStatement insertStmt = conn
+						.prepareStatement("INSERT INTO tfidf (fileId, tfidfScore) VALUES (?, ?)")) {
+			deleteStmt.setInt(1, fileId);
+			deleteStmt.executeUpdate();
+			insertStmt.setInt(1, fileId);
+			insertStmt.setDouble(2, score);
+			insertStmt.executeUpdate();
+		}
+		StageMetrics.getInstance().addRows("tfidf", 1);
+	}
+
+	private static void deleteRows(Connection conn, String table, Collection<Integer> pageIds) throws SQLException {
+		try (PreparedStatement stmt = conn
+				.prepareStatement("DELETE FROM " + table + " WHERE pageId IN (" + placeholders(pageIds.size()) + ")")) {
+			int index = 1;
+			for (int pageId : pageIds) {
+				stmt.setInt(index++, pageId);
+			}
+			stmt.executeUpdate();
+		}
+	}
+
+	private static String placeholders(int count) {
+		StringBuilder placeholders = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			placeholders.append(i == 0 ? "?" : ", ?");
+		}
+		return placeholders.toString();
+	}
+}
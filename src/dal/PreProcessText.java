@@ -1,17 +1,18 @@
 package dal;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
+/**
+ * Removes harakat and every character that is neither Arabic script nor
+ * \s whitespace. Arabic has no case, so the result needs no lowercasing.
+ * The work is one pass through ArabicNormalizer's character table; use an
+ * ArabicNormalizer directly to reuse a buffer or map offsets back.
+ */
 public class PreProcessText {
-	private static final Set<Character> DIACRITICS = new HashSet<>(
-			Arrays.asList('َ', 'ً', 'ُ', 'ٌ', 'ِ', 'ٍ', 'ْ', 'ّ'));
 
 	public static String removeHarakat(String text) {
-		StringBuilder result = new StringBuilder();
-		for (char ch : text.toCharArray()) {
-			if (!DIACRITICS.contains(ch)) {
+		StringBuilder result = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			char ch = text.charAt(i);
+			if (!ArabicNormalizer.isHarakah(ch)) {
 				result.append(ch);
 			}
 		}
@@ -19,12 +20,11 @@ public class PreProcessText {
 	}
 
 	public static String removeNonArabicCharacters(String text) {
-		return text.replaceAll("[^\\p{IsArabic}\\s]", "");
+		// Harakat are not Arabic script characters, so this is the same table
+		return ArabicNormalizer.normalize(text, ArabicNormalizer.Profile.PREPROCESS);
 	}
 
 	public static String preprocessText(String text) {
-		text = removeHarakat(text);
-		text = removeNonArabicCharacters(text);
-		return text.toLowerCase();
+		return ArabicNormalizer.normalize(text, ArabicNormalizer.Profile.PREPROCESS);
 	}
 }
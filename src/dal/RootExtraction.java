@@ -1,12 +1,14 @@
 package dal;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import net.oujda_nlp_team.AlKhalil2Analyzer;
+import net.oujda_nlp_team.entity.ResultList;
 import pl.EditorPO;
 
 public class RootExtraction {
@@ -16,20 +18,15 @@ public class RootExtraction {
     	final Logger logger = LogManager.getLogger(EditorPO.class);
         Map<String, String> wordRootMap = new HashMap<>();
 
-        String[] words = text.split("\\s+");
+        List<String> words = ArabicTokenizer.tokens(text);
 
         try {
             AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
 
             if (analyzer != null) {
+                TokenAnalysisCache cache = TokenAnalysisCache.getInstance();
                 for (String word : words) {
-                    String root = analyzer.processToken(word).getAllRootString(); // Get the root
-
-                    if (root != null && !root.isEmpty()) {
-                        wordRootMap.put(word, PreProcessText.preprocessText(root)); // Add word-root pair
-                    } else {
-                        wordRootMap.put(word, "Not found"); // Add "Not found" if no root is found
-                    }
+                    wordRootMap.put(word, cache.get(word).getRoot()); // Add word-root pair
                 }
             } else {
                 System.err.println("Failed to initialize AlKhalil2Analyzer.");
@@ -42,4 +39,13 @@ public class RootExtraction {
 
         return wordRootMap;
     }
+
+    static String root(ResultList resultList) {
+        String root = resultList.getAllRootString(); // Get the root
+
+        if (root != null && !root.isEmpty()) {
+            return PreProcessText.preprocessText(root);
+        }
+        return "Not found"; // "Not found" if no root is found
+    }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import dto.SearchHit;
+import pl.EditorPO;
+
+/**
+ * Positional word index over page content (search_index). Every word of a
+ * page, as found by ArabicTokenizer, is stored with its position, keyed by
+ * its lowercase form, so a keyword search reads only the postings of that
+ * keyword and takes each hit's prefix word from the posting just before it.
+ * Rows are written in the same transaction as the pages they describe and
+ * are removed with them by cascading deletes.
+ */
+public class SearchIndex {
+	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+	static final String INSERT_QUERY = "INSERT INTO search_index (pageId, position, fileId, term, word) VALUES (?, ?, ?, ?, ?)";
+	// corpus_stats.searchIndexVersion holds the layout existing pages were indexed with
+	private static final int INDEX_VERSION = 1;
+	private static volatile boolean initialized;
+
+	private SearchIndex() {
+	}
+
+	static String term(String word) {
+		return TermStatistics.termKey(word.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Adds the postings of one tokenized page to a batch prepared from
+	 * INSERT_QUERY and returns the number of rows added. The position of a
+	 * word is its index among the page's tokens.
+	 */
+	static int addPostings(PreparedStatement stmt, int fileId, int pageId, ArabicTokenizer words) throws SQLException {
+		for (int position = 0; position < words.size(); position++) {
+			String word = words.token(position);
+			stmt.setInt(1, pageId);
+			stmt.setInt(2, position);
+			stmt.setInt(3, fileId);
+			stmt.setString(4, term(word));
+			stmt.setString(5, word);
+			stmt.addBatch();
+		}
+		return words.size();
+	}
+
+	/**
+	 * Replaces the postings of an edited page. Runs in the caller's
+	 * transaction.
+	 */
+	public static void reindexPage(Connection conn, int fileId, int pageId, String content) throws SQLException {
+		try (PreparedStatement deleteStmt = conn.prepareStatement("DELETE FROM search_index WHERE pageId = ?")) {
+			deleteStmt.setInt(1, pageId);
+			deleteStmt.executeUpdate();
+		}
+		try (PreparedStatement insertStmt = conn.prepareStatement(INSERT_QUERY)) {
+			if (addPostings(insertStmt, fileId, pageId, new ArabicTokenizer().tokenize(content)) > 0) {
+				insertStmt.executeBatch();
+			}
+		}
+	}
+
+	/**
+	 * Indexes the pages stored before the index existed. Runs once per
+	 * database, at startup, in its own transaction; corpus_stats records that
+	 * it was done, so later runs only read that row. Pages stored since are
+	 * indexed as they are written.
+	 */
+	public static void ensureInitialized(Connection conn) throws SQLException {
+		if (initialized) {
+			return;
+		}
+		synchronized (SearchIndex.class) {
+			if (initialized) {
+				return;
+			}
+			boolean autoCommit = conn.getAutoCommit();
+			conn.setAutoCommit(false);
+			try {
+				try (Statement stmt = conn.createStatement()) {
+					stmt.executeUpdate("INSERT IGNORE INTO corpus_stats (id, documentCount, initialized) VALUES (1, 0, 0)");
+					try (ResultSet rs = stmt
+							.executeQuery("SELECT searchIndexVersion FROM corpus_stats WHERE id = 1 FOR UPDATE")) {
+						if (rs.next() && rs.getInt("searchIndexVersion") < INDEX_VERSION) {
+							backfill(conn);
+						}
+					}
+				}
+				conn.commit();
+				initialized = true;
+			} catch (SQLException e) {
+				conn.rollback();
+				throw e;
+			} finally {
+				conn.setAutoCommit(autoCommit);
+			}
+		}
+	}
+
+	private static void backfill(Connection conn) throws SQLException {
+		long startTime = System.currentTimeMillis();
+		String query = "SELECT p.pageId, p.fileId, p.pageContent FROM pages p "
+				+ "WHERE NOT EXISTS (SELECT 1 FROM search_index s WHERE s.pageId = p.pageId)";
+		int pages = 0;
+		try (PreparedStatement selectStmt = conn.prepareStatement(query);
+				PreparedStatement insertStmt = conn.prepareStatement(INSERT_QUERY);
+				ResultSet rs = selectStmt.executeQuery()) {
+			ArabicTokenizer words = new ArabicTokenizer();
+			int pending = 0;
+			while (rs.next()) {
+				pending += addPostings(insertStmt, rs.getInt("fileId"), rs.getInt("pageId"),
+						words.tokenize(rs.getString("pageContent")));
+				pages++;
+				if (pending >= 5000) {
+					insertStmt.executeBatch();
+					pending = 0;
+				}
+			}
+			if (pending > 0) {
+				insertStmt.executeBatch();
+			}
+		}
+		try (PreparedStatement versionStmt = conn
+				.prepareStatement("UPDATE corpus_stats SET searchIndexVersion = ? WHERE id = 1")) {
+			versionStmt.setInt(1, INDEX_VERSION);
+			versionStmt.executeUpdate();
+		}
+		LOGGER.info(String.format("Indexed %d pages for search, %d ms", pages, System.currentTimeMillis() - startTime));
+	}
+
+	/**
+	 * Every occurrence of the keyword as a whole word, compared without case,
+	 * ordered by file, page and position.
+	 */
+	public static List<SearchHit> search(Connection conn, String keyword) throws SQLException {
+		List<SearchHit> hits = new ArrayList<>();
+		String query = "SELECT s.fileId, f.fileName, s.pageId, p.pageNumber, s.position, s.word, prev.word AS prefixWord "
+				+ "FROM search_index s JOIN files f ON f.fileId = s.fileId JOIN pages p ON p.pageId = s.pageId "
+				+ "LEFT JOIN search_index prev ON prev.pageId = s.pageId AND prev.position = s.position - 1 "
+				+ "WHERE s.term = ? ORDER BY s.fileId, p.pageNumber, s.position";
+
+		try (PreparedStatement stmt = conn.prepareStatement(query)) {
+			stmt.setString(1, term(keyword));
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					String word = rs.getString("word");
+					// Terms longer than the key are truncated, so confirm the full word
+					if (!word.equalsIgnoreCase(keyword)) {
+						continue;
+					}
+					String prefixWord = rs.getString("prefixWord");
+					hits.add(new SearchHit(rs.getInt("fileId"), rs.getString("fileName"), rs.getInt("pageId"),
+							rs.getInt("pageNumber"), rs.getInt("position"), word, prefixWord == null ? "" : prefixWord));
+				}
+			}
+		}
+		return hits;
+	}
+}
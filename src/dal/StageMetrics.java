@@ -0,0 +1,136 @@
+package dal;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import dto.StageStatistics;
+import pl.EditorPO;
+
+/**
+ * Latency histograms of the stages of create, import, update, delete,
+ * search and transliterate, and counts of rows inserted, updated or
+ * deleted per table, kept for the life of the process. Stages are named
+ * operation.stage, e.g. import.analysis or update.reanalysis; an
+ * operation's total is operation.total. Callers time a stage with
+ *
+ * <pre>
+ * long start = System.nanoTime();
+ * ...
+ * StageMetrics.getInstance().recordSince("import.hash", start);
+ * </pre>
+ *
+ * The shared instance is registered with the platform MBean server as
+ * realeditor:type=StageMetrics unless metrics.jmx.enabled is false.
+ */
+public class StageMetrics implements StageMetricsMXBean {
+	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+	public static final String OBJECT_NAME = "realeditor:type=StageMetrics";
+	private static StageMetrics INSTANCE;
+
+	private final ConcurrentHashMap<String, LatencyHistogram> stages = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, AtomicLong> tableRows = new ConcurrentHashMap<>();
+
+	public static synchronized StageMetrics getInstance() {
+		if (INSTANCE == null) {
+			INSTANCE = new StageMetrics();
+			if (EditorConfig.getInstance().getBoolean("metrics.jmx.enabled", true)) {
+				register(INSTANCE);
+			}
+		}
+		return INSTANCE;
+	}
+
+	private static void register(StageMetrics metrics) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(metrics, name);
+			}
+		} catch (Exception e) {
+			// Metrics are still recorded and readable in the application
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+	}
+
+	public void record(String stage, long nanos) {
+		LatencyHistogram histogram = stages.get(stage);
+		if (histogram == null) {
+			histogram = stages.computeIfAbsent(stage, name -> new LatencyHistogram());
+		}
+		histogram.record(nanos);
+	}
+
+	public void recordSince(String stage, long startNanos) {
+		record(stage, System.nanoTime() - startNanos);
+	}
+
+	public void addRows(String table, long rows) {
+		if (rows <= 0) {
+			return;
+		}
+		AtomicLong counter = tableRows.get(table);
+		if (counter == null) {
+			counter = tableRows.computeIfAbsent(table, name -> new AtomicLong());
+		}
+		counter.addAndGet(rows);
+	}
+
+	/**
+	 * The stage's histogram, or null if it was never recorded.
+	 */
+	public LatencyHistogram getHistogram(String stage) {
+		return stages.get(stage);
+	}
+
+	/**
+	 * Statistics of every recorded stage, ordered by name.
+	 */
+	@Override
+	public List<StageStatistics> getStages() {
+		List<StageStatistics> statistics = new ArrayList<>();
+		for (Map.Entry<String, LatencyHistogram> stage : new TreeMap<>(stages).entrySet()) {
+			LatencyHistogram histogram = stage.getValue();
+			long count = histogram.getCount();
+			statistics.add(new StageStatistics(stage.getKey(), count, millis(histogram.getTotalNanos()),
+					count == 0 ? 0 : millis(histogram.getTotalNanos()) / count,
+					millis(histogram.getPercentileNanos(50)), millis(histogram.getPercentileNanos(90)),
+					millis(histogram.getPercentileNanos(99)), millis(histogram.getMaxNanos())));
+		}
+		return statistics;
+	}
+
+	/**
+	 * Rows written per table, ordered by table name.
+	 */
+	@Override
+	public Map<String, Long> getTableRows() {
+		Map<String, Long> rows = new TreeMap<>();
+		for (Map.Entry<String, AtomicLong> table : tableRows.entrySet()) {
+			rows.put(table.getKey(), table.getValue().get());
+		}
+		return rows;
+	}
+
+	@Override
+	public void reset() {
+		stages.clear();
+		tableRows.clear();
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+}
@@ -0,0 +1,18 @@
+package dal;
+
+import java.util.List;
+import java.util.Map;
+
+import dto.StageStatistics;
+
+/**
+ * Management interface of {@link StageMetrics}, registered as
+ * realeditor:type=StageMetrics.
+ */
+public interface StageMetricsMXBean {
+	List<StageStatistics> getStages();
+
+	Map<String, Long> getTableRows();
+
+	void reset();
+}
@@ -1,12 +1,14 @@
 package dal;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import net.oujda_nlp_team.AlKhalil2Analyzer;
+import net.oujda_nlp_team.entity.ResultList;
 import pl.EditorPO;
 
 public class Stemmation {
@@ -16,20 +18,15 @@ public class Stemmation {
 
         Map<String, String> wordStemMap = new HashMap<>();
 
-        String[] words = text.split("\\s+");
+        List<String> words = ArabicTokenizer.tokens(text);
 
         try {
             AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
 
             if (analyzer != null) {
+                TokenAnalysisCache cache = TokenAnalysisCache.getInstance();
                 for (String word : words) {
-                    String stem = analyzer.processToken(word).getAllStemString(); // Get the stem
-
-                    if (stem != null && !stem.isEmpty()) {
-                        wordStemMap.put(word, PreProcessText.preprocessText(stem)); // Add word-stem pair
-                    } else {
-                        wordStemMap.put(word, "Not found"); // Add "Not found" if no stem is found
-                    }
+                    wordStemMap.put(word, cache.get(word).getStem()); // Add word-stem pair
                 }
             } else {
                 System.err.println("Failed to initialize AlKhalil2Analyzer.");
@@ -42,4 +39,13 @@ public class Stemmation {
 
         return wordStemMap;
     }
+
+    static String stem(ResultList resultList) {
+        String stem = resultList.getAllStemString(); // Get the stem
+
+        if (stem != null && !stem.isEmpty()) {
+            return PreProcessText.preprocessText(stem);
+        }
+        return "Not found"; // "Not found" if no stem is found
+    }
 }
\ No newline at end of file
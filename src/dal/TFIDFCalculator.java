@@ -1,71 +1,104 @@
 package dal;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public class TFIDFCalculator {
-
-	private List<String> corpus = new ArrayList<>();
+	// Terms of the corpus and of scored documents, and the corpus document
+	// frequency per term id; created on first use, as scoring against stored
+	// statistics needs neither
+	private TokenDictionary dictionary;
+	private IntIntCountMap documentFrequencies;
+	private int corpusSize;
+
+	private void createCorpus() {
+		if (dictionary == null) {
+			dictionary = new TokenDictionary();
+			documentFrequencies = new IntIntCountMap();
+		}
+	}
 
 	public void addDocumentToCorpus(String document) {
-		corpus.add(PreProcessText.preprocessText(document));
+		createCorpus();
+		IntIntCountMap terms = countTerms(dictionary.encode(PreProcessText.preprocessText(document)));
+		for (int slot = terms.next(-1); slot >= 0; slot = terms.next(slot)) {
+			documentFrequencies.increment(terms.keyAt(slot));
+		}
+		corpusSize++;
 	}
 
 	public double calculateDocumentTfIdf(String document) {
-		String preprocessedDoc = PreProcessText.preprocessText(document);
-		String[] words = preprocessedDoc.split("\\s+");
-		List<String> wordList = Arrays.asList(words);
-
-		Map<String, Double> tf = calculateTermFrequency(wordList);
-		Map<String, Double> idf = calculateInverseDocumentFrequency();
+		createCorpus();
+		int[] words = dictionary.encode(PreProcessText.preprocessText(document));
+		IntIntCountMap termCounts = countTerms(words);
+		double unseenIdf = Math.log(corpusSize + 1);
 
 		double totalTfIdf = 0.0;
-		for (String word : tf.keySet()) {
-			double tfValue = tf.get(word);
-			double idfValue = idf.getOrDefault(word, Math.log(corpus.size() + 1));
-			totalTfIdf += tfValue * idfValue;
+		for (int slot = termCounts.next(-1); slot >= 0; slot = termCounts.next(slot)) {
+			int df = documentFrequencies.get(termCounts.keyAt(slot));
+			double idf = df == 0 ? unseenIdf : Math.log((double) corpusSize / (1 + df));
+			totalTfIdf += (termCounts.valueAt(slot) / (double) words.length) * idf;
 		}
-
-		return totalTfIdf / wordList.size();
+		return totalTfIdf / words.length;
 	}
 
-	private Map<String, Double> calculateTermFrequency(List<String> wordList) {
-		Map<String, Double> tf = new HashMap<>();
-		double totalWords = wordList.size();
+	/**
+	 * Scores a document against precomputed corpus statistics instead of the
+	 * documents added to this calculator. Uses the same IDF as the in-memory
+	 * corpus: log(N / (1 + df)), or log(N + 1) for terms no document contains.
+	 */
+	public double calculateDocumentTfIdf(String document, int totalDocs, Map<String, Integer> documentFrequencies) {
+		TokenDictionary terms = new TokenDictionary();
+		int[] words = terms.encode(PreProcessText.preprocessText(document));
+		IntIntCountMap termCounts = countTerms(words);
 
-		for (String word : wordList) {
-			tf.put(word, tf.getOrDefault(word, 0.0) + 1);
+		double totalTfIdf = 0.0;
+		for (int slot = termCounts.next(-1); slot >= 0; slot = termCounts.next(slot)) {
+			double idf = storedIdf(totalDocs, documentFrequencies.get(terms.token(termCounts.keyAt(slot))));
+			totalTfIdf += (termCounts.valueAt(slot) / (double) words.length) * idf;
 		}
+		return totalTfIdf / words.length;
+	}
 
-		for (String word : tf.keySet()) {
-			tf.put(word, tf.get(word) / totalWords);
+	/**
+	 * As above, for a document whose terms were already counted, e.g. by a
+	 * DocumentTermCounter while it was streamed.
+	 */
+	public double calculateDocumentTfIdf(Map<String, Integer> termCounts, int totalWords, int totalDocs,
+			Map<String, Integer> documentFrequencies) {
+		double totalTfIdf = 0.0;
+		for (Map.Entry<String, Integer> entry : termCounts.entrySet()) {
+			totalTfIdf += (entry.getValue() / (double) totalWords)
+					* storedIdf(totalDocs, documentFrequencies.get(entry.getKey()));
 		}
-
-		return tf;
+		return totalTfIdf / totalWords;
 	}
 
-	private Map<String, Double> calculateInverseDocumentFrequency() {
-		Map<String, Double> idf = new HashMap<>();
-		int totalDocs = corpus.size();
+	private static double storedIdf(int totalDocs, Integer df) {
+		return df == null || df <= 0 ? Math.log(totalDocs + 1) : Math.log((double) totalDocs / (1 + df));
+	}
 
-		for (String doc : corpus) {
-			Set<String> uniqueWords = Arrays.stream(doc.split("\\s+")).collect(Collectors.toSet());
-			for (String word : uniqueWords) {
-				idf.put(word, idf.getOrDefault(word, 0.0) + 1);
-			}
+	/**
+	 * Distinct terms of a document, tokenized exactly as documents are for
+	 * document frequency counting.
+	 */
+	public static Set<String> documentTerms(String document) {
+		TokenDictionary terms = new TokenDictionary();
+		terms.encode(PreProcessText.preprocessText(document));
+		Set<String> distinct = new HashSet<>(terms.size() * 2);
+		for (int id = 0; id < terms.size(); id++) {
+			distinct.add(terms.token(id));
 		}
+		return distinct;
+	}
 
-		for (String word : idf.keySet()) {
-			idf.put(word, Math.log((double) totalDocs / (1 + idf.get(word))));
+	private static IntIntCountMap countTerms(int[] words) {
+		IntIntCountMap termCounts = new IntIntCountMap(words.length);
+		for (int word : words) {
+			termCounts.increment(word);
 		}
-
-		return idf;
+		return termCounts;
 	}
 
 //    public static void main(String[] args) {
@@ -0,0 +1,448 @@
+package dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import pl.EditorPO;
+
+/**
+ * Corpus statistics for TF-IDF kept in the database: the number of files,
+ * the terms of each file with their counts (file_terms) and how many files
+ * contain each term (term_df). They are maintained inside the caller's
+ * transaction on create, update and delete, so scoring a document only
+ * needs the frequencies of its own terms rather than the content of every
+ * file, and editing a page only applies the change in its term counts.
+ */
+public class TermStatistics {
+	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+	private static final int MAX_TERM_LENGTH = 255;
+	private static final int LOOKUP_CHUNK = 500;
+	// corpus_stats.initialized holds the layout the statistics were built with
+	private static final int STATS_VERSION = 2;
+	private static volatile boolean initialized;
+
+	private TermStatistics() {
+	}
+
+	/**
+	 * Builds the statistics from existing files the first time they are
+	 * needed, e.g. on a database created before these tables existed. Runs
+	 * in its own transaction, so call it before starting one.
+	 */
+	public static void ensureInitialized(Connection conn) throws SQLException {
+		if (initialized) {
+			return;
+		}
+		synchronized (TermStatistics.class) {
+			if (initialized) {
+				return;
+			}
+			boolean autoCommit = conn.getAutoCommit();
+			conn.setAutoCommit(false);
+			try {
+				try (Statement stmt = conn.createStatement()) {
+					stmt.executeUpdate("INSERT IGNORE INTO corpus_stats (id, documentCount, initialized) VALUES (1, 0, 0)");
+					try (ResultSet rs = stmt.executeQuery("SELECT initialized FROM corpus_stats WHERE id = 1 FOR UPDATE")) {
+						if (rs.next() && rs.getInt("initialized") < STATS_VERSION) {
+							rebuild(conn);
+						}
+					}
+				}
+				conn.commit();
+				initialized = true;
+			} catch (SQLException e) {
+				conn.rollback();
+				throw e;
+			} finally {
+				conn.setAutoCommit(autoCommit);
+			}
+		}
+	}
+
+	private static void rebuild(Connection conn) throws SQLException {
+		long startTime = System.currentTimeMillis();
+		Map<String, Integer> documentFrequencies = new HashMap<>();
+		int documentCount = 0;
+
+		try (Statement stmt = conn.createStatement()) {
+			stmt.executeUpdate("DELETE FROM file_terms");
+			stmt.executeUpdate("DELETE FROM term_df");
+		}
+
+		String query = "SELECT f.fileId, p.pageContent FROM files f LEFT JOIN pages p ON f.fileId = p.fileId "
+				+ "ORDER BY f.fileId, p.pageNumber";
+		try (Statement stmt = conn.createStatement();
+				ResultSet rs = stmt.executeQuery(query);
+				PreparedStatement termStmt = conn
+						.prepareStatement("INSERT INTO file_terms (fileId, term, termCount) VALUES (?, ?, ?)")) {
+			int currentFile = -1;
+			DocumentTermCounter counter = null;
+			while (rs.next()) {
+				int fileId = rs.getInt("fileId");
+				if (fileId != currentFile) {
+					if (currentFile != -1) {
+						addFileTerms(termStmt, currentFile, counter, documentFrequencies);
+					}
+					currentFile = fileId;
+					counter = new DocumentTermCounter();
+					documentCount++;
+				}
+				String pageContent = rs.getString("pageContent");
+				if (pageContent != null) {
+					counter.accept(pageContent);
+				}
+			}
+			if (currentFile != -1) {
+				addFileTerms(termStmt, currentFile, counter, documentFrequencies);
+			}
+		}
+
+		try (PreparedStatement dfStmt = conn.prepareStatement("INSERT INTO term_df (term, docFreq) VALUES (?, ?)")) {
+			for (Map.Entry<String, Integer> entry : documentFrequencies.entrySet()) {
+				dfStmt.setString(1, entry.getKey());
+				dfStmt.setInt(2, entry.getValue());
+				dfStmt.addBatch();
+			}
+			dfStmt.executeBatch();
+		}
+
+		try (PreparedStatement statsStmt = conn
+				.prepareStatement("UPDATE corpus_stats SET documentCount = ?, initialized = ? WHERE id = 1")) {
+			statsStmt.setInt(1, documentCount);
+			statsStmt.setInt(2, STATS_VERSION);
+			statsStmt.executeUpdate();
+		}
+		LOGGER.info(String.format("Rebuilt term statistics: %d files, %d terms, %d ms", documentCount,
+				documentFrequencies.size(), System.currentTimeMillis() - startTime));
+	}
+
+	private static void addFileTerms(PreparedStatement termStmt, int fileId, DocumentTermCounter counter,
+			Map<String, Integer> documentFrequencies) throws SQLException {
+		for (Map.Entry<String, Integer> entry : termKeys(counter.getTermCounts()).entrySet()) {
+			termStmt.setInt(1, fileId);
+			termStmt.setString(2, entry.getKey());
+			termStmt.setInt(3, entry.getValue());
+			termStmt.addBatch();
+			documentFrequencies.merge(entry.getKey(), 1, Integer::sum);
+		}
+		termStmt.executeBatch();
+	}
+
+	/**
+	 * Counts a newly created file: records its terms and increments the
+	 * document frequency of each and the corpus document count.
+	 */
+	public static void addDocument(Connection conn, int fileId, String content) throws SQLException {
+		DocumentTermCounter counter = new DocumentTermCounter();
+		counter.accept(content);
+		addDocumentTerms(conn, fileId, counter.getTermCounts());
+	}
+
+	/**
+	 * As above, for a file whose terms were counted while it was streamed.
+	 */
+	public static void addDocumentTerms(Connection conn, int fileId, Map<String, Integer> termCounts)
+			throws SQLException {
+		Map<String, Integer> counts = termKeys(termCounts);
+		try (PreparedStatement stmt = conn
+				.prepareStatement("INSERT INTO file_terms (fileId, term, termCount) VALUES (?, ?, ?)")) {
+			for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+				stmt.setInt(1, fileId);
+				stmt.setString(2, entry.getKey());
+				stmt.setInt(3, entry.getValue());
+				stmt.addBatch();
+			}
+			stmt.executeBatch();
+		}
+		incrementFrequencies(conn, counts.keySet());
+		updateDocumentCount(conn, 1);
+	}
+
+	/**
+	 * Counts a new file whose content is identical to an existing file's.
+	 */
+	public static void copyDocument(Connection conn, int sourceFileId, int fileId) throws SQLException {
+		Set<String> terms = new HashSet<>();
+		try (PreparedStatement stmt = conn.prepareStatement("SELECT term FROM file_terms WHERE fileId = ?")) {
+			stmt.setInt(1, sourceFileId);
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					terms.add(rs.getString("term"));
+				}
+			}
+		}
+		try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO file_terms (fileId, term, termCount) "
+				+ "SELECT ?, term, termCount FROM file_terms WHERE fileId = ?")) {
+			stmt.setInt(1, fileId);
+			stmt.setInt(2, sourceFileId);
+			stmt.executeUpdate();
+		}
+		incrementFrequencies(conn, terms);
+		updateDocumentCount(conn, 1);
+	}
+
+	/**
+	 * Applies a change in a file's term counts, e.g. from editing one page.
+	 * Only terms that enter or leave the file change document frequencies.
+	 */
+	public static void applyTermDelta(Connection conn, int fileId, Map<String, Integer> delta) throws SQLException {
+		Map<String, Integer> changes = termKeys(delta);
+		changes.values().removeIf(change -> change == 0);
+		if (changes.isEmpty()) {
+			return;
+		}
+
+		Map<String, Integer> current = new HashMap<>();
+		List<String> keys = new ArrayList<>(changes.keySet());
+		for (int from = 0; from < keys.size(); from += LOOKUP_CHUNK) {
+			List<String> chunk = keys.subList(from, Math.min(from + LOOKUP_CHUNK, keys.size()));
+			StringBuilder query = new StringBuilder("SELECT term, termCount FROM file_terms WHERE fileId = ? AND term IN (");
+			for (int i = 0; i < chunk.size(); i++) {
+				query.append(i == 0 ? "?" : ", ?");
+			}
+			query.append(") FOR UPDATE");
+			try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+				stmt.setInt(1, fileId);
+				for (int i = 0; i < chunk.size(); i++) {
+					stmt.setString(i + 2, chunk.get(i));
+				}
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						current.put(rs.getString("term"), rs.getInt("termCount"));
+					}
+				}
+			}
+		}
+
+		Set<String> added = new HashSet<>();
+		Set<String> removed = new HashSet<>();
+		try (PreparedStatement insertStmt = conn
+				.prepareStatement("INSERT INTO file_terms (fileId, term, termCount) VALUES (?, ?, ?)");
+				PreparedStatement updateStmt = conn
+						.prepareStatement("UPDATE file_terms SET termCount = ? WHERE fileId = ? AND term = ?");
+				PreparedStatement deleteStmt = conn.prepareStatement("DELETE FROM file_terms WHERE fileId = ? AND term = ?")) {
+			for (Map.Entry<String, Integer> entry : changes.entrySet()) {
+				String term = entry.getKey();
+				Integer before = current.get(term);
+				int after = (before == null ? 0 : before) + entry.getValue();
+				if (before == null) {
+					if (after > 0) {
+						insertStmt.setInt(1, fileId);
+						insertStmt.setString(2, term);
+						insertStmt.setInt(3, after);
+						insertStmt.addBatch();
+						added.add(term);
+					}
+				} else if (after > 0) {
+					updateStmt.setInt(1, after);
+					updateStmt.setInt(2, fileId);
+					updateStmt.setString(3, term);
+					updateStmt.addBatch();
+				} else {
+					deleteStmt.setInt(1, fileId);
+					deleteStmt.setString(2, term);
+					deleteStmt.addBatch();
+					removed.add(term);
+				}
+			}
+			insertStmt.executeBatch();
+			updateStmt.executeBatch();
+			deleteStmt.executeBatch();
+		}
+
+		if (!removed.isEmpty()) {
+			try (PreparedStatement dfStmt = conn.prepareStatement("UPDATE term_df SET docFreq = docFreq - 1 WHERE term = ?")) {
+				for (String term : removed) {
+					dfStmt.setString(1, term);
+					dfStmt.addBatch();
+				}
+				dfStmt.executeBatch();
+			}
+			deleteUnusedTerms(conn, removed);
+		}
+		incrementFrequencies(conn, added);
+	}
+
+	/**
+	 * Removes a file from the statistics. Must run before the file row is
+	 * deleted, since deleting it cascades to its recorded terms.
+	 */
+	public static void removeDocument(Connection conn, int fileId) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement("UPDATE term_df d JOIN file_terms f ON d.term = f.term "
+				+ "SET d.docFreq = d.docFreq - 1 WHERE f.fileId = ?")) {
+			stmt.setInt(1, fileId);
+			stmt.executeUpdate();
+		}
+		try (PreparedStatement stmt = conn.prepareStatement("DELETE d FROM term_df d JOIN file_terms f ON d.term = f.term "
+				+ "WHERE f.fileId = ? AND d.docFreq <= 0")) {
+			stmt.setInt(1, fileId);
+			stmt.executeUpdate();
+		}
+		try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM file_terms WHERE fileId = ?")) {
+			stmt.setInt(1, fileId);
+			stmt.executeUpdate();
+		}
+		updateDocumentCount(conn, -1);
+	}
+
+	/**
+	 * TF-IDF of the content against the current statistics, reading only the
+	 * document frequencies of the content's own terms.
+	 */
+	public static double calculateTfIdf(Connection conn, String content) throws SQLException {
+		int documentCount = getDocumentCount(conn);
+		Map<String, Integer> documentFrequencies = getDocumentFrequencies(conn,
+				TFIDFCalculator.documentTerms(content));
+		return new TFIDFCalculator().calculateDocumentTfIdf(content, documentCount, documentFrequencies);
+	}
+
+	/**
+	 * TF-IDF of a document counted by a DocumentTermCounter.
+	 */
+	public static double calculateTfIdf(Connection conn, DocumentTermCounter counter) throws SQLException {
+		int documentCount = getDocumentCount(conn);
+		Map<String, Integer> documentFrequencies = getDocumentFrequencies(conn, counter.getTermCounts().keySet());
+		return new TFIDFCalculator().calculateDocumentTfIdf(counter.getTermCounts(), counter.getWordCount(),
+				documentCount, documentFrequencies);
+	}
+
+	/**
+	 * TF-IDF of a stored file from its term counts in file_terms, e.g. for a
+	 * score left pending on import.
+	 */
+	public static double calculateStoredTfIdf(Connection conn, int fileId) throws SQLException {
+		Map<String, Integer> termCounts = new HashMap<>();
+		int totalWords = 0;
+		try (PreparedStatement stmt = conn.prepareStatement("SELECT term, termCount FROM file_terms WHERE fileId = ?")) {
+			stmt.setInt(1, fileId);
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					termCounts.put(rs.getString("term"), rs.getInt("termCount"));
+					totalWords += rs.getInt("termCount");
+				}
+			}
+		}
+		if (totalWords == 0) {
+			return 0.0;
+		}
+		int documentCount = getDocumentCount(conn);
+		Map<String, Integer> documentFrequencies = getDocumentFrequencies(conn, termCounts.keySet());
+		return new TFIDFCalculator().calculateDocumentTfIdf(termCounts, totalWords, documentCount,
+				documentFrequencies);
+	}
+
+	public static int getDocumentCount(Connection conn) throws SQLException {
+		try (Statement stmt = conn.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT documentCount FROM corpus_stats WHERE id = 1")) {
+			return rs.next() ? rs.getInt("documentCount") : 0;
+		}
+	}
+
+	/**
+	 * Document frequencies of the given terms, keyed by the terms as passed.
+	 * Terms no file contains are absent from the result.
+	 */
+	public static Map<String, Integer> getDocumentFrequencies(Connection conn, Set<String> terms) throws SQLException {
+		Map<String, List<String>> termsByKey = new HashMap<>();
+		for (String term : terms) {
+			termsByKey.computeIfAbsent(termKey(term), key -> new ArrayList<>()).add(term);
+		}
+
+		Map<String, Integer> documentFrequencies = new HashMap<>();
+		List<String> keys = new ArrayList<>(termsByKey.keySet());
+		for (int from = 0; from < keys.size(); from += LOOKUP_CHUNK) {
+			List<String> chunk = keys.subList(from, Math.min(from + LOOKUP_CHUNK, keys.size()));
+			StringBuilder query = new StringBuilder("SELECT term, docFreq FROM term_df WHERE term IN (");
+			for (int i = 0; i < chunk.size(); i++) {
+				query.append(i == 0 ? "?" : ", ?");
+			}
+			query.append(")");
+
+			try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+				for (int i = 0; i < chunk.size(); i++) {
+					stmt.setString(i + 1, chunk.get(i));
+				}
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						List<String> original = termsByKey.get(rs.getString("term"));
+						if (original != null) {
+							for (String term : original) {
+								documentFrequencies.put(term, rs.getInt("docFreq"));
+							}
+						}
+					}
+				}
+			}
+		}
+		return documentFrequencies;
+	}
+
+	private static void incrementFrequencies(Connection conn, Set<String> terms) throws SQLException {
+		if (terms.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement stmt = conn.prepareStatement(
+				"INSERT INTO term_df (term, docFreq) VALUES (?, 1) ON DUPLICATE KEY UPDATE docFreq = docFreq + 1")) {
+			// Rows are locked in the same order by every import, so concurrent imports wait instead of deadlocking
+			for (String term : new TreeSet<>(terms)) {
+				stmt.setString(1, term);
+				stmt.addBatch();
+			}
+			stmt.executeBatch();
+		}
+	}
+
+	private static void deleteUnusedTerms(Connection conn, Set<String> terms) throws SQLException {
+		if (terms.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM term_df WHERE term = ? AND docFreq <= 0")) {
+			for (String term : terms) {
+				stmt.setString(1, term);
+				stmt.addBatch();
+			}
+			stmt.executeBatch();
+		}
+	}
+
+	private static void updateDocumentCount(Connection conn, int delta) throws SQLException {
+		try (PreparedStatement stmt = conn
+				.prepareStatement("UPDATE corpus_stats SET documentCount = GREATEST(documentCount + ?, 0) WHERE id = 1")) {
+			stmt.setInt(1, delta);
+			stmt.executeUpdate();
+		}
+	}
+
+	private static Map<String, Integer> termKeys(Map<String, Integer> termCounts) {
+		Map<String, Integer> keys = new HashMap<>();
+		for (Map.Entry<String, Integer> entry : termCounts.entrySet()) {
+			keys.merge(termKey(entry.getKey()), entry.getValue(), Integer::sum);
+		}
+		return keys;
+	}
+
+	/**
+	 * Terms are stored in a VARCHAR(255) key; longer ones are cut without
+	 * splitting a surrogate pair.
+	 */
+	static String termKey(String term) {
+		if (term.length() <= MAX_TERM_LENGTH) {
+			return term;
+		}
+		int end = Character.isHighSurrogate(term.charAt(MAX_TERM_LENGTH - 1)) ? MAX_TERM_LENGTH - 1 : MAX_TERM_LENGTH;
+		return term.substring(0, end);
+	}
+}
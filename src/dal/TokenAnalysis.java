@@ -0,0 +1,68 @@
+package dal;
+
+import java.util.Collections;
+import java.util.List;
+
+import net.oujda_nlp_team.entity.ResultList;
+
+/**
+ * Everything the morphology tables store for one token, extracted from a
+ * single AlKhalil ResultList. Instances are immutable so they can be shared
+ * through {@link TokenAnalysisCache}.
+ */
+public class TokenAnalysis {
+	private final List<String> posTags;
+	private final String lemma;
+	private final String root;
+	private final String stem;
+	private final String segment;
+
+	public TokenAnalysis(List<String> posTags, String lemma, String root, String stem, String segment) {
+		this.posTags = Collections.unmodifiableList(posTags);
+		this.lemma = lemma;
+		this.root = root;
+		this.stem = stem;
+		this.segment = segment;
+	}
+
+	static TokenAnalysis of(String word, ResultList resultList) {
+		return new TokenAnalysis(POSTagger.posTags(resultList), Lemmatization.lemma(resultList),
+				RootExtraction.root(resultList), Stemmation.stem(resultList),
+				WordSegmentation.segment(word, resultList));
+	}
+
+	public List<String> getPosTags() {
+		return posTags;
+	}
+
+	public String getLemma() {
+		return lemma;
+	}
+
+	public String getRoot() {
+		return root;
+	}
+
+	public String getStem() {
+		return stem;
+	}
+
+	public String getSegment() {
+		return segment;
+	}
+
+	/**
+	 * Rough heap footprint of this analysis, used for the cache memory budget.
+	 */
+	long estimatedBytes() {
+		long bytes = 64 + stringBytes(lemma) + stringBytes(root) + stringBytes(stem) + stringBytes(segment);
+		for (String tag : posTags) {
+			bytes += 8 + stringBytes(tag);
+		}
+		return bytes;
+	}
+
+	static long stringBytes(String value) {
+		return value == null ? 0 : 40 + 2L * value.length();
+	}
+}
@@ -0,0 +1,211 @@
+package dal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import net.oujda_nlp_team.AlKhalil2Analyzer;
+
+/**
+ * Process-wide cache of AlKhalil analyses keyed by token. Entries are kept in
+ * LRU order and the cache is bounded by an estimated memory budget
+ * (analysis.cache.maxBytes). When the budget is full a new token only
+ * displaces the LRU victim if it has been requested more often, so a burst
+ * of one-off words cannot flush the common vocabulary. Request frequencies
+ * are tracked in a small count-min sketch that is halved periodically.
+ *
+ * The loader runs on one thread at a time. AlKhalil is not documented as
+ * safe to share between threads, and page-analysis workers, bulk ingest and
+ * the analysis filler all reach it through this cache, so misses queue for
+ * it the way the synchronized per-analysis DAO calls once did. Hits never
+ * wait for the loader.
+ */
+public class TokenAnalysisCache {
+	private static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+	private static final int[] SEEDS = { 0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F };
+	private static TokenAnalysisCache INSTANCE;
+
+	private final long maxBytes;
+	private final Function<String, TokenAnalysis> loader;
+	// Held while the loader runs, separately from the entries so hits go on meanwhile
+	private final Object loadLock = new Object();
+	private final LinkedHashMap<String, TokenAnalysis> entries = new LinkedHashMap<>(256, 0.75f, true);
+	private final int[][] sketch;
+	private final int sketchMask;
+	private final int sampleSize;
+	private int sketchAdditions;
+	private long currentBytes;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong rejections = new AtomicLong();
+
+	public TokenAnalysisCache(long maxBytes, Function<String, TokenAnalysis> loader) {
+		this.maxBytes = maxBytes;
+		this.loader = loader;
+
+		long expectedEntries = Math.max(1024, Math.min(1 << 18, maxBytes / 256));
+		int width = Integer.highestOneBit((int) expectedEntries - 1) << 1;
+		this.sketch = new int[SEEDS.length][width];
+		this.sketchMask = width - 1;
+		this.sampleSize = 10 * width;
+	}
+
+	public static synchronized TokenAnalysisCache getInstance() {
+		if (INSTANCE == null) {
+			long maxBytes = EditorConfig.getInstance().getLong("analysis.cache.maxBytes", DEFAULT_MAX_BYTES);
+			INSTANCE = new TokenAnalysisCache(maxBytes, TokenAnalysisCache::analyze);
+		}
+		return INSTANCE;
+	}
+
+	private static TokenAnalysis analyze(String word) {
+		long start = System.nanoTime();
+		TokenAnalysis analysis = TokenAnalysis.of(word, AlKhalil2Analyzer.getInstance().processToken(word));
+		StageMetrics.getInstance().recordSince("analysis.alkhalil", start);
+		return analysis;
+	}
+
+	/**
+	 * Returns the analysis of the token, running the analyzer only on a miss.
+	 */
+	public TokenAnalysis get(String token) {
+		TokenAnalysis analysis;
+		synchronized (this) {
+			recordRequest(token);
+			analysis = entries.get(token);
+		}
+		if (analysis != null) {
+			hits.incrementAndGet();
+			return analysis;
+		}
+		misses.incrementAndGet();
+
+		synchronized (loadLock) {
+			// Another thread may have loaded the token while this one waited
+			synchronized (this) {
+				analysis = entries.get(token);
+			}
+			if (analysis == null) {
+				analysis = loader.apply(token);
+				if (analysis != null) {
+					put(token, analysis);
+				}
+			}
+		}
+		return analysis;
+	}
+
+	private synchronized void put(String token, TokenAnalysis analysis) {
+		if (entries.containsKey(token)) {
+			return;
+		}
+		long weight = TokenAnalysis.stringBytes(token) + analysis.estimatedBytes();
+		if (weight > maxBytes) {
+			rejections.incrementAndGet();
+			return;
+		}
+
+		Iterator<Map.Entry<String, TokenAnalysis>> eldest = entries.entrySet().iterator();
+		if (currentBytes + weight > maxBytes && eldest.hasNext()) {
+			String victim = entries.keySet().iterator().next();
+			if (frequency(victim) > frequency(token)) {
+				rejections.incrementAndGet();
+				return;
+			}
+		}
+		while (currentBytes + weight > maxBytes && eldest.hasNext()) {
+			Map.Entry<String, TokenAnalysis> victim = eldest.next();
+			currentBytes -= TokenAnalysis.stringBytes(victim.getKey()) + victim.getValue().estimatedBytes();
+			eldest.remove();
+			evictions.incrementAndGet();
+		}
+
+		entries.put(token, analysis);
+		currentBytes += weight;
+	}
+
+	private void recordRequest(String token) {
+		int hash = spread(token.hashCode());
+		for (int row = 0; row < SEEDS.length; row++) {
+			int index = indexOf(hash, row);
+			if (sketch[row][index] < Integer.MAX_VALUE) {
+				sketch[row][index]++;
+			}
+		}
+		if (++sketchAdditions >= sampleSize) {
+			for (int[] counters : sketch) {
+				for (int i = 0; i < counters.length; i++) {
+					counters[i] >>>= 1;
+				}
+			}
+			sketchAdditions /= 2;
+		}
+	}
+
+	private int frequency(String token) {
+		int hash = spread(token.hashCode());
+		int frequency = Integer.MAX_VALUE;
+		for (int row = 0; row < SEEDS.length; row++) {
+			frequency = Math.min(frequency, sketch[row][indexOf(hash, row)]);
+		}
+		return frequency;
+	}
+
+	private int indexOf(int hash, int row) {
+		int h = hash * SEEDS[row];
+		return (h ^ (h >>> 16)) & sketchMask;
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		currentBytes = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getEstimatedBytes() {
+		return currentBytes;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	public long getRejectionCount() {
+		return rejections.get();
+	}
+
+	public double getHitRate() {
+		long requests = hits.get() + misses.get();
+		return requests == 0 ? 0.0 : (double) hits.get() / requests;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("TokenAnalysisCache[entries=%d, bytes=%d/%d, hits=%d, misses=%d, evictions=%d, rejections=%d]",
+				size(), getEstimatedBytes(), maxBytes, getHitCount(), getMissCount(), getEvictionCount(),
+				getRejectionCount());
+	}
+}
@@ -0,0 +1,184 @@
+package dal;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps each distinct token to a dense int id, 0, 1, 2, ... in the order
+ * tokens are first seen, so the statistics calculators can count int ids
+ * in primitive maps instead of boxing counts per String. Tokens can be
+ * looked up by a range of characters without building a String first;
+ * only the first occurrence of a token is copied.
+ *
+ * A dictionary is not thread-safe. Share one between calculators working
+ * on the same text or corpus on one thread, e.g. PKL and PMI of a page.
+ */
+public class TokenDictionary {
+	private static final int[] NO_TOKENS = new int[0];
+
+	private String[] tokens;
+	private int[] hashes;
+	// Slots hold id + 1, 0 being free
+	private int[] table;
+	private int mask;
+	private int size;
+
+	public TokenDictionary() {
+		this(64);
+	}
+
+	public TokenDictionary(int expectedTokens) {
+		int capacity = IntIntCountMap.tableSize(expectedTokens);
+		tokens = new String[capacity / 2];
+		hashes = new int[capacity / 2];
+		table = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	public int id(String token) {
+		return id(token, 0, token.length());
+	}
+
+	/**
+	 * The id of the characters from start (inclusive) to end (exclusive),
+	 * adding them as a new token if they were not seen before.
+	 */
+	public int id(CharSequence text, int start, int end) {
+		int hash = hash(text, start, end);
+		int slot = IntIntCountMap.mix(hash) & mask;
+		int entry;
+		while ((entry = table[slot]) != 0) {
+			int id = entry - 1;
+			if (hashes[id] == hash && matches(tokens[id], text, start, end)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if (size == tokens.length) {
+			grow();
+			return id(text, start, end);
+		}
+		int id = size++;
+		tokens[id] = text.subSequence(start, end).toString();
+		hashes[id] = hash;
+		table[slot] = id + 1;
+		return id;
+	}
+
+	/**
+	 * The id of the token, or -1 if it was never added.
+	 */
+	public int lookup(String token) {
+		int hash = hash(token, 0, token.length());
+		int slot = IntIntCountMap.mix(hash) & mask;
+		int entry;
+		while ((entry = table[slot]) != 0) {
+			int id = entry - 1;
+			if (hashes[id] == hash && tokens[id].equals(token)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	public String token(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("No token " + id);
+		}
+		return tokens[id];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Every token, in id order.
+	 */
+	public List<String> tokens() {
+		return Arrays.asList(Arrays.copyOf(tokens, size));
+	}
+
+	/**
+	 * The ids of the whitespace-separated tokens of already preprocessed
+	 * text, adding new tokens. The tokens are exactly those of
+	 * text.split("\\s+"): an empty leading token when the text starts with
+	 * whitespace, a single empty token for empty text, and none for text
+	 * that is only whitespace.
+	 */
+	public int[] encode(String text) {
+		if (text.isEmpty()) {
+			return new int[] { id("") };
+		}
+		int[] ids = new int[16];
+		int count = 0;
+		int length = text.length();
+		int start = 0;
+		if (isWhitespace(text.charAt(0))) {
+			while (start < length && isWhitespace(text.charAt(start))) {
+				start++;
+			}
+			if (start == length) {
+				return NO_TOKENS;
+			}
+			ids[count++] = id("");
+		}
+		while (start < length) {
+			int end = start;
+			while (end < length && !isWhitespace(text.charAt(end))) {
+				end++;
+			}
+			if (count == ids.length) {
+				ids = Arrays.copyOf(ids, count * 2);
+			}
+			ids[count++] = id(text, start, end);
+			start = end;
+			while (start < length && isWhitespace(text.charAt(start))) {
+				start++;
+			}
+		}
+		return count == ids.length ? ids : Arrays.copyOf(ids, count);
+	}
+
+	private void grow() {
+		int capacity = table.length * 2;
+		tokens = Arrays.copyOf(tokens, capacity / 2);
+		hashes = Arrays.copyOf(hashes, capacity / 2);
+		table = new int[capacity];
+		mask = capacity - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = IntIntCountMap.mix(hashes[id]) & mask;
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = id + 1;
+		}
+	}
+
+	// Same as String.hashCode of the range
+	private static int hash(CharSequence text, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + text.charAt(i);
+		}
+		return hash;
+	}
+
+	private static boolean matches(String token, CharSequence text, int start, int end) {
+		if (token.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < token.length(); i++) {
+			if (token.charAt(i) != text.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// The characters matched by \s
+	static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+}
@@ -1,85 +1,194 @@
 package dal;
 
-import java.util.HashMap;
-import java.util.Map;
-
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Transliterates Arabic text to Latin letters in one pass, looking each
+ * character up in an array over the Arabic block and capitalizing the
+ * first letter of every word as it is written. Characters without a
+ * transliteration are dropped; runs of spaces between words become one
+ * space, and the output has no leading or trailing space.
+ *
+ * An instance writes to an Appendable and keeps its place between calls,
+ * so a document can be transliterated in chunks, e.g. from a Reader, and
+ * words running across chunks come out as if the text were whole. An
+ * instance is not thread-safe; the static methods are.
+ */
 public class Transliteration {
 
+    private static final char BLOCK_START = '؀';
+    private static final int BLOCK_SIZE = 256;
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int OUTPUT_BUFFER_SIZE = 1024;
+    // Longest transliteration of one character and its space
+    private static final int MAX_WRITE = 3;
 
-    private static final Map<Character, String> transliterationMap = new HashMap<>();
+    // Latin letters per character of the Arabic block, null = dropped
+    private static final char[][] LETTERS = new char[BLOCK_SIZE][];
+    // The same with the first letter capitalized, for the start of a word
+    private static final char[][] CAPITALIZED = new char[BLOCK_SIZE][];
 
     static {
-        transliterationMap.put('ا', "a");
-        transliterationMap.put('آ', "aa");
-        transliterationMap.put('ب', "b");
-        transliterationMap.put('ت', "t");
-        transliterationMap.put('ث', "th");
-        transliterationMap.put('ج', "j"); 
-        transliterationMap.put('ح', "H"); 
-        transliterationMap.put('خ', "kh");
-        transliterationMap.put('د', "d");
-        transliterationMap.put('ذ', "dh");
-        transliterationMap.put('ر', "r");
-        transliterationMap.put('ز', "z");
-        transliterationMap.put('س', "s");
-        transliterationMap.put('ش', "sh");
-        transliterationMap.put('ص', "S"); 
-        transliterationMap.put('ض', "D"); 
-        transliterationMap.put('ط', "T"); 
-        transliterationMap.put('ظ', "DH"); 
-        transliterationMap.put('ع', "3"); 
-        transliterationMap.put('غ', "gh");
-        transliterationMap.put('ف', "f");
-        transliterationMap.put('ق', "q");
-        transliterationMap.put('ك', "k");
-        transliterationMap.put('ل', "l");
-        transliterationMap.put('م', "m");
-        transliterationMap.put('ن', "n");
-        transliterationMap.put('ه', "h");
-        transliterationMap.put('و', "w"); 
-        transliterationMap.put('ي', "y"); 
-        transliterationMap.put('ء', "'");
+        put('ا', "a");
+        put('آ', "aa");
+        put('ب', "b");
+        put('ت', "t");
+        put('ث', "th");
+        put('ج', "j");
+        put('ح', "H");
+        put('خ', "kh");
+        put('د', "d");
+        put('ذ', "dh");
+        put('ر', "r");
+        put('ز', "z");
+        put('س', "s");
+        put('ش', "sh");
+        put('ص', "S");
+        put('ض', "D");
+        put('ط', "T");
+        put('ظ', "DH");
+        put('ع', "3");
+        put('غ', "gh");
+        put('ف', "f");
+        put('ق', "q");
+        put('ك', "k");
+        put('ل', "l");
+        put('م', "m");
+        put('ن', "n");
+        put('ه', "h");
+        put('و', "w");
+        put('ي', "y");
+        put('ء', "'");
         // Adding vowels for pronunciation
-        transliterationMap.put('َ', "a");
-        transliterationMap.put('ُ', "u");
-        transliterationMap.put('ِ', "i");
+        put('َ', "a");
+        put('ُ', "u");
+        put('ِ', "i");
+    }
+
+    private static void put(char arabic, String latin) {
+        LETTERS[arabic - BLOCK_START] = latin.toCharArray();
+        CAPITALIZED[arabic - BLOCK_START] = (Character.toUpperCase(latin.charAt(0)) + latin.substring(1)).toCharArray();
     }
 
+    private final Appendable out;
+    // Output gathered here and handed to out in bulk at the end of each append
+    private final char[] buffer = new char[OUTPUT_BUFFER_SIZE];
+    private int buffered;
+    private boolean wroteAny;
+    private boolean spacePending;
+    private boolean wordStart = true;
 
-    public static String transliterate(String arabicText) {
-        StringBuilder romanText = new StringBuilder();
-        boolean lastCharWasSpace = false;
+    public Transliteration(Appendable out) {
+        this.out = out;
+    }
+
+    public Transliteration append(CharSequence text) throws IOException {
+        return append(text, 0, text.length());
+    }
 
-        for (char ch : arabicText.toCharArray()) {
+    /**
+     * Transliterates text[start, end) as the continuation of the text
+     * appended so far.
+     */
+    public Transliteration append(CharSequence text, int start, int end) throws IOException {
+        char[] out = buffer;
+        int n = buffered;
+        // The state is kept in locals during the loop and stored at the end
+        boolean wordStart = this.wordStart;
+        boolean spacePending = this.spacePending;
+        boolean wroteAny = this.wroteAny;
+        for (int i = start; i < end; i++) {
+            char ch = text.charAt(i);
             if (ch == ' ') {
-                if (!lastCharWasSpace) {
-                    romanText.append(" ");
-                    lastCharWasSpace = true;
-                }
+                // Written before the next letters, so none trails the text
+                spacePending = wroteAny;
+                wordStart = true;
                 continue;
             }
-
-            if (!transliterationMap.containsKey(ch))
+            int index = ch - BLOCK_START;
+            if (index < 0 || index >= BLOCK_SIZE) {
                 continue;
-
-            String romanEquivalent = transliterationMap.get(ch);
-            romanText.append(romanEquivalent);
-            lastCharWasSpace = false;
+            }
+            char[] letters = wordStart ? CAPITALIZED[index] : LETTERS[index];
+            if (letters == null) {
+                continue;
+            }
+            if (n > OUTPUT_BUFFER_SIZE - MAX_WRITE) {
+                buffered = n;
+                flush();
+                n = 0;
+            }
+            if (spacePending) {
+                out[n++] = ' ';
+                spacePending = false;
+            }
+            for (char letter : letters) {
+                out[n++] = letter;
+            }
+            wordStart = false;
+            wroteAny = true;
         }
+        this.wordStart = wordStart;
+        this.spacePending = spacePending;
+        this.wroteAny = wroteAny;
+        buffered = n;
+        flush();
+        return this;
+    }
 
-        // Formatting words and capitalizing each word's first letter
-        String[] words = romanText.toString().split(" ");
-        StringBuilder formattedText = new StringBuilder();
-
-        for (String word : words) {
-            if (word.isEmpty())
-                continue;
-            formattedText.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1)).append(" ");
+    private void flush() throws IOException {
+        if (buffered == 0) {
+            return;
         }
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(buffer, 0, buffered);
+        } else if (out instanceof Writer) {
+            ((Writer) out).write(buffer, 0, buffered);
+        } else {
+            out.append(CharBuffer.wrap(buffer, 0, buffered));
+        }
+        buffered = 0;
+    }
 
-        return formattedText.toString().trim();
+    /**
+     * Starts a new text, e.g. the next page, without a space before it.
+     */
+    public void reset() {
+        wroteAny = false;
+        spacePending = false;
+        wordStart = true;
     }
-}
 
+    public static String transliterate(String arabicText) {
+        StringBuilder romanText = new StringBuilder(arabicText.length() + 16);
+        try {
+            new Transliteration(romanText).append(arabicText);
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return romanText.toString();
+    }
 
+    public static void transliterate(CharSequence arabicText, Appendable out) throws IOException {
+        new Transliteration(out).append(arabicText);
+    }
 
+    /**
+     * Transliterates everything the reader gives, through a fixed-size
+     * buffer, so the document is never held in memory as a whole.
+     */
+    public static void transliterate(Reader in, Appendable out) throws IOException {
+        Transliteration transliteration = new Transliteration(out);
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        CharBuffer chunk = CharBuffer.wrap(buffer);
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            transliteration.append(chunk, 0, read);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.apache.logging.log4j.Logger;
 
 import net.oujda_nlp_team.AlKhalil2Analyzer;
 import net.oujda_nlp_team.entity.Result;
+import net.oujda_nlp_team.entity.ResultList;
 import pl.EditorPO;
 
 public class WordSegmentation {
@@ -18,39 +19,16 @@ public class WordSegmentation {
 		Map<String, String> wordSegmentMap = new LinkedHashMap<>();
 		final Logger logger = LogManager.getLogger(EditorPO.class);
 
-		String[] words = text.split("\\s+");
+		List<String> words = ArabicTokenizer.tokens(text);
 
 		try {
 
 			AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
 
 			if (analyzer != null) {
+				TokenAnalysisCache cache = TokenAnalysisCache.getInstance();
 				for (String word : words) {
-
-					List<Result> results = analyzer.processToken(word).getAllResults();
-
-					if (results != null && !results.isEmpty()) {
-
-						Result firstResult = results.get(0);
-						String stem = firstResult.getStem();
-
-						String prefix = getPrefix(word);
-						String suffix = getSuffix(word);
-
-						StringBuilder segmentBuilder = new StringBuilder();
-						if (!prefix.isEmpty()) {
-							segmentBuilder.append(prefix).append("-");
-						}
-						segmentBuilder.append(stem);
-						if (!suffix.isEmpty()) {
-							segmentBuilder.append("-").append(suffix);
-						}
-
-						wordSegmentMap.put(word, segmentBuilder.toString());
-					} else {
-
-						wordSegmentMap.put(word, "None");
-					}
+					wordSegmentMap.put(word, cache.get(word).getSegment());
 				}
 			} else {
 				System.err.println("Failed to initialize AlKhalil2Analyzer.");
@@ -64,6 +42,31 @@ public class WordSegmentation {
 		return wordSegmentMap;
 	}
 
+	static String segment(String word, ResultList resultList) {
+		List<Result> results = resultList.getAllResults();
+
+		if (results != null && !results.isEmpty()) {
+
+			Result firstResult = results.get(0);
+			String stem = firstResult.getStem();
+
+			String prefix = getPrefix(word);
+			String suffix = getSuffix(word);
+
+			StringBuilder segmentBuilder = new StringBuilder();
+			if (!prefix.isEmpty()) {
+				segmentBuilder.append(prefix).append("-");
+			}
+			segmentBuilder.append(stem);
+			if (!suffix.isEmpty()) {
+				segmentBuilder.append("-").append(suffix);
+			}
+
+			return segmentBuilder.toString();
+		}
+		return "None";
+	}
+
 	private static String getPrefix(String word) {
 		String[] commonPrefixes = { "ال", "ب", "ت", "ك", "م", "و", "ف", "س" };
 		for (String prefix : commonPrefixes) {
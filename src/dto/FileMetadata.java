@@ -0,0 +1,68 @@
+package dto;
+
+public class FileMetadata {
+	private int id;
+	private String name;
+	private String hash;
+	private String lastModified;
+	private String dateCreated;
+	private int pageCount;
+
+	public FileMetadata(int id, String name, String hash, String lastModified, String dateCreated, int pageCount) {
+		this.id = id;
+		this.name = name;
+		this.hash = hash;
+		this.lastModified = lastModified;
+		this.dateCreated = dateCreated;
+		this.pageCount = pageCount;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public String getDateCreated() {
+		return dateCreated;
+	}
+
+	public int getPageCount() {
+		return pageCount;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public void setHash(String hash) {
+		this.hash = hash;
+	}
+
+	public void setLastModified(String lastModified) {
+		this.lastModified = lastModified;
+	}
+
+	public void setDateCreated(String dateCreated) {
+		this.dateCreated = dateCreated;
+	}
+
+	public void setPageCount(int pageCount) {
+		this.pageCount = pageCount;
+	}
+
+}
@@ -0,0 +1,79 @@
+package dto;
+
+public class SearchHit {
+	private int fileId;
+	private String fileName;
+	private int pageId;
+	private int pageNumber;
+	private int position;
+	private String word;
+	private String prefixWord;
+
+	public SearchHit(int fileId, String fileName, int pageId, int pageNumber, int position, String word,
+			String prefixWord) {
+		this.fileId = fileId;
+		this.fileName = fileName;
+		this.pageId = pageId;
+		this.pageNumber = pageNumber;
+		this.position = position;
+		this.word = word;
+		this.prefixWord = prefixWord;
+	}
+
+	public int getFileId() {
+		return fileId;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public int getPageId() {
+		return pageId;
+	}
+
+	public int getPageNumber() {
+		return pageNumber;
+	}
+
+	public int getPosition() {
+		return position;
+	}
+
+	public String getWord() {
+		return word;
+	}
+
+	public String getPrefixWord() {
+		return prefixWord;
+	}
+
+	public void setFileId(int fileId) {
+		this.fileId = fileId;
+	}
+
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+
+	public void setPageId(int pageId) {
+		this.pageId = pageId;
+	}
+
+	public void setPageNumber(int pageNumber) {
+		this.pageNumber = pageNumber;
+	}
+
+	public void setPosition(int position) {
+		this.position = position;
+	}
+
+	public void setWord(String word) {
+		this.word = word;
+	}
+
+	public void setPrefixWord(String prefixWord) {
+		this.prefixWord = prefixWord;
+	}
+
+}
@@ -0,0 +1,60 @@
+package dto;
+
+import java.beans.ConstructorProperties;
+
+public class StageStatistics {
+	private String stage;
+	private long count;
+	private double totalMillis;
+	private double meanMillis;
+	private double p50Millis;
+	private double p90Millis;
+	private double p99Millis;
+	private double maxMillis;
+
+	@ConstructorProperties({ "stage", "count", "totalMillis", "meanMillis", "p50Millis", "p90Millis", "p99Millis",
+			"maxMillis" })
+	public StageStatistics(String stage, long count, double totalMillis, double meanMillis, double p50Millis,
+			double p90Millis, double p99Millis, double maxMillis) {
+		this.stage = stage;
+		this.count = count;
+		this.totalMillis = totalMillis;
+		this.meanMillis = meanMillis;
+		this.p50Millis = p50Millis;
+		this.p90Millis = p90Millis;
+		this.p99Millis = p99Millis;
+		this.maxMillis = maxMillis;
+	}
+
+	public String getStage() {
+		return stage;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getTotalMillis() {
+		return totalMillis;
+	}
+
+	public double getMeanMillis() {
+		return meanMillis;
+	}
+
+	public double getP50Millis() {
+		return p50Millis;
+	}
+
+	public double getP90Millis() {
+		return p90Millis;
+	}
+
+	public double getP99Millis() {
+		return p99Millis;
+	}
+
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+}
@@ -0,0 +1,298 @@
+package pl;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import bll.IEditorBO;
+import dto.FileMetadata;
+
+/**
+ * Imports files from the command line without a display:
+ *
+ * <pre>
+ * Driver --ingest [--workers N] [--retries N] &lt;directory or file&gt;...
+ * </pre>
+ *
+ * Directories are searched recursively for files the editor can import.
+ * Files are imported through the business layer by a pool of workers. Each
+ * holds one pooled database connection from the duplicate check to the
+ * commit, so workers beyond db.pool.maxSize would only queue for a
+ * connection and time out after db.pool.maxWaitMillis; --workers is cut
+ * down to the pool size with a warning. The command does not start the
+ * analysis filler, so its workers have the pool to themselves; analyses a
+ * lazy policy leaves pending are done once the editor runs. A failed file
+ * is tried again up to the number of retries, which covers transactions
+ * that lost a deadlock to another worker. Progress is printed as files
+ * complete, and a report of throughput and per-file latency at the end.
+ */
+public class BulkIngestCommand {
+	private static final Logger logger = LogManager.getLogger(EditorPO.class);
+
+	public static final String OPTION = "--ingest";
+	private static final int DEFAULT_RETRIES = 1;
+
+	private final IEditorBO businessObj;
+	private final int workers;
+	private final int retries;
+	private final PrintStream out;
+
+	public BulkIngestCommand(IEditorBO businessObj, int workers, int retries, PrintStream out) {
+		if (workers <= 0) {
+			throw new IllegalArgumentException("Number of workers must be positive: " + workers);
+		}
+		this.businessObj = businessObj;
+		this.workers = workers;
+		this.retries = Math.max(0, retries);
+		this.out = out;
+	}
+
+	/**
+	 * Runs the command for the arguments following --ingest and returns the
+	 * process exit status: 0 when every file was imported, 1 when some
+	 * failed and 2 for invalid arguments.
+	 */
+	public static int execute(IEditorBO businessObj, String[] args, PrintStream out) {
+		int workers = Math.min(4, Runtime.getRuntime().availableProcessors());
+		int retries = DEFAULT_RETRIES;
+		List<File> paths = new ArrayList<>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("--workers") && i + 1 < args.length) {
+					workers = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("--retries") && i + 1 < args.length) {
+					retries = Integer.parseInt(args[++i]);
+				} else if (args[i].startsWith("--")) {
+					throw new IllegalArgumentException("Unknown option: " + args[i]);
+				} else {
+					paths.add(new File(args[i]));
+				}
+			}
+			if (paths.isEmpty()) {
+				throw new IllegalArgumentException("No directory or file to ingest");
+			}
+			int maxWorkers = businessObj.getMaxConcurrentImports();
+			if (workers > maxWorkers) {
+				String warning = String.format("Using %d workers rather than %d: each holds a database connection "
+						+ "and the pool has %d", maxWorkers, workers, maxWorkers);
+				out.println(warning);
+				logger.warn(warning);
+				workers = maxWorkers;
+			}
+			Report report = new BulkIngestCommand(businessObj, workers, retries, out).run(paths);
+			return report.getFailedFiles() == 0 ? 0 : 1;
+		} catch (IllegalArgumentException e) {
+			out.println(e.getMessage());
+			out.println("Usage: " + OPTION + " [--workers N] [--retries N] <directory or file>...");
+			logger.error(e.getMessage());
+			return 2;
+		}
+	}
+
+	/**
+	 * Imports every importable file under the given paths and returns the
+	 * report, which is also printed.
+	 */
+	public Report run(List<File> paths) {
+		List<File> files = collectFiles(paths);
+		out.println(String.format("Ingesting %d files with %d workers", files.size(), workers));
+		logger.info(String.format("Bulk ingest of %d files with %d workers", files.size(), workers));
+
+		long pagesBefore = storedPageCount();
+		long start = System.nanoTime();
+		long[] latencies = new long[files.size()];
+		int failed = 0;
+
+		AtomicInteger count = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, "ingest-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			CompletionService<FileResult> completion = new ExecutorCompletionService<>(executor);
+			for (File file : files) {
+				completion.submit(() -> ingest(file));
+			}
+
+			int progressStep = Math.max(1, files.size() / 100);
+			for (int done = 1; done <= files.size(); done++) {
+				FileResult result = completion.take().get();
+				latencies[done - 1] = result.nanos;
+				if (!result.imported) {
+					failed++;
+					out.println("Failed: " + result.file.getPath());
+					logger.error("Bulk ingest failed for " + result.file.getPath());
+				}
+				if (done % progressStep == 0 || done == files.size()) {
+					double seconds = (System.nanoTime() - start) / 1e9;
+					out.println(String.format("%d/%d files (%d failed), %.1f files/s", done, files.size(), failed,
+							seconds > 0 ? done / seconds : 0.0));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.error(e.getMessage());
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+			logger.error(e.getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		long elapsed = System.nanoTime() - start;
+		Report report = new Report(files.size(), failed, Math.max(0, storedPageCount() - pagesBefore), elapsed,
+				latencies);
+		out.println(report);
+		logger.info(report.toString());
+		return report;
+	}
+
+	private FileResult ingest(File file) {
+		long start = System.nanoTime();
+		boolean imported = false;
+		for (int attempt = 0; attempt <= retries && !imported; attempt++) {
+			if (attempt > 0) {
+				logger.warn("Retrying import of " + file.getPath());
+			}
+			imported = businessObj.importTextFiles(file, file.getName());
+		}
+		return new FileResult(file, imported, System.nanoTime() - start);
+	}
+
+	/**
+	 * Files named directly and importable files found under directories, in
+	 * path order.
+	 */
+	private List<File> collectFiles(List<File> paths) {
+		List<File> files = new ArrayList<>();
+		for (File path : paths) {
+			if (path.isDirectory()) {
+				collectDirectory(path, files);
+			} else if (path.isFile()) {
+				files.add(path);
+			} else {
+				throw new IllegalArgumentException("No such file or directory: " + path.getPath());
+			}
+		}
+		return files;
+	}
+
+	private void collectDirectory(File directory, List<File> files) {
+		File[] entries = directory.listFiles();
+		if (entries == null) {
+			logger.warn("Unable to list " + directory.getPath());
+			return;
+		}
+		Arrays.sort(entries);
+		for (File entry : entries) {
+			if (entry.isDirectory()) {
+				collectDirectory(entry, files);
+			} else if (isImportable(entry)) {
+				files.add(entry);
+			}
+		}
+	}
+
+	private boolean isImportable(File file) {
+		String extension = businessObj.getFileExtension(file.getName());
+		return extension.equalsIgnoreCase("txt") || extension.equalsIgnoreCase("md");
+	}
+
+	private long storedPageCount() {
+		long pages = 0;
+		for (FileMetadata summary : businessObj.getFileSummaries()) {
+			pages += summary.getPageCount();
+		}
+		return pages;
+	}
+
+	private static final class FileResult {
+		final File file;
+		final boolean imported;
+		final long nanos;
+
+		FileResult(File file, boolean imported, long nanos) {
+			this.file = file;
+			this.imported = imported;
+			this.nanos = nanos;
+		}
+	}
+
+	/**
+	 * Outcome of a bulk ingest. Pages are those added to the database during
+	 * the run; latencies are per file, including retries.
+	 */
+	public static class Report {
+		private final int files;
+		private final int failedFiles;
+		private final long pages;
+		private final long elapsedNanos;
+		private final long[] sortedLatencies;
+
+		Report(int files, int failedFiles, long pages, long elapsedNanos, long[] latencies) {
+			this.files = files;
+			this.failedFiles = failedFiles;
+			this.pages = pages;
+			this.elapsedNanos = elapsedNanos;
+			this.sortedLatencies = latencies.clone();
+			Arrays.sort(this.sortedLatencies);
+		}
+
+		public int getFiles() {
+			return files;
+		}
+
+		public int getFailedFiles() {
+			return failedFiles;
+		}
+
+		public long getPages() {
+			return pages;
+		}
+
+		public double getElapsedSeconds() {
+			return elapsedNanos / 1e9;
+		}
+
+		public double getFilesPerSecond() {
+			return elapsedNanos == 0 ? 0.0 : files / getElapsedSeconds();
+		}
+
+		public double getPagesPerSecond() {
+			return elapsedNanos == 0 ? 0.0 : pages / getElapsedSeconds();
+		}
+
+		/**
+		 * Per-file latency in milliseconds at the given percentile (nearest
+		 * rank), 0 when no file was ingested.
+		 */
+		public double getLatencyMillis(double percentile) {
+			if (sortedLatencies.length == 0) {
+				return 0.0;
+			}
+			int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+			int index = Math.min(sortedLatencies.length - 1, Math.max(0, rank - 1));
+			return sortedLatencies[index] / 1e6;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"Ingested %d files (%d failed), %d pages in %.1f s: %.1f files/s, %.1f pages/s, p50 %.0f ms, p99 %.0f ms",
+					files - failedFiles, failedFiles, pages, getElapsedSeconds(), getFilesPerSecond(),
+					getPagesPerSecond(), getLatencyMillis(50), getLatencyMillis(99));
+		}
+	}
+}
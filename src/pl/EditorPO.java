@@ -11,7 +11,8 @@ import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.rmi.RemoteException;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -31,15 +32,20 @@ import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.table.DefaultTableModel;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import bll.AnalysisFiller;
+import bll.AutoSaveService;
 import bll.IEditorBO;
-import dto.Documents;
+import bll.WordCounter;
+import dto.FileMetadata;
 import dto.Pages;
+import dto.SearchHit;
 
 public class EditorPO extends JFrame {
 
@@ -57,19 +63,21 @@ public class EditorPO extends JFrame {
 	private JLabel importProgressLabel;
 	private JLabel avgWordLengthLabel;
 	private JLabel totalLineCountLabel;
-	private Documents doc;
-	private List<Pages> pages;
+	private FileMetadata doc;
+	private Pages loadedPage;
+	private Map<Integer, FileMetadata> fileSummaries = new HashMap<>();
 	private int currentPage = 1;
 	private int totalPageCount = 0;
 	private int selectedRow = 0;
 //	private int unselectedRows = 0;
 //	private int totalRows = 0;
 	private Thread importThread;
-	private Thread autoSaveThread;
-	private boolean autoSaveRunning = false;
+	private final AutoSaveService autoSave;
+	private final AnalysisFiller analysisFiller;
+	private Timer autoSaveTimer;
 	private Thread tfidfThread;
 	private int selectedDocFileId;
-	private Documents selectedDoc;
+	private FileMetadata selectedDoc;
 	private double tfidfScore = 0;
 	private Thread pklThread;
 	private Map<String, Double> pklResults = new HashMap<>();
@@ -95,6 +103,8 @@ public class EditorPO extends JFrame {
 
 	public EditorPO(IEditorBO businessObj) {
 		this.businessObj = businessObj;
+		this.autoSave = AutoSaveService.fromConfig(businessObj);
+		this.analysisFiller = AnalysisFiller.fromConfig(businessObj);
 		
 		try {
             UIManager.setLookAndFeel("javax.swing.plaf.nimbus.NimbusLookAndFeel");
@@ -123,6 +133,15 @@ public class EditorPO extends JFrame {
 		add(editPanel, "EditDocument");
 		add(transliterationPanel, "TransliterationView");
 
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				stopAutoSave();
+				autoSave.close();
+				analysisFiller.close();
+			}
+		});
+
 		setVisible(true);
 	}
 
@@ -150,6 +169,7 @@ public class EditorPO extends JFrame {
 		JButton viewFilesButton = new JButton("View Files");
 		JButton tfidfButton = new JButton("TF-IDF");
 		tfidfButton.setEnabled(false);
+		JButton statusButton = new JButton("Status");
 		JTextField searchfield = new JTextField(20);
 		JButton searchbutton = new JButton("Search");
 		importProgressLabel = new JLabel();
@@ -163,6 +183,7 @@ public class EditorPO extends JFrame {
         deleteFileButton.setFont(buttonFont);
         viewFilesButton.setFont(buttonFont);
         tfidfButton.setFont(buttonFont);
+        statusButton.setFont(buttonFont);
         searchbutton.setFont(buttonFont);
         importProgressLabel.setFont(buttonFont);
 		
@@ -176,6 +197,8 @@ public class EditorPO extends JFrame {
         viewFilesButton.setForeground(Color.BLACK);
         tfidfButton.setBackground(Color.WHITE);
         tfidfButton.setForeground(Color.BLACK);
+        statusButton.setBackground(Color.WHITE);
+        statusButton.setForeground(Color.BLACK);
         
         for (Component button : buttonPanel.getComponents()) {
             if (button instanceof JButton) {
@@ -188,6 +211,7 @@ public class EditorPO extends JFrame {
 		buttonPanel.add(deleteFileButton);
 		buttonPanel.add(viewFilesButton);
 		buttonPanel.add(tfidfButton);
+		buttonPanel.add(statusButton);
 		buttonPanel.add(searchfield);
 		buttonPanel.add(searchbutton);
 
@@ -209,26 +233,14 @@ public class EditorPO extends JFrame {
 						@Override
 						public void run() {
 							selectedDocFileId = (int) tableModel.getValueAt(selectedRow, 0);
-							selectedDoc = null;
-							selectedDoc = businessObj.getFile(selectedDocFileId);
-							pages = selectedDoc.getPages();
-							String selectedDocContent = null;
-							for (int i = 0; i < pages.size(); i++) {
-								selectedDocContent = pages.get(i).getPageContent();
-							}
+							selectedDoc = fileSummaries.get(selectedDocFileId);
+							String selectedDocContent = lastPageContent(selectedDoc);
 
 							List<String> unselectedDocsContent = new ArrayList<String>();
 							for (int row = 0; row < fileTable.getRowCount(); row++) {
 								int unselectedDocFileId = (int) tableModel.getValueAt(row, 0);
 								if (unselectedDocFileId != selectedDocFileId) {
-									Documents unselectedDoc = null;
-									unselectedDoc = businessObj.getFile(unselectedDocFileId);
-									pages = unselectedDoc.getPages();
-									String unselectedDocContent = null;
-									for (int i = 0; i < pages.size(); i++) {
-										unselectedDocContent = pages.get(i).getPageContent();
-									}
-									unselectedDocsContent.add(unselectedDocContent);
+									unselectedDocsContent.add(lastPageContent(fileSummaries.get(unselectedDocFileId)));
 								}
 							}
 							tfidfScore = businessObj.performTFIDF(unselectedDocsContent, selectedDocContent);
@@ -280,7 +292,7 @@ public class EditorPO extends JFrame {
 		searchbutton.addActionListener(e -> {
 			String keyword = searchfield.getText();
 			try {
-				List<String> resultFiles = businessObj.searchKeyword(keyword);
+				List<SearchHit> resultFiles = businessObj.searchKeywordHits(keyword);
 				if (resultFiles.isEmpty()) {
 					JOptionPane.showMessageDialog(this, "No files found while searching.");
 					logger.info("No files found while searching.");
@@ -293,6 +305,8 @@ public class EditorPO extends JFrame {
 			}
 		});
 
+		statusButton.addActionListener(e -> new StatusDialog(this, businessObj, analysisFiller).setVisible(true));
+
 		tfidfButton.addActionListener(e -> {
 			JOptionPane.showMessageDialog(null, "TF-IDF Score for '" + selectedDoc.getName() + "' is: " + tfidfScore);
 			logger.info("TF-IDF Score for '" + selectedDoc.getName() + "' is: " + tfidfScore);
@@ -312,6 +326,7 @@ public class EditorPO extends JFrame {
 		JButton saveFileButton = new JButton("Save File");
 		JButton backButton = new JButton("Back to Menu");
 		JButton transliterateButton = new JButton("Transliterate Content");
+		JButton transliterateFileButton = new JButton("Transliterate File");
 		JButton lemmatizeButton = new JButton("Lemmatize Content");
 		JButton extractPOSButton = new JButton("Extract POS");
 		JButton extractRootsButton = new JButton("Extract Roots");
@@ -323,6 +338,7 @@ public class EditorPO extends JFrame {
 		saveFileButton.setFont(buttonFont);
         backButton.setFont(buttonFont);
         transliterateButton.setFont(buttonFont);
+        transliterateFileButton.setFont(buttonFont);
         lemmatizeButton.setFont(buttonFont);
         extractPOSButton.setFont(buttonFont);
         extractRootsButton.setFont(buttonFont);
@@ -337,7 +353,7 @@ public class EditorPO extends JFrame {
 		previousButton.setEnabled(false);
 
 		pageCountLabel = new JLabel("Page 0 of 0");
-		savingStatusLabel = new JLabel("Auto-Saving...");
+		savingStatusLabel = new JLabel("");
 		wordCountLabel = new JLabel("Words: 0");
 		avgWordLengthLabel = new JLabel("(Avg Word Length: 0)");
 		totalLineCountLabel = new JLabel("Lines: 0");
@@ -360,6 +376,8 @@ public class EditorPO extends JFrame {
         backButton.setForeground(Color.BLACK);
         transliterateButton.setBackground(Color.WHITE);
         transliterateButton.setForeground(Color.BLACK);
+        transliterateFileButton.setBackground(Color.WHITE);
+        transliterateFileButton.setForeground(Color.BLACK);
         lemmatizeButton.setBackground(Color.WHITE);
         lemmatizeButton.setForeground(Color.BLACK);
         extractRootsButton.setBackground(Color.WHITE);
@@ -392,6 +410,7 @@ public class EditorPO extends JFrame {
 		editButtonPanel.add(saveFileButton);
 		editButtonPanel.add(backButton);
 		editButtonPanel.add(transliterateButton);
+		editButtonPanel.add(transliterateFileButton);
 		editButtonPanel.add(segmentationButton);
 		editButtonPanel.add(stemmingButton);
 		editButtonPanel.add(lemmatizeButton);
@@ -436,10 +455,7 @@ public class EditorPO extends JFrame {
 			saveFile();
 		});
 		backButton.addActionListener(e -> {
-			autoSaveRunning = false;
-			if (autoSaveThread != null && autoSaveThread.isAlive()) {
-				autoSaveThread.interrupt();
-			}
+			stopAutoSave();
 			
 		    totalLineCountRunning = false; 
 		    if (totalLineCountThread != null && totalLineCountThread.isAlive()) {
@@ -463,6 +479,9 @@ public class EditorPO extends JFrame {
 		transliterateButton.addActionListener(e -> {
 			transliterateContent();
 		});
+		transliterateFileButton.addActionListener(e -> {
+			transliterateFile();
+		});
 
 		lemmatizeButton.addActionListener(e -> displayWordResults(() -> {
 			return lemmaMap;
@@ -616,29 +635,11 @@ public class EditorPO extends JFrame {
 	}
 	
 	private double calculateAvgWordLength(String content) {
-	    if (content == null || content.isEmpty()) {
-	        return 0;
-	    }
-
-	    String[] words = content.split("\\s+");
-	    int totalLength = 0;
-	    int wordCount = 0;
-
-	    for (String word : words) {
-	        if (!word.isEmpty()) {
-	            totalLength += word.length();
-	            wordCount++;
-	        }
-	    }
-
-	    return wordCount == 0 ? 0 : (double) totalLength / wordCount;
+	    return WordCounter.averageWordLength(content);
 	}
 	
 	private int calculateWordCount(String text) {
-	    if (text == null || text.trim().isEmpty()) {
-	        return 0;
-	    }
-	    return text.trim().split("\\s+").length;
+	    return WordCounter.countWords(text);
 	}
 	
 	private int calculateLineCount(String content) {
@@ -651,39 +652,20 @@ public class EditorPO extends JFrame {
 
 	private void openEditPanel(int fileId) {
 		currentPage = 1;
-		doc = businessObj.getFile(fileId);
-		pages = doc.getPages();
-		totalPageCount = pages.size();
+		doc = fileSummaries.get(fileId);
+		if (doc == null) {
+			refreshFileList();
+			doc = fileSummaries.get(fileId);
+		}
+		totalPageCount = doc.getPageCount();
 
 		loadPage(currentPage);
 
-		if (autoSaveThread != null && autoSaveThread.isAlive()) {
-			autoSaveRunning = false;
-			try {
-				autoSaveThread.join();
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-			}
+		if (autoSaveTimer != null) {
+			autoSaveTimer.stop();
 		}
-
-		autoSaveThread = new Thread(new Runnable() {
-
-			@Override
-			public void run() {
-				autoSaveRunning = true;
-				while (autoSaveRunning) {
-					try {
-						autoSaveFile();
-						Thread.sleep(10000);
-					} catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
-					} catch (Exception e) {
-						e.printStackTrace();
-					}
-				}
-			}
-
-		});
+		// Runs on the event thread, which owns the text area; the write itself is queued
+		autoSaveTimer = new Timer((int) autoSave.getIntervalMillis(), e -> autoSaveFile());
 		
 		totalLineCountThread = new Thread(new Runnable() {
 	        
@@ -803,7 +785,7 @@ public class EditorPO extends JFrame {
 			}
 		});
 
-		autoSaveThread.start();
+		autoSaveTimer.start();
 		totalLineCountThread.start();
 		wordCountThread.start();
 		avgWordLengthThread.start();
@@ -858,7 +840,7 @@ public class EditorPO extends JFrame {
 				content = "";
 			}
 
-			boolean updated = businessObj.updateFile(fileId, fileName, currentPage, content);
+			boolean updated = autoSave.saveNow(fileId, fileName, currentPage, content);
 			JOptionPane.showMessageDialog(null,
 					updated ? "File updated successfully!" : "File update failed. Duplicate file may exist.");
 			logger.info(updated ? "File updated successfully!" : "File update failed. Duplicate file may exist.");
@@ -868,31 +850,49 @@ public class EditorPO extends JFrame {
 		}
 	}
 
-	private void autoSaveFile() throws RemoteException, InterruptedException {
-		int selectedRow = fileTable.getSelectedRow();
-		if (selectedRow != -1) {
-			int fileId = (int) tableModel.getValueAt(selectedRow, 0);
-			String fileName = (String) tableModel.getValueAt(selectedRow, 1);
-			String content = contentTextArea.getText();
+	private void autoSaveFile() {
+		if (doc == null) {
+			return;
+		}
+		String content = contentTextArea.getText();
 
-			if (content == null || content.trim().isEmpty()) {
-				content = "";
-			}
+		if (content == null || content.trim().isEmpty()) {
+			content = "";
+		}
 
-			boolean updated = businessObj.updateFile(fileId, fileName, currentPage, content);
-			if (updated) {
-				savingStatusLabel.setVisible(true);
-				Thread.sleep(5000);
-				savingStatusLabel.setVisible(false);
-			}
+		// Unchanged pages are not written; edits within the quiet period share one write
+		autoSave.submit(doc.getId(), doc.getName(), currentPage, content);
+		showAutoSaveStatus();
+	}
+
+	private void showAutoSaveStatus() {
+		int pending = autoSave.getPendingCount();
+		long lastFlush = autoSave.getLastFlushMillis();
+		if (pending > 0) {
+			savingStatusLabel.setText("Auto-Saving... (" + pending + " pending)");
+		} else if (lastFlush >= 0) {
+			savingStatusLabel.setText("Saved (" + lastFlush + " ms)");
 		} else {
-			JOptionPane.showMessageDialog(null, "Unable to Save File");
+			savingStatusLabel.setText("");
+		}
+	}
+
+	private void stopAutoSave() {
+		if (autoSaveTimer != null) {
+			autoSaveTimer.stop();
+		}
+		if (doc != null) {
+			autoSaveFile();
+		}
+		if (!autoSave.flush()) {
 			logger.error("Unable to Save File");
 		}
+		showAutoSaveStatus();
 	}
 
 	private void nextPage() {
 		if (currentPage < totalPageCount) {
+			autoSaveFile();
 			currentPage++;
 			loadPage(currentPage);
 		}
@@ -900,19 +900,24 @@ public class EditorPO extends JFrame {
 
 	private void previousPage() {
 		if (currentPage > 1) {
+			autoSaveFile();
 			currentPage--;
 			loadPage(currentPage);
 		}
 	}
 
 	private void loadPage(int page) {
-		String pageContent = "";
-		for (int i = 0; i < pages.size(); i++) {
-			if (page == pages.get(i).getPageNumber()) {
-				pageContent = pages.get(i).getPageContent();
-			}
+		// Only the page being shown is read from the database
+		loadedPage = businessObj.getPage(doc.getId(), page);
+		String content = loadedPage == null ? "" : loadedPage.getPageContent();
+		if (loadedPage != null) {
+			// Analyses left pending on import are computed once the page is opened
+			analysisFiller.request(loadedPage.getPageId());
 		}
-		contentTextArea.setText(pageContent);
+		autoSave.markSaved(doc.getId(), page, content);
+		// An edit of this page that is still queued is newer than the stored page
+		String pending = autoSave.pendingContent(doc.getId(), page);
+		contentTextArea.setText(pending != null ? pending : content);
 
 		pageCountLabel.setText("Page " + (page) + " of " + totalPageCount);
 
@@ -928,7 +933,7 @@ public class EditorPO extends JFrame {
 
 	private void transliterateContent() {
 		String content = contentTextArea.getText();
-		int pageId = pages.get(currentPage - 1).getPageId();
+		int pageId = loadedPage.getPageId();
 		if (content != null && !content.trim().isEmpty()) {
 			String transliteratedContent = businessObj.transliterate(pageId, content);
 			transliteratedTextArea.setText(transliteratedContent);
@@ -941,19 +946,47 @@ public class EditorPO extends JFrame {
 		}
 	}
 
+	private void transliterateFile() {
+		if (doc == null) {
+			return;
+		}
+		// Pages still waiting to be saved are written first, so the whole file is transliterated as edited
+		autoSaveFile();
+		if (!autoSave.flush()) {
+			JOptionPane.showMessageDialog(null, "Unable to save the file before transliterating it.");
+			logger.error("Unable to save the file before transliterating it.");
+			return;
+		}
+		int pages = businessObj.transliterateFile(doc.getId());
+		String message = pages >= 0 ? "Transliterated " + pages + " pages." : "File transliteration failed.";
+		JOptionPane.showMessageDialog(null, message);
+		logger.info(message);
+	}
+
 	private void refreshFilePage(int fileId, int currPage) {
 		openEditPanel(fileId);
 		loadPage(currPage);
 	}
 
 	private void refreshFileList() {
-		List<Documents> docs = businessObj.getAllFiles();
+		List<FileMetadata> docs = businessObj.getFileSummaries();
 		tableModel.setRowCount(0);
 
-		for (Documents doc : docs) {
+		Map<Integer, FileMetadata> summaries = new HashMap<>();
+		for (FileMetadata doc : docs) {
+			summaries.put(doc.getId(), doc);
 			Object[] rowData = { doc.getId(), doc.getName(), doc.getLastModified(), doc.getDateCreated() };
 			tableModel.addRow(rowData);
 		}
+		fileSummaries = summaries;
+	}
+
+	private String lastPageContent(FileMetadata file) {
+		if (file == null) {
+			return null;
+		}
+		Pages lastPage = businessObj.getPage(file.getId(), file.getPageCount());
+		return lastPage == null ? null : lastPage.getPageContent();
 	}
 
 }
\ No newline at end of file
@@ -6,6 +6,8 @@ import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 import java.util.List;
 
+import dto.SearchHit;
+
 class ButtonColumn extends JButton {
     /**
 	 * 
@@ -21,12 +23,12 @@ class SearchResultsTableModel extends DefaultTableModel {
 	private static final long serialVersionUID = 1L;
 
 	public SearchResultsTableModel() {
-        super(new Object[]{"File Name", "Prefix", "Keyword", "Actions"}, 0);
+        super(new Object[]{"File Name", "Page", "Prefix", "Keyword", "Actions"}, 0);
     }
 
     @Override
     public boolean isCellEditable(int row, int column) {
-        return column == 3;
+        return column == 4;
     }
 }
 
@@ -35,7 +37,7 @@ public class SearchFrame extends JFrame {
 	private JTable resultsTable;
     private SearchResultsTableModel tableModel;
 
-    public SearchFrame(List<String> searchResults) {
+    public SearchFrame(List<SearchHit> searchResults) {
         setTitle("Search Results");
         setExtendedState(JFrame.MAXIMIZED_BOTH);
 		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -49,7 +51,7 @@ public class SearchFrame extends JFrame {
 			@Override
             public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
                 Component c = super.prepareRenderer(renderer, row, column);
-                if (column == 3) {
+                if (column == 4) {
                     JButton button = new ButtonColumn("Replace");
                     button.setPreferredSize(new Dimension(80, 30));
                     button.addActionListener(e -> {
@@ -62,16 +64,8 @@ public class SearchFrame extends JFrame {
         };
         JScrollPane scrollPane = new JScrollPane(resultsTable);
 
-        for (String result : searchResults) {
-            String[] parts = result.split(" - ");
-            if (parts.length == 2) {
-                String fileName = parts[0];
-                String prefixAndKeyword = parts[1];
-                String[] prefixAndKeywordParts = prefixAndKeyword.split(" ");
-                String prefix = prefixAndKeywordParts[0];
-                String keyword = prefixAndKeywordParts[1];
-                tableModel.addRow(new Object[]{fileName, prefix, keyword, "Replace"});
-            }
+        for (SearchHit hit : searchResults) {
+            tableModel.addRow(new Object[]{hit.getFileName(), hit.getPageNumber(), hit.getPrefixWord(), hit.getWord(), "Replace"});
         }
 
         JButton backButton = new JButton("Back to Menu");
@@ -0,0 +1,122 @@
+package pl;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Frame;
+import java.awt.GridLayout;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.border.TitledBorder;
+import javax.swing.table.DefaultTableModel;
+
+import bll.AnalysisFiller;
+import bll.IEditorBO;
+import dto.StageStatistics;
+
+/**
+ * Shows the latency of every recorded stage of create, import, update,
+ * delete, search and transliterate, and the rows changed per table, as
+ * collected since the application started, along with the analysis jobs
+ * left per status and the rate the background workers get through them.
+ */
+public class StatusDialog extends JDialog {
+	private static final long serialVersionUID = 1L;
+
+	private final IEditorBO businessObj;
+	private final DefaultTableModel stageModel;
+	private final DefaultTableModel tableModel;
+	private final AnalysisFiller analysisFiller;
+	private final DefaultTableModel jobModel;
+
+	public StatusDialog(Frame owner, IEditorBO businessObj, AnalysisFiller analysisFiller) {
+		super(owner, "Status", false);
+		this.businessObj = businessObj;
+		this.analysisFiller = analysisFiller;
+
+		stageModel = readOnlyModel(new Object[] { "Stage", "Count", "Total (ms)", "Mean (ms)", "p50 (ms)", "p90 (ms)",
+				"p99 (ms)", "Max (ms)" });
+		tableModel = readOnlyModel(new Object[] { "Table", "Rows" });
+		jobModel = readOnlyModel(new Object[] { "Analysis jobs", "Value" });
+
+		JTable stageTable = new JTable(stageModel);
+		stageTable.getTableHeader().setReorderingAllowed(false);
+		stageTable.setAutoCreateRowSorter(true);
+		JScrollPane stageScroller = new JScrollPane(stageTable);
+		stageScroller.setBorder(new TitledBorder("Stages"));
+
+		JTable rowsTable = new JTable(tableModel);
+		rowsTable.getTableHeader().setReorderingAllowed(false);
+		JScrollPane rowsScroller = new JScrollPane(rowsTable);
+		rowsScroller.setBorder(new TitledBorder("Rows per table"));
+
+		JTable jobTable = new JTable(jobModel);
+		jobTable.getTableHeader().setReorderingAllowed(false);
+		JScrollPane jobScroller = new JScrollPane(jobTable);
+		jobScroller.setBorder(new TitledBorder("Background analysis"));
+
+		JPanel countsPanel = new JPanel(new GridLayout(2, 1));
+		countsPanel.add(rowsScroller);
+		countsPanel.add(jobScroller);
+
+		JPanel tablesPanel = new JPanel(new GridLayout(1, 2));
+		tablesPanel.add(stageScroller);
+		tablesPanel.add(countsPanel);
+
+		JButton refreshButton = new JButton("Refresh");
+		refreshButton.addActionListener(e -> refresh());
+		JButton closeButton = new JButton("Close");
+		closeButton.addActionListener(e -> dispose());
+		JPanel buttonPanel = new JPanel(new FlowLayout());
+		buttonPanel.add(refreshButton);
+		buttonPanel.add(closeButton);
+
+		setLayout(new BorderLayout());
+		add(tablesPanel, BorderLayout.CENTER);
+		add(buttonPanel, BorderLayout.SOUTH);
+		setSize(1100, 500);
+		setLocationRelativeTo(owner);
+		refresh();
+	}
+
+	private static DefaultTableModel readOnlyModel(Object[] columns) {
+		return new DefaultTableModel(columns, 0) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean isCellEditable(int row, int column) {
+				return false;
+			}
+		};
+	}
+
+	private void refresh() {
+		stageModel.setRowCount(0);
+		for (StageStatistics stage : businessObj.getStageStatistics()) {
+			stageModel.addRow(new Object[] { stage.getStage(), stage.getCount(), format(stage.getTotalMillis()),
+					format(stage.getMeanMillis()), format(stage.getP50Millis()), format(stage.getP90Millis()),
+					format(stage.getP99Millis()), format(stage.getMaxMillis()) });
+		}
+		tableModel.setRowCount(0);
+		for (Map.Entry<String, Long> table : businessObj.getTableRowCounts().entrySet()) {
+			tableModel.addRow(new Object[] { table.getKey(), table.getValue() });
+		}
+		jobModel.setRowCount(0);
+		for (Map.Entry<String, Integer> status : analysisFiller.getQueueDepth().entrySet()) {
+			jobModel.addRow(new Object[] { status.getKey(), status.getValue() });
+		}
+		jobModel.addRow(new Object[] { "workers", analysisFiller.getWorkerCount() });
+		jobModel.addRow(new Object[] { "jobs/s (last minute)", format(analysisFiller.getJobsPerSecond()) });
+		jobModel.addRow(new Object[] { "jobs done", analysisFiller.getJobsDone() });
+		jobModel.addRow(new Object[] { "failures", analysisFiller.getFailureCount() });
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+}